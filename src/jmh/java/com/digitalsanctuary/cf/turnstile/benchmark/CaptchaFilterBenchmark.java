@@ -0,0 +1,74 @@
+package com.digitalsanctuary.cf.turnstile.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.filter.TurnstileCaptchaFilter;
+import com.digitalsanctuary.cf.turnstile.metrics.NoOpTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+/**
+ * Measures {@link TurnstileCaptchaFilter} on a login submission, which is validated against a {@link SiteverifySimulator} answering in memory,
+ * and on a request to another path, which only passes through.
+ * <p>
+ * The filter is invoked through {@code doFilter}, so the {@code OncePerRequestFilter} bookkeeping around {@code doFilterInternal} is included.
+ * The token is valid, so the request and response are never redirected and are reused across invocations.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CaptchaFilterBenchmark {
+
+    private static final String TOKEN = "0.AbCdEfGhIjKlMnOpQrStUvWxYz0123456789-_AbCdEfGhIjKlMnOpQrStUvWxYz0123456789";
+
+    /** Whether the request targets the login submission path. */
+    @Param({"MATCHING", "NON_MATCHING"})
+    public String path;
+
+    private static final FilterChain CHAIN = (request, response) -> {
+    };
+
+    private SiteverifySimulator simulator;
+    private TurnstileCaptchaFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Every invocation sends the same token, so duplicate detection is off
+        simulator = SiteverifySimulator.builder().duplicateMemory(0).start();
+        TurnstileConfigProperties properties = simulator.properties();
+        filter = new TurnstileCaptchaFilter(simulator.inMemoryService(properties, new NoOpTurnstileMetrics()), properties);
+        String servletPath = "MATCHING".equals(path) ? properties.getLogin().getSubmissionPath() : "/account/settings";
+        request = new MockHttpServletRequest("POST", servletPath);
+        request.setServletPath(servletPath);
+        request.setRemoteAddr("203.0.113.7");
+        request.addParameter(properties.getToken().getParameterName(), TOKEN);
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown
+    public void tearDown() {
+        simulator.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilter() throws ServletException, IOException {
+        filter.doFilter(request, response, CHAIN);
+        return response;
+    }
+}
@@ -0,0 +1,52 @@
+package com.digitalsanctuary.cf.turnstile.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import com.digitalsanctuary.cf.turnstile.filter.ServletClientIpResolver;
+
+/**
+ * Measures {@link ServletClientIpResolver#getClientIpAddress(jakarta.servlet.ServletRequest)} across the proxy header shapes it handles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ClientIpBenchmark {
+
+    /** The proxy headers present on the request. */
+    @Param({"REMOTE_ADDR", "FORWARDED_SINGLE", "FORWARDED_CHAIN", "FORWARDED_UNKNOWN", "LAST_HEADER"})
+    public String headers;
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        request = new MockHttpServletRequest("POST", "/login");
+        request.setRemoteAddr("10.0.0.1");
+        switch (headers) {
+            case "REMOTE_ADDR" -> {
+                // No proxy headers: every header is looked up before falling back to the remote address
+            }
+            case "FORWARDED_SINGLE" -> request.addHeader("X-Forwarded-For", "203.0.113.7");
+            case "FORWARDED_CHAIN" -> request.addHeader("X-Forwarded-For", "203.0.113.7, 198.51.100.2, 10.0.0.3, 10.0.0.4");
+            case "FORWARDED_UNKNOWN" -> {
+                request.addHeader("X-Forwarded-For", "unknown");
+                request.addHeader("Proxy-Client-IP", "203.0.113.7");
+            }
+            case "LAST_HEADER" -> request.addHeader("HTTP_X_FORWARDED_FOR", "203.0.113.7");
+            default -> throw new IllegalArgumentException(headers);
+        }
+    }
+
+    @Benchmark
+    public String clientIp() {
+        return ServletClientIpResolver.getClientIpAddress(request);
+    }
+}
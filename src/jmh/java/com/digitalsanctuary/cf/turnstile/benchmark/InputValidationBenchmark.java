@@ -0,0 +1,61 @@
+package com.digitalsanctuary.cf.turnstile.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
+import com.digitalsanctuary.cf.turnstile.metrics.NoOpTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+
+/**
+ * Measures the local rejection paths of {@link TurnstileValidationService#validateTurnstileResponseDetailed(String)}: tokens that fail the input
+ * and structural checks and never reach siteverify.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InputValidationBenchmark {
+
+    private static final String TOKEN = "0.AbCdEfGhIjKlMnOpQrStUvWxYz0123456789-_AbCdEfGhIjKlMnOpQrStUvWxYz0123456789";
+
+    /** The kind of malformed token. */
+    @Param({"NULL", "BLANK", "SHORT", "LONG", "ILLEGAL_CHARACTER"})
+    public String shape;
+
+    private SiteverifySimulator simulator;
+    private TurnstileValidationService service;
+    private String token;
+
+    @Setup
+    public void setUp() throws IOException {
+        simulator = SiteverifySimulator.builder().start();
+        service = simulator.inMemoryService(simulator.properties(), new NoOpTurnstileMetrics());
+        token = switch (shape) {
+            case "NULL" -> null;
+            case "BLANK" -> "                                        ";
+            case "SHORT" -> "0123456789";
+            case "LONG" -> "A".repeat(4096);
+            case "ILLEGAL_CHARACTER" -> TOKEN.substring(0, 40) + "<script>" + TOKEN.substring(40);
+            default -> throw new IllegalArgumentException(shape);
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        simulator.close();
+    }
+
+    @Benchmark
+    public ValidationResult reject() {
+        return service.validateTurnstileResponseDetailed(token);
+    }
+}
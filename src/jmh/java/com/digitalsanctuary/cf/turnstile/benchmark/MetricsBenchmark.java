@@ -0,0 +1,53 @@
+package com.digitalsanctuary.cf.turnstile.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.InputErrorReason;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
+import com.digitalsanctuary.cf.turnstile.metrics.MicrometerTurnstileMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Measures {@link MicrometerTurnstileMetrics} recording from several threads at once into one {@link SimpleMeterRegistry}: pre-registered counters
+ * and timers, and tagged counters looked up per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class MetricsBenchmark {
+
+    private MicrometerTurnstileMetrics metrics;
+
+    @Setup
+    public void setUp() {
+        metrics = new MicrometerTurnstileMetrics(new SimpleMeterRegistry());
+    }
+
+    /**
+     * Records what one successful validation records: the attempt, the success and the response time.
+     */
+    @Benchmark
+    public void recordSuccessfulValidation() {
+        metrics.recordValidation();
+        metrics.recordSuccess();
+        metrics.recordResponseTime(42);
+    }
+
+    @Benchmark
+    public void recordError() {
+        metrics.recordError(ValidationResultType.INVALID_TOKEN);
+    }
+
+    @Benchmark
+    public void recordTaggedCounter() {
+        metrics.recordInputRejected(InputErrorReason.TOO_SHORT.tagValue());
+    }
+}
@@ -0,0 +1,68 @@
+package com.digitalsanctuary.cf.turnstile.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileValidationException;
+import com.digitalsanctuary.cf.turnstile.metrics.NoOpTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SimulatedOutcome;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+
+/**
+ * Measures the full {@link TurnstileValidationService#validateTurnstileResponseDetailed(String, String)} path with default settings: input checks,
+ * request building, the {@code RestClient} exchange and response decoding. Siteverify is answered in memory by
+ * {@link SiteverifySimulator#inMemoryService}, so the simulator's request parsing and verdict are part of the measured cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidationBenchmark {
+
+    private static final String TOKEN = "0.AbCdEfGhIjKlMnOpQrStUvWxYz0123456789-_AbCdEfGhIjKlMnOpQrStUvWxYz0123456789";
+
+    /** The siteverify verdict returned by the simulator. */
+    @Param({"SUCCESS", "INVALID_TOKEN"})
+    public String verdict;
+
+    private SiteverifySimulator simulator;
+    private TurnstileValidationService service;
+
+    @Setup
+    public void setUp() throws IOException {
+        SimulatedOutcome outcome = "SUCCESS".equals(verdict) ? SimulatedOutcome.success()
+                : SimulatedOutcome.error(TurnstileErrorCode.INVALID_INPUT_RESPONSE);
+        // Every invocation sends the same token, so duplicate detection is off
+        simulator = SiteverifySimulator.builder().defaultOutcome(outcome).duplicateMemory(0).start();
+        service = simulator.inMemoryService(simulator.properties(), new NoOpTurnstileMetrics());
+    }
+
+    @TearDown
+    public void tearDown() {
+        simulator.close();
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return service.validateTurnstileResponse(TOKEN, "203.0.113.7");
+    }
+
+    @Benchmark
+    public Object validateDetailed() {
+        try {
+            return service.validateTurnstileResponseDetailed(TOKEN, "203.0.113.7");
+        } catch (TurnstileValidationException e) {
+            // A rejected token is thrown, so the exception is part of the measured cost
+            return e;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.digitalsanctuary.cf.turnstile.loadtest;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Sample application driven by the load harness: a login endpoint behind {@link com.digitalsanctuary.cf.turnstile.filter.TurnstileCaptchaFilter}.
+ * <p>
+ * The endpoint does no work of its own, so the measured cost is the container's, the filter's and the library's.
+ * </p>
+ */
+@SpringBootApplication
+@RestController
+public class LoadTestApplication {
+
+    /**
+     * Accepts a login submission that passed the captcha filter.
+     *
+     * @return a fixed body
+     */
+    @PostMapping("/login")
+    public String login() {
+        return "ok";
+    }
+}
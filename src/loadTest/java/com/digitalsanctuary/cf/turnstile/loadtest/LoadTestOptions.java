@@ -0,0 +1,90 @@
+package com.digitalsanctuary.cf.turnstile.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options of the load harness, given as {@code --name=value}.
+ * <p>
+ * Options whose name starts with {@code ds.cf.turnstile.}, {@code server.} or {@code spring.} are not harness options: they are passed to the
+ * sample application as Spring properties, so any library feature can be switched on for a run, for example
+ * {@code --ds.cf.turnstile.cache.enabled=true}.
+ * </p>
+ *
+ * @param rps the request arrival rate, per second
+ * @param concurrency the maximum requests in flight; arrivals beyond it are dropped and counted, not queued
+ * @param warmup how long to run before measuring
+ * @param duration how long to measure
+ * @param soak whether to run as a soak test, sampling heap and library gauges every {@code sampleInterval}
+ * @param sampleInterval the soak sampling interval
+ * @param maxHeapGrowth the fraction the post-GC heap may grow over a soak run before the run fails
+ * @param clients the number of distinct client IPs requests are spread over
+ * @param invalidRate the share of requests carrying a token the simulator rejects
+ * @param latencyMedian the median siteverify latency of the simulator, or zero for none
+ * @param latencyP99 the 99th percentile siteverify latency of the simulator
+ * @param appProperties the Spring properties passed to the sample application
+ */
+public record LoadTestOptions(int rps, int concurrency, Duration warmup, Duration duration, boolean soak, Duration sampleInterval,
+        double maxHeapGrowth, int clients, double invalidRate, Duration latencyMedian, Duration latencyP99, Map<String, String> appProperties) {
+
+    /**
+     * Parses the command line.
+     *
+     * @param args the arguments, each {@code --name=value} or {@code --soak}
+     * @return the options
+     * @throws IllegalArgumentException if an argument is malformed or unknown
+     */
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            String name = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+            String value = eq < 0 ? "true" : arg.substring(eq + 1);
+            if (name.startsWith("ds.cf.turnstile.") || name.startsWith("server.") || name.startsWith("spring.")) {
+                appProperties.put(name, value);
+            } else {
+                values.put(name, value);
+            }
+        }
+        boolean soak = Boolean.parseBoolean(values.remove("soak"));
+        LoadTestOptions options = new LoadTestOptions(Integer.parseInt(values.getOrDefault("rps", "500")),
+                Integer.parseInt(values.getOrDefault("concurrency", "256")), duration(values.getOrDefault("warmup", "10s")),
+                duration(values.getOrDefault("duration", soak ? "30m" : "60s")), soak, duration(values.getOrDefault("sample-interval", "30s")),
+                Double.parseDouble(values.getOrDefault("max-heap-growth", "0.25")), Integer.parseInt(values.getOrDefault("clients", "1000")),
+                Double.parseDouble(values.getOrDefault("invalid-rate", "0.05")), duration(values.getOrDefault("latency-median", "40ms")),
+                duration(values.getOrDefault("latency-p99", "250ms")), appProperties);
+        for (String known : new String[] {"rps", "concurrency", "warmup", "duration", "sample-interval", "max-heap-growth", "clients", "invalid-rate",
+                "latency-median", "latency-p99"}) {
+            values.remove(known);
+        }
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + values.keySet());
+        }
+        if (options.rps() <= 0 || options.concurrency() <= 0 || options.clients() <= 0) {
+            throw new IllegalArgumentException("rps, concurrency and clients must be positive");
+        }
+        return options;
+    }
+
+    /**
+     * Parses a duration such as {@code 250ms}, {@code 60s}, {@code 30m} or {@code 2h}.
+     */
+    private static Duration duration(String value) {
+        String trimmed = value.trim();
+        if (trimmed.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(trimmed.substring(0, trimmed.length() - 2)));
+        }
+        long amount = Long.parseLong(trimmed.substring(0, trimmed.length() - 1));
+        return switch (trimmed.charAt(trimmed.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Expected a duration such as 250ms, 60s, 30m or 2h but got " + value);
+        };
+    }
+}
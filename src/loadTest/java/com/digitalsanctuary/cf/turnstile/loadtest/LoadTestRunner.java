@@ -0,0 +1,176 @@
+package com.digitalsanctuary.cf.turnstile.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+import com.digitalsanctuary.cf.turnstile.simulator.LatencyDistribution;
+import com.digitalsanctuary.cf.turnstile.simulator.SimulatedOutcome;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs the end-to-end load harness: a {@link SiteverifySimulator}, the {@link LoadTestApplication} on embedded Tomcat with the captcha filter
+ * enabled, and an {@link OpenModelLoadGenerator} driving its login endpoint.
+ * <p>
+ * A load run warms up, measures for {@code --duration} and reports throughput, latency percentiles, request outcomes, thread counts and heap use.
+ * A soak run ({@code --soak}) additionally switches on the success cache, replay set, penalty box and rate limiter, prints one line per
+ * {@code --sample-interval} with the post-GC heap and every {@code turnstile.*} gauge, and exits with status 1 if the post-GC heap grew by more
+ * than {@code --max-heap-growth} from the first sample to the last.
+ * </p>
+ * <p>
+ * The simulator, application and generator share one JVM, so thread counts and heap include all three.
+ * </p>
+ */
+public final class LoadTestRunner {
+
+    private static final String SECRET = "0x4AAAAAAALoadTestSecretValue";
+
+    private LoadTestRunner() {
+    }
+
+    /**
+     * Runs the harness.
+     *
+     * @param args the options described in {@link LoadTestOptions}
+     * @throws Exception if the simulator or application cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        SiteverifySimulator.Builder simulatorBuilder = SiteverifySimulator.builder().expectedSecret(SECRET)
+                .rule("bad-.*", SimulatedOutcome.error(TurnstileErrorCode.INVALID_INPUT_RESPONSE))
+                // Every token is unique, so the duplicate memory would only add to the measured heap
+                .duplicateMemory(0);
+        if (!options.latencyMedian().isZero()) {
+            simulatorBuilder.latency(LatencyDistribution.logNormal(options.latencyMedian(), options.latencyP99()));
+        }
+
+        int status;
+        try (SiteverifySimulator simulator = simulatorBuilder.start();
+                ConfigurableApplicationContext context = new SpringApplicationBuilder(LoadTestApplication.class)
+                        .properties(applicationProperties(options, simulator)).run()) {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            URI target = URI.create("http://127.0.0.1:" + port + "/login");
+            String tokenParameter = context.getEnvironment().getProperty("ds.cf.turnstile.token.parameter-name", "cf-turnstile-response");
+            MeterRegistry registry = context.getBeanProvider(MeterRegistry.class).getIfAvailable();
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(5)).build();
+            OpenModelLoadGenerator generator = new OpenModelLoadGenerator(client, target, tokenParameter, options);
+
+            System.out.printf(Locale.ROOT, "Target %s, simulator %s, %d req/s, concurrency %d, %d clients, %.1f%% invalid%n", target,
+                    simulator.url(), options.rps(), options.concurrency(), options.clients(), options.invalidRate() * 100);
+            if (!options.warmup().isZero()) {
+                System.out.println("Warming up for " + options.warmup());
+                generator.run(options.warmup());
+            }
+            status = options.soak() ? soak(options, generator, registry) : load(options, generator);
+        }
+        System.exit(status);
+    }
+
+    private static Map<String, Object> applicationProperties(LoadTestOptions options, SiteverifySimulator simulator) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("ds.cf.turnstile.login.enabled", "true");
+        properties.put("ds.cf.turnstile.secret", SECRET);
+        properties.put("ds.cf.turnstile.sitekey", "0x4AAAAAAALoadTestSitekey");
+        properties.put("ds.cf.turnstile.url", simulator.url());
+        // The generator spreads requests over client IPs through X-Forwarded-For from loopback
+        properties.put("ds.cf.turnstile.trusted-proxies", "127.0.0.1");
+        properties.put("logging.level.com.digitalsanctuary.cf.turnstile", "ERROR");
+        if (options.soak()) {
+            // Exercise every bounded structure; the rate limit is generous enough not to reject the generated load
+            properties.put("ds.cf.turnstile.cache.enabled", "true");
+            properties.put("ds.cf.turnstile.replay.enabled", "true");
+            properties.put("ds.cf.turnstile.penalty-box.enabled", "true");
+            properties.put("ds.cf.turnstile.rate-limit.enabled", "true");
+            properties.put("ds.cf.turnstile.rate-limit.capacity", String.valueOf(Math.max(10, options.rps())));
+            properties.put("ds.cf.turnstile.rate-limit.refill-per-second", String.valueOf(Math.max(10, options.rps())));
+        }
+        properties.putAll(options.appProperties());
+        return properties;
+    }
+
+    private static int load(LoadTestOptions options, OpenModelLoadGenerator generator) {
+        System.out.println("Measuring for " + options.duration());
+        OpenModelLoadGenerator.Snapshot result = generator.run(options.duration());
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapUsed = memory.getHeapMemoryUsage().getUsed();
+
+        System.out.printf(Locale.ROOT, "Throughput   %.1f req/s (%d sent, %d completed, %d dropped)%n", result.throughput(), result.sent(),
+                result.completed(), result.dropped());
+        System.out.printf(Locale.ROOT, "Outcomes     %d passed, %d redirected, %d rejected, %d failed%n", result.passed(), result.redirected(),
+                result.rejected(), result.failed());
+        System.out.printf(Locale.ROOT, "Latency ms   p50 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n", result.p50(), result.p99(), result.p999(),
+                result.max());
+        System.out.printf(Locale.ROOT, "Threads      %d live, %d peak%n", threads.getThreadCount(), threads.getPeakThreadCount());
+        System.out.printf(Locale.ROOT, "Heap MiB     %.1f used, %.1f after GC%n", mib(heapUsed), mib(heapAfterGc()));
+        return 0;
+    }
+
+    private static int soak(LoadTestOptions options, OpenModelLoadGenerator generator, MeterRegistry registry) {
+        System.out.println("Soaking for " + options.duration() + ", sampling every " + options.sampleInterval());
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long deadline = System.nanoTime() + options.duration().toNanos();
+        long firstHeap = -1;
+        long lastHeap = -1;
+        Duration elapsed = Duration.ZERO;
+        while (System.nanoTime() < deadline) {
+            Duration window = Duration.ofNanos(Math.min(options.sampleInterval().toNanos(), deadline - System.nanoTime()));
+            OpenModelLoadGenerator.Snapshot sample = generator.run(window);
+            elapsed = elapsed.plus(sample.elapsed());
+            lastHeap = heapAfterGc();
+            if (firstHeap < 0) {
+                firstHeap = lastHeap;
+            }
+            System.out.printf(Locale.ROOT, "%6ds  %8.1f req/s  p99 %8.2f ms  heap %7.1f MiB  threads %4d  dropped %d  failed %d  %s%n",
+                    elapsed.toSeconds(), sample.throughput(), sample.p99(), mib(lastHeap), threads.getThreadCount(), sample.dropped(),
+                    sample.failed(), gauges(registry));
+        }
+
+        double growth = firstHeap > 0 ? (double) (lastHeap - firstHeap) / firstHeap : 0;
+        System.out.printf(Locale.ROOT, "Heap after GC grew %.1f%% (%.1f to %.1f MiB), limit %.1f%%%n", growth * 100, mib(firstHeap), mib(lastHeap),
+                options.maxHeapGrowth() * 100);
+        if (growth > options.maxHeapGrowth()) {
+            System.out.println("FAILED: heap growth exceeds the limit");
+            return 1;
+        }
+        return 0;
+    }
+
+    private static String gauges(MeterRegistry registry) {
+        if (registry == null) {
+            return "";
+        }
+        Map<String, Double> values = new TreeMap<>();
+        for (Meter meter : registry.getMeters()) {
+            if (meter instanceof Gauge gauge && meter.getId().getName().startsWith("turnstile.")) {
+                values.put(meter.getId().getName().substring("turnstile.".length()), gauge.value());
+            }
+        }
+        StringJoiner joiner = new StringJoiner(" ");
+        values.forEach((name, value) -> joiner.add(String.format(Locale.ROOT, value == Math.rint(value) ? "%s=%.0f" : "%s=%.3f", name, value)));
+        return joiner.toString();
+    }
+
+    private static long heapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static double mib(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,173 @@
+package com.digitalsanctuary.cf.turnstile.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import com.digitalsanctuary.cf.turnstile.metrics.LatencyHistogram;
+
+/**
+ * Open-model load generator: requests arrive at a fixed rate whatever the server's response time.
+ * <p>
+ * Each request has an intended start time on the arrival schedule, and its latency is measured from that time, not from when it was actually
+ * sent. A slow server therefore shows up as higher latency instead of a silently lower request rate (coordinated omission). When
+ * {@code concurrency} requests are already in flight, an arrival is dropped and counted instead of queued, so the schedule never drifts.
+ * </p>
+ * <p>
+ * Every request is a login form POST with a unique token. A share of {@code invalidRate} carries a token with the {@code bad-} prefix, which the
+ * harness's simulator rejects. Requests are spread over {@code clients} client IPs through {@code X-Forwarded-For}.
+ * </p>
+ */
+final class OpenModelLoadGenerator {
+
+    private final HttpClient client;
+    private final URI target;
+    private final String tokenParameter;
+    private final int rps;
+    private final int concurrency;
+    private final Semaphore inFlight;
+    private final int clients;
+    private final double invalidRate;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+    private final LongAdder redirected = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    OpenModelLoadGenerator(HttpClient client, URI target, String tokenParameter, LoadTestOptions options) {
+        this.client = client;
+        this.target = target;
+        this.tokenParameter = tokenParameter;
+        this.rps = options.rps();
+        this.concurrency = options.concurrency();
+        this.inFlight = new Semaphore(concurrency);
+        this.clients = options.clients();
+        this.invalidRate = options.invalidRate();
+    }
+
+    /**
+     * Sends requests on the arrival schedule for the given time, then waits for the requests still in flight.
+     *
+     * @param duration how long to generate arrivals
+     * @return the counts and latencies of this run
+     */
+    Snapshot run(Duration duration) {
+        resetCounters();
+        long interval = 1_000_000_000L / rps;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long next = start;
+        while (next < end) {
+            long now = System.nanoTime();
+            if (now < next) {
+                LockSupport.parkNanos(next - now);
+                continue;
+            }
+            // Behind schedule, arrivals are issued back to back until the schedule is caught up
+            send(next);
+            next += interval;
+        }
+        drain();
+        return snapshot(System.nanoTime() - start);
+    }
+
+    private void send(long intendedStart) {
+        sent.increment();
+        if (!inFlight.tryAcquire()) {
+            dropped.increment();
+            return;
+        }
+        long n = sequence.incrementAndGet();
+        boolean invalid = ThreadLocalRandom.current().nextDouble() < invalidRate;
+        String token = (invalid ? "bad-" : "ok-") + "0123456789abcdefghijklmnopqrstuvwxyz-" + n;
+        int clientIndex = (int) (n % clients);
+        String clientIp = "10." + ((clientIndex >> 16) & 0xff) + "." + ((clientIndex >> 8) & 0xff) + "." + (clientIndex & 0xff);
+        HttpRequest request = HttpRequest.newBuilder(target).header("Content-Type", "application/x-www-form-urlencoded")
+                .header("X-Forwarded-For", clientIp).POST(HttpRequest.BodyPublishers.ofString(tokenParameter + "=" + token)).build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            latency.record(System.nanoTime() - intendedStart);
+            if (error != null) {
+                failed.increment();
+            } else if (response.statusCode() < 300) {
+                passed.increment();
+            } else if (response.statusCode() < 400) {
+                redirected.increment();
+            } else {
+                rejected.increment();
+            }
+            inFlight.release();
+        });
+    }
+
+    private void drain() {
+        try {
+            // Holding every permit means no request is in flight
+            if (inFlight.tryAcquire(concurrency, 60, TimeUnit.SECONDS)) {
+                inFlight.release(concurrency);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void resetCounters() {
+        latency = new LatencyHistogram();
+        sent.reset();
+        passed.reset();
+        redirected.reset();
+        rejected.reset();
+        failed.reset();
+        dropped.reset();
+    }
+
+    private Snapshot snapshot(long elapsedNanos) {
+        long completed = passed.sum() + redirected.sum() + rejected.sum() + failed.sum();
+        return new Snapshot(Duration.ofNanos(elapsedNanos), sent.sum(), completed, passed.sum(), redirected.sum(), rejected.sum(), failed.sum(),
+                dropped.sum(), millis(latency.percentile(50)), millis(latency.percentile(99)), millis(latency.percentile(99.9)),
+                millis(latency.max()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * The outcome of one run.
+     *
+     * @param elapsed the run time, including the wait for requests in flight at the end
+     * @param sent the arrivals on the schedule
+     * @param completed the requests that got a response or failed
+     * @param passed the responses with a 2xx status: the captcha filter let the login through
+     * @param redirected the responses with a 3xx status: the captcha filter rejected the token
+     * @param rejected the responses with a 4xx or 5xx status, such as rate limiter or penalty box rejections
+     * @param failed the requests that failed without a response
+     * @param dropped the arrivals not sent because {@code concurrency} requests were in flight
+     * @param p50 the median latency, in milliseconds
+     * @param p99 the 99th percentile latency, in milliseconds
+     * @param p999 the 99.9th percentile latency, in milliseconds
+     * @param max the highest latency, in milliseconds
+     */
+    record Snapshot(Duration elapsed, long sent, long completed, long passed, long redirected, long rejected, long failed, long dropped,
+            double p50, double p99, double p999, double max) {
+
+        /**
+         * Gets the completed requests per second.
+         *
+         * @return the throughput
+         */
+        double throughput() {
+            return completed * 1000.0 / Math.max(1, elapsed.toMillis());
+        }
+    }
+}
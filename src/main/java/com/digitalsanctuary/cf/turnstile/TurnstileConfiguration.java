@@ -1,26 +1,39 @@
 package com.digitalsanctuary.cf.turnstile;
 
-import org.springframework.beans.factory.ObjectProvider;
+import java.net.http.HttpClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.health.autoconfigure.contributor.ConditionalOnEnabledHealthIndicator;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnNotWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.util.ClassUtils;
 import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
 import com.digitalsanctuary.cf.turnstile.config.TurnstileHealthIndicator;
 import com.digitalsanctuary.cf.turnstile.config.TurnstileMetricsConfig;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileReactiveConfig;
 import com.digitalsanctuary.cf.turnstile.config.TurnstileServiceConfig;
 import com.digitalsanctuary.cf.turnstile.config.TurnstileStartupReporter;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileWarmup;
 import com.digitalsanctuary.cf.turnstile.filter.TurnstileCaptchaFilter;
+import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Main auto-configuration class for the Spring Cloudflare Turnstile integration.
  * <p>
- * Imports core configuration unconditionally; metrics and health configurations are
- * conditional on the presence of their respective classes on the classpath.
+ * Imports core configuration unconditionally; metrics, reactive, servlet and health configurations are
+ * conditional on the presence of their respective classes on the classpath. The core configuration does not
+ * depend on the servlet API, so reactive-only applications without it can use the library.
  * </p>
  *
  * @see com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties
@@ -28,13 +41,29 @@ import lombok.extern.slf4j.Slf4j;
  * @see com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService
  * @see com.digitalsanctuary.cf.turnstile.config.TurnstileMetricsConfig
  * @see com.digitalsanctuary.cf.turnstile.config.TurnstileHealthIndicator
+ * @see com.digitalsanctuary.cf.turnstile.config.TurnstileReactiveConfig
  */
 @Slf4j
 @Configuration
 @AutoConfiguration
-@Import({TurnstileServiceConfig.class, TurnstileConfigProperties.class, TurnstileCaptchaFilter.class})
+@Import({TurnstileServiceConfig.class, TurnstileConfigProperties.class})
 public class TurnstileConfiguration {
 
+    private static final String SERVLET_FILTER_CLASS = "jakarta.servlet.Filter";
+
+    /**
+     * Servlet configuration for Turnstile.
+     * Only imported in servlet web applications with the servlet API on the classpath.
+     * Uses string form of @ConditionalOnClass, so the servlet-based login captcha filter
+     * is never loaded without the servlet API.
+     */
+    @Configuration
+    @ConditionalOnClass(name = SERVLET_FILTER_CLASS)
+    @ConditionalOnWebApplication(type = Type.SERVLET)
+    @Import(TurnstileCaptchaFilter.class)
+    static class TurnstileServletConfiguration {
+    }
+
     /**
      * Metrics configuration for Turnstile.
      * Only imported if Micrometer's MeterRegistry is available on the classpath.
@@ -48,31 +77,78 @@ public class TurnstileConfiguration {
     static class TurnstileMetricsConfiguration {
     }
 
+    /**
+     * Reactive (WebFlux) configuration for Turnstile.
+     * Only imported if Spring WebFlux's {@code WebClient} is on the classpath.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.web.reactive.function.client.WebClient")
+    @Import(TurnstileReactiveConfig.class)
+    static class TurnstileReactiveConfiguration {
+    }
+
     /**
      * Health indicator configuration for Turnstile.
      * Only imported if Spring Actuator's {@code HealthIndicator} class is on the classpath
      * and the turnstile health indicator has not been disabled via
-     * {@code management.health.turnstile.enabled=false}.
+     * {@code management.health.turnstile.enabled=false}. Reactive web applications get the
+     * reactive health indicator from {@link TurnstileReactiveConfig} instead.
      */
     @Configuration
     @ConditionalOnEnabledHealthIndicator("turnstile")
     @ConditionalOnClass(name = "org.springframework.boot.health.contributor.HealthIndicator")
+    @Conditional(NotReactiveWebApplicationCondition.class)
     @Import(TurnstileHealthIndicator.class)
     static class TurnstileHealthConfiguration {
     }
 
+    /**
+     * Matches servlet web applications and non-web applications, i.e. everything except reactive web applications.
+     */
+    static class NotReactiveWebApplicationCondition extends AnyNestedCondition {
+
+        NotReactiveWebApplicationCondition() {
+            super(ConfigurationPhase.PARSE_CONFIGURATION);
+        }
+
+        @ConditionalOnWebApplication(type = Type.SERVLET)
+        static class OnServletWebApplication {
+        }
+
+        @ConditionalOnNotWebApplication
+        static class OnNonWebApplication {
+        }
+    }
+
     /**
      * Registers the startup reporter unconditionally, so configuration problems (missing secret or URL, Cloudflare test credentials) and the login
      * filter registration state are always reported — even when the consuming application overrides the library's service bean.
      *
      * @param properties the Turnstile configuration properties
-     * @param captchaFilterProvider provider used to detect whether the login captcha filter bean is registered
+     * @param beanFactory the bean factory used to detect whether the login captcha filter bean is registered
      * @return the startup reporter
      */
     @Bean
-    public TurnstileStartupReporter turnstileStartupReporter(TurnstileConfigProperties properties,
-            ObjectProvider<TurnstileCaptchaFilter> captchaFilterProvider) {
-        return new TurnstileStartupReporter(properties, captchaFilterProvider);
+    public TurnstileStartupReporter turnstileStartupReporter(TurnstileConfigProperties properties, ConfigurableListableBeanFactory beanFactory) {
+        // The filter class is only looked up when the servlet API is present, as loading it would fail otherwise
+        return new TurnstileStartupReporter(properties, () -> ClassUtils.isPresent(SERVLET_FILTER_CLASS, beanFactory.getBeanClassLoader())
+                && beanFactory.getBeanNamesForType(TurnstileCaptchaFilter.class).length > 0);
+    }
+
+    /**
+     * Registers the startup warm-up when {@code ds.cf.turnstile.warmup.enabled=true}. The warm-up holds back the application's readiness until it
+     * has finished or timed out.
+     *
+     * @param properties the Turnstile configuration properties
+     * @param httpClient the shared HTTP client whose connections are opened
+     * @param metrics the metrics the warm-up duration is recorded to
+     * @return the warm-up runner
+     */
+    @Bean
+    @ConditionalOnProperty(name = "ds.cf.turnstile.warmup.enabled", havingValue = "true")
+    public TurnstileWarmup turnstileWarmup(TurnstileConfigProperties properties, @Qualifier("turnstileHttpClient") HttpClient httpClient,
+            TurnstileMetrics metrics) {
+        return new TurnstileWarmup(properties, httpClient, metrics);
     }
 
     /**
@@ -0,0 +1,115 @@
+package com.digitalsanctuary.cf.turnstile.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution: concurrent calls with the same key share one execution and its outcome.
+ * <p>
+ * The first caller for a key runs the call; callers arriving while it is still running wait for and receive the same value or failure instead of
+ * starting their own. The key is released as soon as the call completes, so results are never cached; a later call with the same key runs again.
+ * Blocking ({@link #execute}) and asynchronous ({@link #executeAsync}) callers share the same in-flight table.
+ * </p>
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ */
+public class InFlightCoalescer<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Runnable onCoalesced;
+
+    /**
+     * Constructor for InFlightCoalescer.
+     *
+     * @param onCoalesced invoked once for every call that joins an execution already in flight instead of starting its own
+     */
+    public InFlightCoalescer(Runnable onCoalesced) {
+        this.onCoalesced = onCoalesced;
+    }
+
+    /**
+     * Runs the call on the calling thread, or waits for the execution already in flight for the key.
+     *
+     * @param key the coalescing key
+     * @param call the call to run if no execution is in flight for the key
+     * @return the value produced by the shared execution
+     * @throws RuntimeException the failure thrown by the shared execution
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> execution = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, execution);
+        if (existing != null) {
+            onCoalesced.run();
+            return await(existing);
+        }
+        try {
+            V value = call.get();
+            execution.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, execution);
+        }
+    }
+
+    /**
+     * Starts the call, or joins the execution already in flight for the key.
+     *
+     * @param key the coalescing key
+     * @param call starts the call if no execution is in flight for the key
+     * @return a future completed with the outcome of the shared execution; completing or cancelling it does not affect other callers
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<? extends CompletionStage<V>> call) {
+        CompletableFuture<V> execution = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, execution);
+        if (existing != null) {
+            onCoalesced.run();
+            return existing.copy();
+        }
+        try {
+            call.get().whenComplete((value, failure) -> {
+                inFlight.remove(key, execution);
+                if (failure != null) {
+                    execution.completeExceptionally(failure);
+                } else {
+                    execution.complete(value);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, execution);
+            execution.completeExceptionally(e);
+        }
+        return execution.copy();
+    }
+
+    /**
+     * Returns the number of executions currently in flight.
+     *
+     * @return the number of distinct keys with a running execution
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> execution) {
+        try {
+            return execution.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
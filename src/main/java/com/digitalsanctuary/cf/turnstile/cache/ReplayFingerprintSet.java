@@ -0,0 +1,252 @@
+package com.digitalsanctuary.cf.turnstile.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A fixed-memory set of 64-bit fingerprints of tokens that have already been sent to Cloudflare, used to reject replays locally.
+ * <p>
+ * Entries live in {@code BUCKETS} open-addressing tables of primitive {@code long}s, one per time slice of {@code ttl / (BUCKETS - 1)}. New
+ * fingerprints go into the table of the current slice; when time moves into a new slice, the table that held the oldest slice is cleared and
+ * reused. A fingerprint is therefore remembered for at least {@code ttl} and at most {@code ttl} plus one slice, and memory is allocated once, up
+ * front, with no per-entry objects: {@code BUCKETS × tableSize × 8} bytes.
+ * </p>
+ * <p>
+ * All operations are lock-free. Fingerprints are 64 bits, so the chance of a false positive is roughly {@code entries / 2^64} per lookup. Races with
+ * a slice rotation can lose an insert; the only consequence is that a replay is sent to Cloudflare, which rejects it as it would without this set.
+ * When a slice table reaches its entry limit further inserts into that slice are dropped, for the same reason.
+ * </p>
+ */
+public class ReplayFingerprintSet {
+
+    /**
+     * Number of time slices. One slice is always being filled, so {@code BUCKETS - 1} full slices cover the time-to-live.
+     */
+    static final int BUCKETS = 6;
+
+    private static final long EMPTY = 0L;
+
+    private final AtomicLongArray[] tables = new AtomicLongArray[BUCKETS];
+    private final AtomicLongArray sliceOfBucket = new AtomicLongArray(BUCKETS);
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(BUCKETS);
+    private final int mask;
+    private final int entriesPerBucket;
+    private final long sliceNanos;
+    private final LongSupplier nanoClock;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Constructor for ReplayFingerprintSet.
+     *
+     * @param maxEntries the number of fingerprints the set must be able to hold within one time-to-live; must be positive
+     * @param ttl how long a fingerprint is remembered at minimum; must be positive
+     */
+    public ReplayFingerprintSet(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    /**
+     * Constructor for ReplayFingerprintSet with an explicit clock.
+     *
+     * @param maxEntries the number of fingerprints the set must be able to hold within one time-to-live; must be positive
+     * @param ttl how long a fingerprint is remembered at minimum; must be positive
+     * @param nanoClock the time source, in nanoseconds, with the semantics of {@link System#nanoTime()}
+     */
+    public ReplayFingerprintSet(int maxEntries, Duration ttl, LongSupplier nanoClock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must be positive: " + ttl);
+        }
+        this.entriesPerBucket = (maxEntries + BUCKETS - 2) / (BUCKETS - 1);
+        // Keep every table at most half full so probe sequences stay short.
+        int tableSize = Integer.highestOneBit(Math.max(entriesPerBucket * 2 - 1, 1)) << 1;
+        this.mask = tableSize - 1;
+        this.sliceNanos = Math.max(1, (ttl.toNanos() + BUCKETS - 2) / (BUCKETS - 1));
+        this.nanoClock = nanoClock;
+        for (int i = 0; i < BUCKETS; i++) {
+            tables[i] = new AtomicLongArray(tableSize);
+            sliceOfBucket.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Returns whether the fingerprint was added within the time-to-live, counting the lookup and, if found, a hit.
+     *
+     * @param fingerprint the token fingerprint
+     * @return true if the token has already been seen
+     */
+    public boolean contains(TokenFingerprint fingerprint) {
+        lookups.increment();
+        long key = key(fingerprint);
+        long currentSlice = currentSlice();
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long slice = sliceOfBucket.get(bucket);
+            if (slice > currentSlice - BUCKETS && slice <= currentSlice && probe(tables[bucket], key, false)) {
+                hits.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the fingerprint to the current time slice.
+     *
+     * @param fingerprint the token fingerprint
+     */
+    public void add(TokenFingerprint fingerprint) {
+        long currentSlice = currentSlice();
+        int bucket = (int) Math.floorMod(currentSlice, (long) BUCKETS);
+        long slice = sliceOfBucket.get(bucket);
+        if (slice < currentSlice && sliceOfBucket.compareAndSet(bucket, slice, currentSlice)) {
+            clear(bucket);
+        }
+        if (counts.get(bucket) >= entriesPerBucket) {
+            dropped.increment();
+            return;
+        }
+        if (probe(tables[bucket], key(fingerprint), true)) {
+            counts.incrementAndGet(bucket);
+        }
+    }
+
+    /**
+     * Gets the number of fingerprints currently held, including those in the slice that is about to expire.
+     *
+     * @return the number of entries
+     */
+    public long size() {
+        long currentSlice = currentSlice();
+        long size = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long slice = sliceOfBucket.get(bucket);
+            if (slice > currentSlice - BUCKETS && slice <= currentSlice) {
+                size += counts.get(bucket);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of fingerprints the set can hold at once.
+     *
+     * @return the capacity
+     */
+    public long capacity() {
+        return (long) entriesPerBucket * BUCKETS;
+    }
+
+    /**
+     * Gets the fraction of the capacity in use.
+     *
+     * @return the occupancy, between 0 and 1
+     */
+    public double occupancy() {
+        return (double) size() / capacity();
+    }
+
+    /**
+     * Gets the number of bytes allocated for the fingerprint tables.
+     *
+     * @return the table memory in bytes
+     */
+    public long memoryBytes() {
+        return (long) BUCKETS * (mask + 1) * Long.BYTES;
+    }
+
+    /**
+     * Gets the number of lookups made.
+     *
+     * @return the lookup count
+     */
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    /**
+     * Gets the number of lookups that found the fingerprint.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the fraction of lookups that found the fingerprint.
+     *
+     * @return the hit rate, between 0 and 1, or 0 if there have been no lookups
+     */
+    public double hitRate() {
+        long total = lookups.sum();
+        return total > 0 ? (double) hits.sum() / total : 0;
+    }
+
+    /**
+     * Gets the number of fingerprints not added because their time slice was full.
+     *
+     * @return the dropped insert count
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private long currentSlice() {
+        return Math.floorDiv(nanoClock.getAsLong(), sliceNanos);
+    }
+
+    /**
+     * Linear probe for the key. When {@code insert} is true an empty slot is claimed for it.
+     *
+     * @return for lookups, whether the key is present; for inserts, whether the key was newly added
+     */
+    private boolean probe(AtomicLongArray table, long key, boolean insert) {
+        int index = (int) mix(key) & mask;
+        for (int i = 0; i <= mask; i++) {
+            long current = table.get(index);
+            if (current == key) {
+                return !insert;
+            }
+            if (current == EMPTY) {
+                if (!insert) {
+                    return false;
+                }
+                if (table.compareAndSet(index, EMPTY, key)) {
+                    return true;
+                }
+                if (table.get(index) == key) {
+                    return false;
+                }
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    private void clear(int bucket) {
+        AtomicLongArray table = tables[bucket];
+        for (int i = 0; i <= mask; i++) {
+            table.lazySet(i, EMPTY);
+        }
+        counts.set(bucket, 0);
+    }
+
+    private static long key(TokenFingerprint fingerprint) {
+        long key = fingerprint.high();
+        return key == EMPTY ? 1L : key;
+    }
+
+    /**
+     * Spreads the fingerprint bits; fingerprints are already uniformly distributed, so this only folds the high bits into the table index.
+     */
+    private static long mix(long key) {
+        return key ^ (key >>> 32);
+    }
+}
@@ -0,0 +1,188 @@
+package com.digitalsanctuary.cf.turnstile.cache;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A size-bounded, time-expiring set of token fingerprints that Cloudflare has already accepted.
+ * <p>
+ * Entries are keyed by {@link TokenFingerprint}, so raw tokens are never retained. Every entry lives for the same time-to-live, which makes
+ * insertion order equal to expiry order: a FIFO queue alongside the map is enough to evict expired entries first and, when the cache is full, the
+ * entries closest to expiry. Lookups and inserts are lock-free.
+ * </p>
+ */
+public class SuccessCache {
+
+    /**
+     * Why an entry left the cache.
+     */
+    public enum EvictionCause {
+
+        /**
+         * The entry outlived the time-to-live.
+         */
+        EXPIRED,
+
+        /**
+         * The entry was removed to keep the cache within its maximum size.
+         */
+        SIZE;
+
+        /**
+         * Returns the lower-case name used as a metric tag value.
+         *
+         * @return the tag value
+         */
+        public String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private record Entry(TokenFingerprint fingerprint, long expiresAt) {
+    }
+
+    private final ConcurrentMap<TokenFingerprint, Long> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final Consumer<EvictionCause> evictionListener;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor for SuccessCache.
+     *
+     * @param maxSize the maximum number of entries; must be positive
+     * @param ttl how long an entry is served after it was added; must be positive
+     * @param evictionListener notified once for every entry that expires or is evicted for size
+     */
+    public SuccessCache(int maxSize, Duration ttl, Consumer<EvictionCause> evictionListener) {
+        this(maxSize, ttl, System::nanoTime, evictionListener);
+    }
+
+    /**
+     * Constructor for SuccessCache with an explicit clock.
+     *
+     * @param maxSize the maximum number of entries; must be positive
+     * @param ttl how long an entry is served after it was added; must be positive
+     * @param nanoClock the time source, in nanoseconds, with the semantics of {@link System#nanoTime()}
+     * @param evictionListener notified once for every entry that expires or is evicted for size
+     */
+    public SuccessCache(int maxSize, Duration ttl, LongSupplier nanoClock, Consumer<EvictionCause> evictionListener) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("ttl must be positive: " + ttl);
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Returns whether the fingerprint was accepted within the time-to-live, counting a hit or a miss.
+     *
+     * @param fingerprint the token fingerprint
+     * @return true if a live entry exists
+     */
+    public boolean contains(TokenFingerprint fingerprint) {
+        Long expiresAt = entries.get(fingerprint);
+        if (expiresAt != null) {
+            if (nanoClock.getAsLong() - expiresAt < 0) {
+                hits.increment();
+                return true;
+            }
+            evict(fingerprint, expiresAt, EvictionCause.EXPIRED);
+        }
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * Records that Cloudflare accepted the fingerprint, then evicts expired entries and, if the cache is over its maximum size, the oldest ones.
+     *
+     * @param fingerprint the token fingerprint
+     */
+    public void put(TokenFingerprint fingerprint) {
+        long now = nanoClock.getAsLong();
+        long expiresAt = now + ttlNanos;
+        Long previous = entries.put(fingerprint, expiresAt);
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        insertionOrder.add(new Entry(fingerprint, expiresAt));
+        trim(now);
+    }
+
+    /**
+     * Gets the number of live entries, including any that have expired but not yet been evicted.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups not answered from the cache.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of entries removed because they expired or to respect the maximum size.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private void trim(long now) {
+        Entry head;
+        while ((head = insertionOrder.peek()) != null) {
+            boolean expired = now - head.expiresAt() >= 0;
+            Long current = entries.get(head.fingerprint());
+            boolean stale = current == null || current != head.expiresAt();
+            if (!stale && !expired && size.get() <= maxSize) {
+                return;
+            }
+            if (insertionOrder.remove(head) && !stale) {
+                evict(head.fingerprint(), head.expiresAt(), expired ? EvictionCause.EXPIRED : EvictionCause.SIZE);
+            }
+        }
+    }
+
+    private void evict(TokenFingerprint fingerprint, long expiresAt, EvictionCause cause) {
+        if (entries.remove(fingerprint, expiresAt)) {
+            size.decrementAndGet();
+            evictions.increment();
+            evictionListener.accept(cause);
+        }
+    }
+}
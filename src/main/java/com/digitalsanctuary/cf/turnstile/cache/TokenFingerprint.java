@@ -0,0 +1,53 @@
+package com.digitalsanctuary.cf.turnstile.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A 128-bit fingerprint of a Turnstile token and the remote IP it was presented from.
+ * <p>
+ * Fingerprints are the first 128 bits of a SHA-256 digest, so they can be used as keys for in-memory bookkeeping without keeping the raw token
+ * (a bearer credential) reachable from long-lived data structures. Two fingerprints are equal only if both the token and the remote IP match.
+ * </p>
+ *
+ * @param high the most significant 64 bits of the digest
+ * @param low the next 64 bits of the digest
+ */
+public record TokenFingerprint(long high, long low) {
+
+    /**
+     * Computes the fingerprint of a token and remote IP.
+     *
+     * @param token the Turnstile response token; must not be null
+     * @param remoteIp the remote IP address of the client, or null if unknown
+     * @return the fingerprint
+     */
+    public static TokenFingerprint of(String token, String remoteIp) {
+        MessageDigest digest = sha256();
+        digest.update(token.getBytes(StandardCharsets.UTF_8));
+        if (remoteIp != null) {
+            // Separator byte keeps ("ab", "c") and ("a", "bc") apart; it never appears in a UTF-8 encoded token.
+            digest.update((byte) 0);
+            digest.update(remoteIp.getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] hash = digest.digest();
+        return new TokenFingerprint(toLong(hash, 0), toLong(hash, 8));
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + Long.BYTES; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by the Java platform specification", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.digitalsanctuary.cf.turnstile.config;
+
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.ReactiveHealthIndicator;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.tenant.TurnstileTenantRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive health indicator for the Cloudflare Turnstile service.
+ * <p>
+ * Registered in reactive web applications in place of {@link TurnstileHealthIndicator}. It applies the same configuration and error-threshold checks
+ * and reports the same details; the checks only read in-memory counters, so they are evaluated inline without scheduling onto a blocking thread.
+ * </p>
+ */
+public class ReactiveTurnstileHealthIndicator implements ReactiveHealthIndicator {
+
+    private final TurnstileHealthIndicator delegate;
+
+    /**
+     * Constructor for ReactiveTurnstileHealthIndicator.
+     *
+     * @param validationService the validation service whose statistics are reported
+     * @param properties the Turnstile configuration properties
+     */
+    public ReactiveTurnstileHealthIndicator(TurnstileValidationService validationService, TurnstileConfigProperties properties) {
+        this(validationService, properties, null);
+    }
+
+    /**
+     * Constructor for ReactiveTurnstileHealthIndicator reporting per-tenant details.
+     *
+     * @param validationService the validation service whose statistics are reported
+     * @param properties the Turnstile configuration properties
+     * @param tenantRegistry the registry whose tenants are reported, or null
+     */
+    public ReactiveTurnstileHealthIndicator(TurnstileValidationService validationService, TurnstileConfigProperties properties,
+            TurnstileTenantRegistry tenantRegistry) {
+        this.delegate = new TurnstileHealthIndicator(validationService, properties, tenantRegistry);
+    }
+
+    @Override
+    public Mono<Health> health() {
+        return Mono.fromSupplier(delegate::health);
+    }
+}
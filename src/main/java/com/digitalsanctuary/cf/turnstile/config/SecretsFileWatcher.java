@@ -0,0 +1,75 @@
+package com.digitalsanctuary.cf.turnstile.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Watches the directory of a secrets file with an NIO {@link WatchService} and runs a callback when anything in it changes.
+ * <p>
+ * The whole directory is watched rather than the file's own events, because mounted secrets (Kubernetes, Docker) are usually replaced by
+ * swapping a symbolic link, which reports events for the link and not for the file name. After the first event the watcher waits briefly and
+ * drains further events, so a file written in several steps is read once, complete. The watcher runs on a single daemon thread.
+ * </p>
+ */
+@Slf4j
+final class SecretsFileWatcher implements Closeable {
+
+    private static final long SETTLE_MILLIS = 100;
+
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Starts watching the directory of the given file.
+     *
+     * @param file the secrets file
+     * @param onChange the callback run after changes in the file's directory
+     * @throws IOException if the directory cannot be watched
+     */
+    SecretsFileWatcher(Path file, Runnable onChange) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        this.thread = new Thread(() -> run(onChange), "turnstile-secrets-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching {} for Turnstile secret changes", file);
+    }
+
+    private void run(Runnable onChange) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                key.pollEvents();
+                key.reset();
+                Thread.sleep(SETTLE_MILLIS);
+                for (WatchKey more = watchService.poll(); more != null; more = watchService.poll()) {
+                    more.pollEvents();
+                    more.reset();
+                }
+                try {
+                    onChange.run();
+                } catch (RuntimeException e) {
+                    log.error("Reloading Turnstile settings from the secrets file failed", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Closed by close()
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,199 @@
+package com.digitalsanctuary.cf.turnstile.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the settings a siteverify call is made with: the site key, the secret key and the endpoint.
+ * <p>
+ * A snapshot is checked once, when it is created: a blank secret or URL, or a URL that is not a valid URI, is recorded as its
+ * {@link #getProblem() problem}, so validations only test that one field instead of re-checking the mutable {@link TurnstileConfigProperties} on
+ * every call. The endpoint URI is parsed once as well. During a secret rotation a snapshot also carries the secret it replaced, which may be
+ * retried until the overlap ends if Cloudflare rejects the new one.
+ * </p>
+ */
+public final class SiteverifySettings {
+
+    /**
+     * Cloudflare's published test sitekeys. Depending on the key these always pass (1x), always fail (2x), or force an interactive challenge (3x).
+     */
+    private static final Set<String> CLOUDFLARE_TEST_SITEKEYS = Set.of("1x00000000000000000000AA",
+            "2x00000000000000000000AB", "1x00000000000000000000BB", "2x00000000000000000000BB",
+            "3x00000000000000000000FF");
+
+    /**
+     * Cloudflare's published test secrets. Depending on the secret these always pass (1x), always fail (2x), or report a spent token (3x).
+     */
+    private static final Set<String> CLOUDFLARE_TEST_SECRETS = Set.of("1x0000000000000000000000000000000AA",
+            "2x0000000000000000000000000000000AA", "3x0000000000000000000000000000000AA");
+
+    private final String sitekey;
+    private final String secret;
+    private final String url;
+    private final URI uri;
+    private final String problem;
+    private final String previousSecret;
+    private final long previousSecretUntil;
+
+    private SiteverifySettings(String sitekey, String secret, String url, String previousSecret, long previousSecretUntil) {
+        this.sitekey = sitekey;
+        this.secret = secret;
+        this.url = url;
+        this.previousSecret = previousSecret;
+        this.previousSecretUntil = previousSecretUntil;
+        URI parsed = null;
+        String error = null;
+        if (secret == null || secret.isBlank()) {
+            error = "Turnstile secret key is not configured";
+        } else if (url == null || url.isBlank()) {
+            error = "Turnstile URL is not configured";
+        } else {
+            try {
+                parsed = URI.create(url);
+            } catch (IllegalArgumentException e) {
+                error = "Turnstile URL is not a valid URI: " + e.getMessage();
+            }
+        }
+        this.uri = parsed;
+        this.problem = error;
+    }
+
+    /**
+     * Creates a snapshot of the given settings.
+     *
+     * @param sitekey the site key, may be null
+     * @param secret the secret key
+     * @param url the siteverify URL
+     * @return the snapshot; check {@link #isValid()} before using it
+     */
+    public static SiteverifySettings of(String sitekey, String secret, String url) {
+        return new SiteverifySettings(sitekey, secret, url, null, 0);
+    }
+
+    /**
+     * Creates a snapshot of the current site key, secret key and URL of the given properties.
+     *
+     * @param properties the Turnstile configuration properties
+     * @return the snapshot; check {@link #isValid()} before using it
+     */
+    public static SiteverifySettings from(TurnstileConfigProperties properties) {
+        return of(properties.getSitekey(), properties.getSecret(), properties.getUrl());
+    }
+
+    /**
+     * Returns this snapshot as a replacement for {@code current}. If the secret changes, the current secret stays usable as the previous secret
+     * for {@code overlap}; if it does not, any previous secret of {@code current} is carried over until its own overlap ends.
+     *
+     * @param current the snapshot being replaced
+     * @param overlap how long a replaced secret stays usable; zero for none
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @return the replacement snapshot
+     */
+    public SiteverifySettings replacing(SiteverifySettings current, Duration overlap, long nowNanos) {
+        if (Objects.equals(secret, current.secret)) {
+            String carried = current.getPreviousSecret(nowNanos);
+            return carried == null ? of(sitekey, secret, url) : new SiteverifySettings(sitekey, secret, url, carried, current.previousSecretUntil);
+        }
+        if (!current.isValid() || overlap.isZero() || overlap.isNegative()) {
+            return of(sitekey, secret, url);
+        }
+        return new SiteverifySettings(sitekey, secret, url, current.secret, nowNanos + overlap.toNanos());
+    }
+
+    /**
+     * Checks whether this snapshot holds the same site key, secret key and URL as another.
+     *
+     * @param other the snapshot to compare with
+     * @return true if the site key, secret and URL are equal
+     */
+    public boolean sameAs(SiteverifySettings other) {
+        return Objects.equals(sitekey, other.sitekey) && Objects.equals(secret, other.secret) && Objects.equals(url, other.url);
+    }
+
+    /**
+     * Gets the site key.
+     *
+     * @return the site key, may be null
+     */
+    public String getSitekey() {
+        return sitekey;
+    }
+
+    /**
+     * Gets the secret key.
+     *
+     * @return the secret key
+     */
+    public String getSecret() {
+        return secret;
+    }
+
+    /**
+     * Gets the siteverify URL.
+     *
+     * @return the URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets the parsed siteverify URL.
+     *
+     * @return the URI, or null if the snapshot is not valid
+     */
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * Gets what makes this snapshot unusable.
+     *
+     * @return the problem, or null if the snapshot is valid
+     */
+    public String getProblem() {
+        return problem;
+    }
+
+    /**
+     * Checks whether siteverify calls can be made with this snapshot.
+     *
+     * @return true if the secret and URL are set and the URL is a valid URI
+     */
+    public boolean isValid() {
+        return problem == null;
+    }
+
+    /**
+     * Checks whether the site key or secret key of this snapshot is one of Cloudflare's published test credentials.
+     *
+     * @return true if either key is a Cloudflare test credential
+     */
+    public boolean usesTestCredentials() {
+        return isTestCredentials(sitekey, secret);
+    }
+
+    /**
+     * Checks whether a site key or secret key is one of Cloudflare's published test credentials (see
+     * https://developers.cloudflare.com/turnstile/troubleshooting/testing/). Both arguments are null-safe.
+     *
+     * @param sitekey the Turnstile sitekey, may be null
+     * @param secret the Turnstile secret, may be null
+     * @return true if either value is a Cloudflare test credential
+     */
+    public static boolean isTestCredentials(String sitekey, String secret) {
+        return (sitekey != null && CLOUDFLARE_TEST_SITEKEYS.contains(sitekey)) || (secret != null && CLOUDFLARE_TEST_SECRETS.contains(secret));
+    }
+
+    /**
+     * Gets the secret this snapshot replaced, while the rotation overlap lasts.
+     *
+     * @param nowNanos the current {@link System#nanoTime()}
+     * @return the previous secret, or null if there is none or its overlap has ended
+     */
+    public String getPreviousSecret(long nowNanos) {
+        return previousSecret != null && nowNanos - previousSecretUntil < 0 ? previousSecret : null;
+    }
+}
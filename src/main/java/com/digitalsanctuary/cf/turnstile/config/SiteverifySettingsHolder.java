@@ -0,0 +1,108 @@
+package com.digitalsanctuary.cf.turnstile.config;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileResponse;
+import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the {@link SiteverifySettings} snapshot a validation service sends its requests with, and swaps in reloaded snapshots.
+ * <p>
+ * Validations read the current snapshot once and use it for the whole call, so a reload never blocks them or mixes the keys of two snapshots.
+ * During a secret rotation the holder also decides when a request Cloudflare rejected is repeated with the replaced secret.
+ * </p>
+ */
+@Slf4j
+public class SiteverifySettingsHolder {
+
+    private final TurnstileConfigProperties properties;
+    private final TurnstileMetrics metrics;
+    private final AtomicReference<SiteverifySettings> settings;
+
+    /**
+     * Constructor for SiteverifySettingsHolder.
+     *
+     * @param properties the Turnstile configuration properties the initial snapshot is taken from
+     * @param metrics the metrics that reloads and uses of the previous secret are recorded to
+     */
+    public SiteverifySettingsHolder(TurnstileConfigProperties properties, TurnstileMetrics metrics) {
+        this.properties = properties;
+        this.metrics = metrics;
+        this.settings = new AtomicReference<>(SiteverifySettings.from(properties));
+    }
+
+    /**
+     * Gets the settings snapshot validations are currently sent with.
+     *
+     * @return the current site key, secret key and URL
+     */
+    public SiteverifySettings get() {
+        return settings.get();
+    }
+
+    /**
+     * Re-reads the site key, secret key and URL from the configuration properties and applies them as described in
+     * {@link #apply(SiteverifySettings)}.
+     *
+     * @return true if the settings changed
+     */
+    public boolean reload() {
+        return apply(SiteverifySettings.from(properties));
+    }
+
+    /**
+     * Swaps in new settings for subsequent validations, without a restart and without blocking validations in progress.
+     * <p>
+     * Settings with a missing or invalid secret or URL are rejected while the current settings are usable, so an incomplete reload cannot break
+     * validation. When the secret changes, the replaced secret is retried for {@code ds.cf.turnstile.reload.secret-overlap} on requests
+     * Cloudflare answers with {@code invalid-input-secret}, so a rotation causes no failures while the new secret becomes active.
+     * </p>
+     *
+     * @param next the new settings
+     * @return true if the settings changed, false if they were rejected or equal to the current ones
+     */
+    public boolean apply(SiteverifySettings next) {
+        SiteverifySettings current = settings.get();
+        while (true) {
+            if (next.sameAs(current)) {
+                return false;
+            }
+            if (!next.isValid() && current.isValid()) {
+                log.error("Rejected Turnstile settings reload, keeping the current settings: {}", next.getProblem());
+                metrics.recordSettingsReload("rejected");
+                return false;
+            }
+            SiteverifySettings replacement = next.replacing(current, properties.getReload().getSecretOverlap(), System.nanoTime());
+            if (settings.compareAndSet(current, replacement)) {
+                break;
+            }
+            current = settings.get();
+        }
+        log.info("Turnstile settings reloaded: URL {}, sitekey {}, secret {}", next.getUrl(), next.getSitekey(),
+                Objects.equals(next.getSecret(), current.getSecret()) ? "unchanged" : "rotated");
+        metrics.recordSettingsReload("applied");
+        return true;
+    }
+
+    /**
+     * Returns the previous secret to repeat a request with, if Cloudflare rejected the current secret while a rotation overlap is in progress.
+     *
+     * @param current the settings the request was sent with
+     * @param response the siteverify response, may be null
+     * @return the previous secret, or null if the response stands
+     */
+    public String previousSecretFor(SiteverifySettings current, TurnstileResponse response) {
+        if (response == null || response.isSuccess() || response.getErrorCodes() == null
+                || !response.getErrorCodes().contains(TurnstileErrorCode.INVALID_INPUT_SECRET.getCode())) {
+            return null;
+        }
+        String previous = current.getPreviousSecret(System.nanoTime());
+        if (previous != null) {
+            log.warn("Turnstile rejected the new secret key; repeating the request with the previous secret during the rotation overlap");
+            metrics.recordPreviousSecretUsed();
+        }
+        return previous;
+    }
+}
@@ -1,8 +1,16 @@
 package com.digitalsanctuary.cf.turnstile.config;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.stereotype.Component;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
+import com.digitalsanctuary.cf.turnstile.resilience.FallbackPolicy;
 import lombok.Data;
 
 /**
@@ -57,15 +65,101 @@ public class TurnstileConfigProperties {
     private String url;
 
     /**
-     * Connection timeout in seconds. Defaults to 5 seconds.
+     * Connection timeout in seconds. Defaults to 5 seconds. Superseded by {@code timeout.connect} when that is set.
      */
     private int connectTimeout = 5;
 
     /**
-     * Read timeout in seconds. Defaults to 10 seconds.
+     * Read timeout in seconds. Defaults to 10 seconds. Superseded by {@code timeout.read} when that is set.
      */
     private int readTimeout = 10;
 
+    /**
+     * Millisecond-granularity connect and read timeouts.
+     */
+    private Timeout timeout = new Timeout();
+
+    /**
+     * Configuration for the optional read timeout derived from observed siteverify latency.
+     */
+    private AdaptiveTimeout adaptiveTimeout = new AdaptiveTimeout();
+
+    /**
+     * Configuration for the {@code turnstileHttpClient} protocol version, executor and connection pool.
+     */
+    private Transport transport = new Transport();
+
+    /**
+     * Configuration for the optional startup warm-up.
+     */
+    private Warmup warmup = new Warmup();
+
+    /**
+     * Configuration for the structural token checks made before any network call.
+     */
+    private PreValidation preValidation = new PreValidation();
+
+    /**
+     * Configuration for the per-client rate limiter in the login captcha filter.
+     */
+    private RateLimit rateLimit = new RateLimit();
+
+    /**
+     * Configuration for the penalty box that temporarily blocks clients with repeated invalid tokens.
+     */
+    private PenaltyBox penaltyBox = new PenaltyBox();
+
+    /**
+     * IP addresses or CIDR ranges of the reverse proxies whose {@code X-Forwarded-For} header the login filters believe. Empty by default, so the
+     * client IP is the connection's remote address. Not needed when {@code server.forward-headers-strategy} already resolves the remote address.
+     */
+    private List<String> trustedProxies = new ArrayList<>();
+
+    /**
+     * How outbound siteverify calls are executed. Defaults to {@link Execution#PLATFORM}.
+     */
+    private Execution execution = Execution.PLATFORM;
+
+    /**
+     * Configuration for coalescing concurrent validations of the same token.
+     */
+    private Coalescing coalescing = new Coalescing();
+
+    /**
+     * Configuration for the optional cache of successful verdicts.
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * Configuration for the optional local replay set of consumed tokens.
+     */
+    private Replay replay = new Replay();
+
+    /**
+     * Configuration for the optional circuit breaker around siteverify.
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * Configuration for the optional retry of transient siteverify failures.
+     */
+    private Retry retry = new Retry();
+
+    /**
+     * Configuration for the optional bulkhead bounding concurrent siteverify calls.
+     */
+    private Bulkhead bulkhead = new Bulkhead();
+
+    /**
+     * Configuration for batch validation.
+     */
+    private Batch batch = new Batch();
+
+    /**
+     * Configuration for reloading the site key, secret key and URL without a restart.
+     */
+    private Reload reload = new Reload();
+
     /**
      * Configuration for metrics and monitoring.
      */
@@ -81,6 +175,629 @@ public class TurnstileConfigProperties {
      */
     private Token token = new Token();
 
+    /**
+     * Additional sites validated by this application, keyed by tenant id. Each tenant has its own keys and is selected by request host; every
+     * other setting is shared with the top-level configuration.
+     */
+    private Map<String, Tenant> tenants = new LinkedHashMap<>();
+
+    /**
+     * Thread model for outbound siteverify calls, bound from {@code ds.cf.turnstile.execution}.
+     */
+    public enum Execution {
+
+        /**
+         * The JDK HttpClient's default executor, a cached pool of platform threads.
+         */
+        PLATFORM,
+
+        /**
+         * A virtual thread per task ({@code virtual-threads}) for the async and reactive paths. Blocking validations still run on the calling
+         * thread. Requires JDK 21 or later; on older runtimes the library logs a warning and uses {@link #PLATFORM}.
+         */
+        VIRTUAL_THREADS
+    }
+
+    /**
+     * Encoding of the siteverify request body sent by the JDK transport, bound from {@code ds.cf.turnstile.transport.body-encoding}.
+     */
+    public enum BodyEncoding {
+
+        /**
+         * An {@code application/json} object.
+         */
+        JSON,
+
+        /**
+         * An {@code application/x-www-form-urlencoded} form.
+         */
+        FORM
+    }
+
+    /**
+     * Nested class for in-flight coalescing configuration properties.
+     */
+    @Data
+    public static class Coalescing {
+
+        /**
+         * Whether concurrent validations of the same token from the same remote IP share a single siteverify request and its outcome. Without this,
+         * every call after the first is rejected by Cloudflare as {@code timeout-or-duplicate}. Enabling it relaxes Turnstile's single-use guarantee:
+         * all callers presenting the token while the request is in flight are accepted. Defaults to false.
+         */
+        private boolean enabled = false;
+    }
+
+    /**
+     * Nested class for success cache configuration properties.
+     * <p>
+     * When enabled, a token Cloudflare has accepted is accepted again, without a siteverify call, if it is presented from the same remote IP
+     * within the time-to-live. Only SHA-256 fingerprints of token and IP are stored.
+     * </p>
+     */
+    @Data
+    public static class Cache {
+
+        /**
+         * Whether successful verdicts are cached. Defaults to false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The maximum number of cached verdicts. When full, the oldest entries are evicted first. Defaults to 10000.
+         */
+        private int maxSize = 10_000;
+
+        /**
+         * How long a successful verdict is served from the cache. Keep this short: every repeat inside the window is accepted without asking
+         * Cloudflare. Defaults to 60 seconds.
+         */
+        private Duration ttl = Duration.ofSeconds(60);
+    }
+
+    /**
+     * Nested class for replay set configuration properties.
+     * <p>
+     * When enabled, every token Cloudflare has accepted, or rejected as invalid or already used, is remembered by a 64-bit fingerprint, and later presentations of it are rejected as
+     * {@code timeout-or-duplicate} without a siteverify call. Memory is allocated up front, between 20 and 39 bytes per entry; 24 MiB for the
+     * default of one million entries.
+     * </p>
+     */
+    @Data
+    public static class Replay {
+
+        /**
+         * Whether already consumed tokens are rejected locally. Defaults to false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The number of consumed tokens to remember within one time-to-live. Defaults to 1000000.
+         */
+        private int maxEntries = 1_000_000;
+
+        /**
+         * How long a consumed token is remembered at minimum. Turnstile tokens are valid for 300 seconds, so shorter values let late replays through
+         * to Cloudflare. Defaults to 300 seconds.
+         */
+        private Duration ttl = Duration.ofSeconds(300);
+    }
+
+    /**
+     * Nested class for circuit breaker configuration properties.
+     * <p>
+     * When enabled, the breaker opens once enough recent siteverify calls have failed with a network error or exceeded the slow-call duration.
+     * While open, validations return immediately according to {@link #getFallback()} or the policy passed by the caller.
+     * </p>
+     */
+    @Data
+    public static class CircuitBreaker {
+
+        /**
+         * Whether the circuit breaker is active. Defaults to false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The number of most recent siteverify calls the failure and slow-call rates are computed over. Defaults to 20.
+         */
+        private int windowSize = 20;
+
+        /**
+         * The number of calls that must be recorded before the breaker can open. Defaults to 10.
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * The percentage of failed calls in the window at which the breaker opens. Defaults to 50.
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * Calls taking at least this long count as slow. Defaults to 3 seconds.
+         */
+        private Duration slowCallDuration = Duration.ofSeconds(3);
+
+        /**
+         * The percentage of slow calls in the window at which the breaker opens. Defaults to 80.
+         */
+        private int slowCallRateThreshold = 80;
+
+        /**
+         * How long the breaker stays open before letting probe calls through. Defaults to 30 seconds.
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * The number of probe calls let through while half-open; all must succeed in time for the breaker to close. Defaults to 3.
+         */
+        private int halfOpenCalls = 3;
+
+        /**
+         * The result returned while the breaker is open, for callers that do not pass a policy. This includes the login captcha filters.
+         * Defaults to {@link FallbackPolicy#FAIL_CLOSED}.
+         */
+        private FallbackPolicy fallback = FallbackPolicy.FAIL_CLOSED;
+    }
+
+    /**
+     * Nested class for retry configuration properties.
+     * <p>
+     * When enabled, a siteverify call that fails to connect, gets a 5xx status or is answered with {@code internal-error} is sent again after an
+     * exponentially growing, randomly jittered delay. Every attempt for one validation carries the same {@code idempotency_key}, so Cloudflare
+     * does not treat a retried token as already spent.
+     * </p>
+     */
+    @Data
+    public static class Retry {
+
+        /**
+         * Whether retries are active. Defaults to false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The maximum number of attempts per validation, including the first. Defaults to 3.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * The upper bound of the delay before the first retry. Defaults to 100 milliseconds.
+         */
+        private Duration initialBackoff = Duration.ofMillis(100);
+
+        /**
+         * The factor the delay bound grows by after each retry. Defaults to 2.0.
+         */
+        private double multiplier = 2.0;
+
+        /**
+         * The largest delay bound between attempts. Defaults to 1 second.
+         */
+        private Duration maxBackoff = Duration.ofSeconds(1);
+
+        /**
+         * The total time, measured from the first attempt, after which no further retry is started. Defaults to 3 seconds.
+         */
+        private Duration budget = Duration.ofSeconds(3);
+    }
+
+    /**
+     * Nested class for bulkhead configuration properties.
+     * <p>
+     * When enabled, at most {@code max-concurrent} siteverify calls are in flight at once. Further validations wait in a queue of at most
+     * {@code max-queue} entries for up to {@code max-wait}, and are answered with an {@code OVERLOADED} result when the queue is full or the wait
+     * runs out, so a slow Cloudflare cannot absorb every request thread.
+     * </p>
+     */
+    @Data
+    public static class Bulkhead {
+
+        /**
+         * Whether the bulkhead is active. Defaults to false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The maximum number of siteverify calls in flight at once. Defaults to 50.
+         */
+        private int maxConcurrent = 50;
+
+        /**
+         * The maximum number of validations waiting for a free slot; 0 rejects as soon as all slots are taken. Defaults to 100.
+         */
+        private int maxQueue = 100;
+
+        /**
+         * The longest a validation waits in the queue. Defaults to 500 milliseconds.
+         */
+        private Duration maxWait = Duration.ofMillis(500);
+    }
+
+    /**
+     * Nested class for batch validation configuration properties.
+     */
+    @Data
+    public static class Batch {
+
+        /**
+         * The maximum number of validations of one batch in flight at once. Defaults to 8.
+         */
+        private int parallelism = 8;
+    }
+
+    /**
+     * Nested class for settings reload configuration properties.
+     */
+    @Data
+    public static class Reload {
+
+        /**
+         * A file watched for new keys, e.g. a mounted secret. A file ending in {@code .properties} may set {@code secret}, {@code sitekey} and
+         * {@code url}; any other file holds just the secret key. Values from the file take precedence over the environment. Unset by default.
+         */
+        private String secretsFile;
+
+        /**
+         * How long a replaced secret key is still tried when Cloudflare rejects the new one as {@code invalid-input-secret}. Defaults to 5
+         * minutes; zero switches to the new secret at once.
+         */
+        private Duration secretOverlap = Duration.ofMinutes(5);
+    }
+
+    /**
+     * Nested class for the configuration of one tenant, bound from {@code ds.cf.turnstile.tenants.<id>.*}.
+     */
+    @Data
+    public static class Tenant {
+
+        /**
+         * The tenant's Turnstile site key.
+         */
+        private String sitekey;
+
+        /**
+         * The tenant's Turnstile secret key.
+         */
+        private String secret;
+
+        /**
+         * The siteverify URL for this tenant. Defaults to the top-level {@code url}.
+         */
+        private String url;
+
+        /**
+         * The request host names served by this tenant, e.g. {@code shop.example.com}. A leading {@code *.} matches any subdomain.
+         */
+        private List<String> hosts = new ArrayList<>();
+    }
+
+    /**
+     * Creates the configuration of a tenant: the tenant's keys and URL, and every other setting shared with this configuration. Nested settings
+     * objects are shared, not copied.
+     *
+     * @param tenant the tenant configuration
+     * @return the tenant's configuration properties
+     */
+    public TurnstileConfigProperties forTenant(Tenant tenant) {
+        TurnstileConfigProperties copy = new TurnstileConfigProperties();
+        copy.setSitekey(tenant.getSitekey());
+        copy.setSecret(tenant.getSecret());
+        copy.setUrl(tenant.getUrl() != null && !tenant.getUrl().isBlank() ? tenant.getUrl() : url);
+        copy.setConnectTimeout(connectTimeout);
+        copy.setReadTimeout(readTimeout);
+        copy.setTimeout(timeout);
+        copy.setAdaptiveTimeout(adaptiveTimeout);
+        copy.setTransport(transport);
+        copy.setWarmup(warmup);
+        copy.setPreValidation(preValidation);
+        copy.setRateLimit(rateLimit);
+        copy.setPenaltyBox(penaltyBox);
+        copy.setExecution(execution);
+        copy.setCoalescing(coalescing);
+        copy.setCache(cache);
+        copy.setReplay(replay);
+        copy.setCircuitBreaker(circuitBreaker);
+        copy.setRetry(retry);
+        copy.setBulkhead(bulkhead);
+        copy.setBatch(batch);
+        copy.setReload(reload);
+        copy.setMetrics(metrics);
+        copy.setLogin(login);
+        copy.setToken(token);
+        return copy;
+    }
+
+    /**
+     * Resolves the connect timeout: {@code timeout.connect} if set, otherwise {@code connect-timeout} seconds.
+     *
+     * @return the connect timeout
+     */
+    public Duration resolveConnectTimeout() {
+        return timeout.getConnect() != null ? timeout.getConnect() : Duration.ofSeconds(connectTimeout);
+    }
+
+    /**
+     * Resolves the static read timeout: {@code timeout.read} if set, otherwise {@code read-timeout} seconds.
+     *
+     * @return the read timeout
+     */
+    public Duration resolveReadTimeout() {
+        return timeout.getRead() != null ? timeout.getRead() : Duration.ofSeconds(readTimeout);
+    }
+
+    /**
+     * Nested class for timeout configuration properties. Values accept any duration format, such as {@code 150ms} or {@code 2s}.
+     */
+    @Data
+    public static class Timeout {
+
+        /**
+         * Connection timeout. Unset by default, in which case {@code connect-timeout} applies.
+         */
+        private Duration connect;
+
+        /**
+         * Read timeout. Unset by default, in which case {@code read-timeout} applies.
+         */
+        private Duration read;
+    }
+
+    /**
+     * Nested class for adaptive timeout configuration properties.
+     * <p>
+     * When enabled, each siteverify request gets a deadline of {@link #getMultiplier()} times the 99th percentile of recently observed latencies,
+     * clamped between {@link #getFloor()} and {@link #getCeiling()}.
+     * </p>
+     */
+    @Data
+    public static class AdaptiveTimeout {
+
+        /**
+         * Whether the read timeout adapts to observed latency. Defaults to false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The factor applied to the observed 99th percentile. Defaults to 3.0.
+         */
+        private double multiplier = 3.0;
+
+        /**
+         * The smallest read timeout applied. Defaults to 100 milliseconds.
+         */
+        private Duration floor = Duration.ofMillis(100);
+
+        /**
+         * The largest read timeout applied, also used until {@link #getMinSamples()} calls have been observed. Unset by default, in which case the
+         * static read timeout applies.
+         */
+        private Duration ceiling;
+
+        /**
+         * The number of most recent calls the percentile is computed over. Defaults to 1000.
+         */
+        private int windowSize = 1000;
+
+        /**
+         * The number of calls that must be observed before the timeout adapts. Defaults to 100.
+         */
+        private int minSamples = 100;
+    }
+
+    /**
+     * Nested class for HTTP transport configuration properties.
+     * <p>
+     * The JDK {@link HttpClient} reads its keep-alive and connection pool limits from JVM-wide system properties, such as
+     * {@code jdk.httpclient.keepalive.timeout}, which the library leaves to the application's {@code -D} options.
+     * </p>
+     */
+    @Data
+    public static class Transport {
+
+        /**
+         * The HTTP version requested. {@code HTTP_2} negotiates HTTP/2 through TLS ALPN, falling back to HTTP/1.1 only if the server refuses it.
+         * Defaults to HTTP_2.
+         */
+        private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+        /**
+         * The number of threads in a dedicated executor for the client's tasks and future completions. Defaults to 0, which keeps the JDK's
+         * default cached pool. Ignored when {@code execution=virtual-threads} is in effect.
+         */
+        private int executorThreads = 0;
+
+        /**
+         * Whether blocking validations are sent directly on the JDK {@link HttpClient} with a pre-encoded request body, instead of through the
+         * {@code turnstileRestClient} and its Jackson message converters. Defaults to false.
+         */
+        private boolean fastPath = false;
+
+        /**
+         * The request body encoding used by the JDK transport. Defaults to JSON.
+         */
+        private BodyEncoding bodyEncoding = BodyEncoding.JSON;
+    }
+
+    /**
+     * Nested class for token pre-validation configuration properties.
+     * <p>
+     * Tokens that fail these checks are rejected as {@code INPUT_ERROR} without a siteverify call. The checks scan the token once and do not
+     * allocate.
+     * </p>
+     */
+    @Data
+    public static class PreValidation {
+
+        /**
+         * Whether to check token characters and prefix before calling siteverify. The minimum and maximum length checks apply either way.
+         * Defaults to false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The maximum token length, checked even when {@code enabled} is false. Cloudflare documents a maximum of 2048 characters. Zero or less
+         * turns the check off. Defaults to 2048.
+         */
+        private int maxLength = 2048;
+
+        /**
+         * The characters a token may contain. Defaults to the base64 and base64url alphabets plus {@code .}, which covers the tokens Cloudflare
+         * issues. Only ASCII characters can be allowed.
+         */
+        private String allowedCharacters = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_.+/=";
+
+        /**
+         * Prefixes a token must start with, one of which must match. Empty by default, which skips the check.
+         */
+        private List<String> allowedPrefixes = new ArrayList<>();
+    }
+
+    /**
+     * Nested class for per-client rate limit configuration properties.
+     * <p>
+     * When enabled, the login captcha filter gives each client IP a token bucket of {@code capacity} requests, refilled at
+     * {@code refill-per-second}, and rejects requests beyond it before the token is read or Cloudflare is called.
+     * </p>
+     */
+    @Data
+    public static class RateLimit {
+
+        /**
+         * Whether to rate limit login submissions per client IP. Defaults to false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The burst of requests a client may send at once. Defaults to 10.
+         */
+        private int capacity = 10;
+
+        /**
+         * The sustained requests per second allowed per client. Defaults to 1.0.
+         */
+        private double refillPerSecond = 1.0;
+
+        /**
+         * The maximum verifications in flight per client, or 0 for no cap. Defaults to 0.
+         */
+        private int maxConcurrent = 0;
+
+        /**
+         * The maximum number of client IPs tracked at once; the least recently seen are dropped beyond it. Defaults to 100000.
+         */
+        private int maxClients = 100_000;
+
+        /**
+         * How long a client that sends no requests is remembered. Defaults to 10 minutes.
+         */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        /**
+         * The number of lock stripes the client table is split into. Defaults to 64.
+         */
+        private int stripes = 64;
+
+        /**
+         * The HTTP status sent for a rejected request when no {@code reject-redirect-url} is set. Defaults to 429.
+         */
+        private int rejectStatus = 429;
+
+        /**
+         * The URL to redirect a rejected request to instead of sending {@code reject-status}. Unset by default.
+         */
+        private String rejectRedirectUrl;
+    }
+
+    /**
+     * Nested class for penalty box configuration properties.
+     * <p>
+     * When enabled, a client IP whose tokens Cloudflare rejects (including local replay rejections) {@code threshold} times within {@code window} is
+     * blocked in memory for {@code base-block}, each further block lasting {@code multiplier} times longer up to {@code max-block}. Validations
+     * from a blocked client return a {@code BLOCKED} result without calling Cloudflare, and the login captcha filter rejects them before reading
+     * the token.
+     * </p>
+     */
+    @Data
+    public static class PenaltyBox {
+
+        /**
+         * Whether to block clients with repeated invalid tokens. Defaults to false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The number of invalid tokens within {@code window} that blocks a client. Defaults to 5.
+         */
+        private int threshold = 5;
+
+        /**
+         * The sliding window invalid tokens are counted in. Defaults to 10 minutes.
+         */
+        private Duration window = Duration.ofMinutes(10);
+
+        /**
+         * How long a client's first block lasts. Defaults to 1 minute.
+         */
+        private Duration baseBlock = Duration.ofMinutes(1);
+
+        /**
+         * How much longer each further block of the same client lasts. Defaults to 2.0.
+         */
+        private double multiplier = 2.0;
+
+        /**
+         * The longest block; a client's history is also forgotten after this long without failures. Defaults to 1 hour.
+         */
+        private Duration maxBlock = Duration.ofHours(1);
+
+        /**
+         * The maximum number of client IPs tracked at once; those with the oldest failures are dropped beyond it. Defaults to 100000.
+         */
+        private int maxClients = 100_000;
+
+        /**
+         * The number of lock stripes the client table is split into. Defaults to 64.
+         */
+        private int stripes = 64;
+
+        /**
+         * The HTTP status the login captcha filter sends to a blocked client. Defaults to 403.
+         */
+        private int rejectStatus = 403;
+    }
+
+    /**
+     * Nested class for warm-up configuration properties.
+     * <p>
+     * When enabled, startup opens connections to the configured {@code url} and runs synthetic validations through the full validation path
+     * against an in-process stub, before the application reports itself ready.
+     * </p>
+     */
+    @Data
+    public static class Warmup {
+
+        /**
+         * Whether to warm up at startup. Defaults to false.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The number of concurrent requests sent to the configured {@code url} to open connections. Defaults to 2.
+         */
+        private int connections = 2;
+
+        /**
+         * The number of synthetic validations run against an in-memory stub response. Defaults to 200.
+         */
+        private int iterations = 200;
+
+        /**
+         * The longest startup waits for the warm-up; after this the application starts anyway. Defaults to 30 seconds.
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+    }
+
     /**
      * Nested class for metrics configuration properties.
      */
@@ -99,10 +816,44 @@ public class TurnstileConfigProperties {
 
         /**
          * The threshold percentage of errors that triggers health status degradation.
-         * A value of 10 means that if 10% or more of validation requests fail, the health status is DOWN.
-         * Defaults to 10.
+         * A value of 10 means that if more than 10% of the validations completed within {@code window} failed, the health status is DOWN.
+         * Input errors and invalid tokens are caused by clients and are not counted here, nor are errors of a type with its own entry in
+         * {@code error-thresholds}. Defaults to 10.
          */
         private int errorThreshold = 10;
+
+        /**
+         * Threshold percentages for individual result types, such as {@code network-error: 5} or {@code invalid-token: 50}. A type listed here is
+         * evaluated on its own and left out of {@code error-threshold}. This is the only way input errors and invalid tokens affect the health
+         * status. Empty by default.
+         */
+        private Map<ValidationResultType, Integer> errorThresholds = new LinkedHashMap<>();
+
+        /**
+         * The sliding window the health check evaluates error rates and response times over. Defaults to 60 seconds.
+         */
+        private Duration window = Duration.ofSeconds(60);
+
+        /**
+         * The number of buckets {@code window} is divided into; the window moves forward one bucket at a time. Defaults to 60.
+         */
+        private int windowBuckets = 60;
+
+        /**
+         * The number of validations that must have completed within {@code window} before any threshold is evaluated. Defaults to 20.
+         */
+        private int minimumRequests = 20;
+
+        /**
+         * Siteverify calls taking at least this long count as slow for {@code slow-call-rate-threshold}. Unset by default, which turns the
+         * response time check off.
+         */
+        private Duration slowCallDuration;
+
+        /**
+         * The percentage of slow siteverify calls within {@code window} above which the health status is DOWN. Defaults to 10.
+         */
+        private int slowCallRateThreshold = 10;
     }
 
     /**
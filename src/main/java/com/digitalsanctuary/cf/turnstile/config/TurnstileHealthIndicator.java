@@ -1,57 +1,157 @@
 package com.digitalsanctuary.cf.turnstile.config;
 
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.health.contributor.Health;
 import org.springframework.boot.health.contributor.HealthIndicator;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
+import com.digitalsanctuary.cf.turnstile.metrics.SlidingWindowStats;
+import com.digitalsanctuary.cf.turnstile.resilience.CircuitBreaker;
 import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.tenant.TurnstileTenantRegistry;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Health indicator for the Cloudflare Turnstile service.
  * <p>
  * This component provides health check information for the Cloudflare Turnstile service. It checks if the service is properly configured and if the
- * service has not exceeded the configured error threshold. The health indicator can be disabled through configuration.
+ * service has not exceeded the configured error threshold. The health indicator can be disabled through configuration. Reactive web applications
+ * register {@link ReactiveTurnstileHealthIndicator} instead, which reports the same checks.
+ * </p>
+ * <p>
+ * The secret key and URL are checked in the service's current {@link SiteverifySettings}, so a settings reload is reflected immediately. Error rates
+ * and slow calls are evaluated over the sliding window of {@link TurnstileValidationService#getRecentStats()}, not lifetime totals, so
+ * an outage turns the status DOWN within {@code ds.cf.turnstile.metrics.window} however long the service has been running. No threshold is
+ * evaluated until {@code ds.cf.turnstile.metrics.minimum-requests} validations have completed in the window, so a few early failures cannot
+ * turn it DOWN either. Input errors and invalid tokens are caused by clients, so they only count against a threshold set for them in
+ * {@code ds.cf.turnstile.metrics.error-thresholds}. A {@code window} detail reports the counts the thresholds were evaluated against.
+ * </p>
+ * <p>
+ * When tenants are configured under {@code ds.cf.turnstile.tenants.*}, a {@code tenants} detail reports each tenant's counters and its own
+ * UP/DOWN status against the same checks. A tenant's status does not change the overall status, which reflects the default service.
  * </p>
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 @ConditionalOnProperty(prefix = "ds.cf.turnstile.metrics", name = "health-check-enabled", havingValue = "true", matchIfMissing = true)
 public class TurnstileHealthIndicator implements HealthIndicator {
 
+    /**
+     * Result types caused by clients rather than by the service or Cloudflare, left out of the combined error rate.
+     */
+    private static final Set<ValidationResultType> CLIENT_CAUSED_TYPES =
+            EnumSet.of(ValidationResultType.INPUT_ERROR, ValidationResultType.INVALID_TOKEN, ValidationResultType.BLOCKED);
+
     private final TurnstileValidationService validationService;
     private final TurnstileConfigProperties properties;
+    private final TurnstileTenantRegistry tenantRegistry;
+
+    /**
+     * Constructor for TurnstileHealthIndicator reporting on the default service only.
+     *
+     * @param validationService the validation service whose statistics are reported
+     * @param properties the Turnstile configuration properties
+     */
+    public TurnstileHealthIndicator(TurnstileValidationService validationService, TurnstileConfigProperties properties) {
+        this(validationService, properties, null);
+    }
+
+    /**
+     * Constructor for TurnstileHealthIndicator.
+     *
+     * @param validationService the validation service whose statistics are reported
+     * @param properties the Turnstile configuration properties
+     * @param tenantRegistry the registry whose tenants are reported, or null
+     */
+    @Autowired
+    public TurnstileHealthIndicator(TurnstileValidationService validationService, TurnstileConfigProperties properties,
+            @Nullable TurnstileTenantRegistry tenantRegistry) {
+        this.validationService = validationService;
+        this.properties = properties;
+        this.tenantRegistry = tenantRegistry;
+    }
 
     @Override
     public Health health() {
         try {
-            // Check if the service is properly configured
-            if (properties.getSecret() == null || properties.getSecret().isBlank()) {
-                return Health.down().withDetail("reason", "Turnstile secret key is not configured").build();
+            // Check if the settings the service currently validates with are usable
+            SiteverifySettings settings = validationService.getSettings();
+            if (!settings.isValid()) {
+                return Health.down().withDetail("reason", settings.getProblem()).build();
             }
 
-            if (properties.getUrl() == null || properties.getUrl().isBlank()) {
-                return Health.down().withDetail("reason", "Turnstile URL is not configured").build();
-            }
-
-            // Check if the error rate is below the threshold
             double errorRate = validationService.getErrorRate();
-            int errorThreshold = properties.getMetrics().getErrorThreshold();
+            SlidingWindowStats.Snapshot recent = validationService.getRecentStats();
 
             Health.Builder builder =
-                    Health.up().withDetail("url", properties.getUrl()).withDetail("validationCount", validationService.getValidationCount())
+                    Health.up().withDetail("url", settings.getUrl()).withDetail("validationCount", validationService.getValidationCount())
                             .withDetail("successCount", validationService.getSuccessCount())
                             .withDetail("errorCount", validationService.getErrorCount()).withDetail("errorRate", String.format("%.2f%%", errorRate))
                             .withDetail("responseTimeAvg", String.format("%.2fms", validationService.getAverageResponseTime()))
-                            .withDetail("usingTestCredentials", validationService.isUsingTestCredentials());
+                            .withDetail("responseTimeP50", String.format("%.2fms", validationService.getResponseTimePercentile(50)))
+                            .withDetail("responseTimeP90", String.format("%.2fms", validationService.getResponseTimePercentile(90)))
+                            .withDetail("responseTimeP99", String.format("%.2fms", validationService.getResponseTimePercentile(99)))
+                            .withDetail("responseTimeP999", String.format("%.2fms", validationService.getResponseTimePercentile(99.9)))
+                            .withDetail("responseTimeMax", String.format("%.2fms", validationService.getMaxResponseTime()))
+                            .withDetail("coalescedCount", validationService.getCoalescedCount())
+                            .withDetail("usingTestCredentials", validationService.isUsingTestCredentials())
+                            .withDetail("window", windowDetails(recent));
+
+            if (properties.getCache().isEnabled()) {
+                builder.withDetail("cacheSize", validationService.getCacheSize())
+                        .withDetail("cacheHitCount", validationService.getCacheHitCount())
+                        .withDetail("cacheEvictionCount", validationService.getCacheEvictionCount());
+            }
+
+            if (properties.getReplay().isEnabled()) {
+                builder.withDetail("replayOccupancy", String.format("%.2f%%", validationService.getReplayOccupancy() * 100))
+                        .withDetail("replayHitRate", String.format("%.2f%%", validationService.getReplayHitRate() * 100))
+                        .withDetail("replayHitCount", validationService.getReplayHitCount());
+            }
+
+            if (properties.getBulkhead().isEnabled()) {
+                builder.withDetail("bulkheadInFlight", validationService.getBulkheadInFlight())
+                        .withDetail("bulkheadQueueDepth", validationService.getBulkheadQueueDepth())
+                        .withDetail("overloadedCount", validationService.getOverloadedCount());
+            }
+
+            if (properties.getPenaltyBox().isEnabled()) {
+                builder.withDetail("penaltyBoxSize", validationService.getPenaltyBoxSize())
+                        .withDetail("penaltyBoxBlockedClients", validationService.getPenaltyBoxBlockedClients())
+                        .withDetail("penaltyBlockCount", validationService.getPenaltyBlockCount())
+                        .withDetail("penaltyEvictionCount", validationService.getPenaltyEvictionCount())
+                        .withDetail("penaltyRejectedCount", validationService.getBlockedCount());
+            }
+
+            if (properties.getAdaptiveTimeout().isEnabled()) {
+                builder.withDetail("effectiveReadTimeout", validationService.getEffectiveReadTimeout().toMillis() + "ms");
+            }
+
+            if (tenantRegistry != null && !tenantRegistry.getTenants().isEmpty()) {
+                builder.withDetail("tenants", tenantDetails());
+            }
 
-            // If error rate exceeds threshold, report as DOWN
-            if (errorRate > errorThreshold) {
-                return builder.down().withDetail("reason", "Error rate exceeded threshold: " + errorRate + "% > " + errorThreshold + "%").build();
+            CircuitBreaker.State circuitState = validationService.getCircuitBreakerState().orElse(null);
+            if (circuitState != null) {
+                builder.withDetail("circuitBreaker", circuitState);
+                // Siteverify is not being called at all while the breaker is open
+                if (circuitState == CircuitBreaker.State.OPEN) {
+                    return builder.down().withDetail("reason", "Circuit breaker open").build();
+                }
+            }
+
+            // If the recent error or slow call rate exceeds a threshold, report as DOWN
+            String reason = thresholdExceeded(recent);
+            if (reason != null) {
+                return builder.down().withDetail("reason", reason).build();
             }
 
             return builder.build();
@@ -60,4 +160,101 @@ public class TurnstileHealthIndicator implements HealthIndicator {
             return Health.down(e).withDetail("reason", "Error checking service health: " + e.getMessage()).build();
         }
     }
+
+    /**
+     * Checks the window against the configured thresholds.
+     *
+     * @param recent the window
+     * @return why a threshold is exceeded, or null if none is or too few validations completed in the window
+     */
+    private String thresholdExceeded(SlidingWindowStats.Snapshot recent) {
+        TurnstileConfigProperties.Metrics config = properties.getMetrics();
+        if (recent.getTotal() < config.getMinimumRequests()) {
+            return null;
+        }
+        String window = " over the last " + recent.getWindow().toSeconds() + "s";
+        double errorRate = unlistedErrorRate(recent);
+        if (errorRate > config.getErrorThreshold()) {
+            return String.format("Error rate exceeded threshold: %.2f%% > %d%%", errorRate, config.getErrorThreshold()) + window;
+        }
+        for (Map.Entry<ValidationResultType, Integer> threshold : config.getErrorThresholds().entrySet()) {
+            double rate = recent.getRate(threshold.getKey());
+            if (rate > threshold.getValue()) {
+                return String.format("%s rate exceeded threshold: %.2f%% > %d%%", threshold.getKey(), rate, threshold.getValue()) + window;
+            }
+        }
+        if (config.getSlowCallDuration() != null && recent.getSlowCallRate() > config.getSlowCallRateThreshold()) {
+            return String.format("Slow call rate exceeded threshold: %.2f%% > %d%% of calls took %dms or more", recent.getSlowCallRate(),
+                    config.getSlowCallRateThreshold(), config.getSlowCallDuration().toMillis()) + window;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the share of the window's validations that failed with a result type that has no threshold of its own. Penalty box rejections are not
+     * errors and are never counted. Neither are input errors and invalid tokens unless they are given a threshold of their own: clients cause
+     * them, so counting them would let anyone turn the service DOWN by submitting bad tokens.
+     */
+    private double unlistedErrorRate(SlidingWindowStats.Snapshot recent) {
+        if (recent.getTotal() == 0) {
+            return 0;
+        }
+        long errors = 0;
+        for (ValidationResultType type : ValidationResultType.values()) {
+            if (!CLIENT_CAUSED_TYPES.contains(type) && type != ValidationResultType.SUCCESS
+                    && !properties.getMetrics().getErrorThresholds().containsKey(type)) {
+                errors += recent.getCount(type);
+            }
+        }
+        return (double) errors * 100 / recent.getTotal();
+    }
+
+    private Map<String, Object> windowDetails(SlidingWindowStats.Snapshot recent) {
+        Map<String, Object> detail = new LinkedHashMap<>();
+        detail.put("duration", recent.getWindow().toSeconds() + "s");
+        detail.put("validationCount", recent.getTotal());
+        detail.put("errorRate", String.format("%.2f%%", unlistedErrorRate(recent)));
+        Map<String, Object> rates = new LinkedHashMap<>();
+        for (ValidationResultType type : ValidationResultType.values()) {
+            if (type != ValidationResultType.SUCCESS && recent.getCount(type) > 0) {
+                rates.put(type.name(), String.format("%.2f%%", recent.getRate(type)));
+            }
+        }
+        detail.put("rates", rates);
+        detail.put("responseTimeAvg", String.format("%.2fms", recent.getAverageResponseTime()));
+        detail.put("responseTimeMax", String.format("%.2fms", recent.getMaxResponseTime()));
+        if (properties.getMetrics().getSlowCallDuration() != null) {
+            detail.put("slowCallRate", String.format("%.2f%%", recent.getSlowCallRate()));
+        }
+        return detail;
+    }
+
+    private Map<String, Object> tenantDetails() {
+        Map<String, Object> tenants = new LinkedHashMap<>();
+        tenantRegistry.getTenants().forEach((id, service) -> {
+            Map<String, Object> detail = new LinkedHashMap<>();
+            double errorRate = service.getErrorRate();
+            SlidingWindowStats.Snapshot recent = service.getRecentStats();
+            detail.put("validationCount", service.getValidationCount());
+            detail.put("successCount", service.getSuccessCount());
+            detail.put("errorCount", service.getErrorCount());
+            detail.put("errorRate", String.format("%.2f%%", errorRate));
+            detail.put("window", windowDetails(recent));
+            String reason = null;
+            SiteverifySettings settings = service.getSettings();
+            if (!settings.isValid()) {
+                reason = settings.getProblem();
+            } else if (service.getCircuitBreakerState().orElse(null) == CircuitBreaker.State.OPEN) {
+                reason = "Circuit breaker open";
+            } else {
+                reason = thresholdExceeded(recent);
+            }
+            detail.put("status", reason == null ? "UP" : "DOWN");
+            if (reason != null) {
+                detail.put("reason", reason);
+            }
+            tenants.put(id, detail);
+        });
+        return tenants;
+    }
 }
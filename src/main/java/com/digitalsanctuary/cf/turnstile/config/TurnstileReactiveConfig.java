@@ -0,0 +1,115 @@
+package com.digitalsanctuary.cf.turnstile.config;
+
+import java.net.http.HttpClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.health.autoconfigure.contributor.ConditionalOnEnabledHealthIndicator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import com.digitalsanctuary.cf.turnstile.filter.TurnstileCaptchaWebFilter;
+import com.digitalsanctuary.cf.turnstile.service.ReactiveTurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.tenant.TurnstileTenantRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuration for the reactive (WebFlux) Turnstile integration.
+ * Only loaded when Spring WebFlux's {@link WebClient} is on the classpath.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnClass(WebClient.class)
+public class TurnstileReactiveConfig {
+
+    private final TurnstileConfigProperties properties;
+
+    /**
+     * Creates a WebClient bean for reactive Turnstile API interactions.
+     * <p>
+     * The client sends on the shared {@code turnstileHttpClient}, so blocking, async and reactive validations reuse the same connections. Backs off
+     * only when the consuming application defines its own bean named {@code turnstileWebClient}.
+     * </p>
+     *
+     * @param httpClient the JDK HTTP client the WebClient sends requests on
+     * @return a configured WebClient instance
+     */
+    @Bean(name = "turnstileWebClient")
+    @ConditionalOnMissingBean(name = "turnstileWebClient")
+    public WebClient turnstileWebClient(@Qualifier("turnstileHttpClient") HttpClient httpClient) {
+        log.info("Creating Turnstile WebClient with endpoint: {}", properties.getUrl());
+        return WebClient.builder()
+                .baseUrl(properties.getUrl())
+                .clientConnector(new JdkClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+
+    /**
+     * Creates a ReactiveTurnstileValidationService bean.
+     * <p>
+     * Backs off if the consuming application supplies its own {@link ReactiveTurnstileValidationService} bean.
+     * </p>
+     *
+     * @param webClient the preconfigured WebClient for Turnstile calls
+     * @param validationService the validation service whose checks, counters and metrics are shared
+     * @return a configured ReactiveTurnstileValidationService instance
+     */
+    @Bean
+    @ConditionalOnMissingBean(ReactiveTurnstileValidationService.class)
+    public ReactiveTurnstileValidationService reactiveTurnstileValidationService(@Qualifier("turnstileWebClient") WebClient webClient,
+            TurnstileValidationService validationService) {
+        return new ReactiveTurnstileValidationService(webClient, validationService, properties);
+    }
+
+    /**
+     * Creates the reactive login captcha filter when {@code ds.cf.turnstile.login.enabled=true} in a reactive web application.
+     *
+     * @param reactiveValidationService the reactive validation service
+     * @return the reactive login captcha filter
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = Type.REACTIVE)
+    @ConditionalOnProperty(name = "ds.cf.turnstile.login.enabled", havingValue = "true", matchIfMissing = false)
+    @ConditionalOnMissingBean(TurnstileCaptchaWebFilter.class)
+    public TurnstileCaptchaWebFilter turnstileCaptchaWebFilter(ReactiveTurnstileValidationService reactiveValidationService) {
+        return new TurnstileCaptchaWebFilter(reactiveValidationService, properties);
+    }
+
+    /**
+     * Reactive health indicator configuration for Turnstile.
+     * Only registered in reactive web applications with Spring Actuator on the classpath, subject to the same switches as
+     * {@link TurnstileHealthIndicator}.
+     */
+    @Configuration
+    @ConditionalOnWebApplication(type = Type.REACTIVE)
+    @ConditionalOnEnabledHealthIndicator("turnstile")
+    @ConditionalOnClass(name = "org.springframework.boot.health.contributor.ReactiveHealthIndicator")
+    @ConditionalOnProperty(prefix = "ds.cf.turnstile.metrics", name = "health-check-enabled", havingValue = "true", matchIfMissing = true)
+    static class ReactiveTurnstileHealthConfiguration {
+
+        /**
+         * Creates the reactive Turnstile health indicator.
+         *
+         * @param validationService the validation service whose statistics are reported
+         * @param properties the Turnstile configuration properties
+         * @param tenantRegistry provider of the tenant registry whose tenants are reported
+         * @return the reactive health indicator
+         */
+        @Bean
+        public ReactiveTurnstileHealthIndicator turnstileHealthIndicator(TurnstileValidationService validationService,
+                TurnstileConfigProperties properties, ObjectProvider<TurnstileTenantRegistry> tenantRegistry) {
+            return new ReactiveTurnstileHealthIndicator(validationService, properties, tenantRegistry.getIfAvailable());
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package com.digitalsanctuary.cf.turnstile.config;
 
 import java.net.http.HttpClient;
-import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties.Execution;
 import com.digitalsanctuary.cf.turnstile.metrics.NoOpTurnstileMetrics;
 import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
 import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.tenant.TurnstileTenantRegistry;
+import com.digitalsanctuary.cf.turnstile.transport.InstrumentedHttpClient;
+import com.digitalsanctuary.cf.turnstile.transport.VirtualThreads;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -49,6 +57,7 @@ public class TurnstileServiceConfig {
      * </p>
      *
      * @param restClient the preconfigured REST client for Turnstile calls
+     * @param httpClient the JDK HTTP client used for non-blocking Turnstile calls
      * @param metrics the TurnstileMetrics implementation to use
      * @return a configured TurnstileValidationService instance
      */
@@ -56,8 +65,114 @@ public class TurnstileServiceConfig {
     @ConditionalOnMissingBean(TurnstileValidationService.class)
     public TurnstileValidationService turnstileValidationService(
             @Qualifier("turnstileRestClient") RestClient restClient,
+            @Qualifier("turnstileHttpClient") HttpClient httpClient,
             TurnstileMetrics metrics) {
-        return new TurnstileValidationService(restClient, properties, metrics);
+        return new TurnstileValidationService(restClient, httpClient, properties, metrics);
+    }
+
+    /**
+     * Creates the reloader that swaps in new keys and a new URL on an environment refresh or a change of the
+     * {@code ds.cf.turnstile.reload.secrets-file}, without a restart.
+     *
+     * @param validationService the validation service whose settings are reloaded
+     * @param environment the environment the settings are bound from on reload
+     * @return the settings reloader
+     */
+    @Bean
+    @ConditionalOnMissingBean(TurnstileSettingsReloader.class)
+    public TurnstileSettingsReloader turnstileSettingsReloader(TurnstileValidationService validationService, Environment environment) {
+        return new TurnstileSettingsReloader(properties, environment, validationService);
+    }
+
+    /**
+     * Creates the registry of per-tenant validation services configured under {@code ds.cf.turnstile.tenants.*}.
+     * <p>
+     * Always registered; with no tenants configured it routes every request to the default
+     * {@link TurnstileValidationService}. Tenant services share the {@code turnstileRestClient} and
+     * {@code turnstileHttpClient} beans, and so their connection pool.
+     * </p>
+     *
+     * @param defaultService the service for requests that match no tenant
+     * @param restClient the preconfigured REST client for Turnstile calls
+     * @param httpClient the JDK HTTP client used for non-blocking Turnstile calls
+     * @param metrics the TurnstileMetrics implementation tenant validations are recorded to
+     * @return the tenant registry
+     */
+    @Bean
+    @ConditionalOnMissingBean(TurnstileTenantRegistry.class)
+    public TurnstileTenantRegistry turnstileTenantRegistry(TurnstileValidationService defaultService,
+            @Qualifier("turnstileRestClient") RestClient restClient,
+            @Qualifier("turnstileHttpClient") HttpClient httpClient,
+            TurnstileMetrics metrics) {
+        return new TurnstileTenantRegistry(properties, defaultService, restClient, httpClient, metrics);
+    }
+
+    /**
+     * Creates the JDK HttpClient bean shared by the blocking {@code turnstileRestClient} and the
+     * non-blocking {@link TurnstileValidationService#validateAsync(String, String)} path.
+     * <p>
+     * Backs off only when the consuming application defines its own bean named
+     * {@code turnstileHttpClient}, for the same reason as {@link #turnstileRestClient(HttpClient)}.
+     * </p>
+     * <p>
+     * With {@code ds.cf.turnstile.execution=virtual-threads} the client runs its tasks and
+     * completes its futures on virtual threads instead of its default cached platform-thread pool.
+     * Blocking validations are unaffected: they send and wait on the calling thread.
+     * If the running JDK does not support virtual threads, a warning is logged and the default
+     * executor is kept. Otherwise {@code ds.cf.turnstile.transport.executor-threads} can give the
+     * client a dedicated fixed-size pool.
+     * </p>
+     * <p>
+     * The client negotiates {@code ds.cf.turnstile.transport.http-version} (HTTP/2 by default), so
+     * concurrent validations are multiplexed as streams over a few long-lived connections. It is an
+     * {@link InstrumentedHttpClient}, which records every request and every new TLS connection so
+     * that connection reuse can be monitored.
+     * </p>
+     *
+     * @param metrics the TurnstileMetrics implementation requests and connections are recorded to
+     * @return a configured HttpClient instance
+     */
+    @Bean(name = "turnstileHttpClient")
+    @ConditionalOnMissingBean(name = "turnstileHttpClient")
+    public HttpClient turnstileHttpClient(TurnstileMetrics metrics) {
+        TurnstileConfigProperties.Transport transport = properties.getTransport();
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(transport.getHttpVersion())
+                .connectTimeout(properties.resolveConnectTimeout());
+        ExecutorService executor = null;
+        if (properties.getExecution() == Execution.VIRTUAL_THREADS) {
+            executor = VirtualThreads.newVirtualThreadPerTaskExecutor().orElse(null);
+            if (executor != null) {
+                log.info("Turnstile HTTP client executing on virtual threads");
+            } else {
+                log.warn("ds.cf.turnstile.execution=virtual-threads requires JDK 21 or later (running {}); "
+                        + "falling back to platform threads", Runtime.version());
+            }
+        }
+        if (executor == null && transport.getExecutorThreads() > 0) {
+            executor = Executors.newFixedThreadPool(transport.getExecutorThreads(), new TurnstileThreadFactory());
+            log.info("Turnstile HTTP client executing on a dedicated pool of {} threads", transport.getExecutorThreads());
+        }
+        if (executor != null) {
+            builder.executor(executor);
+        }
+        log.info("Turnstile HTTP client version: {}", transport.getHttpVersion());
+        return new InstrumentedHttpClient(builder, metrics, executor);
+    }
+
+    /**
+     * Names the threads of the dedicated transport executor and marks them as daemon threads.
+     */
+    private static final class TurnstileThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "turnstile-http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 
     /**
@@ -69,21 +184,18 @@ public class TurnstileServiceConfig {
      * Turnstile validation.
      * </p>
      *
+     * @param httpClient the JDK HTTP client the RestClient sends requests on
      * @return a configured RestClient instance
      */
     @Bean(name = "turnstileRestClient")
     @ConditionalOnMissingBean(name = "turnstileRestClient")
-    public RestClient turnstileRestClient() {
+    public RestClient turnstileRestClient(@Qualifier("turnstileHttpClient") HttpClient httpClient) {
         log.info("Creating Turnstile REST client with endpoint: {}", properties.getUrl());
-        log.info("Turnstile REST client timeouts - connect: {}s, read: {}s",
-                properties.getConnectTimeout(), properties.getReadTimeout());
-
-        HttpClient httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(properties.getConnectTimeout()))
-                .build();
+        log.info("Turnstile REST client timeouts - connect: {}ms, read: {}ms",
+                properties.resolveConnectTimeout().toMillis(), properties.resolveReadTimeout().toMillis());
 
         JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
-        requestFactory.setReadTimeout(Duration.ofSeconds(properties.getReadTimeout()));
+        requestFactory.setReadTimeout(properties.resolveReadTimeout());
 
         return RestClient.builder()
                 .baseUrl(properties.getUrl())
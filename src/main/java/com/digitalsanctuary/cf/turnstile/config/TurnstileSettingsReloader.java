@@ -0,0 +1,155 @@
+package com.digitalsanctuary.cf.turnstile.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reloads the site key, secret key and URL of the {@link TurnstileValidationService} without a restart.
+ * <p>
+ * A reload binds {@code ds.cf.turnstile.sitekey}, {@code secret} and {@code url} afresh from the {@link Environment}, overlays the values of
+ * {@code ds.cf.turnstile.reload.secrets-file} if one is configured, and hands the result to
+ * {@link TurnstileValidationService#applySettings(SiteverifySettings)}, which swaps it in atomically or rejects it if it is incomplete. Reloads
+ * run when Spring Cloud publishes its {@code EnvironmentChangeEvent} (for example after {@code /actuator/refresh}), when the secrets file
+ * changes, and when {@link #reload()} is called. Applied values are also written back to {@link TurnstileConfigProperties}, so the health
+ * indicator and other readers of the properties see the settings in use.
+ * </p>
+ * <p>
+ * Spring Cloud is not a dependency of this library, so its event is recognised by class name.
+ * </p>
+ */
+@Slf4j
+public class TurnstileSettingsReloader implements ApplicationListener<ApplicationEvent> {
+
+    private static final String ENVIRONMENT_CHANGE_EVENT = "org.springframework.cloud.context.environment.EnvironmentChangeEvent";
+    private static final String PREFIX = "ds.cf.turnstile.";
+
+    private final TurnstileConfigProperties properties;
+    private final Environment environment;
+    private final TurnstileValidationService validationService;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private SecretsFileWatcher watcher;
+
+    /**
+     * Constructor for TurnstileSettingsReloader.
+     *
+     * @param properties the Turnstile configuration properties
+     * @param environment the environment the settings are bound from on reload
+     * @param validationService the validation service whose settings are reloaded
+     */
+    public TurnstileSettingsReloader(TurnstileConfigProperties properties, Environment environment, TurnstileValidationService validationService) {
+        this.properties = properties;
+        this.environment = environment;
+        this.validationService = validationService;
+    }
+
+    /**
+     * Applies the secrets file, if one is configured, and starts watching it.
+     *
+     * @throws IOException if the file's directory cannot be watched
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        String secretsFile = properties.getReload().getSecretsFile();
+        if (secretsFile == null || secretsFile.isBlank()) {
+            return;
+        }
+        reload();
+        watcher = new SecretsFileWatcher(Path.of(secretsFile), this::reload);
+    }
+
+    /**
+     * Stops watching the secrets file.
+     *
+     * @throws IOException if the watch service cannot be closed
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (ENVIRONMENT_CHANGE_EVENT.equals(event.getClass().getName())) {
+            reload();
+        }
+    }
+
+    /**
+     * Reloads the settings from the environment and the secrets file.
+     *
+     * @return true if the service's settings changed
+     */
+    public boolean reload() {
+        reloadLock.lock();
+        try {
+            Binder binder = Binder.get(environment);
+            String sitekey = binder.bind(PREFIX + "sitekey", String.class).orElse(null);
+            String secret = binder.bind(PREFIX + "secret", String.class).orElse(null);
+            String url = binder.bind(PREFIX + "url", String.class).orElse(null);
+
+            String secretsFile = properties.getReload().getSecretsFile();
+            if (secretsFile != null && !secretsFile.isBlank()) {
+                Path file = Path.of(secretsFile);
+                Properties values;
+                try {
+                    values = readSecretsFile(file);
+                } catch (IOException e) {
+                    // A mounted secret is briefly absent while it is replaced; the next change event reads it again
+                    log.warn("Could not read Turnstile secrets file {}, keeping the current settings: {}", file, e.getMessage());
+                    return false;
+                }
+                sitekey = values.getProperty("sitekey", sitekey);
+                secret = values.getProperty("secret", secret);
+                url = values.getProperty("url", url);
+            }
+
+            SiteverifySettings next = SiteverifySettings.of(sitekey, secret, url);
+            if (!validationService.applySettings(next)) {
+                return false;
+            }
+            properties.setSitekey(next.getSitekey());
+            properties.setSecret(next.getSecret());
+            properties.setUrl(next.getUrl());
+            return true;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Reads a secrets file: a {@code .properties} file may set {@code secret}, {@code sitekey} and {@code url}, with or without the
+     * {@code ds.cf.turnstile.} prefix; any other file holds just the secret key.
+     */
+    private static Properties readSecretsFile(Path file) throws IOException {
+        Properties values = new Properties();
+        if (file.getFileName().toString().endsWith(".properties")) {
+            Properties raw = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                raw.load(reader);
+            }
+            for (String name : raw.stringPropertyNames()) {
+                String key = name.startsWith(PREFIX) ? name.substring(PREFIX.length()) : name;
+                values.setProperty(key, raw.getProperty(name).trim());
+            }
+        } else {
+            values.setProperty("secret", Files.readString(file, StandardCharsets.UTF_8).trim());
+        }
+        return values;
+    }
+}
@@ -1,5 +1,6 @@
 package com.digitalsanctuary.cf.turnstile.config;
 
+import java.util.function.BooleanSupplier;
 import org.springframework.beans.factory.ObjectProvider;
 import com.digitalsanctuary.cf.turnstile.filter.TurnstileCaptchaFilter;
 import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
@@ -18,7 +19,7 @@ import lombok.extern.slf4j.Slf4j;
 public class TurnstileStartupReporter {
 
     private final TurnstileConfigProperties properties;
-    private final ObjectProvider<TurnstileCaptchaFilter> captchaFilterProvider;
+    private final BooleanSupplier captchaFilterRegistered;
 
     /**
      * Constructor for TurnstileStartupReporter.
@@ -27,8 +28,19 @@ public class TurnstileStartupReporter {
      * @param captchaFilterProvider provider used to detect whether the login captcha filter bean is registered
      */
     public TurnstileStartupReporter(TurnstileConfigProperties properties, ObjectProvider<TurnstileCaptchaFilter> captchaFilterProvider) {
+        this(properties, () -> captchaFilterProvider.getIfAvailable() != null);
+    }
+
+    /**
+     * Constructor for TurnstileStartupReporter that does not refer to the servlet-based login captcha filter, for applications without the servlet
+     * API.
+     *
+     * @param properties the Turnstile configuration properties to report on
+     * @param captchaFilterRegistered reports whether the login captcha filter bean is registered
+     */
+    public TurnstileStartupReporter(TurnstileConfigProperties properties, BooleanSupplier captchaFilterRegistered) {
         this.properties = properties;
-        this.captchaFilterProvider = captchaFilterProvider;
+        this.captchaFilterRegistered = captchaFilterRegistered;
     }
 
     /**
@@ -36,7 +48,10 @@ public class TurnstileStartupReporter {
      */
     @PostConstruct
     public void reportStartupState() {
-        if (properties.getSecret() == null || properties.getSecret().isBlank()) {
+        String secretsFile = properties.getReload().getSecretsFile();
+        if (secretsFile != null && !secretsFile.isBlank()) {
+            log.info("Turnstile keys are reloaded from {} (ds.cf.turnstile.reload.secrets-file)", secretsFile);
+        } else if (properties.getSecret() == null || properties.getSecret().isBlank()) {
             log.error("Turnstile secret key is not configured. Validation will fail.");
         }
         if (properties.getUrl() == null || properties.getUrl().isBlank()) {
@@ -53,6 +68,13 @@ public class TurnstileStartupReporter {
         }
 
         log.info("Turnstile login captcha filter (ds.cf.turnstile.login.enabled): {}",
-                captchaFilterProvider.getIfAvailable() != null ? "ENABLED" : "DISABLED");
+                captchaFilterRegistered.getAsBoolean() ? "ENABLED" : "DISABLED");
+        properties.getTenants().forEach((id, tenant) -> {
+            if (tenant.getSecret() != null && TurnstileValidationService.isTestCredentials(tenant.getSitekey(), tenant.getSecret())) {
+                log.warn("Turnstile tenant '{}' is configured with Cloudflare TEST credentials. Do not use these credentials in production.", id);
+            }
+        });
+        log.info("Turnstile startup warm-up (ds.cf.turnstile.warmup.enabled): {}", properties.getWarmup().isEnabled() ? "ENABLED" : "DISABLED");
+        log.info("Turnstile tenants (ds.cf.turnstile.tenants): {}", properties.getTenants().isEmpty() ? "NONE" : properties.getTenants().keySet());
     }
 }
@@ -0,0 +1,282 @@
+package com.digitalsanctuary.cf.turnstile.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.RestClient;
+import com.digitalsanctuary.cf.turnstile.metrics.NoOpTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.transport.JdkSiteverifyTransport;
+import com.digitalsanctuary.cf.turnstile.transport.SiteverifyRequestTemplate;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Warms up the Turnstile validation path at startup, enabled by {@code ds.cf.turnstile.warmup.enabled=true}.
+ * <p>
+ * Once all singletons exist, a background thread opens {@code connections} concurrent connections to the configured {@code url} on the shared
+ * {@code turnstileHttpClient}, paying DNS and TLS costs up front, and then runs {@code iterations} synthetic validations through a separate
+ * {@link TurnstileValidationService} whose requests are answered in memory. That exercises the request encoders and
+ * {@link com.digitalsanctuary.cf.turnstile.transport.TurnstileResponseDecoder} until the JIT has compiled them, without calling Cloudflare, without
+ * touching the application's validation statistics, and without opening a socket or needing the {@code jdk.httpserver} module, which jlink and
+ * distroless images often leave out.
+ * </p>
+ * <p>
+ * As an {@link ApplicationRunner}, this bean then waits for the warm-up to finish, up to {@code timeout}. Spring Boot publishes
+ * {@code ReadinessState.ACCEPTING_TRAFFIC} only after all runners have returned, so the readiness probe keeps reporting not-ready until the
+ * warm-up has completed or timed out.
+ * </p>
+ */
+@Slf4j
+public class TurnstileWarmup implements SmartInitializingSingleton, ApplicationRunner {
+
+    private static final String STUB_URL = "http://turnstile-warmup.invalid/siteverify";
+    private static final byte[] STUB_RESPONSE = ("{\"success\":true,\"challenge_ts\":\"2024-01-01T00:00:00Z\",\"hostname\":\"warmup\","
+            + "\"error-codes\":[],\"action\":\"warmup\",\"cdata\":\"\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final TurnstileConfigProperties properties;
+    private final HttpClient httpClient;
+    private final TurnstileMetrics metrics;
+    private volatile CompletableFuture<Void> warmup;
+    private volatile boolean complete;
+
+    /**
+     * Constructor for TurnstileWarmup.
+     *
+     * @param properties the Turnstile configuration properties
+     * @param httpClient the shared HTTP client whose connections are opened
+     * @param metrics the metrics the warm-up duration is recorded to
+     */
+    public TurnstileWarmup(TurnstileConfigProperties properties, HttpClient httpClient, TurnstileMetrics metrics) {
+        this.properties = properties;
+        this.httpClient = httpClient;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Starts the warm-up on a background thread, so it overlaps with the rest of startup.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        start();
+    }
+
+    /**
+     * Waits for the warm-up to finish, holding back readiness, for at most the configured timeout.
+     *
+     * @param args the application arguments, unused
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        awaitCompletion();
+    }
+
+    /**
+     * Returns whether the warm-up has finished.
+     *
+     * @return true once the warm-up has completed, successfully or not
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Starts the warm-up if it has not been started yet.
+     */
+    void start() {
+        if (warmup != null) {
+            return;
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        warmup = future;
+        Thread thread = new Thread(() -> {
+            try {
+                warmUp();
+                future.complete(null);
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+            }
+        }, "turnstile-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Blocks until the warm-up has finished or its timeout has elapsed, and records the outcome.
+     */
+    public void awaitCompletion() {
+        start();
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            warmup.get(properties.getWarmup().getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            completed = true;
+        } catch (TimeoutException e) {
+            log.warn("Turnstile warm-up did not finish within {}; continuing startup", properties.getWarmup().getTimeout());
+        } catch (ExecutionException e) {
+            log.warn("Turnstile warm-up failed; continuing startup: {}", e.getCause().getMessage(), e.getCause());
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        complete = true;
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        metrics.recordWarmup(elapsed, completed);
+        log.info("Turnstile warm-up {} after waiting {}ms", completed ? "finished" : "abandoned", elapsed);
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+        openConnections();
+        long connected = System.nanoTime();
+        exerciseValidationPath();
+        log.info("Turnstile warm-up: connections opened in {}ms, {} synthetic validations in {}ms",
+                TimeUnit.NANOSECONDS.toMillis(connected - start), properties.getWarmup().getIterations(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connected));
+    }
+
+    /**
+     * Sends concurrent HEAD requests to the siteverify URL. Any HTTP status will do: the point is the DNS lookup and the handshake, and the
+     * connection then stays in the client's pool.
+     */
+    private void openConnections() {
+        if (properties.getUrl() == null || properties.getUrl().isBlank()) {
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(properties.getUrl())).method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(properties.resolveReadTimeout()).build();
+        List<CompletableFuture<?>> requests = new ArrayList<>();
+        for (int i = 0; i < properties.getWarmup().getConnections(); i++) {
+            requests.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).handle((response, failure) -> {
+                if (failure != null) {
+                    log.warn("Turnstile warm-up could not reach {}: {}", properties.getUrl(), failure.getMessage());
+                }
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * Runs the synthetic validations. Even iterations go through a {@link TurnstileValidationService} whose {@code RestClient} is answered in
+     * memory; odd ones encode a request with the {@link SiteverifyRequestTemplate} and decode the stub response, as the JDK transport does.
+     */
+    private void exerciseValidationPath() {
+        if (properties.getWarmup().getIterations() <= 0) {
+            return;
+        }
+        try {
+            TurnstileConfigProperties stubProperties = new TurnstileConfigProperties();
+            stubProperties.setUrl(STUB_URL);
+            stubProperties.setSecret("turnstile-warmup");
+            stubProperties.getTransport().setBodyEncoding(properties.getTransport().getBodyEncoding());
+            ClientHttpRequestFactory factory = WarmupRequest::new;
+            RestClient restClient = RestClient.builder().requestFactory(factory).build();
+            TurnstileValidationService service = new TurnstileValidationService(restClient, httpClient, stubProperties, new NoOpTurnstileMetrics());
+            SiteverifyRequestTemplate template = new SiteverifyRequestTemplate(STUB_URL, stubProperties.getSecret(),
+                    stubProperties.getTransport().getBodyEncoding());
+            for (int i = 0; i < properties.getWarmup().getIterations(); i++) {
+                String token = String.format("turnstile-warmup-token-%08d", i);
+                if (i % 2 == 0) {
+                    service.validateTurnstileResponseDetailed(token, "127.0.0.1");
+                } else {
+                    template.encode(token, "127.0.0.1", null);
+                    JdkSiteverifyTransport.decodeBody(STUB_RESPONSE);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Turnstile warm-up validation failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * A siteverify request answered with {@link #STUB_RESPONSE} without opening a connection.
+     */
+    private static final class WarmupRequest extends AbstractClientHttpRequest {
+
+        private final URI uri;
+        private final HttpMethod method;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        private WarmupRequest(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            return body;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) {
+            return new WarmupResponse();
+        }
+    }
+
+    private static final class WarmupResponse implements ClientHttpResponse {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private WarmupResponse() {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        @Override
+        public String getStatusText() {
+            return HttpStatus.OK.getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(STUB_RESPONSE);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
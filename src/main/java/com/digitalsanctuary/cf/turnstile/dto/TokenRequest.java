@@ -0,0 +1,20 @@
+package com.digitalsanctuary.cf.turnstile.dto;
+
+/**
+ * One token to validate in a batch, with the remote IP of the client that submitted it.
+ *
+ * @param token the response token to be validated
+ * @param remoteIp the remote IP address of the client, or null
+ */
+public record TokenRequest(String token, String remoteIp) {
+
+    /**
+     * Creates a request for a token without a remote IP.
+     *
+     * @param token the response token to be validated
+     * @return the token request
+     */
+    public static TokenRequest of(String token) {
+        return new TokenRequest(token, null);
+    }
+}
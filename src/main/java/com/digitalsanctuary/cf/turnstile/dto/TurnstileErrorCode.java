@@ -0,0 +1,108 @@
+package com.digitalsanctuary.cf.turnstile.dto;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The error codes documented for Cloudflare's siteverify endpoint.
+ * <p>
+ * Error codes are still carried as strings in {@link TurnstileResponse}, {@link ValidationResult} and
+ * {@link com.digitalsanctuary.cf.turnstile.exception.TurnstileValidationException}, so codes Cloudflare adds later round-trip unchanged. This enum
+ * gives the known ones a type: {@link #setOf(List)} maps a code list onto an {@link EnumSet}, ignoring unknown codes.
+ * </p>
+ *
+ * @see <a href="https://developers.cloudflare.com/turnstile/get-started/server-side-validation/">Cloudflare Turnstile Server-Side Validation</a>
+ */
+public enum TurnstileErrorCode {
+
+    /** The secret parameter was not passed. */
+    MISSING_INPUT_SECRET("missing-input-secret"),
+
+    /** The secret parameter was invalid or did not exist. */
+    INVALID_INPUT_SECRET("invalid-input-secret"),
+
+    /** The response parameter was not passed. */
+    MISSING_INPUT_RESPONSE("missing-input-response"),
+
+    /** The response parameter is invalid or has expired. */
+    INVALID_INPUT_RESPONSE("invalid-input-response"),
+
+    /** The request was rejected because it was malformed. */
+    BAD_REQUEST("bad-request"),
+
+    /** The response parameter has already been validated before, or has expired. */
+    TIMEOUT_OR_DUPLICATE("timeout-or-duplicate"),
+
+    /** An internal error happened while validating the response. The request can be retried. */
+    INTERNAL_ERROR("internal-error");
+
+    private final String code;
+    private final List<String> asList;
+
+    TurnstileErrorCode(String code) {
+        this.code = code;
+        this.asList = List.of(code);
+    }
+
+    /**
+     * Gets the code as Cloudflare sends it.
+     *
+     * @return the error code string
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Gets a shared immutable list containing only this code.
+     *
+     * @return the single-element code list
+     */
+    public List<String> asList() {
+        return asList;
+    }
+
+    /**
+     * Looks up a known error code.
+     *
+     * @param code the error code string, may be null
+     * @return the matching constant, or null if the code is not known
+     */
+    public static TurnstileErrorCode fromCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        return switch (code) {
+            case "missing-input-secret" -> MISSING_INPUT_SECRET;
+            case "invalid-input-secret" -> INVALID_INPUT_SECRET;
+            case "missing-input-response" -> MISSING_INPUT_RESPONSE;
+            case "invalid-input-response" -> INVALID_INPUT_RESPONSE;
+            case "bad-request" -> BAD_REQUEST;
+            case "timeout-or-duplicate" -> TIMEOUT_OR_DUPLICATE;
+            case "internal-error" -> INTERNAL_ERROR;
+            default -> null;
+        };
+    }
+
+    /**
+     * Maps a list of error code strings onto the known codes it contains.
+     *
+     * @param codes the error code strings, may be null
+     * @return an unmodifiable set of the known codes; unknown codes are left out
+     */
+    public static Set<TurnstileErrorCode> setOf(List<String> codes) {
+        if (codes == null || codes.isEmpty()) {
+            return Collections.emptySet();
+        }
+        EnumSet<TurnstileErrorCode> known = EnumSet.noneOf(TurnstileErrorCode.class);
+        for (String code : codes) {
+            TurnstileErrorCode errorCode = fromCode(code);
+            if (errorCode != null) {
+                known.add(errorCode);
+            }
+        }
+        return Collections.unmodifiableSet(known);
+    }
+}
@@ -2,6 +2,7 @@ package com.digitalsanctuary.cf.turnstile.dto;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Represents the result of a Turnstile validation operation.
@@ -9,13 +10,40 @@ import java.util.List;
  * This class provides detailed information about the result of validating a Turnstile token, including whether the validation was successful, any
  * error codes returned by Cloudflare, and additional context about the validation.
  * </p>
+ * <p>
+ * Instances are immutable. {@link #success()} and {@link #invalidToken(List)} with no code or a single known code return shared instances, so the
+ * common outcomes do not allocate.
+ * </p>
  */
 public final class ValidationResult {
 
+    private static final ValidationResult SUCCESS = new ValidationResult(true, Collections.emptyList(), "Validation successful",
+            ValidationResultType.SUCCESS);
+
+    private static final ValidationResult INVALID_TOKEN = new ValidationResult(false, Collections.emptyList(), "Token validation failed",
+            ValidationResultType.INVALID_TOKEN);
+
+    private static final ValidationResult BLOCKED = new ValidationResult(false, Collections.emptyList(),
+            "Client is temporarily blocked after repeated failed validations", ValidationResultType.BLOCKED);
+
+    private static final ValidationResult OVERLOADED = new ValidationResult(false, Collections.emptyList(),
+            "Too many Turnstile validations in flight; the token was not verified", ValidationResultType.OVERLOADED);
+
+    private static final ValidationResult[] INVALID_TOKEN_BY_CODE = new ValidationResult[TurnstileErrorCode.values().length];
+
+    static {
+        for (TurnstileErrorCode code : TurnstileErrorCode.values()) {
+            INVALID_TOKEN_BY_CODE[code.ordinal()] = new ValidationResult(false, code.asList(), "Token validation failed",
+                    ValidationResultType.INVALID_TOKEN);
+        }
+    }
+
     private final boolean success;
     private final List<String> errorCodes;
+    private final Set<TurnstileErrorCode> errorCodeSet;
     private final String message;
     private final ValidationResultType resultType;
+    private final InputErrorReason inputErrorReason;
 
     /**
      * Private constructor for ValidationResult instances. Use the static factory methods to create instances.
@@ -26,28 +54,65 @@ public final class ValidationResult {
      * @param resultType the type of validation result
      */
     private ValidationResult(boolean success, List<String> errorCodes, String message, ValidationResultType resultType) {
+        this(success, errorCodes, message, resultType, null);
+    }
+
+    /**
+     * Private constructor for ValidationResult instances carrying an input error reason.
+     *
+     * @param success whether the validation was successful
+     * @param errorCodes the list of error codes if validation failed
+     * @param message a descriptive message about the validation result
+     * @param resultType the type of validation result
+     * @param inputErrorReason why the input was rejected, or null
+     */
+    private ValidationResult(boolean success, List<String> errorCodes, String message, ValidationResultType resultType,
+            InputErrorReason inputErrorReason) {
         this.success = success;
         this.errorCodes = errorCodes != null ? Collections.unmodifiableList(errorCodes) : Collections.emptyList();
+        this.errorCodeSet = TurnstileErrorCode.setOf(this.errorCodes);
         this.message = message;
         this.resultType = resultType;
+        this.inputErrorReason = inputErrorReason;
     }
 
     /**
-     * Creates a successful validation result.
+     * Returns the shared successful validation result.
      *
      * @return a ValidationResult indicating success
      */
     public static ValidationResult success() {
-        return new ValidationResult(true, Collections.emptyList(), "Validation successful", ValidationResultType.SUCCESS);
+        return SUCCESS;
+    }
+
+    /**
+     * Creates a successful validation result for a token that was not verified because Cloudflare was unavailable and the caller chose to fail
+     * open.
+     *
+     * @param reason why the token was not verified
+     * @return a ValidationResult indicating success without verification
+     */
+    public static ValidationResult failOpen(String reason) {
+        return new ValidationResult(true, Collections.emptyList(), "Validation skipped (fail-open): " + reason, ValidationResultType.SUCCESS);
     }
 
     /**
-     * Creates a validation result for an invalid token response from Cloudflare.
+     * Creates a validation result for an invalid token response from Cloudflare. A shared instance is returned when there are no error codes or a
+     * single known one.
      *
      * @param errorCodes the error codes returned by Cloudflare
      * @return a ValidationResult indicating an invalid token
      */
     public static ValidationResult invalidToken(List<String> errorCodes) {
+        if (errorCodes == null || errorCodes.isEmpty()) {
+            return INVALID_TOKEN;
+        }
+        if (errorCodes.size() == 1) {
+            TurnstileErrorCode code = TurnstileErrorCode.fromCode(errorCodes.get(0));
+            if (code != null) {
+                return INVALID_TOKEN_BY_CODE[code.ordinal()];
+            }
+        }
         return new ValidationResult(false, errorCodes, "Token validation failed", ValidationResultType.INVALID_TOKEN);
     }
 
@@ -79,7 +144,37 @@ public final class ValidationResult {
      * @return a ValidationResult indicating an input validation error
      */
     public static ValidationResult inputError(String errorMessage) {
-        return new ValidationResult(false, Collections.emptyList(), "Input validation error: " + errorMessage, ValidationResultType.INPUT_ERROR);
+        return inputError(errorMessage, InputErrorReason.OTHER);
+    }
+
+    /**
+     * Creates a validation result for an input validation error with a specific reason.
+     *
+     * @param errorMessage the error message describing the input validation issue
+     * @param reason why the input was rejected
+     * @return a ValidationResult indicating an input validation error
+     */
+    public static ValidationResult inputError(String errorMessage, InputErrorReason reason) {
+        return new ValidationResult(false, Collections.emptyList(), "Input validation error: " + errorMessage, ValidationResultType.INPUT_ERROR,
+                reason);
+    }
+
+    /**
+     * Returns the result for a validation rejected because the penalty box has blocked the client.
+     *
+     * @return a ValidationResult indicating a blocked client
+     */
+    public static ValidationResult blocked() {
+        return BLOCKED;
+    }
+
+    /**
+     * Returns the result for a validation refused by the bulkhead because too many siteverify calls were already in flight.
+     *
+     * @return a ValidationResult indicating an overloaded service
+     */
+    public static ValidationResult overloaded() {
+        return OVERLOADED;
     }
 
     /**
@@ -100,6 +195,15 @@ public final class ValidationResult {
         return errorCodes;
     }
 
+    /**
+     * Returns the known Cloudflare error codes among {@link #getErrorCodes()}. Codes this library does not know are only in {@link #getErrorCodes()}.
+     *
+     * @return an unmodifiable set of the known error codes, empty if there are none
+     */
+    public Set<TurnstileErrorCode> getErrorCodeSet() {
+        return errorCodeSet;
+    }
+
     /**
      * Returns a descriptive message about the validation result.
      *
@@ -118,6 +222,15 @@ public final class ValidationResult {
         return resultType;
     }
 
+    /**
+     * Returns why the input was rejected, for {@link ValidationResultType#INPUT_ERROR} results.
+     *
+     * @return the input error reason, or null for any other result type
+     */
+    public InputErrorReason getInputErrorReason() {
+        return inputErrorReason;
+    }
+
     /**
      * Enum representing the different types of validation results.
      */
@@ -135,6 +248,53 @@ public final class ValidationResult {
         CONFIGURATION_ERROR,
 
         /** An input validation error occurred. */
-        INPUT_ERROR
+        INPUT_ERROR,
+
+        /** The client was blocked by the penalty box after repeated invalid tokens; the token was not checked. */
+        BLOCKED,
+
+        /** Too many siteverify calls were in flight and the bulkhead queue was full or timed out; the token was not checked. */
+        OVERLOADED
+    }
+
+    /**
+     * Why a token was rejected as {@link ValidationResultType#INPUT_ERROR} before any call to Cloudflare.
+     */
+    public enum InputErrorReason {
+        /** The token was null. */
+        MISSING("missing"),
+
+        /** The token was empty or blank. */
+        BLANK("blank"),
+
+        /** The token was shorter than any valid token. */
+        TOO_SHORT("too_short"),
+
+        /** The token was longer than the configured maximum length. */
+        TOO_LONG("too_long"),
+
+        /** The token contained a character outside the allowed set. */
+        ILLEGAL_CHARACTER("illegal_character"),
+
+        /** The token did not start with any of the allowed prefixes. */
+        BAD_PREFIX("bad_prefix"),
+
+        /** Any other input error. */
+        OTHER("other");
+
+        private final String tagValue;
+
+        InputErrorReason(String tagValue) {
+            this.tagValue = tagValue;
+        }
+
+        /**
+         * Returns the metric tag value for this reason.
+         *
+         * @return the lower-case tag value
+         */
+        public String tagValue() {
+            return tagValue;
+        }
     }
 }
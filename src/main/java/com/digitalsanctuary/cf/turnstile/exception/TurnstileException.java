@@ -27,4 +27,14 @@ public class TurnstileException extends RuntimeException {
     public TurnstileException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    /**
+     * Constructs a new Turnstile exception with the specified detail message, optionally without a stack trace.
+     *
+     * @param message the detail message
+     * @param writableStackTrace whether the stack trace is filled in; exceptions for expected outcomes can skip this cost
+     */
+    protected TurnstileException(String message, boolean writableStackTrace) {
+        super(message, null, true, writableStackTrace);
+    }
 }
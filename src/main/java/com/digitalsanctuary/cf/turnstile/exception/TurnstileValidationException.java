@@ -9,6 +9,10 @@ import java.util.List;
  * This exception indicates that the Cloudflare Turnstile API processed the request successfully but rejected the token as invalid. The error codes
  * returned by Cloudflare are included in this exception.
  * </p>
+ * <p>
+ * A rejected token is an expected outcome, so the validation service throws this exception without a stack trace: filling one in would cost more
+ * than the rest of a rejection. The error codes identify the rejection.
+ * </p>
  */
 public class TurnstileValidationException extends TurnstileException {
 
@@ -24,7 +28,18 @@ public class TurnstileValidationException extends TurnstileException {
      * @param errorCodes the list of error codes returned by Cloudflare
      */
     public TurnstileValidationException(String message, List<String> errorCodes) {
-        super(message);
+        this(message, errorCodes, true);
+    }
+
+    /**
+     * Constructs a new Turnstile validation exception with the specified detail message and error codes, optionally without a stack trace.
+     *
+     * @param message the detail message
+     * @param errorCodes the list of error codes returned by Cloudflare
+     * @param writableStackTrace whether the stack trace is filled in
+     */
+    public TurnstileValidationException(String message, List<String> errorCodes, boolean writableStackTrace) {
+        super(message, writableStackTrace);
         this.errorCodes = errorCodes != null ? Collections.unmodifiableList(errorCodes) : Collections.emptyList();
     }
 
@@ -0,0 +1,51 @@
+package com.digitalsanctuary.cf.turnstile.filter;
+
+import java.util.function.UnaryOperator;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resolves the client IP address of a servlet request.
+ * <p>
+ * Kept apart from {@link TurnstileValidationService}, so the service does not depend on the servlet API and can run in reactive applications that
+ * do not have it. Reactive requests are resolved by
+ * {@link com.digitalsanctuary.cf.turnstile.service.ReactiveTurnstileValidationService#getClientIpAddress(org.springframework.http.server.reactive.ServerHttpRequest)}
+ * from the same proxy headers.
+ * </p>
+ */
+public final class ServletClientIpResolver {
+
+    private ServletClientIpResolver() {
+    }
+
+    /**
+     * Gets the client IP address from the ServletRequest, from the proxy headers if present, otherwise from the remote address.
+     *
+     * @param request the ServletRequest.
+     * @return the client IP address.
+     */
+    public static String getClientIpAddress(ServletRequest request) {
+        if (request instanceof HttpServletRequest httpRequest) {
+            String forwarded = TurnstileValidationService.resolveForwardedIp(httpRequest::getHeader);
+            if (forwarded != null) {
+                return forwarded;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * Gets the client IP address from the ServletRequest, believing the {@code X-Forwarded-For} header only when the request comes from a trusted
+     * proxy. Unlike {@link #getClientIpAddress(ServletRequest)}, the result cannot be chosen by the client, so it is safe to key rate limits and
+     * blocks on.
+     *
+     * @param request the ServletRequest.
+     * @param trustedProxies the proxies whose forwarding header is believed.
+     * @return the client IP address.
+     */
+    public static String getClientIpAddress(ServletRequest request, TrustedProxies trustedProxies) {
+        UnaryOperator<String> headerLookup = request instanceof HttpServletRequest httpRequest ? httpRequest::getHeader : name -> null;
+        return trustedProxies.resolveClientIp(request.getRemoteAddr(), headerLookup);
+    }
+}
@@ -0,0 +1,158 @@
+package com.digitalsanctuary.cf.turnstile.filter;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * The reverse proxies whose {@code X-Forwarded-For} header is believed when resolving the client IP the login filters key their rate limiter and
+ * penalty box on.
+ * <p>
+ * Any client can send an {@code X-Forwarded-For} header, so a key taken from it would let an attacker get a fresh rate limit bucket with every
+ * request, escape their own block, or have another address blocked. The header is therefore only read when the connection comes from a trusted
+ * proxy. It is then walked from the right, skipping addresses of trusted proxies, and the first other address is the client. Entries are IP
+ * addresses or CIDR ranges such as {@code 10.0.0.0/8}; host names are rejected so that no lookup happens on the request path.
+ * </p>
+ */
+public final class TrustedProxies {
+
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final List<Range> ranges;
+
+    /**
+     * Constructor for TrustedProxies.
+     *
+     * @param proxies the trusted proxy addresses and CIDR ranges, or null or empty to trust none
+     * @throws IllegalArgumentException if an entry is not an IP address or CIDR range
+     */
+    public TrustedProxies(List<String> proxies) {
+        List<Range> parsed = new ArrayList<>();
+        if (proxies != null) {
+            for (String proxy : proxies) {
+                parsed.add(Range.parse(proxy.trim()));
+            }
+        }
+        this.ranges = List.copyOf(parsed);
+    }
+
+    /**
+     * Returns whether an address belongs to a trusted proxy.
+     *
+     * @param address the IP address
+     * @return true if the address is in one of the trusted ranges
+     */
+    public boolean isTrusted(String address) {
+        if (ranges.isEmpty()) {
+            return false;
+        }
+        byte[] bytes = toBytes(address);
+        if (bytes == null) {
+            return false;
+        }
+        for (Range range : ranges) {
+            if (range.contains(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves the client IP of a request, believing {@code X-Forwarded-For} only when the connection comes from a trusted proxy.
+     *
+     * @param remoteAddr the address of the peer the request was received from
+     * @param headerLookup returns the value of the named request header, or null if absent
+     * @return the client IP address
+     */
+    public String resolveClientIp(String remoteAddr, UnaryOperator<String> headerLookup) {
+        if (!isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+        String forwardedFor = headerLookup.apply(FORWARDED_FOR);
+        if (forwardedFor == null || forwardedFor.isBlank()) {
+            return remoteAddr;
+        }
+        String[] hops = forwardedFor.split(",");
+        String client = remoteAddr;
+        // Each proxy appends the address it received the request from, so only the right end of the list can be believed
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                continue;
+            }
+            client = hop;
+            if (!isTrusted(hop)) {
+                break;
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Parses a literal IPv4 or IPv6 address without a name lookup.
+     *
+     * @return the address bytes, or null if the text is not a literal address
+     */
+    private static byte[] toBytes(String address) {
+        if (address == null || address.isEmpty() || address.indexOf('.') < 0 && address.indexOf(':') < 0) {
+            return null;
+        }
+        // Hex digits only count in IPv6, or a name such as cafe.be would be looked up
+        int radix = address.indexOf(':') < 0 ? 10 : 16;
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            if (Character.digit(c, radix) < 0 && c != '.' && c != ':') {
+                return null;
+            }
+        }
+        try {
+            return InetAddress.getByName(address).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private record Range(byte[] network, int prefixLength) {
+
+        private static Range parse(String entry) {
+            int slash = entry.indexOf('/');
+            byte[] network = toBytes(slash < 0 ? entry : entry.substring(0, slash));
+            if (network == null) {
+                throw new IllegalArgumentException("Trusted proxy is not an IP address or CIDR range: " + entry);
+            }
+            int prefixLength = network.length * 8;
+            if (slash >= 0) {
+                try {
+                    prefixLength = Integer.parseInt(entry.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Trusted proxy has an invalid prefix length: " + entry, e);
+                }
+                if (prefixLength < 0 || prefixLength > network.length * 8) {
+                    throw new IllegalArgumentException("Trusted proxy has an invalid prefix length: " + entry);
+                }
+            }
+            return new Range(network, prefixLength);
+        }
+
+        private boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits) & 0xFF;
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
@@ -1,17 +1,27 @@
 package com.digitalsanctuary.cf.turnstile.filter;
 
 import java.io.IOException;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.metrics.NoOpTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.ratelimit.ClientRateLimiter;
+import com.digitalsanctuary.cf.turnstile.ratelimit.ClientRateLimiter.Decision;
 import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.tenant.TurnstileTenantRegistry;
+import com.digitalsanctuary.cf.turnstile.tenant.TurnstileTenantResolver;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 
@@ -27,28 +37,117 @@ import lombok.extern.slf4j.Slf4j;
  * Configuration properties:
  * <ul>
  * <li><b>ds.cf.turnstile.login.enabled</b>: Whether this filter is registered at all (default: <code>false</code>). Since 2.1.0, the filter
- * registers only when this property is explicitly set to <code>true</code>.</li>
+ * registers only when this property is explicitly set to <code>true</code>. It is registered in servlet web applications only; reactive
+ * applications get {@link TurnstileCaptchaWebFilter} instead.</li>
  * <li><b>ds.cf.turnstile.login.submission-path</b>: The path to intercept for login submissions (default: <code>/login</code>).</li>
  * <li><b>ds.cf.turnstile.login.redirect-url</b>: The URL to redirect to when captcha validation fails (default:
  * <code>/login?error=captcha</code>).</li>
  * <li><b>ds.cf.turnstile.token.parameter-name</b>: The name of the request parameter containing the Turnstile token (default:
  * <code>cf-turnstile-response</code>).</li>
+ * <li><b>ds.cf.turnstile.rate-limit.*</b>: An optional per-client-IP token bucket and concurrency cap, checked before the token is read (default:
+ * disabled). Rejected requests get <code>reject-status</code> (429) or a redirect to <code>reject-redirect-url</code>.</li>
+ * <li><b>ds.cf.turnstile.penalty-box.*</b>: An optional penalty box; clients it has blocked after repeated invalid tokens get
+ * <code>reject-status</code> (403) before the token is read (default: disabled).</li>
+ * <li><b>ds.cf.turnstile.trusted-proxies</b>: The reverse proxies whose <code>X-Forwarded-For</code> header is believed (default: none, so
+ * the client IP is the connection's remote address).</li>
+ * <li><b>ds.cf.turnstile.tenants.*</b>: Optional per-site keys; each request is validated, and checked against the penalty box, by the service
+ * of the tenant serving its host, or of the tenant chosen by a {@code TurnstileTenantResolver} bean (default: none).</li>
  * </ul>
  *
  * <p>
- * Note: The client IP address is extracted using the {@link TurnstileValidationService#getClientIpAddress(HttpServletRequest)} method.
+ * Note: The client IP address is extracted using the
+ * {@link ServletClientIpResolver#getClientIpAddress(jakarta.servlet.ServletRequest, TrustedProxies)} method, so a client cannot choose the address
+ * its rate limit and penalty box entries are kept under.
  * </p>
  */
 @Slf4j
 @Component
 @ConditionalOnProperty(name = "ds.cf.turnstile.login.enabled", havingValue = "true", matchIfMissing = false)
-@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = Type.SERVLET)
 public class TurnstileCaptchaFilter extends OncePerRequestFilter {
 
     private final TurnstileValidationService validationService;
 
     private final TurnstileConfigProperties properties;
 
+    private final TurnstileMetrics metrics;
+
+    private final ClientRateLimiter rateLimiter;
+
+    private final TurnstileTenantRegistry tenantRegistry;
+
+    private final TurnstileTenantResolver tenantResolver;
+
+    private final TrustedProxies trustedProxies;
+
+    /**
+     * Constructor for TurnstileCaptchaFilter without metrics; rate limiter and penalty box rejections are not recorded.
+     *
+     * @param validationService the service that validates captcha tokens
+     * @param properties the Turnstile configuration properties
+     */
+    public TurnstileCaptchaFilter(TurnstileValidationService validationService, TurnstileConfigProperties properties) {
+        this(validationService, properties, new NoOpTurnstileMetrics());
+    }
+
+    /**
+     * Constructor for TurnstileCaptchaFilter.
+     *
+     * @param validationService the service that validates captcha tokens
+     * @param properties the Turnstile configuration properties
+     * @param metrics the metrics rate limiter and penalty box rejections are recorded to
+     */
+    public TurnstileCaptchaFilter(TurnstileValidationService validationService, TurnstileConfigProperties properties, TurnstileMetrics metrics) {
+        this(validationService, properties, metrics, null);
+    }
+
+    /**
+     * Constructor for TurnstileCaptchaFilter routing each request to its tenant's validation service.
+     *
+     * @param validationService the service that validates captcha tokens of requests matching no tenant
+     * @param properties the Turnstile configuration properties
+     * @param metrics the metrics rate limiter and penalty box rejections are recorded to
+     * @param tenantRegistry the registry choosing the service for each request, or null to use {@code validationService} for all requests
+     */
+    public TurnstileCaptchaFilter(TurnstileValidationService validationService, TurnstileConfigProperties properties, TurnstileMetrics metrics,
+            TurnstileTenantRegistry tenantRegistry) {
+        this(validationService, properties, metrics, tenantRegistry, null);
+    }
+
+    /**
+     * Constructor for TurnstileCaptchaFilter routing each request to its tenant's validation service, with an application-supplied tenant
+     * resolver.
+     *
+     * @param validationService the service that validates captcha tokens of requests matching no tenant
+     * @param properties the Turnstile configuration properties
+     * @param metrics the metrics rate limiter and penalty box rejections are recorded to
+     * @param tenantRegistry the registry choosing the service for each request, or null to use {@code validationService} for all requests
+     * @param tenantResolver the resolver consulted before the registry's host lookup, or null
+     */
+    @Autowired
+    public TurnstileCaptchaFilter(TurnstileValidationService validationService, TurnstileConfigProperties properties, TurnstileMetrics metrics,
+            @Nullable TurnstileTenantRegistry tenantRegistry, @Nullable TurnstileTenantResolver tenantResolver) {
+        this.validationService = validationService;
+        this.tenantRegistry = tenantRegistry;
+        this.tenantResolver = tenantResolver;
+        this.properties = properties;
+        this.metrics = metrics;
+        this.rateLimiter = createRateLimiter(properties.getRateLimit(), metrics);
+        this.trustedProxies = new TrustedProxies(properties.getTrustedProxies());
+    }
+
+    private static ClientRateLimiter createRateLimiter(TurnstileConfigProperties.RateLimit rateLimit, TurnstileMetrics metrics) {
+        if (!rateLimit.isEnabled()) {
+            return null;
+        }
+        ClientRateLimiter limiter = new ClientRateLimiter(new ClientRateLimiter.Settings(rateLimit.getCapacity(), rateLimit.getRefillPerSecond(),
+                rateLimit.getMaxConcurrent(), rateLimit.getMaxClients(), rateLimit.getIdleTimeout(), rateLimit.getStripes()));
+        log.info("Turnstile login rate limit enabled: burst {}, {}/s per client, max {} in flight per client", rateLimit.getCapacity(),
+                rateLimit.getRefillPerSecond(), rateLimit.getMaxConcurrent() > 0 ? rateLimit.getMaxConcurrent() : "unlimited");
+        metrics.registerGauge("turnstile.ratelimit.clients", "Number of client IPs tracked by the Turnstile rate limiter", limiter::size);
+        return limiter;
+    }
+
     /**
      * Filters incoming HTTP requests to validate the Turnstile captcha token during login submissions.
      * <p>
@@ -67,8 +166,27 @@ public class TurnstileCaptchaFilter extends OncePerRequestFilter {
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
             @NonNull FilterChain filterChain) throws ServletException, IOException {
         if (request.getServletPath().equals(properties.getLogin().getSubmissionPath()) && "POST".equalsIgnoreCase(request.getMethod())) {
-            String token = request.getParameter(properties.getToken().getParameterName());
-            boolean valid = validationService.validateTurnstileResponse(token, getClientIp(request));
+            String clientIp = getClientIp(request);
+            TurnstileValidationService service = resolveService(request);
+            if (service.isClientBlocked(clientIp)) {
+                rejectBlocked(response, service, clientIp);
+                return;
+            }
+            boolean valid;
+            if (rateLimiter == null) {
+                valid = validate(service, request, clientIp);
+            } else {
+                Decision decision = rateLimiter.tryAcquire(clientIp);
+                if (decision != Decision.ALLOWED) {
+                    reject(response, clientIp, decision);
+                    return;
+                }
+                try {
+                    valid = validate(service, request, clientIp);
+                } finally {
+                    rateLimiter.release(clientIp);
+                }
+            }
             if (valid) {
                 filterChain.doFilter(request, response);
             } else {
@@ -80,8 +198,44 @@ public class TurnstileCaptchaFilter extends OncePerRequestFilter {
         }
     }
 
+    private boolean validate(TurnstileValidationService service, HttpServletRequest request, String clientIp) {
+        String token = request.getParameter(properties.getToken().getParameterName());
+        return service.validateTurnstileResponse(token, clientIp);
+    }
+
+    private void reject(HttpServletResponse response, String clientIp, Decision decision) throws IOException {
+        log.warn("Turnstile login request from {} rejected by rate limiter: {}", clientIp, decision);
+        metrics.recordRateLimited(decision.tagValue());
+        TurnstileConfigProperties.RateLimit rateLimit = properties.getRateLimit();
+        if (rateLimit.getRejectRedirectUrl() != null && !rateLimit.getRejectRedirectUrl().isBlank()) {
+            response.sendRedirect(rateLimit.getRejectRedirectUrl());
+            return;
+        }
+        if (decision == Decision.RATE_LIMITED) {
+            response.setHeader("Retry-After", String.valueOf((long) Math.ceil(1 / rateLimit.getRefillPerSecond())));
+        }
+        response.sendError(rateLimit.getRejectStatus());
+    }
+
+    private void rejectBlocked(HttpServletResponse response, TurnstileValidationService service, String clientIp) throws IOException {
+        log.warn("Turnstile login request from {} rejected: client is in the penalty box", clientIp);
+        metrics.recordPenaltyRejected();
+        Duration remaining = service.getClientBlockRemaining(clientIp);
+        if (remaining != null && !remaining.isZero()) {
+            response.setHeader("Retry-After", String.valueOf(Math.max(1, (remaining.toMillis() + 999) / 1000)));
+        }
+        response.sendError(properties.getPenaltyBox().getRejectStatus());
+    }
+
+    private TurnstileValidationService resolveService(HttpServletRequest request) {
+        if (tenantRegistry == null) {
+            return validationService;
+        }
+        String tenantId = tenantResolver != null ? tenantResolver.resolveTenant(request) : null;
+        return tenantRegistry.resolve(tenantId, request.getServerName());
+    }
+
     private String getClientIp(HttpServletRequest request) {
-        // Delegate to the service method or use a similar logic
-        return validationService.getClientIpAddress(request);
+        return ServletClientIpResolver.getClientIpAddress(request, trustedProxies);
     }
 }
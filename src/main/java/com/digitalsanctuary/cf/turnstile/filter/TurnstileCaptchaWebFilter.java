@@ -0,0 +1,85 @@
+package com.digitalsanctuary.cf.turnstile.filter;
+
+import java.net.URI;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.service.ReactiveTurnstileValidationService;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link TurnstileCaptchaFilter} for WebFlux applications.
+ * <p>
+ * This filter intercepts POST requests to the configured login submission path and validates the Turnstile captcha token provided in the query
+ * string or form body. If the token is valid, the exchange continues through the filter chain. If the token is invalid, the client is redirected to
+ * the configured error URL. It is configured by the same {@code ds.cf.turnstile.login.*} and {@code ds.cf.turnstile.token.*} properties as the
+ * servlet filter, and is registered only in reactive web applications when {@code ds.cf.turnstile.login.enabled=true}.
+ * </p>
+ */
+@Slf4j
+public class TurnstileCaptchaWebFilter implements WebFilter {
+
+    private final ReactiveTurnstileValidationService validationService;
+
+    private final TurnstileConfigProperties properties;
+
+    private final TrustedProxies trustedProxies;
+
+    /**
+     * Constructor for TurnstileCaptchaWebFilter.
+     *
+     * @param validationService the service that validates captcha tokens
+     * @param properties the Turnstile configuration properties
+     */
+    public TurnstileCaptchaWebFilter(ReactiveTurnstileValidationService validationService, TurnstileConfigProperties properties) {
+        this.validationService = validationService;
+        this.properties = properties;
+        this.trustedProxies = new TrustedProxies(properties.getTrustedProxies());
+    }
+
+    /**
+     * Validates the Turnstile captcha token on login submissions and passes every other exchange through unchanged.
+     *
+     * @param exchange the current server exchange
+     * @param chain the filter chain to delegate to
+     * @return a Mono signalling completion of request processing
+     */
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!HttpMethod.POST.equals(request.getMethod())
+                || !request.getPath().pathWithinApplication().value().equals(properties.getLogin().getSubmissionPath())) {
+            return chain.filter(exchange);
+        }
+
+        String parameterName = properties.getToken().getParameterName();
+        String clientIp = validationService.getClientIpAddress(request, trustedProxies);
+        String queryToken = request.getQueryParams().getFirst(parameterName);
+        Mono<String> token = queryToken != null ? Mono.just(queryToken)
+                : exchange.getFormData().flatMap(form -> Mono.justOrEmpty(form.getFirst(parameterName)));
+
+        return token.flatMap(value -> validationService.validateTurnstileResponse(value, clientIp))
+                .switchIfEmpty(Mono.defer(() -> validationService.validateTurnstileResponse(null, clientIp)))
+                .flatMap(valid -> {
+                    if (valid) {
+                        return chain.filter(exchange);
+                    }
+                    log.warn("Turnstile captcha validation failed for request: {}", request.getPath().value());
+                    return redirect(exchange.getResponse());
+                });
+    }
+
+    private Mono<Void> redirect(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.FOUND);
+        response.getHeaders().setLocation(URI.create(properties.getLogin().getRedirectUrl()));
+        return response.setComplete();
+    }
+}
@@ -1,11 +1,18 @@
 package com.digitalsanctuary.cf.turnstile.metrics;
 
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.InputErrorReason;
 import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -15,7 +22,7 @@ import lombok.extern.slf4j.Slf4j;
  * {@code TurnstileMetricsConfig} which is guarded by {@code @ConditionalOnClass(MeterRegistry.class)}.
  * </p>
  * <p>
- * All eight meters ({@code errorCounter} is the aggregate; the four type-specific counters are
+ * All counters and timers ({@code errorCounter} is the aggregate; the five type-specific counters are
  * sub-categories whose sum equals the aggregate) are eagerly registered at construction time so
  * they appear in monitoring dashboards before the first validation event occurs. A single instance
  * should be registered per application context to avoid duplicate meter registration errors.
@@ -33,7 +40,38 @@ public class MicrometerTurnstileMetrics implements TurnstileMetrics {
     private final Counter configErrorCounter;
     private final Counter validationErrorCounter;
     private final Counter inputErrorCounter;
+    private final Counter overloadedErrorCounter;
     private final Timer responseTimer;
+    private final Counter coalescedCounter;
+    private final Counter cacheHitCounter;
+    private final Counter cacheMissCounter;
+    private final Counter cacheExpiredCounter;
+    private final Counter cacheSizeEvictionCounter;
+    private final Counter replayRejectedCounter;
+    private final Counter circuitFailOpenCounter;
+    private final Counter circuitFailClosedCounter;
+    private final Counter retryConnectCounter;
+    private final Counter retryServerErrorCounter;
+    private final Counter retryInternalErrorCounter;
+    private final Counter retryRecoveredCounter;
+    private final Counter retryExhaustedCounter;
+    private final Counter transportHttp11Counter;
+    private final Counter transportHttp2Counter;
+    private final Counter transportConnectionCounter;
+    private final Timer firstResponseTimer;
+    private final Map<String, Counter> inputRejectedCounters;
+    private final Counter rateLimitedCounter;
+    private final Counter concurrencyLimitedCounter;
+    private final Counter penaltyBlockCounter;
+    private final Counter penaltyRejectedCounter;
+    private final Counter penaltyExpiredCounter;
+    private final Counter penaltySizeEvictionCounter;
+    private final Counter bulkheadQueueFullCounter;
+    private final Counter bulkheadWaitTimeoutCounter;
+    private final Timer bulkheadWaitTimer;
+    private final Timer batchTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final MeterRegistry registry;
 
     /**
      * Creates a {@code MicrometerTurnstileMetrics} instance and eagerly registers all Turnstile
@@ -46,7 +84,40 @@ public class MicrometerTurnstileMetrics implements TurnstileMetrics {
      *   <li>{@code turnstile.validation.errors.config} — configuration errors</li>
      *   <li>{@code turnstile.validation.errors.token} — invalid token errors</li>
      *   <li>{@code turnstile.validation.errors.input} — input validation errors</li>
+     *   <li>{@code turnstile.validation.errors.overloaded} — validations refused by the bulkhead</li>
      *   <li>{@code turnstile.validation.response.time} — response time timer</li>
+     *   <li>{@code turnstile.validation.coalesced} — validations that shared an in-flight request</li>
+     *   <li>{@code turnstile.cache.hits} / {@code turnstile.cache.misses} — success cache lookups</li>
+     *   <li>{@code turnstile.cache.evictions} — success cache evictions, tagged {@code cause=expired|size}</li>
+     *   <li>{@code turnstile.replay.rejected} — validations rejected locally as replays</li>
+     *   <li>{@code turnstile.circuit.rejected} — validations answered by the circuit breaker fallback, tagged
+     *       {@code fallback=fail_open|fail_closed}</li>
+     *   <li>{@code turnstile.retry.attempts} — siteverify retries, tagged
+     *       {@code reason=connect_failure|server_error|internal_error}</li>
+     *   <li>{@code turnstile.retry.recovered} / {@code turnstile.retry.exhausted} — validations that succeeded after a
+     *       retry, or ran out of attempts or budget</li>
+     *   <li>{@code turnstile.transport.requests} — requests sent on the Turnstile HTTP client, tagged
+     *       {@code version=http_1_1|http_2}</li>
+     *   <li>{@code turnstile.transport.connections} — new TLS connections (handshakes) opened by the client</li>
+     *   <li>{@code turnstile.validation.first.response.time} — response time of the first validation after startup</li>
+     *   <li>{@code turnstile.validation.input.rejected} — tokens rejected by the local input checks, tagged with the
+     *       {@code reason}</li>
+     *   <li>{@code turnstile.ratelimit.rejected} — requests rejected by the per-client rate limiter, tagged
+     *       {@code reason=rate_limited|concurrency_limited}</li>
+     *   <li>{@code turnstile.penalty.blocks} — client IPs blocked by the penalty box</li>
+     *   <li>{@code turnstile.penalty.rejected} — validations and requests rejected for a blocked client</li>
+     *   <li>{@code turnstile.penalty.evictions} — penalty box entries removed, tagged {@code cause=expired|size}</li>
+     *   <li>{@code turnstile.bulkhead.rejected} — validations refused by the bulkhead, tagged
+     *       {@code reason=queue_full|wait_timeout}</li>
+     *   <li>{@code turnstile.bulkhead.queue.wait} — time validations spent in the bulkhead queue</li>
+     *   <li>{@code turnstile.batch.duration} — wall-clock time of each batch validation</li>
+     *   <li>{@code turnstile.batch.size} — number of tokens per batch validation</li>
+     *   <li>{@code turnstile.tenant.validations} — validation outcomes per tenant, tagged {@code tenant} and {@code outcome}; registered on
+     *       first use, since tenants are only known from configuration</li>
+     *   <li>{@code turnstile.settings.reloads} — reloads of the keys and URL, tagged {@code outcome=applied|rejected}; registered on first
+     *       use</li>
+     *   <li>{@code turnstile.settings.previous.secret} — siteverify requests repeated with the previous secret during a rotation overlap;
+     *       registered on first use</li>
      * </ul>
      *
      * @param registry the Micrometer {@link MeterRegistry} to register meters with; must not be null
@@ -54,6 +125,7 @@ public class MicrometerTurnstileMetrics implements TurnstileMetrics {
     public MicrometerTurnstileMetrics(MeterRegistry registry) {
         Objects.requireNonNull(registry, "registry must not be null");
         log.info("Initializing Turnstile metrics with MeterRegistry");
+        this.registry = registry;
         validationCounter = Counter.builder("turnstile.validation.requests")
                 .description("Total number of Turnstile validation requests").register(registry);
         successCounter = Counter.builder("turnstile.validation.success")
@@ -68,8 +140,84 @@ public class MicrometerTurnstileMetrics implements TurnstileMetrics {
                 .description("Number of Turnstile validation token errors").register(registry);
         inputErrorCounter = Counter.builder("turnstile.validation.errors.input")
                 .description("Number of Turnstile validation input errors").register(registry);
+        overloadedErrorCounter = Counter.builder("turnstile.validation.errors.overloaded")
+                .description("Number of Turnstile validations refused by the bulkhead").register(registry);
         responseTimer = Timer.builder("turnstile.validation.response.time")
                 .description("Response time for Turnstile validation requests").register(registry);
+        coalescedCounter = Counter.builder("turnstile.validation.coalesced")
+                .description("Number of Turnstile validations that shared an in-flight siteverify request").register(registry);
+        cacheHitCounter = Counter.builder("turnstile.cache.hits")
+                .description("Number of Turnstile validations answered from the success cache").register(registry);
+        cacheMissCounter = Counter.builder("turnstile.cache.misses")
+                .description("Number of Turnstile success cache lookups without a live entry").register(registry);
+        cacheExpiredCounter = Counter.builder("turnstile.cache.evictions").tag("cause", "expired")
+                .description("Number of Turnstile success cache evictions").register(registry);
+        cacheSizeEvictionCounter = Counter.builder("turnstile.cache.evictions").tag("cause", "size")
+                .description("Number of Turnstile success cache evictions").register(registry);
+        replayRejectedCounter = Counter.builder("turnstile.replay.rejected")
+                .description("Number of Turnstile validations rejected locally as replays").register(registry);
+        circuitFailOpenCounter = Counter.builder("turnstile.circuit.rejected").tag("fallback", "fail_open")
+                .description("Number of Turnstile validations answered by the circuit breaker fallback").register(registry);
+        circuitFailClosedCounter = Counter.builder("turnstile.circuit.rejected").tag("fallback", "fail_closed")
+                .description("Number of Turnstile validations answered by the circuit breaker fallback").register(registry);
+        retryConnectCounter = retryCounter(registry, "connect_failure");
+        retryServerErrorCounter = retryCounter(registry, "server_error");
+        retryInternalErrorCounter = retryCounter(registry, "internal_error");
+        retryRecoveredCounter = Counter.builder("turnstile.retry.recovered")
+                .description("Number of Turnstile validations whose siteverify call succeeded after a retry").register(registry);
+        retryExhaustedCounter = Counter.builder("turnstile.retry.exhausted")
+                .description("Number of Turnstile validations that ran out of siteverify retries").register(registry);
+        transportHttp11Counter = Counter.builder("turnstile.transport.requests").tag("version", "http_1_1")
+                .description("Number of requests sent on the Turnstile HTTP client").register(registry);
+        transportHttp2Counter = Counter.builder("turnstile.transport.requests").tag("version", "http_2")
+                .description("Number of requests sent on the Turnstile HTTP client").register(registry);
+        transportConnectionCounter = Counter.builder("turnstile.transport.connections")
+                .description("Number of new TLS connections opened by the Turnstile HTTP client").register(registry);
+        firstResponseTimer = Timer.builder("turnstile.validation.first.response.time")
+                .description("Response time of the first Turnstile validation after startup").register(registry);
+        Map<String, Counter> inputRejected = new HashMap<>();
+        for (InputErrorReason reason : InputErrorReason.values()) {
+            inputRejected.put(reason.tagValue(), inputRejectedCounter(registry, reason.tagValue()));
+        }
+        inputRejectedCounters = Map.copyOf(inputRejected);
+        rateLimitedCounter = rateLimitCounter(registry, "rate_limited");
+        concurrencyLimitedCounter = rateLimitCounter(registry, "concurrency_limited");
+        penaltyBlockCounter = Counter.builder("turnstile.penalty.blocks")
+                .description("Number of client IPs blocked by the Turnstile penalty box").register(registry);
+        penaltyRejectedCounter = Counter.builder("turnstile.penalty.rejected")
+                .description("Number of Turnstile validations rejected because the client was in the penalty box").register(registry);
+        penaltyExpiredCounter = Counter.builder("turnstile.penalty.evictions").tag("cause", "expired")
+                .description("Number of Turnstile penalty box entries removed").register(registry);
+        penaltySizeEvictionCounter = Counter.builder("turnstile.penalty.evictions").tag("cause", "size")
+                .description("Number of Turnstile penalty box entries removed").register(registry);
+        bulkheadQueueFullCounter = bulkheadRejectedCounter(registry, "queue_full");
+        bulkheadWaitTimeoutCounter = bulkheadRejectedCounter(registry, "wait_timeout");
+        bulkheadWaitTimer = Timer.builder("turnstile.bulkhead.queue.wait")
+                .description("Time Turnstile validations waited in the bulkhead queue").register(registry);
+        batchTimer = Timer.builder("turnstile.batch.duration")
+                .description("Wall-clock time of Turnstile batch validations").register(registry);
+        batchSizeSummary = DistributionSummary.builder("turnstile.batch.size")
+                .description("Number of tokens per Turnstile batch validation").register(registry);
+    }
+
+    private static Counter bulkheadRejectedCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("turnstile.bulkhead.rejected").tag("reason", reason)
+                .description("Number of Turnstile validations refused by the bulkhead").register(registry);
+    }
+
+    private static Counter rateLimitCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("turnstile.ratelimit.rejected").tag("reason", reason)
+                .description("Number of requests rejected by the Turnstile per-client rate limiter").register(registry);
+    }
+
+    private static Counter inputRejectedCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("turnstile.validation.input.rejected").tag("reason", reason)
+                .description("Number of Turnstile tokens rejected by the local input checks").register(registry);
+    }
+
+    private static Counter retryCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("turnstile.retry.attempts").tag("reason", reason)
+                .description("Number of retried Turnstile siteverify calls").register(registry);
     }
 
     @Override
@@ -90,6 +238,7 @@ public class MicrometerTurnstileMetrics implements TurnstileMetrics {
             case CONFIGURATION_ERROR -> configErrorCounter.increment();
             case INVALID_TOKEN -> validationErrorCounter.increment();
             case INPUT_ERROR -> inputErrorCounter.increment();
+            case OVERLOADED -> overloadedErrorCounter.increment();
             default -> { }
         }
     }
@@ -98,4 +247,163 @@ public class MicrometerTurnstileMetrics implements TurnstileMetrics {
     public void recordResponseTime(long milliseconds) {
         responseTimer.record(milliseconds, TimeUnit.MILLISECONDS);
     }
+
+    @Override
+    public void recordCoalesced() {
+        coalescedCounter.increment();
+    }
+
+    @Override
+    public void recordCacheHit() {
+        cacheHitCounter.increment();
+    }
+
+    @Override
+    public void recordCacheMiss() {
+        cacheMissCounter.increment();
+    }
+
+    @Override
+    public void recordCacheEviction(String cause) {
+        if ("size".equals(cause)) {
+            cacheSizeEvictionCounter.increment();
+        } else {
+            cacheExpiredCounter.increment();
+        }
+    }
+
+    @Override
+    public void recordReplayRejected() {
+        replayRejectedCounter.increment();
+    }
+
+    @Override
+    public void recordCircuitRejected(boolean failOpen) {
+        (failOpen ? circuitFailOpenCounter : circuitFailClosedCounter).increment();
+    }
+
+    @Override
+    public void recordRetry(String reason) {
+        switch (reason) {
+            case "connect_failure" -> retryConnectCounter.increment();
+            case "server_error" -> retryServerErrorCounter.increment();
+            case "internal_error" -> retryInternalErrorCounter.increment();
+            default -> registry.counter("turnstile.retry.attempts", "reason", reason).increment();
+        }
+    }
+
+    @Override
+    public void recordRetryRecovered() {
+        retryRecoveredCounter.increment();
+    }
+
+    @Override
+    public void recordRetryExhausted() {
+        retryExhaustedCounter.increment();
+    }
+
+    @Override
+    public void recordTransportRequest(String version) {
+        switch (version) {
+            case "http_1_1" -> transportHttp11Counter.increment();
+            case "http_2" -> transportHttp2Counter.increment();
+            default -> registry.counter("turnstile.transport.requests", "version", version).increment();
+        }
+    }
+
+    @Override
+    public void recordTransportConnection() {
+        transportConnectionCounter.increment();
+    }
+
+    @Override
+    public void recordWarmup(long milliseconds, boolean completed) {
+        Timer.builder("turnstile.warmup.duration").tag("outcome", completed ? "completed" : "timed_out")
+                .description("Duration of the Turnstile startup warm-up").register(registry)
+                .record(milliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordFirstResponseTime(long milliseconds) {
+        firstResponseTimer.record(milliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordInputRejected(String reason) {
+        Counter counter = inputRejectedCounters.get(reason);
+        (counter != null ? counter : inputRejectedCounter(registry, reason)).increment();
+    }
+
+    @Override
+    public void recordRateLimited(String reason) {
+        switch (reason) {
+            case "rate_limited" -> rateLimitedCounter.increment();
+            case "concurrency_limited" -> concurrencyLimitedCounter.increment();
+            default -> registry.counter("turnstile.ratelimit.rejected", "reason", reason).increment();
+        }
+    }
+
+    @Override
+    public void recordPenaltyBlock() {
+        penaltyBlockCounter.increment();
+    }
+
+    @Override
+    public void recordPenaltyRejected() {
+        penaltyRejectedCounter.increment();
+    }
+
+    @Override
+    public void recordPenaltyEviction(String cause) {
+        switch (cause) {
+            case "expired" -> penaltyExpiredCounter.increment();
+            case "size" -> penaltySizeEvictionCounter.increment();
+            default -> registry.counter("turnstile.penalty.evictions", "cause", cause).increment();
+        }
+    }
+
+    @Override
+    public void recordBulkheadRejected(String reason) {
+        switch (reason) {
+            case "queue_full" -> bulkheadQueueFullCounter.increment();
+            case "wait_timeout" -> bulkheadWaitTimeoutCounter.increment();
+            default -> registry.counter("turnstile.bulkhead.rejected", "reason", reason).increment();
+        }
+    }
+
+    @Override
+    public void recordBulkheadWait(long nanoseconds) {
+        bulkheadWaitTimer.record(nanoseconds, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordBatch(int size, long milliseconds) {
+        batchSizeSummary.record(size);
+        batchTimer.record(milliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void recordTenantOutcome(String tenant, ValidationResultType type) {
+        registry.counter("turnstile.tenant.validations", "tenant", tenant, "outcome", type.name().toLowerCase(Locale.ROOT)).increment();
+    }
+
+    @Override
+    public void recordSettingsReload(String outcome) {
+        registry.counter("turnstile.settings.reloads", "outcome", outcome).increment();
+    }
+
+    @Override
+    public void recordPreviousSecretUsed() {
+        registry.counter("turnstile.settings.previous.secret").increment();
+    }
+
+    @Override
+    public void recordCircuitStateChange(String state) {
+        registry.counter("turnstile.circuit.transitions", "state", state).increment();
+    }
+
+    @Override
+    public void registerGauge(String name, String description, Supplier<Number> value) {
+        Gauge.builder(name, value).description(description).register(registry);
+    }
 }
@@ -1,5 +1,6 @@
 package com.digitalsanctuary.cf.turnstile.metrics;
 
+import java.util.function.Supplier;
 import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
 
 /**
@@ -22,4 +23,108 @@ public class NoOpTurnstileMetrics implements TurnstileMetrics {
     @Override
     public void recordResponseTime(long milliseconds) { // no-op
     }
+
+    @Override
+    public void recordCoalesced() { // no-op
+    }
+
+    @Override
+    public void recordCacheHit() { // no-op
+    }
+
+    @Override
+    public void recordCacheMiss() { // no-op
+    }
+
+    @Override
+    public void recordCacheEviction(String cause) { // no-op
+    }
+
+    @Override
+    public void recordReplayRejected() { // no-op
+    }
+
+    @Override
+    public void recordCircuitRejected(boolean failOpen) { // no-op
+    }
+
+    @Override
+    public void recordCircuitStateChange(String state) { // no-op
+    }
+
+    @Override
+    public void recordRetry(String reason) { // no-op
+    }
+
+    @Override
+    public void recordRetryRecovered() { // no-op
+    }
+
+    @Override
+    public void recordRetryExhausted() { // no-op
+    }
+
+    @Override
+    public void recordTransportRequest(String version) { // no-op
+    }
+
+    @Override
+    public void recordTransportConnection() { // no-op
+    }
+
+    @Override
+    public void recordWarmup(long milliseconds, boolean completed) { // no-op
+    }
+
+    @Override
+    public void recordFirstResponseTime(long milliseconds) { // no-op
+    }
+
+    @Override
+    public void recordInputRejected(String reason) { // no-op
+    }
+
+    @Override
+    public void recordRateLimited(String reason) { // no-op
+    }
+
+    @Override
+    public void recordPenaltyBlock() { // no-op
+    }
+
+    @Override
+    public void recordPenaltyRejected() { // no-op
+    }
+
+    @Override
+    public void recordPenaltyEviction(String cause) { // no-op
+    }
+
+    @Override
+    public void recordBulkheadRejected(String reason) { // no-op
+    }
+
+    @Override
+    public void recordBulkheadWait(long nanoseconds) { // no-op
+    }
+
+    @Override
+    public void recordBatch(int size, long milliseconds) { // no-op
+    }
+
+    @Override
+    public void recordTenantOutcome(String tenant, ValidationResultType type) { // no-op
+    }
+
+    @Override
+    public void recordSettingsReload(String outcome) { // no-op
+    }
+
+    @Override
+    public void recordPreviousSecretUsed() { // no-op
+    }
+
+    @Override
+    public void registerGauge(String name, String description, Supplier<Number> value) { // no-op
+    }
 }
@@ -0,0 +1,266 @@
+package com.digitalsanctuary.cf.turnstile.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
+
+/**
+ * Validation outcomes and response times over a sliding time window.
+ * <p>
+ * The window is a ring of {@code buckets} time buckets of equal length. Each bucket counts the validations completed in it by
+ * {@link ValidationResultType}, and the number, total, maximum and slow share of the response times recorded in it. When the clock moves into a
+ * bucket last used a full window ago, the bucket is cleared and reused, so memory stays fixed and nothing has to expire entries. A
+ * {@link #snapshot()} sums the buckets of the last window, which covers between {@code buckets - 1} and {@code buckets} full bucket lengths
+ * because the current bucket is still filling.
+ * </p>
+ * <p>
+ * Recording is a few atomic increments. Clearing a bucket is guarded by a {@link ReentrantLock}, taken once per bucket length. A value recorded by a
+ * thread that read the clock just before a bucket boundary may land in the next bucket.
+ * </p>
+ */
+public final class SlidingWindowStats {
+
+    private static final ValidationResultType[] TYPES = ValidationResultType.values();
+
+    private final Bucket[] ring;
+    private final long bucketNanos;
+    private final long slowCallNanos;
+    private final LongSupplier nanoClock;
+    private final long origin;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Constructor for SlidingWindowStats.
+     *
+     * @param window the length of the window
+     * @param buckets the number of buckets the window is divided into
+     * @param slowCallDuration response times of at least this long count as slow, or null to count none
+     */
+    public SlidingWindowStats(Duration window, int buckets, Duration slowCallDuration) {
+        this(window, buckets, slowCallDuration, System::nanoTime);
+    }
+
+    /**
+     * Constructor for SlidingWindowStats with an explicit clock.
+     *
+     * @param window the length of the window
+     * @param buckets the number of buckets the window is divided into
+     * @param slowCallDuration response times of at least this long count as slow, or null to count none
+     * @param nanoClock the time source, in nanoseconds, with the semantics of {@link System#nanoTime()}
+     */
+    public SlidingWindowStats(Duration window, int buckets, Duration slowCallDuration, LongSupplier nanoClock) {
+        if (buckets <= 0 || window == null || window.toNanos() < buckets) {
+            throw new IllegalArgumentException("window must be positive and buckets between 1 and the window in nanoseconds: " + window + ", "
+                    + buckets);
+        }
+        this.ring = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) {
+            ring[i] = new Bucket();
+        }
+        this.bucketNanos = window.toNanos() / buckets;
+        this.slowCallNanos = slowCallDuration != null ? slowCallDuration.toNanos() : Long.MAX_VALUE;
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+    }
+
+    /**
+     * Records a completed validation.
+     *
+     * @param type the result type of the validation
+     */
+    public void record(ValidationResultType type) {
+        current().counts.incrementAndGet(type.ordinal());
+    }
+
+    /**
+     * Records a response time.
+     *
+     * @param nanos the response time in nanoseconds
+     */
+    public void recordResponseTime(long nanos) {
+        Bucket bucket = current();
+        bucket.responses.incrementAndGet(0);
+        bucket.responses.addAndGet(1, nanos);
+        if (nanos >= slowCallNanos) {
+            bucket.responses.incrementAndGet(2);
+        }
+        long max = bucket.maxNanos.get();
+        while (nanos > max && !bucket.maxNanos.compareAndSet(max, nanos)) {
+            max = bucket.maxNanos.get();
+        }
+    }
+
+    /**
+     * Sums the buckets of the last window.
+     *
+     * @return the counts of the last window
+     */
+    public Snapshot snapshot() {
+        long epoch = epoch();
+        long[] counts = new long[TYPES.length];
+        long responses = 0;
+        long totalNanos = 0;
+        long slowCalls = 0;
+        long maxNanos = 0;
+        for (Bucket bucket : ring) {
+            long age = epoch - bucket.epoch;
+            if (age < 0 || age >= ring.length) {
+                continue;
+            }
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += bucket.counts.get(i);
+            }
+            responses += bucket.responses.get(0);
+            totalNanos += bucket.responses.get(1);
+            slowCalls += bucket.responses.get(2);
+            maxNanos = Math.max(maxNanos, bucket.maxNanos.get());
+        }
+        return new Snapshot(Duration.ofNanos(bucketNanos * ring.length), counts, responses, totalNanos, slowCalls, maxNanos);
+    }
+
+    private long epoch() {
+        return (nanoClock.getAsLong() - origin) / bucketNanos;
+    }
+
+    private Bucket current() {
+        long epoch = epoch();
+        Bucket bucket = ring[(int) (epoch % ring.length)];
+        if (bucket.epoch < epoch) {
+            lock.lock();
+            try {
+                if (bucket.epoch < epoch) {
+                    bucket.reset(epoch);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return bucket;
+    }
+
+    private static final class Bucket {
+
+        private final AtomicLongArray counts = new AtomicLongArray(TYPES.length);
+        // Response count, total nanoseconds and slow count
+        private final AtomicLongArray responses = new AtomicLongArray(3);
+        private final AtomicLong maxNanos = new AtomicLong();
+        private volatile long epoch;
+
+        private void reset(long newEpoch) {
+            for (int i = 0; i < counts.length(); i++) {
+                counts.set(i, 0);
+            }
+            for (int i = 0; i < responses.length(); i++) {
+                responses.set(i, 0);
+            }
+            maxNanos.set(0);
+            // Published last, so a thread that sees the new epoch also sees the cleared counters
+            epoch = newEpoch;
+        }
+    }
+
+    /**
+     * The counts of one window.
+     */
+    public static final class Snapshot {
+
+        private final Duration window;
+        private final long[] counts;
+        private final long total;
+        private final long responses;
+        private final long totalNanos;
+        private final long slowCalls;
+        private final long maxNanos;
+
+        private Snapshot(Duration window, long[] counts, long responses, long totalNanos, long slowCalls, long maxNanos) {
+            this.window = window;
+            this.counts = counts;
+            long sum = 0;
+            for (long count : counts) {
+                sum += count;
+            }
+            this.total = sum;
+            this.responses = responses;
+            this.totalNanos = totalNanos;
+            this.slowCalls = slowCalls;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * Gets the length of the window.
+         *
+         * @return the window length
+         */
+        public Duration getWindow() {
+            return window;
+        }
+
+        /**
+         * Gets the number of validations completed in the window, of any result type.
+         *
+         * @return the number of validations
+         */
+        public long getTotal() {
+            return total;
+        }
+
+        /**
+         * Gets the number of validations of one result type completed in the window.
+         *
+         * @param type the result type
+         * @return the number of validations
+         */
+        public long getCount(ValidationResultType type) {
+            return counts[type.ordinal()];
+        }
+
+        /**
+         * Gets the share of the validations in the window that had one result type.
+         *
+         * @param type the result type
+         * @return the rate as a percentage (0-100), or 0 if no validations completed in the window
+         */
+        public double getRate(ValidationResultType type) {
+            return total > 0 ? (double) counts[type.ordinal()] * 100 / total : 0;
+        }
+
+        /**
+         * Gets the number of response times recorded in the window.
+         *
+         * @return the number of response times
+         */
+        public long getResponseCount() {
+            return responses;
+        }
+
+        /**
+         * Gets the average response time in the window.
+         *
+         * @return the average response time in milliseconds, or 0 if none were recorded
+         */
+        public double getAverageResponseTime() {
+            return responses > 0 ? totalNanos / 1_000_000.0 / responses : 0;
+        }
+
+        /**
+         * Gets the longest response time in the window.
+         *
+         * @return the maximum response time in milliseconds, or 0 if none were recorded
+         */
+        public double getMaxResponseTime() {
+            return maxNanos / 1_000_000.0;
+        }
+
+        /**
+         * Gets the share of the response times in the window that were slow.
+         *
+         * @return the slow call rate as a percentage (0-100), or 0 if none were recorded
+         */
+        public double getSlowCallRate() {
+            return responses > 0 ? (double) slowCalls * 100 / responses : 0;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.digitalsanctuary.cf.turnstile.metrics;
 
+import java.util.function.Supplier;
 import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
 
 /**
@@ -12,7 +13,9 @@ import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultTy
  * <p>
  * Expected call sequence per validation attempt:
  * {@link #recordValidation()} is always called first, followed by exactly one of
- * {@link #recordSuccess()} or {@link #recordError(ValidationResultType)}, and then
+ * {@link #recordSuccess()}, {@link #recordError(ValidationResultType)} or, for a validation
+ * rejected because the penalty box has blocked the client, {@link #recordPenaltyRejected()},
+ * and then
  * {@link #recordResponseTime(long)} for any attempt that reached the network (input and
  * configuration errors do not record a response time).
  * </p>
@@ -37,8 +40,11 @@ public interface TurnstileMetrics {
      *             {@link ValidationResultType#NETWORK_ERROR},
      *             {@link ValidationResultType#CONFIGURATION_ERROR},
      *             {@link ValidationResultType#INVALID_TOKEN},
-     *             {@link ValidationResultType#INPUT_ERROR}.
-     *             {@link ValidationResultType#SUCCESS} is never passed to this method.
+     *             {@link ValidationResultType#INPUT_ERROR},
+     *             {@link ValidationResultType#OVERLOADED}.
+     *             {@link ValidationResultType#SUCCESS} is never passed to this method, nor is
+     *             {@link ValidationResultType#BLOCKED}: a blocked client's validation is recorded
+     *             by {@link #recordPenaltyRejected()} instead.
      */
     void recordError(ValidationResultType type);
 
@@ -50,4 +56,220 @@ public interface TurnstileMetrics {
      *                     to its completion (success or failure)
      */
     void recordResponseTime(long milliseconds);
+
+    /**
+     * Records a validation that joined a siteverify request already in flight for the same token
+     * and remote IP instead of sending its own. Called in addition to the per-attempt calls above,
+     * which are still made for every caller. Defaults to a no-op so existing custom implementations
+     * keep compiling.
+     */
+    default void recordCoalesced() {
+    }
+
+    /**
+     * Records a validation answered from the success cache without a siteverify call. Such a
+     * validation also gets {@link #recordValidation()} and {@link #recordSuccess()}, but no
+     * response time. Defaults to a no-op.
+     */
+    default void recordCacheHit() {
+    }
+
+    /**
+     * Records a success cache lookup that found no live entry. Defaults to a no-op.
+     */
+    default void recordCacheMiss() {
+    }
+
+    /**
+     * Records an entry leaving the success cache. Defaults to a no-op.
+     *
+     * @param cause {@code expired} when the entry outlived its time-to-live, {@code size} when it
+     *              was evicted to keep the cache within its maximum size
+     */
+    default void recordCacheEviction(String cause) {
+    }
+
+    /**
+     * Records a validation rejected locally because its token had already been sent to
+     * Cloudflare. Such a validation is also recorded as an
+     * {@link ValidationResultType#INVALID_TOKEN} error, without a response time. Defaults to a
+     * no-op.
+     */
+    default void recordReplayRejected() {
+    }
+
+    /**
+     * Records a validation answered by the circuit breaker fallback instead of calling siteverify.
+     * Such a validation is also recorded as a success (fail-open) or a
+     * {@link ValidationResultType#NETWORK_ERROR} (fail-closed), without a response time. Defaults
+     * to a no-op.
+     *
+     * @param failOpen whether the fallback accepted the token
+     */
+    default void recordCircuitRejected(boolean failOpen) {
+    }
+
+    /**
+     * Records a circuit breaker state transition. Defaults to a no-op.
+     *
+     * @param state the new state: {@code closed}, {@code open} or {@code half_open}
+     */
+    default void recordCircuitStateChange(String state) {
+    }
+
+    /**
+     * Records a siteverify call that is about to be retried. Defaults to a no-op.
+     *
+     * @param reason why the attempt is retried: {@code connect_failure}, {@code server_error} or
+     *        {@code internal_error}
+     */
+    default void recordRetry(String reason) {
+    }
+
+    /**
+     * Records a validation whose siteverify call succeeded after at least one retry. Defaults to a
+     * no-op.
+     */
+    default void recordRetryRecovered() {
+    }
+
+    /**
+     * Records a validation whose last siteverify attempt still failed transiently because the
+     * attempt limit or time budget was reached. Defaults to a no-op.
+     */
+    default void recordRetryExhausted() {
+    }
+
+    /**
+     * Records a request sent on the {@code turnstileHttpClient}. Defaults to a no-op.
+     *
+     * @param version the HTTP version the response arrived with: {@code http_1_1} or {@code http_2}
+     */
+    default void recordTransportRequest(String version) {
+    }
+
+    /**
+     * Records a new TLS connection, and therefore a handshake, opened by the
+     * {@code turnstileHttpClient}. Defaults to a no-op.
+     */
+    default void recordTransportConnection() {
+    }
+
+    /**
+     * Records how long the startup warm-up took. Defaults to a no-op.
+     *
+     * @param milliseconds the warm-up duration in milliseconds
+     * @param completed whether the warm-up finished within its timeout
+     */
+    default void recordWarmup(long milliseconds, boolean completed) {
+    }
+
+    /**
+     * Records the response time of the first validation that reached the network after startup,
+     * in addition to the {@link #recordResponseTime(long)} call made for it. Defaults to a no-op.
+     *
+     * @param milliseconds the response time in milliseconds
+     */
+    default void recordFirstResponseTime(long milliseconds) {
+    }
+
+    /**
+     * Records a token rejected by the local input checks before any siteverify call, in addition
+     * to the {@link #recordError(ValidationResultType)} call made for it. Defaults to a no-op.
+     *
+     * @param reason the {@link com.digitalsanctuary.cf.turnstile.dto.ValidationResult.InputErrorReason}
+     *        tag value, for example {@code too_long} or {@code illegal_character}
+     */
+    default void recordInputRejected(String reason) {
+    }
+
+    /**
+     * Records a request rejected by the per-client rate limiter before its token was read.
+     * Defaults to a no-op.
+     *
+     * @param reason {@code rate_limited} or {@code concurrency_limited}
+     */
+    default void recordRateLimited(String reason) {
+    }
+
+    /**
+     * Records a client IP blocked by the penalty box after repeated invalid tokens.
+     */
+    default void recordPenaltyBlock() {
+    }
+
+    /**
+     * Records a validation or request rejected because the penalty box has blocked the client.
+     * For a validation, this is its outcome call, made in place of {@link #recordSuccess()} or
+     * {@link #recordError(ValidationResultType)}; such a validation records no response time.
+     */
+    default void recordPenaltyRejected() {
+    }
+
+    /**
+     * Records a client entry removed from the penalty box.
+     *
+     * @param cause {@code expired} or {@code size}
+     */
+    default void recordPenaltyEviction(String cause) {
+    }
+
+    /**
+     * Records a validation refused by the bulkhead.
+     *
+     * @param reason {@code queue_full} or {@code wait_timeout}
+     */
+    default void recordBulkheadRejected(String reason) {
+    }
+
+    /**
+     * Records how long a validation waited in the bulkhead queue before its siteverify call could start.
+     *
+     * @param nanoseconds the wait in nanoseconds
+     */
+    default void recordBulkheadWait(long nanoseconds) {
+    }
+
+    /**
+     * Records a completed batch validation.
+     *
+     * @param size the number of tokens in the batch
+     * @param milliseconds the wall-clock time from the start of the batch until its last validation completed
+     */
+    default void recordBatch(int size, long milliseconds) {
+    }
+
+    /**
+     * Records the outcome of a validation made for a tenant of the tenant registry, in addition to the regular success or error record.
+     *
+     * @param tenant the tenant id
+     * @param type the outcome
+     */
+    default void recordTenantOutcome(String tenant, ValidationResultType type) {
+    }
+
+    /**
+     * Records a reload of the site key, secret key and URL.
+     *
+     * @param outcome {@code applied} if the new settings took effect, or {@code rejected} if they were incomplete and the current ones were kept
+     */
+    default void recordSettingsReload(String outcome) {
+    }
+
+    /**
+     * Records a siteverify request repeated with the previous secret key because Cloudflare rejected the current one during a rotation overlap.
+     */
+    default void recordPreviousSecretUsed() {
+    }
+
+    /**
+     * Registers a gauge whose value is sampled from the supplier whenever it is read. Defaults to a
+     * no-op.
+     *
+     * @param name the meter name
+     * @param description the meter description
+     * @param value supplies the current value
+     */
+    default void registerGauge(String name, String description, Supplier<Number> value) {
+    }
 }
@@ -0,0 +1,257 @@
+package com.digitalsanctuary.cf.turnstile.ratelimit;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client token bucket rate limiter with an optional cap on concurrent requests per client.
+ * <p>
+ * Clients are keyed by IP address. The key table is split into lock stripes, each an access-ordered {@link LinkedHashMap} guarded by its own
+ * {@link ReentrantLock}, so requests from different clients rarely contend and a virtual thread waiting for a stripe does not pin its carrier. Each
+ * stripe holds at most its share of {@code maxClients}; when it is full the least recently seen client is dropped. Clients idle for longer than
+ * {@code idleTimeout} are removed as the stripe is next used, so memory stays bounded without a background thread.
+ * </p>
+ * <p>
+ * Keys must be addresses the client cannot choose, such as those resolved with
+ * {@link com.digitalsanctuary.cf.turnstile.filter.TrustedProxies}. A client that could vary its key would get a fresh bucket with every request
+ * and push real clients out of the table.
+ * </p>
+ */
+public class ClientRateLimiter {
+
+    /**
+     * The outcome of {@link #tryAcquire(String)}.
+     */
+    public enum Decision {
+
+        /**
+         * The request may proceed. If a concurrency cap is configured, {@link #release(String)} must be called when it finishes.
+         */
+        ALLOWED,
+
+        /**
+         * The client's token bucket is empty.
+         */
+        RATE_LIMITED,
+
+        /**
+         * The client already has the maximum number of requests in flight.
+         */
+        CONCURRENCY_LIMITED;
+
+        /**
+         * Returns the lower-case name used as a metric tag value.
+         *
+         * @return the tag value
+         */
+        public String tagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Rate limiter settings.
+     *
+     * @param capacity the bucket size, i.e. the burst a client may send at once; must be positive
+     * @param refillPerSecond tokens added to each bucket per second; must be positive
+     * @param maxConcurrent the maximum requests in flight per client, or 0 for no cap
+     * @param maxClients the maximum number of clients tracked at once; must be positive
+     * @param idleTimeout how long an unused client entry is kept
+     * @param stripes the number of lock stripes, rounded up to a power of two
+     */
+    public record Settings(int capacity, double refillPerSecond, int maxConcurrent, int maxClients, Duration idleTimeout, int stripes) {
+    }
+
+    private static final String UNKNOWN_CLIENT = "unknown";
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final double capacity;
+    private final double tokensPerNano;
+    private final int maxConcurrent;
+    private final long idleNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * Constructor for ClientRateLimiter.
+     *
+     * @param settings the rate limiter settings
+     */
+    public ClientRateLimiter(Settings settings) {
+        this(settings, System::nanoTime);
+    }
+
+    /**
+     * Constructor for ClientRateLimiter with an explicit clock.
+     *
+     * @param settings the rate limiter settings
+     * @param nanoClock the time source, in nanoseconds, with the semantics of {@link System#nanoTime()}
+     */
+    public ClientRateLimiter(Settings settings, LongSupplier nanoClock) {
+        if (settings.capacity() <= 0 || settings.refillPerSecond() <= 0 || settings.maxClients() <= 0) {
+            throw new IllegalArgumentException("capacity, refillPerSecond and maxClients must be positive");
+        }
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(settings.stripes(), settings.maxClients())) * 2 - 1);
+        this.stripes = new Stripe[stripeCount];
+        int perStripe = Math.max(1, settings.maxClients() / stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.stripeMask = stripeCount - 1;
+        this.capacity = settings.capacity();
+        this.tokensPerNano = settings.refillPerSecond() / 1_000_000_000d;
+        this.maxConcurrent = Math.max(0, settings.maxConcurrent());
+        this.idleNanos = settings.idleTimeout().toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes a token from the client's bucket and, if a concurrency cap is configured, a slot for a request in flight.
+     *
+     * @param clientIp the client IP address, or null if unknown
+     * @return whether the request may proceed, and if not, why
+     */
+    public Decision tryAcquire(String clientIp) {
+        String key = clientIp != null ? clientIp : UNKNOWN_CLIENT;
+        Stripe stripe = stripeFor(key);
+        long now = nanoClock.getAsLong();
+        stripe.lock.lock();
+        try {
+            stripe.evictIdle(now, idleNanos);
+            Bucket bucket = stripe.clients.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.clients.put(key, bucket);
+            } else {
+                bucket.refill(now, capacity, tokensPerNano);
+            }
+            bucket.lastSeen = now;
+            if (maxConcurrent > 0 && bucket.inFlight >= maxConcurrent) {
+                return Decision.CONCURRENCY_LIMITED;
+            }
+            if (bucket.tokens < 1) {
+                return Decision.RATE_LIMITED;
+            }
+            bucket.tokens -= 1;
+            if (maxConcurrent > 0) {
+                bucket.inFlight++;
+            }
+            return Decision.ALLOWED;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the in-flight slot taken by an {@link Decision#ALLOWED} call to {@link #tryAcquire(String)}. Does nothing without a concurrency cap.
+     *
+     * @param clientIp the client IP address passed to {@link #tryAcquire(String)}
+     */
+    public void release(String clientIp) {
+        if (maxConcurrent == 0) {
+            return;
+        }
+        String key = clientIp != null ? clientIp : UNKNOWN_CLIENT;
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.clients.get(key);
+            if (bucket != null && bucket.inFlight > 0) {
+                bucket.inFlight--;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether the limiter caps concurrent requests per client, so callers must {@link #release(String)} allowed requests.
+     *
+     * @return true if a concurrency cap is configured
+     */
+    public boolean hasConcurrencyCap() {
+        return maxConcurrent > 0;
+    }
+
+    /**
+     * Gets the number of clients currently tracked.
+     *
+     * @return the number of client entries across all stripes
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.clients.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & stripeMask];
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+        private long lastRefill;
+        private long lastSeen;
+        private int inFlight;
+
+        private Bucket(double capacity, long now) {
+            this.tokens = capacity;
+            this.lastRefill = now;
+            this.lastSeen = now;
+        }
+
+        private void refill(long now, double capacity, double tokensPerNano) {
+            long elapsed = now - lastRefill;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+                lastRefill = now;
+            }
+        }
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Bucket> clients;
+
+        private Stripe(int maxEntries) {
+            this.clients = new LinkedHashMap<>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        /**
+         * Removes least recently seen clients that have been idle for longer than the timeout. Entries are in access order, so this stops at the
+         * first entry that is still live. Clients with requests in flight are kept.
+         */
+        private void evictIdle(long now, long idleNanos) {
+            Iterator<Bucket> it = clients.values().iterator();
+            while (it.hasNext()) {
+                Bucket bucket = it.next();
+                if (now - bucket.lastSeen <= idleNanos || bucket.inFlight > 0) {
+                    return;
+                }
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.digitalsanctuary.cf.turnstile.ratelimit;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Temporarily blocks client IPs that keep failing verification, in the manner of fail2ban.
+ * <p>
+ * Each client's last {@code threshold} failures are kept in a small ring of timestamps. When that many failures fall within {@code window}, the
+ * client is blocked for {@code baseBlock}, and every further block of the same client lasts {@code multiplier} times longer than the previous one,
+ * up to {@code maxBlock}. A client's history is forgotten once it has been inactive for {@code maxBlock} (or {@code window}, if longer).
+ * </p>
+ * <p>
+ * The table is split into lock stripes like {@link ClientRateLimiter}. Each stripe keeps clients in order of their last failure and holds at most
+ * its share of {@code maxClients}, so expired clients are removed from the front as the stripe is next used and the oldest client is dropped when
+ * the stripe is full.
+ * </p>
+ */
+public class PenaltyBox {
+
+    /**
+     * Penalty box settings.
+     *
+     * @param threshold the number of failures within the window that blocks a client; must be positive
+     * @param window the sliding window failures are counted in
+     * @param baseBlock how long the first block lasts
+     * @param multiplier how much longer each further block of the same client lasts; at least 1
+     * @param maxBlock the longest block
+     * @param maxClients the maximum number of clients tracked at once; must be positive
+     * @param stripes the number of lock stripes, rounded up to a power of two
+     */
+    public record Settings(int threshold, Duration window, Duration baseBlock, double multiplier, Duration maxBlock, int maxClients, int stripes) {
+    }
+
+    /**
+     * Receives penalty box events, typically to record them as metrics.
+     */
+    public interface Listener {
+
+        /**
+         * Called when a client is blocked.
+         *
+         * @param duration how long the client is blocked for
+         */
+        void blocked(Duration duration);
+
+        /**
+         * Called when a client entry leaves the table.
+         *
+         * @param cause {@code expired} or {@code size}
+         */
+        void evicted(String cause);
+    }
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final int threshold;
+    private final long windowNanos;
+    private final long baseBlockNanos;
+    private final double multiplier;
+    private final long maxBlockNanos;
+    private final long retentionNanos;
+    private final LongSupplier nanoClock;
+    private final Listener listener;
+    private final LongAdder blocks = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor for PenaltyBox.
+     *
+     * @param settings the penalty box settings
+     * @param listener notified of blocks and evictions
+     */
+    public PenaltyBox(Settings settings, Listener listener) {
+        this(settings, System::nanoTime, listener);
+    }
+
+    /**
+     * Constructor for PenaltyBox with an explicit clock.
+     *
+     * @param settings the penalty box settings
+     * @param nanoClock the time source, in nanoseconds, with the semantics of {@link System#nanoTime()}
+     * @param listener notified of blocks and evictions
+     */
+    public PenaltyBox(Settings settings, LongSupplier nanoClock, Listener listener) {
+        if (settings.threshold() <= 0 || settings.maxClients() <= 0) {
+            throw new IllegalArgumentException("threshold and maxClients must be positive");
+        }
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(settings.stripes(), settings.maxClients())) * 2 - 1);
+        this.stripes = new Stripe[stripeCount];
+        int perStripe = Math.max(1, settings.maxClients() / stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.stripeMask = stripeCount - 1;
+        this.threshold = settings.threshold();
+        this.windowNanos = settings.window().toNanos();
+        this.baseBlockNanos = settings.baseBlock().toNanos();
+        this.multiplier = Math.max(1.0, settings.multiplier());
+        this.maxBlockNanos = Math.max(baseBlockNanos, settings.maxBlock().toNanos());
+        this.retentionNanos = Math.max(windowNanos, maxBlockNanos);
+        this.nanoClock = nanoClock;
+        this.listener = listener;
+    }
+
+    /**
+     * Returns how much longer a client stays blocked.
+     *
+     * @param clientIp the client IP address
+     * @return the remaining block, or {@link Duration#ZERO} if the client is not blocked
+     */
+    public Duration remainingBlock(String clientIp) {
+        long remaining = remainingBlockNanos(clientIp);
+        return remaining > 0 ? Duration.ofNanos(remaining) : Duration.ZERO;
+    }
+
+    /**
+     * Returns whether a client is currently blocked.
+     *
+     * @param clientIp the client IP address
+     * @return true if the client is blocked
+     */
+    public boolean isBlocked(String clientIp) {
+        return remainingBlockNanos(clientIp) > 0;
+    }
+
+    private long remainingBlockNanos(String clientIp) {
+        Stripe stripe = stripeFor(clientIp);
+        long now = nanoClock.getAsLong();
+        stripe.lock.lock();
+        try {
+            Client client = stripe.clients.get(clientIp);
+            return client != null ? client.blockedUntil - now : 0;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Records a failed verification by a client, blocking it if it has now failed {@code threshold} times within the window.
+     *
+     * @param clientIp the client IP address
+     * @return true if this failure blocked the client
+     */
+    public boolean recordFailure(String clientIp) {
+        Stripe stripe = stripeFor(clientIp);
+        long now = nanoClock.getAsLong();
+        Duration blockedFor = null;
+        stripe.lock.lock();
+        try {
+            evictExpired(stripe, now);
+            // Removed and re-inserted so the stripe stays ordered by last failure
+            Client client = stripe.clients.remove(clientIp);
+            if (client == null) {
+                client = new Client(threshold, now);
+            }
+            stripe.clients.put(clientIp, client);
+            client.lastActivity = now;
+            if (client.blockedUntil - now > 0) {
+                return false;
+            }
+            client.failures[client.head] = now;
+            client.head = (client.head + 1) % threshold;
+            client.count = Math.min(client.count + 1, threshold);
+            // With a full ring, head points at the oldest of the last threshold failures
+            if (client.count == threshold && now - client.failures[client.head] <= windowNanos) {
+                long blockNanos = blockNanos(client.offenses);
+                client.blockedUntil = now + blockNanos;
+                client.offenses++;
+                client.count = 0;
+                blockedFor = Duration.ofNanos(blockNanos);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (blockedFor != null) {
+            blocks.increment();
+            listener.blocked(blockedFor);
+            return true;
+        }
+        return false;
+    }
+
+    private long blockNanos(int offenses) {
+        double block = baseBlockNanos * Math.pow(multiplier, offenses);
+        return block >= maxBlockNanos ? maxBlockNanos : (long) block;
+    }
+
+    private void evictExpired(Stripe stripe, long now) {
+        Iterator<Client> it = stripe.clients.values().iterator();
+        while (it.hasNext()) {
+            Client client = it.next();
+            if (now - client.lastActivity <= retentionNanos) {
+                return;
+            }
+            it.remove();
+            evictions.increment();
+            listener.evicted("expired");
+        }
+    }
+
+    /**
+     * Gets the number of clients currently tracked.
+     *
+     * @return the number of client entries across all stripes
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.clients.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of clients currently blocked. Scans the whole table, so it is meant for health checks rather than the request path.
+     *
+     * @return the number of blocked clients
+     */
+    public int blockedCount() {
+        long now = nanoClock.getAsLong();
+        int blocked = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                for (Client client : stripe.clients.values()) {
+                    if (client.blockedUntil - now > 0) {
+                        blocked++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * Gets the number of blocks imposed since startup.
+     *
+     * @return the block count
+     */
+    public long getBlockCount() {
+        return blocks.sum();
+    }
+
+    /**
+     * Gets the number of client entries evicted since startup, for expiry or for size.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & stripeMask];
+    }
+
+    private static final class Client {
+
+        private final long[] failures;
+        private int head;
+        private int count;
+        private int offenses;
+        private long blockedUntil;
+        private long lastActivity;
+
+        private Client(int threshold, long now) {
+            this.failures = new long[threshold];
+            // nanoTime can be negative, so an unset blockedUntil of 0 could still lie in the future
+            this.blockedUntil = now;
+        }
+    }
+
+    private final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Client> clients;
+
+        private Stripe(int maxEntries) {
+            this.clients = new LinkedHashMap<>() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Client> eldest) {
+                    if (size() <= maxEntries) {
+                        return false;
+                    }
+                    evictions.increment();
+                    listener.evicted("size");
+                    return true;
+                }
+            };
+        }
+    }
+}
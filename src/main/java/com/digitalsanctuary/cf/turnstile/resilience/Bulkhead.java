@@ -0,0 +1,266 @@
+package com.digitalsanctuary.cf.turnstile.resilience;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Bounds the number of siteverify calls in flight at once.
+ * <p>
+ * Up to {@code maxConcurrent} calls run at a time. Further callers wait in a FIFO queue of at most {@code maxQueue} entries for up to
+ * {@code maxWait}; a caller that finds the queue full, or is still queued when {@code maxWait} runs out, is refused at once with a
+ * {@link BulkheadFullException}. A released permit is handed directly to the oldest waiter, so queued callers cannot be overtaken. A blocking
+ * caller interrupted while queued leaves the queue with its interrupt flag set and a {@link ResourceAccessException}, like an interrupted
+ * siteverify call; an interrupt is not a sign of overload.
+ * </p>
+ * <p>
+ * Blocking callers park on the permit future; non-blocking callers are resumed by whichever thread releases the permit, so waiting holds no
+ * thread. The queue wait timeout is scheduled on {@link CompletableFuture#delayedExecutor}. State is guarded by a {@link ReentrantLock} rather than
+ * {@code synchronized} so that waiting virtual threads do not pin their carrier.
+ * </p>
+ */
+public class Bulkhead {
+
+    /**
+     * Why a call was refused.
+     */
+    public enum Rejection {
+
+        /** The wait queue was full. */
+        QUEUE_FULL("queue_full"),
+
+        /** No permit became free within the maximum wait. */
+        WAIT_TIMEOUT("wait_timeout");
+
+        private final String tagValue;
+
+        Rejection(String tagValue) {
+            this.tagValue = tagValue;
+        }
+
+        /**
+         * Returns the value of the {@code reason} tag on the rejection metric.
+         *
+         * @return the tag value
+         */
+        public String tagValue() {
+            return tagValue;
+        }
+    }
+
+    /**
+     * Bulkhead limits.
+     *
+     * @param maxConcurrent the maximum number of calls in flight; must be positive
+     * @param maxQueue the maximum number of callers waiting for a permit; 0 refuses callers as soon as all permits are taken
+     * @param maxWait the longest a caller waits in the queue
+     */
+    public record Settings(int maxConcurrent, int maxQueue, Duration maxWait) {
+    }
+
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final LongConsumer waitRecorder;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private int inFlight;
+
+    /**
+     * Constructor for Bulkhead.
+     *
+     * @param settings the bulkhead limits
+     * @param waitRecorder receives how long, in nanoseconds, each caller that got a permit after queueing waited for it
+     */
+    public Bulkhead(Settings settings, LongConsumer waitRecorder) {
+        if (settings.maxConcurrent() <= 0 || settings.maxQueue() < 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive and maxQueue must not be negative");
+        }
+        this.maxConcurrent = settings.maxConcurrent();
+        this.maxQueue = settings.maxQueue();
+        this.maxWaitNanos = settings.maxWait().toNanos();
+        this.waitRecorder = waitRecorder;
+    }
+
+    /**
+     * Runs a blocking call once a permit is available, waiting in the queue if necessary.
+     *
+     * @param <T> the result type
+     * @param call the call to run
+     * @return the call's result
+     * @throws BulkheadFullException if the queue is full or no permit became free in time
+     * @throws ResourceAccessException if the calling thread was interrupted while waiting for a permit
+     */
+    public <T> T execute(Supplier<T> call) {
+        acquire();
+        try {
+            return call.get();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Starts a non-blocking call once a permit is available. The permit is held until the returned stage completes.
+     *
+     * @param <T> the result type
+     * @param call starts the call
+     * @return a future completed with the call's outcome, or completed exceptionally with a {@link BulkheadFullException}
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<? extends CompletionStage<T>> call) {
+        CompletableFuture<Void> permit;
+        try {
+            permit = acquireAsync();
+        } catch (BulkheadFullException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return permit.thenCompose(ignored -> {
+            CompletionStage<T> stage;
+            try {
+                stage = call.get();
+            } catch (RuntimeException | Error e) {
+                release();
+                throw e;
+            }
+            return stage.whenComplete((result, failure) -> release());
+        });
+    }
+
+    private void acquire() {
+        CompletableFuture<Void> permit = acquireAsync();
+        try {
+            permit.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!permit.cancel(false) && !permit.isCompletedExceptionally()) {
+                // The permit was granted while we were being interrupted; hand it back
+                release();
+            }
+            throw new ResourceAccessException("Interrupted while waiting for a bulkhead permit");
+        } catch (ExecutionException e) {
+            throw (BulkheadFullException) e.getCause();
+        }
+    }
+
+    private CompletableFuture<Void> acquireAsync() {
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (inFlight < maxConcurrent) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            if (queue.size() >= maxQueue) {
+                throw new BulkheadFullException(Rejection.QUEUE_FULL);
+            }
+            waiter = new Waiter(System.nanoTime());
+            queue.add(waiter);
+        } finally {
+            lock.unlock();
+        }
+        CompletableFuture.delayedExecutor(maxWaitNanos, TimeUnit.NANOSECONDS).execute(() -> expire(waiter));
+        // A waiter cancelled by an interrupted caller leaves the queue at once
+        waiter.permit.whenComplete((ignored, failure) -> {
+            if (waiter.permit.isCancelled()) {
+                remove(waiter);
+            }
+        });
+        return waiter.permit;
+    }
+
+    private void expire(Waiter waiter) {
+        if (remove(waiter)) {
+            waiter.permit.completeExceptionally(new BulkheadFullException(Rejection.WAIT_TIMEOUT));
+        }
+    }
+
+    private boolean remove(Waiter waiter) {
+        lock.lock();
+        try {
+            return queue.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        while (true) {
+            Waiter next;
+            lock.lock();
+            try {
+                next = queue.poll();
+                if (next == null) {
+                    inFlight--;
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            // The permit passes straight to the waiter; if it was cancelled meanwhile, offer it to the next one
+            if (next.permit.complete(null)) {
+                waitRecorder.accept(System.nanoTime() - next.enqueued);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of calls currently holding a permit.
+     *
+     * @return the in-flight count
+     */
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of callers waiting for a permit.
+     *
+     * @return the queue depth
+     */
+    public int queueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets how long the oldest queued caller has been waiting.
+     *
+     * @return the wait in milliseconds, or 0 if nobody is waiting
+     */
+    public double oldestWaitMillis() {
+        lock.lock();
+        try {
+            Waiter oldest = queue.peek();
+            return oldest != null ? (System.nanoTime() - oldest.enqueued) / 1_000_000.0 : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Waiter {
+
+        private final CompletableFuture<Void> permit = new CompletableFuture<>();
+        private final long enqueued;
+
+        private Waiter(long enqueued) {
+            this.enqueued = enqueued;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.digitalsanctuary.cf.turnstile.resilience;
+
+/**
+ * Thrown in place of a siteverify call that the {@link Bulkhead} had no room for. Callers translate it into an {@code OVERLOADED} result; it never
+ * escapes the validation service.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Bulkhead.Rejection rejection;
+
+    /**
+     * Constructor for BulkheadFullException.
+     *
+     * @param rejection why the call was refused
+     */
+    public BulkheadFullException(Bulkhead.Rejection rejection) {
+        super(rejection == Bulkhead.Rejection.QUEUE_FULL ? "Bulkhead wait queue is full" : "Timed out waiting for a bulkhead permit", null, false,
+                false);
+        this.rejection = rejection;
+    }
+
+    /**
+     * Returns why the call was refused.
+     *
+     * @return the rejection reason
+     */
+    public Bulkhead.Rejection getRejection() {
+        return rejection;
+    }
+}
@@ -0,0 +1,19 @@
+package com.digitalsanctuary.cf.turnstile.resilience;
+
+/**
+ * Thrown in place of a siteverify call that the circuit breaker did not permit. Callers translate it into the configured {@link FallbackPolicy}
+ * result; it never escapes the validation service.
+ */
+public class CallNotPermittedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor for CallNotPermittedException.
+     *
+     * @param state the breaker state that refused the call
+     */
+    public CallNotPermittedException(CircuitBreaker.State state) {
+        super("Circuit breaker is " + state, null, false, false);
+    }
+}
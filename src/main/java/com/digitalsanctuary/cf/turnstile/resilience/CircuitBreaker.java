@@ -0,0 +1,267 @@
+package com.digitalsanctuary.cf.turnstile.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A count-based circuit breaker for the siteverify call.
+ * <p>
+ * While {@link State#CLOSED}, the outcomes of the last {@code windowSize} calls are kept. Once at least {@code minimumCalls} have been recorded, the
+ * breaker opens if the share of failed calls reaches {@code failureRateThreshold} percent, or the share of calls slower than
+ * {@code slowCallDuration} reaches {@code slowCallRateThreshold} percent. While {@link State#OPEN} every call is refused. After
+ * {@code openDuration} the breaker moves to {@link State#HALF_OPEN} and lets {@code halfOpenCalls} probe calls through: if all of them succeed in
+ * time it closes, otherwise it opens again.
+ * </p>
+ * <p>
+ * Every call permitted by {@link #tryAcquirePermission()} must be reported exactly once through {@link #onSuccess(long)} or
+ * {@link #onFailure(long)}. State is guarded by a {@link ReentrantLock}; the critical sections are a few field updates.
+ * </p>
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /**
+     * Breaker state.
+     */
+    public enum State {
+
+        /** Calls are permitted and their outcomes recorded. */
+        CLOSED(0),
+
+        /** Calls are refused. */
+        OPEN(1),
+
+        /** A limited number of probe calls are permitted. */
+        HALF_OPEN(2);
+
+        private final int code;
+
+        State(int code) {
+            this.code = code;
+        }
+
+        /**
+         * Returns the numeric code reported by the state gauge: 0 closed, 1 open, 2 half-open.
+         *
+         * @return the state code
+         */
+        public int code() {
+            return code;
+        }
+    }
+
+    /**
+     * Breaker thresholds.
+     *
+     * @param windowSize the number of most recent calls evaluated
+     * @param minimumCalls the number of calls that must be recorded before the breaker can open
+     * @param failureRateThreshold the percentage of failed calls at which the breaker opens
+     * @param slowCallDuration calls taking at least this long count as slow
+     * @param slowCallRateThreshold the percentage of slow calls at which the breaker opens
+     * @param openDuration how long the breaker stays open before probing
+     * @param halfOpenCalls the number of probe calls permitted while half-open
+     */
+    public record Settings(int windowSize, int minimumCalls, int failureRateThreshold, Duration slowCallDuration, int slowCallRateThreshold,
+            Duration openDuration, int halfOpenCalls) {
+    }
+
+    private static final byte OK = 0;
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+    private static final byte FAILED_AND_SLOW = FAILED | SLOW;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final byte[] window;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoClock;
+    private final BiConsumer<State, State> transitionListener;
+
+    private volatile State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private int slowCalls;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    /**
+     * Constructor for CircuitBreaker.
+     *
+     * @param settings the breaker settings
+     * @param transitionListener notified with the old and new state after every transition
+     */
+    public CircuitBreaker(Settings settings, BiConsumer<State, State> transitionListener) {
+        this(settings, System::nanoTime, transitionListener);
+    }
+
+    /**
+     * Constructor for CircuitBreaker with an explicit clock.
+     *
+     * @param settings the breaker settings
+     * @param nanoClock the time source, in nanoseconds, with the semantics of {@link System#nanoTime()}
+     * @param transitionListener notified with the old and new state after every transition
+     */
+    public CircuitBreaker(Settings settings, LongSupplier nanoClock, BiConsumer<State, State> transitionListener) {
+        if (settings.windowSize() <= 0 || settings.minimumCalls() <= 0 || settings.halfOpenCalls() <= 0) {
+            throw new IllegalArgumentException("windowSize, minimumCalls and halfOpenCalls must be positive: " + settings);
+        }
+        this.window = new byte[settings.windowSize()];
+        this.minimumCalls = Math.min(settings.minimumCalls(), settings.windowSize());
+        this.failureRateThreshold = settings.failureRateThreshold();
+        this.slowCallRateThreshold = settings.slowCallRateThreshold();
+        this.slowCallNanos = settings.slowCallDuration().toNanos();
+        this.openNanos = settings.openDuration().toNanos();
+        this.halfOpenCalls = settings.halfOpenCalls();
+        this.nanoClock = nanoClock;
+        this.transitionListener = transitionListener;
+    }
+
+    /**
+     * Gets the current state, moving from open to half-open if the open duration has elapsed.
+     *
+     * @return the state
+     */
+    public State getState() {
+        if (state == State.OPEN) {
+            lock.lock();
+            try {
+                halfOpenIfDue();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Returns whether the breaker is open and will refuse the next call. Unlike {@link #tryAcquirePermission()} this does not reserve a probe.
+     *
+     * @return true if calls are currently being refused
+     */
+    public boolean isCallRefused() {
+        State current = getState();
+        return current == State.OPEN;
+    }
+
+    /**
+     * Asks for permission to make a call.
+     *
+     * @return true if the call may proceed and its outcome must be reported
+     */
+    public boolean tryAcquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        lock.lock();
+        try {
+            halfOpenIfDue();
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> false;
+                case HALF_OPEN -> {
+                    if (probesStarted >= halfOpenCalls) {
+                        yield false;
+                    }
+                    probesStarted++;
+                    yield true;
+                }
+            };
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reports a permitted call that got a response.
+     *
+     * @param durationNanos how long the call took
+     */
+    public void onSuccess(long durationNanos) {
+        record(durationNanos >= slowCallNanos ? SLOW : OK);
+    }
+
+    /**
+     * Reports a permitted call that failed.
+     *
+     * @param durationNanos how long the call took
+     */
+    public void onFailure(long durationNanos) {
+        record(durationNanos >= slowCallNanos ? FAILED_AND_SLOW : FAILED);
+    }
+
+    private void record(byte outcome) {
+        lock.lock();
+        try {
+            switch (state) {
+                case CLOSED -> recordClosed(outcome);
+                case HALF_OPEN -> recordProbe(outcome);
+                case OPEN -> {
+                    // A call permitted before the breaker opened; its outcome no longer matters.
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordClosed(byte outcome) {
+        if (recorded == window.length) {
+            byte evicted = window[next];
+            failures -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        window[next] = outcome;
+        next = (next + 1) % window.length;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        if (recorded >= minimumCalls && (failures * 100 >= failureRateThreshold * recorded || slowCalls * 100 >= slowCallRateThreshold * recorded)) {
+            log.warn("Turnstile circuit breaker opening: {} of the last {} siteverify calls failed, {} were slow", failures, recorded, slowCalls);
+            transition(State.OPEN);
+        }
+    }
+
+    private void recordProbe(byte outcome) {
+        if (outcome != OK) {
+            log.warn("Turnstile circuit breaker re-opening: half-open probe {}", (outcome & FAILED) != 0 ? "failed" : "was slow");
+            transition(State.OPEN);
+            return;
+        }
+        if (++probesSucceeded >= halfOpenCalls) {
+            log.info("Turnstile circuit breaker closing after {} successful probes", probesSucceeded);
+            transition(State.CLOSED);
+        }
+    }
+
+    private void halfOpenIfDue() {
+        if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+            transition(State.HALF_OPEN);
+        }
+    }
+
+    private void transition(State target) {
+        State previous = state;
+        state = target;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        slowCalls = 0;
+        probesStarted = 0;
+        probesSucceeded = 0;
+        if (target == State.OPEN) {
+            openedAt = nanoClock.getAsLong();
+        }
+        transitionListener.accept(previous, target);
+    }
+}
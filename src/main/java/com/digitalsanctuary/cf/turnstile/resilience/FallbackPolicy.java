@@ -0,0 +1,19 @@
+package com.digitalsanctuary.cf.turnstile.resilience;
+
+/**
+ * What a validation returns when it is not sent to Cloudflare because the circuit breaker is open.
+ */
+public enum FallbackPolicy {
+
+    /**
+     * Reject the validation with a {@code NETWORK_ERROR} result. Use for endpoints where letting a bot through is worse than turning a user away,
+     * such as login or sign-up.
+     */
+    FAIL_CLOSED,
+
+    /**
+     * Accept the validation without verifying the token. Use only for low-risk endpoints, such as a newsletter or feedback form, where availability
+     * matters more than bot protection.
+     */
+    FAIL_OPEN
+}
@@ -0,0 +1,292 @@
+package com.digitalsanctuary.cf.turnstile.resilience;
+
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileResponse;
+import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Retries siteverify calls that failed for a transient reason.
+ * <p>
+ * Only three outcomes are retried: a connection to Cloudflare that could not be opened (a {@link ResourceAccessException} caused by a
+ * {@link ConnectException} or {@link HttpConnectTimeoutException}), a 5xx status ({@link HttpServerErrorException}), and a response whose error
+ * codes contain {@code internal-error}. A read timeout or any other I/O failure after the request may have been sent is final, as is a response
+ * carrying {@code timeout-or-duplicate} or {@code invalid-input-response}, and every other outcome. The delay before retry {@code n} is drawn
+ * uniformly from zero to {@code min(maxBackoff, initialBackoff * multiplier^(n-1))} ("full jitter"), so clients that failed together do not retry
+ * together. No retry is started once it would end after the time budget.
+ * </p>
+ * <p>
+ * Attempts are retried with the same request, so callers must include an {@code idempotency_key} in it; Cloudflare then answers a retried token
+ * with the original verdict instead of {@code timeout-or-duplicate}.
+ * </p>
+ */
+@Slf4j
+public class RetryPolicy {
+
+    /** The Cloudflare error code for a failure on Cloudflare's side that is safe to retry. */
+    public static final String INTERNAL_ERROR = "internal-error";
+
+    /**
+     * How a failed attempt is classified. The tag value is used as the {@code reason} tag of the retry counter.
+     */
+    public enum Reason {
+
+        /** The connection to Cloudflare could not be opened, so the request was never sent. */
+        CONNECT_FAILURE("connect_failure", true),
+
+        /** Cloudflare answered with a 5xx status. */
+        SERVER_ERROR("server_error", true),
+
+        /** Cloudflare answered with the {@code internal-error} code. */
+        INTERNAL_ERROR("internal_error", true),
+
+        /** No response arrived in time after the request was sent. Not retried: Cloudflare may already have spent the token. */
+        READ_TIMEOUT("read_timeout", false);
+
+        private final String tagValue;
+        private final boolean retried;
+
+        Reason(String tagValue, boolean retried) {
+            this.tagValue = tagValue;
+            this.retried = retried;
+        }
+
+        /**
+         * Returns whether an attempt that failed for this reason is retried.
+         *
+         * @return true if the attempt is retried
+         */
+        public boolean isRetried() {
+            return retried;
+        }
+
+        /**
+         * Returns the metric tag value for this reason.
+         *
+         * @return the tag value
+         */
+        public String tagValue() {
+            return tagValue;
+        }
+    }
+
+    /**
+     * Retry limits.
+     *
+     * @param maxAttempts the maximum number of attempts, including the first
+     * @param initialBackoff the delay bound before the first retry
+     * @param multiplier the factor the delay bound grows by after each retry
+     * @param maxBackoff the largest delay bound
+     * @param budget the time from the first attempt after which no retry is started
+     */
+    public record Settings(int maxAttempts, Duration initialBackoff, double multiplier, Duration maxBackoff, Duration budget) {
+    }
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final double multiplier;
+    private final long maxBackoffNanos;
+    private final long budgetNanos;
+    private final TurnstileMetrics metrics;
+    private final LongSupplier nanoClock;
+
+    /**
+     * Constructor for RetryPolicy.
+     *
+     * @param settings the retry limits
+     * @param metrics the metrics that retries, recoveries and exhausted retries are recorded to
+     */
+    public RetryPolicy(Settings settings, TurnstileMetrics metrics) {
+        this(settings, metrics, System::nanoTime);
+    }
+
+    /**
+     * Constructor for RetryPolicy with an explicit clock.
+     *
+     * @param settings the retry limits
+     * @param metrics the metrics that retries, recoveries and exhausted retries are recorded to
+     * @param nanoClock the time source, in nanoseconds, with the semantics of {@link System#nanoTime()}
+     */
+    public RetryPolicy(Settings settings, TurnstileMetrics metrics, LongSupplier nanoClock) {
+        if (settings.maxAttempts() < 1 || settings.multiplier() < 1.0 || settings.initialBackoff().isNegative()
+                || settings.maxBackoff().isNegative() || settings.budget().isNegative()) {
+            throw new IllegalArgumentException("maxAttempts must be positive, multiplier at least 1 and durations non-negative: " + settings);
+        }
+        this.maxAttempts = settings.maxAttempts();
+        this.initialBackoffNanos = settings.initialBackoff().toNanos();
+        this.multiplier = settings.multiplier();
+        this.maxBackoffNanos = settings.maxBackoff().toNanos();
+        this.budgetNanos = settings.budget().toNanos();
+        this.metrics = metrics;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Classifies a failed attempt.
+     *
+     * @param failure the failure, possibly wrapped in a {@link CompletionException}
+     * @return the reason the attempt failed, or null if the failure is final and needs no classification of its own
+     */
+    public static Reason classify(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof ResourceAccessException) {
+            // HttpConnectTimeoutException is also an HttpTimeoutException, so it is checked first
+            for (Throwable t = cause.getCause(); t != null; t = t.getCause()) {
+                if (t instanceof ConnectException || t instanceof HttpConnectTimeoutException) {
+                    return Reason.CONNECT_FAILURE;
+                }
+                if (t instanceof HttpTimeoutException) {
+                    return Reason.READ_TIMEOUT;
+                }
+            }
+            return null;
+        }
+        if (cause instanceof HttpServerErrorException) {
+            return Reason.SERVER_ERROR;
+        }
+        return null;
+    }
+
+    /**
+     * Classifies a siteverify response.
+     *
+     * @param response the decoded response, may be null
+     * @return the reason to retry, or null if the response is final
+     */
+    public static Reason classify(TurnstileResponse response) {
+        if (response == null || response.isSuccess() || response.getErrorCodes() == null) {
+            return null;
+        }
+        Set<TurnstileErrorCode> codes = TurnstileErrorCode.setOf(response.getErrorCodes());
+        if (!codes.contains(TurnstileErrorCode.INTERNAL_ERROR) || codes.contains(TurnstileErrorCode.TIMEOUT_OR_DUPLICATE)
+                || codes.contains(TurnstileErrorCode.INVALID_INPUT_RESPONSE)) {
+            return null;
+        }
+        return Reason.INTERNAL_ERROR;
+    }
+
+    /**
+     * Runs a blocking call, retrying transient outcomes. The calling thread sleeps between attempts; if it is interrupted, the last outcome is
+     * returned or thrown at once.
+     *
+     * @param attempt makes one siteverify call
+     * @return the response of the last attempt
+     */
+    public TurnstileResponse execute(Supplier<TurnstileResponse> attempt) {
+        long start = nanoClock.getAsLong();
+        for (int attemptNumber = 1;; attemptNumber++) {
+            TurnstileResponse response = null;
+            RuntimeException failure = null;
+            Reason reason;
+            try {
+                response = attempt.get();
+                reason = classify(response);
+            } catch (RuntimeException e) {
+                failure = e;
+                reason = classify(e);
+            }
+            long delay = nextDelay(reason, attemptNumber, start);
+            if (delay < 0 || !sleep(delay)) {
+                return finish(response, failure, reason, attemptNumber);
+            }
+        }
+    }
+
+    /**
+     * Runs a non-blocking call, retrying transient outcomes after a delay scheduled on {@link CompletableFuture#delayedExecutor}.
+     *
+     * @param attempt makes one siteverify call
+     * @return a future completed with the outcome of the last attempt
+     */
+    public CompletableFuture<TurnstileResponse> executeAsync(Supplier<? extends CompletionStage<TurnstileResponse>> attempt) {
+        CompletableFuture<TurnstileResponse> result = new CompletableFuture<>();
+        attemptAsync(attempt, 1, nanoClock.getAsLong(), result);
+        return result;
+    }
+
+    private void attemptAsync(Supplier<? extends CompletionStage<TurnstileResponse>> attempt, int attemptNumber, long start,
+            CompletableFuture<TurnstileResponse> result) {
+        CompletionStage<TurnstileResponse> stage;
+        try {
+            stage = attempt.get();
+        } catch (RuntimeException e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+        stage.whenComplete((response, failure) -> {
+            Reason reason = failure != null ? classify(failure) : classify(response);
+            long delay = nextDelay(reason, attemptNumber, start);
+            if (delay < 0) {
+                try {
+                    result.complete(finish(response, failure == null ? null : unwrap(failure), reason, attemptNumber));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+                return;
+            }
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS)
+                    .execute(() -> attemptAsync(attempt, attemptNumber + 1, start, result));
+        });
+    }
+
+    /**
+     * Works out the delay before the next attempt and records the retry, or returns -1 if no further attempt may be made.
+     */
+    private long nextDelay(Reason reason, int attemptNumber, long start) {
+        if (reason == null || !reason.isRetried() || attemptNumber >= maxAttempts) {
+            return -1;
+        }
+        double bound = Math.min((double) maxBackoffNanos, initialBackoffNanos * Math.pow(multiplier, attemptNumber - 1));
+        long delay = bound < 1 ? 0 : ThreadLocalRandom.current().nextLong((long) bound + 1);
+        if (nanoClock.getAsLong() - start + delay > budgetNanos) {
+            return -1;
+        }
+        log.debug("Retrying siteverify after {} (attempt {} of {}) in {}ms", reason, attemptNumber + 1, maxAttempts,
+                TimeUnit.NANOSECONDS.toMillis(delay));
+        metrics.recordRetry(reason.tagValue());
+        return delay;
+    }
+
+    private TurnstileResponse finish(TurnstileResponse response, RuntimeException failure, Reason reason, int attemptNumber) {
+        if (reason != null && !reason.isRetried()) {
+            log.debug("Not retrying siteverify after {}", reason);
+        } else if (reason != null) {
+            log.debug("Giving up on siteverify after {} attempt(s): {}", attemptNumber, reason);
+            metrics.recordRetryExhausted();
+        } else if (attemptNumber > 1) {
+            metrics.recordRetryRecovered();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return response;
+    }
+
+    private static RuntimeException unwrap(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        return cause instanceof RuntimeException runtimeException ? runtimeException : new CompletionException(cause);
+    }
+
+    private static boolean sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
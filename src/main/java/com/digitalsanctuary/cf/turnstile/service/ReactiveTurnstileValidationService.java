@@ -0,0 +1,256 @@
+package com.digitalsanctuary.cf.turnstile.service;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import com.digitalsanctuary.cf.turnstile.config.SiteverifySettings;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileResponse;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileConfigurationException;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileException;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileNetworkException;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileValidationException;
+import com.digitalsanctuary.cf.turnstile.filter.TrustedProxies;
+import com.digitalsanctuary.cf.turnstile.resilience.BulkheadFullException;
+import com.digitalsanctuary.cf.turnstile.resilience.CallNotPermittedException;
+import com.digitalsanctuary.cf.turnstile.resilience.FallbackPolicy;
+import com.digitalsanctuary.cf.turnstile.transport.JdkSiteverifyTransport;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link TurnstileValidationService} for WebFlux applications.
+ * <p>
+ * Validation requests are sent with a {@link WebClient}, so no event-loop thread is ever blocked waiting for Cloudflare. Input checks, configuration
+ * checks, error classification, internal counters and {@link com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics} recording are delegated to
+ * the application's {@link TurnstileValidationService}, so blocking and reactive validations report through the same statistics and health
+ * indicator.
+ * </p>
+ */
+@Slf4j
+public class ReactiveTurnstileValidationService {
+
+    private final WebClient turnstileWebClient;
+    private final TurnstileValidationService validationService;
+    private final TurnstileConfigProperties properties;
+
+    /**
+     * Constructor for ReactiveTurnstileValidationService.
+     *
+     * @param turnstileWebClient the WebClient to use for making requests to the Turnstile API
+     * @param validationService the blocking service whose checks, counters and metrics are shared
+     * @param properties the TurnstileConfigProperties to use for configuration
+     */
+    public ReactiveTurnstileValidationService(WebClient turnstileWebClient, TurnstileValidationService validationService,
+            TurnstileConfigProperties properties) {
+        this.turnstileWebClient = turnstileWebClient;
+        this.validationService = validationService;
+        this.properties = properties;
+    }
+
+    /**
+     * Validates the Turnstile response token. Errors are handled internally and reported as {@code false}.
+     *
+     * @param token the response token to be validated.
+     * @param remoteIp the remote IP address of the client (optional).
+     * @return a Mono emitting true if the response is valid and successful, false otherwise.
+     */
+    public Mono<Boolean> validateTurnstileResponse(String token, String remoteIp) {
+        return validateTurnstileResponse(token, remoteIp, properties.getCircuitBreaker().getFallback());
+    }
+
+    /**
+     * Validates the Turnstile response token with an explicit circuit breaker fallback. Errors are handled internally and reported as
+     * {@code false}.
+     *
+     * @param token the response token to be validated.
+     * @param remoteIp the remote IP address of the client (optional).
+     * @param fallback what to emit while the circuit breaker is open
+     * @return a Mono emitting true if the response is valid and successful, or skipped under {@link FallbackPolicy#FAIL_OPEN}; false otherwise.
+     */
+    public Mono<Boolean> validateTurnstileResponse(String token, String remoteIp, FallbackPolicy fallback) {
+        return validateTurnstileResponseDetailed(token, remoteIp, fallback).map(ValidationResult::isSuccess).onErrorResume(e -> {
+            if (!(e instanceof TurnstileException)) {
+                log.error("Unexpected error during Turnstile validation: {}", e.getMessage(), e);
+            }
+            return Mono.just(false);
+        });
+    }
+
+    /**
+     * Validates the Turnstile response token with detailed results. Convenience method without remote IP.
+     *
+     * @param token the response token to be validated.
+     * @return a Mono emitting the ValidationResult, or an error as described in {@link #validateTurnstileResponseDetailed(String, String)}
+     */
+    public Mono<ValidationResult> validateTurnstileResponseDetailed(String token) {
+        return validateTurnstileResponseDetailed(token, null);
+    }
+
+    /**
+     * Validates the Turnstile response token with detailed results and typed error signals.
+     * <p>
+     * Nothing happens until the returned Mono is subscribed. Input errors are emitted as an {@code INPUT_ERROR} result; configuration, network and
+     * token rejections are signalled as {@link TurnstileConfigurationException}, {@link TurnstileNetworkException} and
+     * {@link TurnstileValidationException} respectively, matching the exceptions the blocking service throws.
+     * </p>
+     *
+     * @param token the response token to be validated.
+     * @param remoteIp the remote IP address of the client (optional).
+     * @return a Mono emitting the ValidationResult
+     */
+    public Mono<ValidationResult> validateTurnstileResponseDetailed(String token, String remoteIp) {
+        return validateTurnstileResponseDetailed(token, remoteIp, properties.getCircuitBreaker().getFallback());
+    }
+
+    /**
+     * Validates the Turnstile response token with detailed results, typed error signals and an explicit circuit breaker fallback, as described in
+     * {@link TurnstileValidationService#validateTurnstileResponseDetailed(String, String, FallbackPolicy)}.
+     *
+     * @param token the response token to be validated.
+     * @param remoteIp the remote IP address of the client (optional).
+     * @param fallback what to emit while the circuit breaker is open
+     * @return a Mono emitting the ValidationResult
+     */
+    public Mono<ValidationResult> validateTurnstileResponseDetailed(String token, String remoteIp, FallbackPolicy fallback) {
+        return Mono.defer(() -> {
+            long startTime = System.nanoTime();
+            validationService.recordAttempt();
+
+            ValidationResult inputError = validationService.checkToken(token);
+            if (inputError != null) {
+                return Mono.just(inputError);
+            }
+            String cleanRemoteIp = TurnstileValidationService.cleanRemoteIp(remoteIp);
+            ValidationResult blocked = validationService.checkClient(cleanRemoteIp);
+            if (blocked != null) {
+                return Mono.just(blocked);
+            }
+            SiteverifySettings current = validationService.checkConfiguration();
+
+            TokenKeys keys = validationService.keys(token, cleanRemoteIp);
+            ValidationResult localResult = validationService.answerLocally(keys);
+            if (localResult != null) {
+                return Mono.just(localResult);
+            }
+            if (validationService.isCircuitOpen()) {
+                return Mono.just(validationService.circuitOpen(fallback));
+            }
+
+            String idempotencyKey = validationService.newIdempotencyKey();
+            Mono<TurnstileResponse> call = send(current, current.getSecret(), token, cleanRemoteIp, idempotencyKey)
+                    .flatMap(response -> {
+                        String previousSecret = validationService.settingsHolder().previousSecretFor(current, response);
+                        return previousSecret == null ? Mono.just(response) : send(current, previousSecret, token, cleanRemoteIp, idempotencyKey);
+                    })
+                    .onErrorMap(ReactiveTurnstileValidationService::toRestClientFailure);
+
+            return Mono.fromFuture(() -> validationService.fetchAsync(keys, call::toFuture))
+                    .map(response -> validationService.rememberSuccess(keys, validationService.interpretResponse(response)))
+                    .switchIfEmpty(Mono.fromSupplier(() -> validationService.interpretResponse(null)))
+                    .onErrorResume(CallNotPermittedException.class, e -> Mono.just(validationService.circuitOpen(fallback)))
+                    .onErrorResume(BulkheadFullException.class, e -> Mono.just(validationService.overloaded(e)))
+                    .onErrorMap(e -> validationService.translateFailure(toRestClientFailure(e), keys))
+                    .doFinally(signal -> validationService.recordResponseTime(startTime));
+        });
+    }
+
+    private Mono<TurnstileResponse> send(SiteverifySettings current, String secret, String token, String remoteIp, String idempotencyKey) {
+        Map<String, String> requestBody = new HashMap<>();
+        requestBody.put("secret", secret);
+        requestBody.put("response", token);
+        if (remoteIp != null) {
+            requestBody.put("remoteip", remoteIp);
+        }
+        if (idempotencyKey != null) {
+            requestBody.put("idempotency_key", idempotencyKey);
+        }
+        // Deferred so that every retry attempt applies the read timeout current at the time it is sent
+        return Mono.defer(() -> turnstileWebClient.post().uri(current.getUri())
+                .contentType(MediaType.APPLICATION_JSON).bodyValue(requestBody).retrieve().bodyToMono(byte[].class)
+                .mapNotNull(JdkSiteverifyTransport::decodeBody)
+                .timeout(validationService.currentReadTimeout()));
+    }
+
+    /**
+     * Maps WebClient failures onto the RestClient exception types the blocking service classifies, so both paths report identical error types.
+     */
+    private static Throwable toRestClientFailure(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            if (responseException.getStatusCode().is4xxClientError()) {
+                return new HttpClientErrorException(responseException.getStatusCode(), responseException.getStatusText());
+            }
+            if (responseException.getStatusCode().is5xxServerError()) {
+                return new HttpServerErrorException(responseException.getStatusCode(), responseException.getStatusText());
+            }
+        }
+        if (e instanceof WebClientRequestException requestException) {
+            return requestException.getCause() instanceof IOException ioException
+                    ? new ResourceAccessException(requestException.getMessage(), ioException)
+                    : new ResourceAccessException(requestException.getMessage());
+        }
+        if (e instanceof TimeoutException) {
+            return new ResourceAccessException("Read timed out waiting for siteverify: " + e.getMessage(),
+                    new HttpTimeoutException(e.getMessage()));
+        }
+        return e;
+    }
+
+    /**
+     * Gets the Turnstile Sitekey.
+     *
+     * @return the Turnstile Sitekey
+     */
+    public String getTurnstileSitekey() {
+        return validationService.getTurnstileSitekey();
+    }
+
+    /**
+     * Gets the client IP address from a reactive request, honouring the same proxy headers as
+     * {@link com.digitalsanctuary.cf.turnstile.filter.ServletClientIpResolver} for servlet requests.
+     *
+     * @param request the ServerHttpRequest.
+     * @return the client IP address, or null if it cannot be determined.
+     */
+    public String getClientIpAddress(ServerHttpRequest request) {
+        String forwarded = TurnstileValidationService.resolveForwardedIp(request.getHeaders()::getFirst);
+        if (forwarded != null) {
+            return forwarded;
+        }
+        return remoteAddress(request);
+    }
+
+    /**
+     * Gets the client IP address from a reactive request, believing the {@code X-Forwarded-For} header only when the request comes from a trusted
+     * proxy. Unlike {@link #getClientIpAddress(ServerHttpRequest)}, the result cannot be chosen by the client, so it is safe to key rate limits and
+     * blocks on.
+     *
+     * @param request the ServerHttpRequest.
+     * @param trustedProxies the proxies whose forwarding header is believed.
+     * @return the client IP address, or null if it cannot be determined.
+     */
+    public String getClientIpAddress(ServerHttpRequest request, TrustedProxies trustedProxies) {
+        String remoteAddress = remoteAddress(request);
+        return remoteAddress != null ? trustedProxies.resolveClientIp(remoteAddress, request.getHeaders()::getFirst) : null;
+    }
+
+    private static String remoteAddress(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return null;
+        }
+        return remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress() : remoteAddress.getHostString();
+    }
+}
@@ -0,0 +1,14 @@
+package com.digitalsanctuary.cf.turnstile.service;
+
+import com.digitalsanctuary.cf.turnstile.cache.TokenFingerprint;
+
+/**
+ * The fingerprints one validation is tracked under.
+ *
+ * @param tokenAndIp fingerprint of token and remote IP; keys in-flight coalescing and the success cache. Null when neither is enabled.
+ * @param token fingerprint of the token alone; keys the replay set, since replays typically arrive from other addresses. Null when the replay set
+ *        is disabled.
+ * @param remoteIp the cleaned remote IP the penalty box counts failures against, or null
+ */
+record TokenKeys(TokenFingerprint tokenAndIp, TokenFingerprint token, String remoteIp) {
+}
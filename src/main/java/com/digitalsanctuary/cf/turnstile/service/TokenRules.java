@@ -0,0 +1,125 @@
+package com.digitalsanctuary.cf.turnstile.service;
+
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.InputErrorReason;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The local checks a token must pass before any network call is made: it must be present, not blank, not too short and no longer than the maximum
+ * length, and, with pre-validation enabled, made of allowed characters only and start with an allowed prefix.
+ * <p>
+ * The pre-validation rules are resolved once from {@link TurnstileConfigProperties.PreValidation} into a lookup table, so checking a token scans it
+ * once without allocating. Rejections other than a too-short token, whose message reports the length, are shared, immutable results.
+ * </p>
+ */
+@Slf4j
+final class TokenRules {
+
+    private static final int MIN_TOKEN_LENGTH = 20;
+    private static final ValidationResult NULL_TOKEN = ValidationResult.inputError("Token cannot be null", InputErrorReason.MISSING);
+    private static final ValidationResult BLANK_TOKEN = ValidationResult.inputError("Token cannot be empty or blank", InputErrorReason.BLANK);
+    private static final ValidationResult LONG_TOKEN = ValidationResult.inputError("Token is too long to be valid", InputErrorReason.TOO_LONG);
+    private static final ValidationResult ILLEGAL_CHARACTER_TOKEN = ValidationResult.inputError("Token contains an illegal character",
+            InputErrorReason.ILLEGAL_CHARACTER);
+    private static final ValidationResult BAD_PREFIX_TOKEN = ValidationResult.inputError("Token does not start with an allowed prefix",
+            InputErrorReason.BAD_PREFIX);
+
+    private final boolean preValidation;
+    private final int maxLength;
+    private final boolean[] allowedCharacters;
+    private final String[] allowedPrefixes;
+
+    private TokenRules(boolean preValidation, int maxLength, boolean[] allowedCharacters, String[] allowedPrefixes) {
+        this.preValidation = preValidation;
+        this.maxLength = maxLength;
+        this.allowedCharacters = allowedCharacters;
+        this.allowedPrefixes = allowedPrefixes;
+    }
+
+    /**
+     * Resolves the rules from the pre-validation settings.
+     *
+     * @param preValidation the pre-validation settings
+     * @return the rules; only the length checks apply if pre-validation is disabled
+     */
+    static TokenRules from(TurnstileConfigProperties.PreValidation preValidation) {
+        int maxLength = preValidation.getMaxLength() > 0 ? preValidation.getMaxLength() : Integer.MAX_VALUE;
+        if (!preValidation.isEnabled()) {
+            return new TokenRules(false, maxLength, new boolean[0], new String[0]);
+        }
+        boolean[] allowed = new boolean[128];
+        for (char c : preValidation.getAllowedCharacters().toCharArray()) {
+            if (c < allowed.length) {
+                allowed[c] = true;
+            } else {
+                log.warn("Ignoring non-ASCII character U+{} in ds.cf.turnstile.pre-validation.allowed-characters", Integer.toHexString(c));
+            }
+        }
+        String[] prefixes = preValidation.getAllowedPrefixes().stream().filter(prefix -> prefix != null && !prefix.isEmpty()).toArray(String[]::new);
+        return new TokenRules(true, maxLength, allowed, prefixes);
+    }
+
+    /**
+     * Checks a token against the rules.
+     *
+     * @param token the response token, may be null
+     * @return the input error result to reject the token with, or null if it passed
+     */
+    ValidationResult check(String token) {
+        if (token == null) {
+            log.warn("Turnstile validation failed: token cannot be null");
+            return NULL_TOKEN;
+        }
+
+        if (token.length() > maxLength) {
+            log.warn("Turnstile validation failed: token is longer than the maximum of {} (length: {})", maxLength, token.length());
+            return LONG_TOKEN;
+        }
+
+        if (token.isEmpty() || token.isBlank()) {
+            log.warn("Turnstile validation failed: token cannot be empty or blank");
+            return BLANK_TOKEN;
+        }
+
+        if (token.length() < MIN_TOKEN_LENGTH) {
+            log.warn("Turnstile validation failed: token appears to be too short to be valid (length: {})", token.length());
+            return ValidationResult.inputError("Token is too short to be valid (length: " + token.length() + ")", InputErrorReason.TOO_SHORT);
+        }
+
+        if (preValidation) {
+            int illegal = firstIllegalCharacter(token);
+            if (illegal >= 0) {
+                log.warn("Turnstile validation failed: token contains an illegal character at index {}", illegal);
+                return ILLEGAL_CHARACTER_TOKEN;
+            }
+            if (!hasAllowedPrefix(token)) {
+                log.warn("Turnstile validation failed: token does not start with an allowed prefix");
+                return BAD_PREFIX_TOKEN;
+            }
+        }
+        return null;
+    }
+
+    private int firstIllegalCharacter(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c >= allowedCharacters.length || !allowedCharacters[c]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean hasAllowedPrefix(String token) {
+        if (allowedPrefixes.length == 0) {
+            return true;
+        }
+        for (String prefix : allowedPrefixes) {
+            if (token.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,11 +1,27 @@
 package com.digitalsanctuary.cf.turnstile.service;
 
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -13,17 +29,35 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
+import com.digitalsanctuary.cf.turnstile.cache.InFlightCoalescer;
+import com.digitalsanctuary.cf.turnstile.cache.ReplayFingerprintSet;
+import com.digitalsanctuary.cf.turnstile.cache.SuccessCache;
+import com.digitalsanctuary.cf.turnstile.cache.TokenFingerprint;
+import com.digitalsanctuary.cf.turnstile.config.SiteverifySettings;
+import com.digitalsanctuary.cf.turnstile.config.SiteverifySettingsHolder;
 import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.TokenRequest;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
 import com.digitalsanctuary.cf.turnstile.dto.TurnstileResponse;
 import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
 import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
 import com.digitalsanctuary.cf.turnstile.exception.TurnstileConfigurationException;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileException;
 import com.digitalsanctuary.cf.turnstile.exception.TurnstileNetworkException;
 import com.digitalsanctuary.cf.turnstile.exception.TurnstileValidationException;
+import com.digitalsanctuary.cf.turnstile.metrics.LatencyHistogram;
+import com.digitalsanctuary.cf.turnstile.metrics.SlidingWindowStats;
 import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.ratelimit.PenaltyBox;
+import com.digitalsanctuary.cf.turnstile.resilience.Bulkhead;
+import com.digitalsanctuary.cf.turnstile.resilience.BulkheadFullException;
+import com.digitalsanctuary.cf.turnstile.resilience.CallNotPermittedException;
+import com.digitalsanctuary.cf.turnstile.resilience.CircuitBreaker;
+import com.digitalsanctuary.cf.turnstile.resilience.FallbackPolicy;
+import com.digitalsanctuary.cf.turnstile.resilience.RetryPolicy;
+import com.digitalsanctuary.cf.turnstile.transport.AdaptiveTimeout;
+import com.digitalsanctuary.cf.turnstile.transport.JdkSiteverifyTransport;
 import jakarta.annotation.PostConstruct;
-import jakarta.servlet.ServletRequest;
-import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -37,24 +71,19 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class TurnstileValidationService {
     private static final String UNKNOWN = "unknown";
-    private static final int MIN_TOKEN_LENGTH = 20;
-
-    /**
-     * Cloudflare's published test sitekeys. Depending on the key these always pass (1x), always fail (2x), or force an interactive challenge (3x).
-     */
-    private static final Set<String> CLOUDFLARE_TEST_SITEKEYS = Set.of("1x00000000000000000000AA",
-            "2x00000000000000000000AB", "1x00000000000000000000BB", "2x00000000000000000000BB",
-            "3x00000000000000000000FF");
-
-    /**
-     * Cloudflare's published test secrets. Depending on the secret these always pass (1x), always fail (2x), or report a spent token (3x).
-     */
-    private static final Set<String> CLOUDFLARE_TEST_SECRETS = Set.of("1x0000000000000000000000000000000AA",
-            "2x0000000000000000000000000000000AA", "3x0000000000000000000000000000000AA");
+    private static final ValidationResult CIRCUIT_OPEN_FAIL_OPEN = ValidationResult.failOpen("Turnstile circuit breaker is open");
+    private static final ValidationResult CIRCUIT_OPEN_FAIL_CLOSED = ValidationResult.networkError("Turnstile circuit breaker is open");
+    private static final ValidationResult EMPTY_RESPONSE = ValidationResult.networkError("Cloudflare returned an empty response");
+    private static final String[] CLIENT_IP_HEADERS = {"X-Forwarded-For", "Proxy-Client-IP", "WL-Proxy-Client-IP", "HTTP_CLIENT_IP",
+            "HTTP_X_FORWARDED_FOR"};
 
     private final RestClient turnstileRestClient;
+    private final HttpClient httpClient;
     private final TurnstileConfigProperties properties;
     private final TurnstileMetrics metrics;
+    private final ReentrantLock transportLock = new ReentrantLock();
+    private volatile JdkSiteverifyTransport jdkTransport;
+    private final SiteverifySettingsHolder settings;
 
     // Internal counters (always active, independent of Micrometer)
     private final LongAdder validationCount = new LongAdder();
@@ -64,9 +93,24 @@ public class TurnstileValidationService {
     private final LongAdder configErrorCount = new LongAdder();
     private final LongAdder validationErrorCount = new LongAdder();
     private final LongAdder inputErrorCount = new LongAdder();
+    private final LongAdder overloadedCount = new LongAdder();
+    private final LongAdder blockedCount = new LongAdder();
     private final AtomicLong lastResponseTime = new AtomicLong();
     private final AtomicLong totalResponseTime = new AtomicLong();
     private final AtomicLong responseCount = new AtomicLong();
+    private final LatencyHistogram responseTimes = new LatencyHistogram();
+    private final SlidingWindowStats recentStats;
+    private final LongAdder coalescedCount = new LongAdder();
+    private final AtomicBoolean firstResponseRecorded = new AtomicBoolean();
+    private final InFlightCoalescer<TokenFingerprint, TurnstileResponse> inFlight = new InFlightCoalescer<>(this::recordCoalesced);
+    private final SuccessCache successCache;
+    private final ReplayFingerprintSet replaySet;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryPolicy retryPolicy;
+    private final Bulkhead bulkhead;
+    private final AdaptiveTimeout adaptiveTimeout;
+    private final TokenRules tokenRules;
+    private final PenaltyBox penaltyBox;
 
     /**
      * Constructor for TurnstileValidationService.
@@ -77,9 +121,122 @@ public class TurnstileValidationService {
      */
     public TurnstileValidationService(@Qualifier("turnstileRestClient") RestClient turnstileRestClient,
             TurnstileConfigProperties properties, TurnstileMetrics metrics) {
+        this(turnstileRestClient, null, properties, metrics);
+    }
+
+    /**
+     * Constructor for TurnstileValidationService.
+     *
+     * @param turnstileRestClient the RestClient to use for blocking requests to the Turnstile API
+     * @param httpClient the JDK HttpClient to use for non-blocking requests; if null, one is created on first use of {@link #validateAsync}
+     * @param properties the TurnstileConfigProperties to use for configuration
+     * @param metrics the TurnstileMetrics implementation for recording metrics
+     */
+    public TurnstileValidationService(RestClient turnstileRestClient, HttpClient httpClient, TurnstileConfigProperties properties,
+            TurnstileMetrics metrics) {
         this.turnstileRestClient = turnstileRestClient;
+        this.httpClient = httpClient;
         this.properties = properties;
         this.metrics = metrics;
+        this.settings = new SiteverifySettingsHolder(properties, metrics);
+        this.successCache = createSuccessCache(properties.getCache(), metrics);
+        this.replaySet = createReplaySet(properties.getReplay(), metrics);
+        this.circuitBreaker = createCircuitBreaker(properties.getCircuitBreaker(), metrics);
+        this.retryPolicy = createRetryPolicy(properties.getRetry(), metrics);
+        this.bulkhead = createBulkhead(properties.getBulkhead(), metrics);
+        this.adaptiveTimeout = createAdaptiveTimeout(properties);
+        this.tokenRules = TokenRules.from(properties.getPreValidation());
+        this.penaltyBox = createPenaltyBox(properties.getPenaltyBox(), metrics);
+        TurnstileConfigProperties.Metrics metricsConfig = properties.getMetrics();
+        this.recentStats = new SlidingWindowStats(metricsConfig.getWindow(), metricsConfig.getWindowBuckets(), metricsConfig.getSlowCallDuration());
+        metrics.registerGauge("turnstile.timeout.effective", "Read timeout applied to the next Turnstile siteverify request, in milliseconds",
+                () -> currentReadTimeout().toMillis());
+    }
+
+    private static SuccessCache createSuccessCache(TurnstileConfigProperties.Cache cache, TurnstileMetrics metrics) {
+        if (!cache.isEnabled()) {
+            return null;
+        }
+        SuccessCache successCache = new SuccessCache(cache.getMaxSize(), cache.getTtl(), cause -> metrics.recordCacheEviction(cause.tagValue()));
+        metrics.registerGauge("turnstile.cache.size", "Number of verdicts in the Turnstile success cache", successCache::size);
+        return successCache;
+    }
+
+    private static CircuitBreaker createCircuitBreaker(TurnstileConfigProperties.CircuitBreaker config, TurnstileMetrics metrics) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        CircuitBreaker.Settings settings = new CircuitBreaker.Settings(config.getWindowSize(), config.getMinimumCalls(),
+                config.getFailureRateThreshold(), config.getSlowCallDuration(), config.getSlowCallRateThreshold(), config.getOpenDuration(),
+                config.getHalfOpenCalls());
+        CircuitBreaker circuitBreaker = new CircuitBreaker(settings,
+                (from, to) -> metrics.recordCircuitStateChange(to.name().toLowerCase(Locale.ROOT)));
+        metrics.registerGauge("turnstile.circuit.state", "Turnstile circuit breaker state: 0 closed, 1 open, 2 half-open",
+                () -> circuitBreaker.getState().code());
+        return circuitBreaker;
+    }
+
+    private static RetryPolicy createRetryPolicy(TurnstileConfigProperties.Retry retry, TurnstileMetrics metrics) {
+        if (!retry.isEnabled()) {
+            return null;
+        }
+        return new RetryPolicy(new RetryPolicy.Settings(retry.getMaxAttempts(), retry.getInitialBackoff(), retry.getMultiplier(),
+                retry.getMaxBackoff(), retry.getBudget()), metrics);
+    }
+
+    private static Bulkhead createBulkhead(TurnstileConfigProperties.Bulkhead config, TurnstileMetrics metrics) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        Bulkhead bulkhead = new Bulkhead(new Bulkhead.Settings(config.getMaxConcurrent(), config.getMaxQueue(), config.getMaxWait()),
+                metrics::recordBulkheadWait);
+        metrics.registerGauge("turnstile.bulkhead.in.flight", "Number of Turnstile siteverify calls holding a bulkhead slot", bulkhead::inFlight);
+        metrics.registerGauge("turnstile.bulkhead.queue.depth", "Number of Turnstile validations waiting for a bulkhead slot", bulkhead::queueDepth);
+        metrics.registerGauge("turnstile.bulkhead.queue.oldest.wait", "How long the oldest queued Turnstile validation has waited, in milliseconds",
+                bulkhead::oldestWaitMillis);
+        return bulkhead;
+    }
+
+    private static AdaptiveTimeout createAdaptiveTimeout(TurnstileConfigProperties properties) {
+        TurnstileConfigProperties.AdaptiveTimeout config = properties.getAdaptiveTimeout();
+        if (!config.isEnabled()) {
+            return null;
+        }
+        Duration ceiling = config.getCeiling() != null ? config.getCeiling() : properties.resolveReadTimeout();
+        return new AdaptiveTimeout(config.getWindowSize(), config.getMinSamples(), config.getMultiplier(), config.getFloor(), ceiling);
+    }
+
+    private static PenaltyBox createPenaltyBox(TurnstileConfigProperties.PenaltyBox config, TurnstileMetrics metrics) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        PenaltyBox.Settings settings = new PenaltyBox.Settings(config.getThreshold(), config.getWindow(), config.getBaseBlock(),
+                config.getMultiplier(), config.getMaxBlock(), config.getMaxClients(), config.getStripes());
+        PenaltyBox penaltyBox = new PenaltyBox(settings, new PenaltyBox.Listener() {
+            @Override
+            public void blocked(Duration duration) {
+                metrics.recordPenaltyBlock();
+            }
+
+            @Override
+            public void evicted(String cause) {
+                metrics.recordPenaltyEviction(cause);
+            }
+        });
+        metrics.registerGauge("turnstile.penalty.size", "Number of client IPs tracked by the Turnstile penalty box", penaltyBox::size);
+        return penaltyBox;
+    }
+
+    private static ReplayFingerprintSet createReplaySet(TurnstileConfigProperties.Replay replay, TurnstileMetrics metrics) {
+        if (!replay.isEnabled()) {
+            return null;
+        }
+        ReplayFingerprintSet replaySet = new ReplayFingerprintSet(replay.getMaxEntries(), replay.getTtl());
+        log.info("Turnstile replay set enabled: {} entries, {} KiB", replaySet.capacity(), replaySet.memoryBytes() / 1024);
+        metrics.registerGauge("turnstile.replay.occupancy", "Fraction of the Turnstile replay set capacity in use", replaySet::occupancy);
+        metrics.registerGauge("turnstile.replay.hit.rate", "Fraction of Turnstile replay set lookups that found a consumed token",
+                replaySet::hitRate);
+        return replaySet;
     }
 
     /**
@@ -100,6 +257,34 @@ public class TurnstileValidationService {
         log.info("Turnstile Health Check enabled: {}", properties.getMetrics().isHealthCheckEnabled());
     }
 
+    /**
+     * Gets the settings snapshot validations are currently sent with.
+     *
+     * @return the current site key, secret key and URL
+     */
+    public SiteverifySettings getSettings() {
+        return settings.get();
+    }
+
+    /**
+     * Re-reads the site key, secret key and URL from the configuration properties, as {@link SiteverifySettingsHolder#reload()} describes.
+     *
+     * @return true if the settings changed
+     */
+    public boolean reloadSettings() {
+        return settings.reload();
+    }
+
+    /**
+     * Swaps in new settings for subsequent validations, as {@link SiteverifySettingsHolder#apply(SiteverifySettings)} describes.
+     *
+     * @param next the new settings
+     * @return true if the settings changed, false if they were rejected or equal to the current ones
+     */
+    public boolean applySettings(SiteverifySettings next) {
+        return settings.apply(next);
+    }
+
     /**
      * Returns true when the configured sitekey or secret is one of Cloudflare's published test
      * credentials (see https://developers.cloudflare.com/turnstile/troubleshooting/testing/).
@@ -109,7 +294,7 @@ public class TurnstileValidationService {
      * @return true if the configured credentials are Cloudflare test credentials
      */
     public boolean isUsingTestCredentials() {
-        return isTestCredentials(properties.getSitekey(), properties.getSecret());
+        return settings.get().usesTestCredentials();
     }
 
     /**
@@ -123,8 +308,7 @@ public class TurnstileValidationService {
      * @return true if either value is a Cloudflare test credential
      */
     public static boolean isTestCredentials(String sitekey, String secret) {
-        return (sitekey != null && CLOUDFLARE_TEST_SITEKEYS.contains(sitekey))
-                || (secret != null && CLOUDFLARE_TEST_SECRETS.contains(secret));
+        return SiteverifySettings.isTestCredentials(sitekey, secret);
     }
 
     /**
@@ -154,6 +338,24 @@ public class TurnstileValidationService {
         }
     }
 
+    /**
+     * Validates the Turnstile response token with an explicit circuit breaker fallback. Returns boolean and handles exceptions internally.
+     *
+     * @param token the response token to be validated.
+     * @param remoteIp the remote IP address of the client (optional).
+     * @param fallback what to return while the circuit breaker is open
+     * @return true if the response is valid and successful, or skipped under {@link FallbackPolicy#FAIL_OPEN}; false otherwise.
+     */
+    public boolean validateTurnstileResponse(String token, String remoteIp, FallbackPolicy fallback) {
+        try {
+            ValidationResult result = validateTurnstileResponseDetailed(token, remoteIp, fallback);
+            return result.isSuccess();
+        } catch (Exception e) {
+            log.error("Unexpected error during Turnstile validation: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
     /**
      * Validates the Turnstile response token. Convenience method without remote IP.
      *
@@ -178,117 +380,721 @@ public class TurnstileValidationService {
      * @throws TurnstileValidationException if the token is rejected by Cloudflare
      */
     public ValidationResult validateTurnstileResponseDetailed(String token, String remoteIp) {
+        return validateTurnstileResponseDetailed(token, remoteIp, properties.getCircuitBreaker().getFallback());
+    }
+
+    /**
+     * Validates the Turnstile response token with detailed results, typed exceptions and an explicit circuit breaker fallback.
+     * <p>
+     * While the circuit breaker is open, the call returns immediately: {@link FallbackPolicy#FAIL_CLOSED} yields a
+     * {@link ValidationResultType#NETWORK_ERROR} result, {@link FallbackPolicy#FAIL_OPEN} a successful result whose message says the token was not
+     * verified. The policy has no effect when the circuit breaker is disabled.
+     * </p>
+     * <p>
+     * With {@code ds.cf.turnstile.penalty-box.enabled=true}, every token Cloudflare rejects as invalid or already used counts against {@code remoteIp},
+     * and a client the penalty box has blocked gets a {@link ValidationResultType#BLOCKED} result without a call to Cloudflare.
+     * </p>
+     *
+     * @param token the response token to be validated.
+     * @param remoteIp the remote IP address of the client (optional).
+     * @param fallback what to return while the circuit breaker is open
+     * @return a ValidationResult object with detailed information about the validation outcome.
+     * @throws TurnstileConfigurationException if the service is not properly configured
+     * @throws TurnstileNetworkException if a network error occurs during validation
+     * @throws TurnstileValidationException if the token is rejected by Cloudflare
+     */
+    public ValidationResult validateTurnstileResponseDetailed(String token, String remoteIp, FallbackPolicy fallback) {
+        long startTime = System.nanoTime();
+        recordAttempt();
+
+        log.trace("Starting validation for token: {} with remoteIp: {}", token, remoteIp);
+
+        ValidationResult inputError = checkToken(token);
+        if (inputError != null) {
+            return inputError;
+        }
+        String cleanRemoteIp = cleanRemoteIp(remoteIp);
+        ValidationResult blocked = checkClient(cleanRemoteIp);
+        if (blocked != null) {
+            return blocked;
+        }
+        SiteverifySettings current = checkConfiguration();
+
+        TokenKeys keys = keys(token, cleanRemoteIp);
+        ValidationResult localResult = answerLocally(keys);
+        if (localResult != null) {
+            return localResult;
+        }
+        if (isCircuitOpen()) {
+            return circuitOpen(fallback);
+        }
+
+        String idempotencyKey = newIdempotencyKey();
+
+        log.trace("Making request to Cloudflare Turnstile API at: {}", current.getUrl());
+
+        try {
+            return rememberSuccess(keys,
+                    interpretResponse(fetch(keys, () -> executeValidationRequest(current, token, cleanRemoteIp, idempotencyKey))));
+        } catch (CallNotPermittedException e) {
+            return circuitOpen(fallback);
+        } catch (BulkheadFullException e) {
+            return overloaded(e);
+        } catch (RuntimeException e) {
+            throw translateFailure(e, keys);
+        } finally {
+            recordResponseTime(startTime);
+        }
+    }
+
+    /**
+     * Validates the Turnstile response token without blocking the calling thread. Convenience method without remote IP.
+     *
+     * @param token the response token to be validated.
+     * @return a future completed with the ValidationResult, or completed exceptionally as described in {@link #validateAsync(String, String)}
+     */
+    public CompletableFuture<ValidationResult> validateAsync(String token) {
+        return validateAsync(token, null);
+    }
+
+    /**
+     * Validates the Turnstile response token without blocking the calling thread.
+     * <p>
+     * The request is sent with {@link java.net.http.HttpClient#sendAsync}, so no thread is held while waiting for Cloudflare. Counters, metrics and
+     * error classification are identical to {@link #validateTurnstileResponseDetailed(String, String)}: input errors complete normally with an
+     * {@link ValidationResultType#INPUT_ERROR} result, while configuration, network and token rejections complete the future exceptionally with the
+     * same {@link TurnstileConfigurationException}, {@link TurnstileNetworkException} and {@link TurnstileValidationException} the blocking method
+     * throws. {@link CompletableFuture#join()} wraps these in a {@link java.util.concurrent.CompletionException}.
+     * </p>
+     *
+     * @param token the response token to be validated.
+     * @param remoteIp the remote IP address of the client (optional).
+     * @return a future completed with the ValidationResult
+     */
+    public CompletableFuture<ValidationResult> validateAsync(String token, String remoteIp) {
+        return validateAsync(token, remoteIp, properties.getCircuitBreaker().getFallback());
+    }
+
+    /**
+     * Validates the Turnstile response token without blocking the calling thread, with an explicit circuit breaker fallback.
+     *
+     * @param token the response token to be validated.
+     * @param remoteIp the remote IP address of the client (optional).
+     * @param fallback what to return while the circuit breaker is open, as described in
+     *        {@link #validateTurnstileResponseDetailed(String, String, FallbackPolicy)}
+     * @return a future completed with the ValidationResult, or completed exceptionally as described in {@link #validateAsync(String, String)}
+     */
+    public CompletableFuture<ValidationResult> validateAsync(String token, String remoteIp, FallbackPolicy fallback) {
+        long startTime = System.nanoTime();
+        recordAttempt();
+
+        log.trace("Starting async validation for token: {} with remoteIp: {}", token, remoteIp);
+
+        ValidationResult inputError = checkToken(token);
+        if (inputError != null) {
+            return CompletableFuture.completedFuture(inputError);
+        }
+        String cleanRemoteIp = cleanRemoteIp(remoteIp);
+        ValidationResult blocked = checkClient(cleanRemoteIp);
+        if (blocked != null) {
+            return CompletableFuture.completedFuture(blocked);
+        }
+
+        SiteverifySettings current;
+        TokenKeys keys;
+        try {
+            current = checkConfiguration();
+            keys = keys(token, cleanRemoteIp);
+            ValidationResult localResult = answerLocally(keys);
+            if (localResult != null) {
+                return CompletableFuture.completedFuture(localResult);
+            }
+        } catch (TurnstileException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (isCircuitOpen()) {
+            return CompletableFuture.completedFuture(circuitOpen(fallback));
+        }
+
+        CompletableFuture<TurnstileResponse> call;
+        try {
+            String idempotencyKey = newIdempotencyKey();
+            call = fetchAsync(keys, () -> sendAsync(current, token, cleanRemoteIp, idempotencyKey));
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        return call.handle((response, failure) -> {
+            try {
+                if (failure != null) {
+                    Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                    if (cause instanceof CallNotPermittedException) {
+                        return circuitOpen(fallback);
+                    }
+                    if (cause instanceof BulkheadFullException bulkheadFull) {
+                        return overloaded(bulkheadFull);
+                    }
+                    throw translateFailure(cause, keys);
+                }
+                try {
+                    return rememberSuccess(keys, interpretResponse(response));
+                } catch (RuntimeException e) {
+                    throw translateFailure(e, keys);
+                }
+            } finally {
+                recordResponseTime(startTime);
+            }
+        });
+    }
+
+    /**
+     * Validates a batch of tokens, blocking until all of them have been checked.
+     * <p>
+     * The validations run on the non-blocking path of {@link #validateAsync(String, String)}, with up to {@code ds.cf.turnstile.batch.parallelism}
+     * of them in flight at once, so a batch costs about one siteverify round trip per {@code parallelism} tokens rather than one per token. Each
+     * validation keeps its own read timeout, circuit breaker, bulkhead and retry handling. Failures do not abort the batch: a token Cloudflare
+     * rejects yields an {@link ValidationResultType#INVALID_TOKEN} result, a network failure a {@link ValidationResultType#NETWORK_ERROR} result
+     * and a configuration problem a {@link ValidationResultType#CONFIGURATION_ERROR} result, each counted exactly as a single validation would be.
+     * </p>
+     *
+     * @param requests the tokens to validate, with their remote IPs
+     * @return the results, in the order of {@code requests}
+     */
+    public List<ValidationResult> validateAll(Collection<TokenRequest> requests) {
+        try {
+            return validateAllAsync(requests).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+        }
+    }
+
+    /**
+     * Validates a batch of tokens without blocking the calling thread, as described in {@link #validateAll(Collection)}.
+     *
+     * @param requests the tokens to validate, with their remote IPs
+     * @return a future completed with the results, in the order of {@code requests}, once every validation has completed
+     */
+    public CompletableFuture<List<ValidationResult>> validateAllAsync(Collection<TokenRequest> requests) {
+        return runBatch(requests, null);
+    }
+
+    /**
+     * Validates a batch of tokens without blocking the calling thread, handing each result to {@code callback} as soon as it is available.
+     * <p>
+     * Results arrive in completion order, not request order, each with its index in {@code requests}. The callback may be invoked concurrently
+     * from several threads, including the calling thread for tokens that are rejected locally. An exception thrown by the callback is logged, does
+     * not stop the batch, and completes the returned future exceptionally once the batch is done.
+     * </p>
+     *
+     * @param requests the tokens to validate, with their remote IPs
+     * @param callback receives each result and the index of its request
+     * @return a future completed once every validation has completed and its result has been handed to the callback
+     */
+    public CompletableFuture<Void> validateAll(Collection<TokenRequest> requests, ObjIntConsumer<ValidationResult> callback) {
+        return runBatch(requests, callback).thenApply(results -> null);
+    }
+
+    private CompletableFuture<List<ValidationResult>> runBatch(Collection<TokenRequest> requests, ObjIntConsumer<ValidationResult> callback) {
+        TokenRequest[] batch = requests.toArray(new TokenRequest[0]);
         long startTime = System.currentTimeMillis();
+        return new ValidationBatch(batch, this::validateAsync, callback).start(properties.getBatch().getParallelism())
+                .whenComplete((results, failure) -> metrics.recordBatch(batch.length, System.currentTimeMillis() - startTime));
+    }
+
+    /**
+     * Counts a validation attempt. Called once per validation, before any check is made.
+     */
+    void recordAttempt() {
         validationCount.increment();
         metrics.recordValidation();
+    }
 
-        log.trace("Starting validation for token: {} with remoteIp: {}", token, remoteIp);
+    /**
+     * Checks the token locally before any network call is made.
+     *
+     * @param token the response token
+     * @return an input error result (already recorded), or null if the token passed the local checks
+     */
+    ValidationResult checkToken(String token) {
+        ValidationResult rejection = tokenRules.check(token);
+        return rejection == null ? null : rejectInput(rejection);
+    }
 
-        if (token == null) {
-            log.warn("Turnstile validation failed: token cannot be null");
-            recordError(ValidationResultType.INPUT_ERROR);
-            return ValidationResult.inputError("Token cannot be null");
-        }
+    private ValidationResult rejectInput(ValidationResult result) {
+        recordError(ValidationResultType.INPUT_ERROR);
+        metrics.recordInputRejected(result.getInputErrorReason().tagValue());
+        return result;
+    }
 
-        if (token.isEmpty() || token.isBlank()) {
-            log.warn("Turnstile validation failed: token cannot be empty or blank");
-            recordError(ValidationResultType.INPUT_ERROR);
-            return ValidationResult.inputError("Token cannot be empty or blank");
+    /**
+     * Rejects a validation without any further work when the penalty box has blocked the client.
+     *
+     * @param cleanRemoteIp the remote IP, or null
+     * @return the {@link ValidationResultType#BLOCKED} result, or null if the client is not blocked or the penalty box is disabled
+     */
+    ValidationResult checkClient(String cleanRemoteIp) {
+        if (penaltyBox == null || cleanRemoteIp == null || !penaltyBox.isBlocked(cleanRemoteIp)) {
+            return null;
         }
+        log.debug("Turnstile validation rejected: client {} is in the penalty box", cleanRemoteIp);
+        blockedCount.increment();
+        recentStats.record(ValidationResultType.BLOCKED);
+        metrics.recordPenaltyRejected();
+        return ValidationResult.blocked();
+    }
 
-        if (token.length() < MIN_TOKEN_LENGTH) {
-            log.warn("Turnstile validation failed: token appears to be too short to be valid (length: {})", token.length());
-            recordError(ValidationResultType.INPUT_ERROR);
-            return ValidationResult.inputError("Token is too short to be valid (length: " + token.length() + ")");
+    private void penalize(String cleanRemoteIp) {
+        if (penaltyBox != null && cleanRemoteIp != null && penaltyBox.recordFailure(cleanRemoteIp)) {
+            log.warn("Turnstile penalty box blocked client {} for {}", cleanRemoteIp, penaltyBox.remainingBlock(cleanRemoteIp));
         }
+    }
 
-        String cleanRemoteIp = remoteIp;
-        if (cleanRemoteIp != null && (cleanRemoteIp.isEmpty() || cleanRemoteIp.isBlank())) {
+    /**
+     * Checks whether Cloudflare rejected the token itself, as invalid, expired or already used, rather than the secret, the request or its own
+     * processing. Only such rejections are the client's fault.
+     *
+     * @param errorCodes the error codes of the rejection, may be null
+     * @return true if the codes include {@code invalid-input-response} or {@code timeout-or-duplicate}
+     */
+    static boolean rejectsToken(List<String> errorCodes) {
+        return errorCodes != null && (errorCodes.contains(TurnstileErrorCode.INVALID_INPUT_RESPONSE.getCode())
+                || errorCodes.contains(TurnstileErrorCode.TIMEOUT_OR_DUPLICATE.getCode()));
+    }
+
+    static String cleanRemoteIp(String remoteIp) {
+        if (remoteIp != null && (remoteIp.isEmpty() || remoteIp.isBlank())) {
             log.warn("Turnstile validation: ignoring empty or blank remoteIp");
-            cleanRemoteIp = null;
+            return null;
         }
+        return remoteIp;
+    }
 
-        if (properties.getSecret() == null || properties.getSecret().isBlank()) {
-            String msg = "Turnstile secret key is not configured";
-            log.error(msg);
+    /**
+     * Returns the current settings snapshot, failing the validation if it is unusable. The blank and URL checks ran when the snapshot was created.
+     *
+     * @return the settings the validation is sent with
+     * @throws TurnstileConfigurationException if the secret or URL is missing or invalid
+     */
+    SiteverifySettings checkConfiguration() {
+        SiteverifySettings current = settings.get();
+        if (current.getProblem() != null) {
+            log.error(current.getProblem());
             recordError(ValidationResultType.CONFIGURATION_ERROR);
-            throw new TurnstileConfigurationException(msg);
+            throw new TurnstileConfigurationException(current.getProblem());
         }
+        return current;
+    }
 
-        if (properties.getUrl() == null || properties.getUrl().isBlank()) {
-            String msg = "Turnstile URL is not configured";
-            log.error(msg);
-            recordError(ValidationResultType.CONFIGURATION_ERROR);
-            throw new TurnstileConfigurationException(msg);
+    /**
+     * Gets the holder of the settings snapshot, for the reactive service to share the secret rotation handling.
+     *
+     * @return the settings holder
+     */
+    SiteverifySettingsHolder settingsHolder() {
+        return settings;
+    }
+
+    /**
+     * Computes the fingerprints needed by the enabled local features; fingerprints no feature needs are left null.
+     *
+     * @param token the response token
+     * @param cleanRemoteIp the remote IP, or null
+     * @return the validation's fingerprints
+     */
+    TokenKeys keys(String token, String cleanRemoteIp) {
+        TokenFingerprint tokenAndIp = properties.getCoalescing().isEnabled() || successCache != null ? TokenFingerprint.of(token, cleanRemoteIp) : null;
+        TokenFingerprint tokenOnly = replaySet != null ? TokenFingerprint.of(token, null) : null;
+        return new TokenKeys(tokenAndIp, tokenOnly, cleanRemoteIp);
+    }
+
+    /**
+     * Answers a validation without calling siteverify when local state already decides it: a success cache hit is recorded and returned as a
+     * success, and a token in the replay set is recorded and rejected as {@code timeout-or-duplicate}, as Cloudflare would.
+     *
+     * @param keys the validation's fingerprints
+     * @return a success result on a cache hit, or null if the validation must go to Cloudflare
+     * @throws TurnstileValidationException if the token has already been sent to Cloudflare
+     */
+    ValidationResult answerLocally(TokenKeys keys) {
+        if (successCache != null) {
+            if (successCache.contains(keys.tokenAndIp())) {
+                log.debug("Turnstile validation answered from success cache");
+                metrics.recordCacheHit();
+                recordSuccess();
+                return ValidationResult.success();
+            }
+            metrics.recordCacheMiss();
+        }
+        if (replaySet != null && replaySet.contains(keys.token())) {
+            log.debug("Turnstile token rejected locally: already consumed");
+            metrics.recordReplayRejected();
+            throw translateFailure(
+                    new TurnstileValidationException("Token has already been consumed", TurnstileErrorCode.TIMEOUT_OR_DUPLICATE.asList(), false), keys);
         }
+        return null;
+    }
 
-        Map<String, String> requestBody = new HashMap<>();
-        requestBody.put("secret", properties.getSecret());
-        requestBody.put("response", token);
-        Optional.ofNullable(cleanRemoteIp).ifPresent(ip -> requestBody.put("remoteip", ip));
+    /**
+     * Adds a successful verdict to the success cache, if enabled.
+     *
+     * @param keys the validation's fingerprints
+     * @param result the validation result
+     * @return the validation result, unchanged
+     */
+    ValidationResult rememberSuccess(TokenKeys keys, ValidationResult result) {
+        if (successCache != null && result.isSuccess()) {
+            successCache.put(keys.tokenAndIp());
+        }
+        return result;
+    }
 
-        log.trace("Making request to Cloudflare Turnstile API at: {}", properties.getUrl());
+    /**
+     * Runs a blocking siteverify call, sharing it with any concurrent caller presenting the same token from the same remote IP when in-flight
+     * coalescing is enabled. A token Cloudflare accepted or rejected as invalid or already used is added to the replay set.
+     *
+     * @param keys the validation's fingerprints
+     * @param call performs the siteverify request
+     * @return the siteverify response, possibly obtained by another caller
+     */
+    TurnstileResponse fetch(TokenKeys keys, Supplier<TurnstileResponse> call) {
+        Supplier<TurnstileResponse> attempt = bulkheaded(instrumented(call));
+        Supplier<TurnstileResponse> consumingCall = () -> markConsumed(keys, retryPolicy != null ? retryPolicy.execute(attempt) : attempt.get());
+        if (!properties.getCoalescing().isEnabled()) {
+            return consumingCall.get();
+        }
+        return inFlight.execute(keys.tokenAndIp(), consumingCall);
+    }
 
-        try {
-            return executeValidationRequest(requestBody);
-        } catch (HttpClientErrorException e) {
-            log.error("Client error during Turnstile validation: {}", e.getMessage(), e);
-            recordError(ValidationResultType.NETWORK_ERROR);
-            throw new TurnstileNetworkException("Client error: " + e.getMessage(), e);
-        } catch (HttpServerErrorException e) {
-            log.error("Server error during Turnstile validation: {}", e.getMessage(), e);
-            recordError(ValidationResultType.NETWORK_ERROR);
-            throw new TurnstileNetworkException("Server error: " + e.getMessage(), e);
-        } catch (ResourceAccessException e) {
-            log.error("Network error during Turnstile validation: {}", e.getMessage(), e);
-            recordError(ValidationResultType.NETWORK_ERROR);
-            throw new TurnstileNetworkException("Network error: " + e.getMessage(), e);
-        } catch (TurnstileValidationException e) {
-            log.debug("Turnstile token rejected by Cloudflare: {}", e.getMessage());
-            recordError(ValidationResultType.INVALID_TOKEN);
-            throw e;
-        } catch (Exception e) {
-            log.error("Unexpected {} during Turnstile validation: {}", e.getClass().getSimpleName(), e.getMessage(), e);
-            recordError(ValidationResultType.NETWORK_ERROR);
-            throw new TurnstileNetworkException("Unexpected error: " + e.getMessage(), e);
-        } finally {
-            long elapsed = System.currentTimeMillis() - startTime;
-            lastResponseTime.set(elapsed);
-            totalResponseTime.addAndGet(elapsed);
-            responseCount.incrementAndGet();
+    /**
+     * Asynchronous counterpart of {@link #fetch(TokenKeys, Supplier)}.
+     *
+     * @param keys the validation's fingerprints
+     * @param call starts the siteverify request
+     * @return a future completed with the siteverify response, possibly obtained by another caller
+     */
+    CompletableFuture<TurnstileResponse> fetchAsync(TokenKeys keys, Supplier<? extends CompletionStage<TurnstileResponse>> call) {
+        Supplier<? extends CompletionStage<TurnstileResponse>> attempt = bulkheadedAsync(instrumentedAsync(call));
+        Supplier<CompletionStage<TurnstileResponse>> consumingCall = () -> (retryPolicy != null ? retryPolicy.executeAsync(attempt)
+                : attempt.get()).thenApply(response -> markConsumed(keys, response));
+        if (!properties.getCoalescing().isEnabled()) {
+            return consumingCall.get().toCompletableFuture();
+        }
+        return inFlight.executeAsync(keys.tokenAndIp(), consumingCall);
+    }
+
+    /**
+     * Creates the {@code idempotency_key} sent with every attempt of one validation, so that a retried request is not rejected as a duplicate.
+     *
+     * @return a random UUID, or null if retries are disabled
+     */
+    String newIdempotencyKey() {
+        return retryPolicy != null ? UUID.randomUUID().toString() : null;
+    }
+
+    /**
+     * Checks whether the circuit breaker is currently refusing siteverify calls.
+     *
+     * @return true if the circuit breaker is enabled and open
+     */
+    boolean isCircuitOpen() {
+        return circuitBreaker != null && circuitBreaker.isCallRefused();
+    }
+
+    /**
+     * Builds the result for a validation the bulkhead had no room for, and records it.
+     *
+     * @param e the bulkhead's refusal
+     * @return the {@link ValidationResultType#OVERLOADED} result
+     */
+    ValidationResult overloaded(BulkheadFullException e) {
+        log.warn("Turnstile validation refused by bulkhead: {}", e.getMessage());
+        metrics.recordBulkheadRejected(e.getRejection().tagValue());
+        recordError(ValidationResultType.OVERLOADED);
+        return ValidationResult.overloaded();
+    }
+
+    /**
+     * Builds the fallback result for a validation the circuit breaker did not let through, and records it.
+     *
+     * @param fallback the caller's fallback policy
+     * @return the fallback result
+     */
+    ValidationResult circuitOpen(FallbackPolicy fallback) {
+        metrics.recordCircuitRejected(fallback == FallbackPolicy.FAIL_OPEN);
+        if (fallback == FallbackPolicy.FAIL_OPEN) {
+            log.warn("Turnstile circuit breaker is open; accepting token without verification (fail-open)");
+            recordSuccess();
+            return CIRCUIT_OPEN_FAIL_OPEN;
+        }
+        log.warn("Turnstile circuit breaker is open; rejecting token without verification (fail-closed)");
+        recordError(ValidationResultType.NETWORK_ERROR);
+        return CIRCUIT_OPEN_FAIL_CLOSED;
+    }
+
+    /**
+     * Wraps a blocking siteverify call so that it asks the circuit breaker for permission and reports its outcome: a response counts as a success,
+     * an exception or an empty response as a failure, and either counts as slow if it exceeded the slow-call duration. The duration of a call that
+     * got a response or timed out is also fed to the adaptive timeout.
+     */
+    private Supplier<TurnstileResponse> instrumented(Supplier<TurnstileResponse> call) {
+        if (circuitBreaker == null && adaptiveTimeout == null) {
+            return call;
+        }
+        return () -> {
+            if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+                throw new CallNotPermittedException(circuitBreaker.getState());
+            }
+            long start = System.nanoTime();
+            TurnstileResponse response;
+            try {
+                response = call.get();
+            } catch (RuntimeException | Error e) {
+                reportOutcome(null, e, start);
+                throw e;
+            }
+            reportOutcome(response, null, start);
+            return response;
+        };
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #instrumented(Supplier)}.
+     */
+    private Supplier<? extends CompletionStage<TurnstileResponse>> instrumentedAsync(Supplier<? extends CompletionStage<TurnstileResponse>> call) {
+        if (circuitBreaker == null && adaptiveTimeout == null) {
+            return call;
+        }
+        return () -> {
+            if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+                throw new CallNotPermittedException(circuitBreaker.getState());
+            }
+            long start = System.nanoTime();
+            CompletionStage<TurnstileResponse> stage;
             try {
-                metrics.recordResponseTime(elapsed);
-            } catch (Exception metricsEx) {
-                log.warn("Failed to record response time metric; validation result is unaffected: {}", metricsEx.getMessage(), metricsEx);
+                stage = call.get();
+            } catch (RuntimeException | Error e) {
+                reportOutcome(null, e, start);
+                throw e;
             }
+            return stage.whenComplete((response, failure) -> reportOutcome(response, failure, start));
+        };
+    }
+
+    /**
+     * Makes each siteverify attempt wait for a bulkhead slot, if the bulkhead is enabled. The slot is taken outside the circuit breaker, so a
+     * refused attempt never consumes a half-open probe.
+     */
+    private Supplier<TurnstileResponse> bulkheaded(Supplier<TurnstileResponse> attempt) {
+        return bulkhead == null ? attempt : () -> bulkhead.execute(attempt);
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #bulkheaded(Supplier)}; waiting for a slot holds no thread.
+     */
+    private Supplier<? extends CompletionStage<TurnstileResponse>> bulkheadedAsync(Supplier<? extends CompletionStage<TurnstileResponse>> attempt) {
+        return bulkhead == null ? attempt : () -> bulkhead.executeAsync(attempt);
+    }
+
+    private void reportOutcome(TurnstileResponse response, Throwable failure, long start) {
+        long elapsed = System.nanoTime() - start;
+        boolean answered = failure == null && response != null;
+        if (adaptiveTimeout != null && (answered || isTimeout(failure))) {
+            adaptiveTimeout.record(elapsed);
+        }
+        if (circuitBreaker == null) {
+            return;
+        }
+        if (answered) {
+            circuitBreaker.onSuccess(elapsed);
+        } else {
+            circuitBreaker.onFailure(elapsed);
+        }
+    }
+
+    private static boolean isTimeout(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof HttpTimeoutException || t instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the read timeout to apply to the next siteverify request.
+     *
+     * @return the adaptive timeout if enabled, otherwise the configured read timeout
+     */
+    Duration currentReadTimeout() {
+        return adaptiveTimeout != null ? adaptiveTimeout.current() : properties.resolveReadTimeout();
+    }
+
+    /**
+     * Adds the token to the replay set, if enabled, once Cloudflare has given a verdict on the token itself: accepted, invalid or already used.
+     * A token rejected for the secret, a malformed request or a Cloudflare internal error has not been consumed, so a later attempt may still
+     * succeed.
+     */
+    private TurnstileResponse markConsumed(TokenKeys keys, TurnstileResponse response) {
+        if (replaySet != null && response != null && (response.isSuccess() || rejectsToken(response.getErrorCodes()))) {
+            replaySet.add(keys.token());
         }
+        return response;
+    }
+
+    private TurnstileResponse executeValidationRequest(SiteverifySettings current, String token, String remoteIp, String idempotencyKey) {
+        TurnstileResponse response = send(current, current.getSecret(), token, remoteIp, idempotencyKey);
+        String previousSecret = settings.previousSecretFor(current, response);
+        return previousSecret == null ? response : send(current, previousSecret, token, remoteIp, idempotencyKey);
     }
 
-    private ValidationResult executeValidationRequest(Map<String, String> requestBody) {
-        TurnstileResponse response = turnstileRestClient.post().uri(properties.getUrl())
-                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).body(requestBody).retrieve().body(TurnstileResponse.class);
+    private TurnstileResponse send(SiteverifySettings current, String secret, String token, String remoteIp, String idempotencyKey) {
+        if (adaptiveTimeout != null || properties.getTransport().isFastPath()) {
+            // The RestClient's read timeout is fixed when it is built, so per-request deadlines go through the JDK transport,
+            // which also skips the Map and the Jackson message converter
+            return jdkTransport().send(current, secret, token, remoteIp, idempotencyKey, currentReadTimeout());
+        }
+        Map<String, String> requestBody = new HashMap<>();
+        requestBody.put("secret", secret);
+        requestBody.put("response", token);
+        Optional.ofNullable(remoteIp).ifPresent(ip -> requestBody.put("remoteip", ip));
+        Optional.ofNullable(idempotencyKey).ifPresent(key -> requestBody.put("idempotency_key", key));
+        // The snapshot's URI was parsed once; passing a URI also skips the RestClient's URI template expansion
+        byte[] responseBody = turnstileRestClient.post().uri(current.getUri())
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE).body(requestBody).retrieve().body(byte[].class);
+        return JdkSiteverifyTransport.decodeBody(responseBody);
+    }
 
+    private CompletableFuture<TurnstileResponse> sendAsync(SiteverifySettings current, String token, String remoteIp, String idempotencyKey) {
+        return jdkTransport().sendAsync(current, current.getSecret(), token, remoteIp, idempotencyKey, currentReadTimeout())
+                .thenCompose(response -> {
+                    String previousSecret = settings.previousSecretFor(current, response);
+                    return previousSecret == null ? CompletableFuture.completedFuture(response)
+                            : jdkTransport().sendAsync(current, previousSecret, token, remoteIp, idempotencyKey, currentReadTimeout());
+                });
+    }
+
+    /**
+     * Turns a siteverify response into a ValidationResult, recording the outcome.
+     *
+     * @param response the decoded siteverify response, may be null
+     * @return the validation result
+     * @throws TurnstileValidationException if Cloudflare rejected the token
+     */
+    ValidationResult interpretResponse(TurnstileResponse response) {
         log.debug("Turnstile response: {}", response);
 
         if (response == null) {
             log.warn("Turnstile API returned null response");
             recordError(ValidationResultType.NETWORK_ERROR);
-            return ValidationResult.networkError("Cloudflare returned an empty response");
+            return EMPTY_RESPONSE;
         }
 
         if (response.isSuccess()) {
             log.debug("Turnstile validation successful");
-            successCount.increment();
-            metrics.recordSuccess();
+            recordSuccess();
             return ValidationResult.success();
         } else {
             log.warn("Turnstile validation failed with error codes: {}", response.getErrorCodes());
-            throw new TurnstileValidationException("Token validation failed", response.getErrorCodes());
+            throw new TurnstileValidationException("Token validation failed", response.getErrorCodes(), false);
+        }
+    }
+
+    /**
+     * Classifies a failure raised while calling siteverify, records it, and returns the typed exception to throw. A token rejected as invalid or
+     * already used, including a local replay, also counts against the client in the penalty box, if enabled. Rejections caused by the secret, a
+     * malformed request or a Cloudflare internal error do not.
+     *
+     * @param e the failure
+     * @param keys the validation's fingerprints and remote IP
+     * @return the Turnstile exception to propagate to the caller
+     */
+    TurnstileException translateFailure(Throwable e, TokenKeys keys) {
+        if (e instanceof HttpClientErrorException) {
+            log.error("Client error during Turnstile validation: {}", e.getMessage(), e);
+            recordError(ValidationResultType.NETWORK_ERROR);
+            return new TurnstileNetworkException("Client error: " + e.getMessage(), e);
+        } else if (e instanceof HttpServerErrorException) {
+            log.error("Server error during Turnstile validation: {}", e.getMessage(), e);
+            recordError(ValidationResultType.NETWORK_ERROR);
+            return new TurnstileNetworkException("Server error: " + e.getMessage(), e);
+        } else if (e instanceof ResourceAccessException) {
+            log.error("Network error during Turnstile validation: {}", e.getMessage(), e);
+            recordError(ValidationResultType.NETWORK_ERROR);
+            return new TurnstileNetworkException("Network error: " + e.getMessage(), e);
+        } else if (e instanceof TurnstileValidationException validationException) {
+            log.debug("Turnstile token rejected by Cloudflare: {}", e.getMessage());
+            recordError(ValidationResultType.INVALID_TOKEN);
+            if (rejectsToken(validationException.getErrorCodes())) {
+                penalize(keys.remoteIp());
+            }
+            return validationException;
+        } else {
+            log.error("Unexpected {} during Turnstile validation: {}", e.getClass().getSimpleName(), e.getMessage(), e);
+            recordError(ValidationResultType.NETWORK_ERROR);
+            return new TurnstileNetworkException("Unexpected error: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Records the time since a validation started.
+     *
+     * @param startTime the {@link System#nanoTime()} at which the validation started
+     */
+    void recordResponseTime(long startTime) {
+        long elapsedNanos = System.nanoTime() - startTime;
+        responseTimes.record(elapsedNanos);
+        recentStats.recordResponseTime(elapsedNanos);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        lastResponseTime.set(elapsed);
+        totalResponseTime.addAndGet(elapsed);
+        responseCount.incrementAndGet();
+        try {
+            metrics.recordResponseTime(elapsed);
+            if (!firstResponseRecorded.get() && firstResponseRecorded.compareAndSet(false, true)) {
+                metrics.recordFirstResponseTime(elapsed);
+            }
+        } catch (Exception metricsEx) {
+            log.warn("Failed to record response time metric; validation result is unaffected: {}", metricsEx.getMessage(), metricsEx);
+        }
+    }
+
+    /**
+     * Lazily creates the JDK transport. Guarded by a {@link ReentrantLock} rather than {@code synchronized} so a virtual thread waiting here does not
+     * pin its carrier thread on JDK 21.
+     */
+    private JdkSiteverifyTransport jdkTransport() {
+        JdkSiteverifyTransport transport = jdkTransport;
+        if (transport == null) {
+            transportLock.lock();
+            try {
+                transport = jdkTransport;
+                if (transport == null) {
+                    HttpClient client = httpClient != null ? httpClient
+                            : HttpClient.newBuilder().connectTimeout(properties.resolveConnectTimeout()).build();
+                    transport = new JdkSiteverifyTransport(client, properties);
+                    jdkTransport = transport;
+                }
+            } finally {
+                transportLock.unlock();
+            }
+        }
+        return transport;
+    }
+
+    private void recordCoalesced() {
+        coalescedCount.increment();
+        metrics.recordCoalesced();
+    }
+
+    private void recordSuccess() {
+        successCount.increment();
+        recentStats.record(ValidationResultType.SUCCESS);
+        metrics.recordSuccess();
+    }
+
     private void recordError(ValidationResultType resultType) {
         errorCount.increment();
+        recentStats.record(resultType);
         metrics.recordError(resultType);
 
         switch (resultType) {
@@ -296,6 +1102,7 @@ public class TurnstileValidationService {
             case CONFIGURATION_ERROR -> configErrorCount.increment();
             case INVALID_TOKEN -> validationErrorCount.increment();
             case INPUT_ERROR -> inputErrorCount.increment();
+            case OVERLOADED -> overloadedCount.increment();
             default -> { }
         }
     }
@@ -363,6 +1170,189 @@ public class TurnstileValidationService {
         return inputErrorCount.sum();
     }
 
+    /**
+     * Gets the number of validations refused by the bulkhead.
+     *
+     * @return number of overloaded validations
+     */
+    public long getOverloadedCount() {
+        return overloadedCount.sum();
+    }
+
+    /**
+     * Gets the number of siteverify calls currently holding a bulkhead slot.
+     *
+     * @return the in-flight count, or 0 if the bulkhead is disabled
+     */
+    public int getBulkheadInFlight() {
+        return bulkhead != null ? bulkhead.inFlight() : 0;
+    }
+
+    /**
+     * Gets the number of validations waiting for a bulkhead slot.
+     *
+     * @return the queue depth, or 0 if the bulkhead is disabled
+     */
+    public int getBulkheadQueueDepth() {
+        return bulkhead != null ? bulkhead.queueDepth() : 0;
+    }
+
+    /**
+     * Gets the number of validations rejected because the client was in the penalty box.
+     *
+     * @return number of blocked validations
+     */
+    public long getBlockedCount() {
+        return blockedCount.sum();
+    }
+
+    /**
+     * Checks whether the penalty box currently blocks a client, so callers such as the login filter can turn it away before reading the token.
+     *
+     * @param clientIp the client IP address, may be null
+     * @return true if the penalty box is enabled and blocks the client
+     */
+    public boolean isClientBlocked(String clientIp) {
+        return penaltyBox != null && clientIp != null && penaltyBox.isBlocked(clientIp);
+    }
+
+    /**
+     * Gets how much longer the penalty box blocks a client.
+     *
+     * @param clientIp the client IP address, may be null
+     * @return the remaining block, or {@link Duration#ZERO} if the client is not blocked or the penalty box is disabled
+     */
+    public Duration getClientBlockRemaining(String clientIp) {
+        return penaltyBox != null && clientIp != null ? penaltyBox.remainingBlock(clientIp) : Duration.ZERO;
+    }
+
+    /**
+     * Gets the number of client IPs tracked by the penalty box.
+     *
+     * @return the penalty box size, or 0 if the penalty box is disabled
+     */
+    public int getPenaltyBoxSize() {
+        return penaltyBox != null ? penaltyBox.size() : 0;
+    }
+
+    /**
+     * Gets the number of client IPs the penalty box currently blocks.
+     *
+     * @return the number of blocked clients, or 0 if the penalty box is disabled
+     */
+    public int getPenaltyBoxBlockedClients() {
+        return penaltyBox != null ? penaltyBox.blockedCount() : 0;
+    }
+
+    /**
+     * Gets the number of blocks the penalty box has imposed since startup.
+     *
+     * @return the block count, or 0 if the penalty box is disabled
+     */
+    public long getPenaltyBlockCount() {
+        return penaltyBox != null ? penaltyBox.getBlockCount() : 0;
+    }
+
+    /**
+     * Gets the number of client entries the penalty box has evicted, either because they expired or to respect its maximum size.
+     *
+     * @return the eviction count, or 0 if the penalty box is disabled
+     */
+    public long getPenaltyEvictionCount() {
+        return penaltyBox != null ? penaltyBox.getEvictionCount() : 0;
+    }
+
+    /**
+     * Gets the number of validations that shared a siteverify request already in flight for the same token and remote IP instead of sending their
+     * own.
+     *
+     * @return number of coalesced validations
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * Gets the number of validations answered from the success cache.
+     *
+     * @return number of cache hits, or 0 if the cache is disabled
+     */
+    public long getCacheHitCount() {
+        return successCache != null ? successCache.getHitCount() : 0;
+    }
+
+    /**
+     * Gets the number of success cache lookups that found no live entry.
+     *
+     * @return number of cache misses, or 0 if the cache is disabled
+     */
+    public long getCacheMissCount() {
+        return successCache != null ? successCache.getMissCount() : 0;
+    }
+
+    /**
+     * Gets the number of entries evicted from the success cache, either because they expired or to respect its maximum size.
+     *
+     * @return number of cache evictions, or 0 if the cache is disabled
+     */
+    public long getCacheEvictionCount() {
+        return successCache != null ? successCache.getEvictionCount() : 0;
+    }
+
+    /**
+     * Gets the number of verdicts currently held in the success cache.
+     *
+     * @return the cache size, or 0 if the cache is disabled
+     */
+    public int getCacheSize() {
+        return successCache != null ? successCache.size() : 0;
+    }
+
+    /**
+     * Gets the number of validations rejected locally because the token had already been sent to Cloudflare.
+     *
+     * @return number of replay set hits, or 0 if the replay set is disabled
+     */
+    public long getReplayHitCount() {
+        return replaySet != null ? replaySet.getHitCount() : 0;
+    }
+
+    /**
+     * Gets the fraction of replay set lookups that found an already consumed token.
+     *
+     * @return the replay hit rate between 0 and 1, or 0 if the replay set is disabled or unused
+     */
+    public double getReplayHitRate() {
+        return replaySet != null ? replaySet.hitRate() : 0;
+    }
+
+    /**
+     * Gets the fraction of the replay set capacity in use.
+     *
+     * @return the replay set occupancy between 0 and 1, or 0 if the replay set is disabled
+     */
+    public double getReplayOccupancy() {
+        return replaySet != null ? replaySet.occupancy() : 0;
+    }
+
+    /**
+     * Gets the read timeout applied to the next siteverify request.
+     *
+     * @return the effective read timeout, adapted to observed latency when {@code ds.cf.turnstile.adaptive-timeout.enabled=true}
+     */
+    public Duration getEffectiveReadTimeout() {
+        return currentReadTimeout();
+    }
+
+    /**
+     * Gets the circuit breaker state.
+     *
+     * @return the state, or empty if the circuit breaker is disabled
+     */
+    public Optional<CircuitBreaker.State> getCircuitBreakerState() {
+        return Optional.ofNullable(circuitBreaker).map(CircuitBreaker::getState);
+    }
+
     /**
      * Gets the time of the last response in milliseconds.
      *
@@ -382,6 +1372,43 @@ public class TurnstileValidationService {
         return count > 0 ? (double) totalResponseTime.get() / count : 0;
     }
 
+    /**
+     * Gets a percentile of the response times recorded since startup, for example 99 for the p99.
+     * <p>
+     * Response times are measured in nanoseconds and kept in a fixed-size {@link LatencyHistogram}, so the value is accurate to about 1.6%
+     * however many validations were made. No {@code MeterRegistry} is needed.
+     * </p>
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the response time percentile in milliseconds, or 0 if no responses yet
+     * @throws IllegalArgumentException if {@code percentile} is outside 0 to 100
+     */
+    public double getResponseTimePercentile(double percentile) {
+        return responseTimes.percentile(percentile) / 1_000_000.0;
+    }
+
+    /**
+     * Gets the longest response time recorded since startup.
+     *
+     * @return the maximum response time in milliseconds, or 0 if no responses yet
+     */
+    public double getMaxResponseTime() {
+        return responseTimes.max() / 1_000_000.0;
+    }
+
+    /**
+     * Gets the validation outcomes and response times of the last {@code ds.cf.turnstile.metrics.window}.
+     * <p>
+     * Unlike the lifetime counters, these reflect only recent traffic, so an outage shows up within one window however long the service has been
+     * running. The health indicator evaluates its thresholds against them.
+     * </p>
+     *
+     * @return a snapshot of the window
+     */
+    public SlidingWindowStats.Snapshot getRecentStats() {
+        return recentStats.snapshot();
+    }
+
     /**
      * Gets the error rate as a percentage of total validation attempts.
      *
@@ -409,29 +1436,28 @@ public class TurnstileValidationService {
      * @return the Turnstile Sitekey
      */
     public String getTurnstileSitekey() {
-        return properties.getSitekey();
+        return settings.get().getSitekey();
     }
 
     /**
-     * Gets the client IP address from the ServletRequest.
+     * Resolves the client IP address from the proxy headers, in order of precedence. Servlet requests are resolved through
+     * {@link com.digitalsanctuary.cf.turnstile.filter.ServletClientIpResolver}; this class does not depend on the servlet API, so it can be used in
+     * reactive applications without it.
      *
-     * @param request the ServletRequest.
-     * @return the client IP address.
+     * @param headerLookup returns the value of the named request header, or null if absent
+     * @return the first usable address found in the proxy headers, or null if there is none
      */
-    public String getClientIpAddress(ServletRequest request) {
-        if (request instanceof HttpServletRequest httpRequest) {
-            String[] headers = {"X-Forwarded-For", "Proxy-Client-IP", "WL-Proxy-Client-IP", "HTTP_CLIENT_IP", "HTTP_X_FORWARDED_FOR"};
-            for (String header : headers) {
-                String ipHeaderValue = httpRequest.getHeader(header);
-                if (ipHeaderValue == null || ipHeaderValue.isBlank()) {
-                    continue;
-                }
-                String candidate = ipHeaderValue.split(",", 2)[0].trim();
-                if (!candidate.isEmpty() && !UNKNOWN.equalsIgnoreCase(candidate)) {
-                    return candidate;
-                }
+    public static String resolveForwardedIp(UnaryOperator<String> headerLookup) {
+        for (String header : CLIENT_IP_HEADERS) {
+            String ipHeaderValue = headerLookup.apply(header);
+            if (ipHeaderValue == null || ipHeaderValue.isBlank()) {
+                continue;
+            }
+            String candidate = ipHeaderValue.split(",", 2)[0].trim();
+            if (!candidate.isEmpty() && !UNKNOWN.equalsIgnoreCase(candidate)) {
+                return candidate;
             }
         }
-        return request.getRemoteAddr();
+        return null;
     }
 }
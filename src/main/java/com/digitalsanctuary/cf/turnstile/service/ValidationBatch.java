@@ -0,0 +1,132 @@
+package com.digitalsanctuary.cf.turnstile.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.ObjIntConsumer;
+import com.digitalsanctuary.cf.turnstile.dto.TokenRequest;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileConfigurationException;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileValidationException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the validations of one batch over the non-blocking path, keeping at most {@code parallelism} of them in flight.
+ * <p>
+ * Each of the {@code parallelism} lanes takes the next unstarted request whenever its previous validation completes. A validation that completes
+ * at once, such as an input error, is handled in a loop rather than by recursion, so a large batch of bad tokens cannot overflow the stack.
+ * Failures are turned into results as {@link TurnstileValidationService#validateTurnstileResponseDetailed(String, String)} callers would see
+ * them: a rejected token becomes an {@code INVALID_TOKEN} result, and so on.
+ * </p>
+ */
+@Slf4j
+final class ValidationBatch {
+
+    private final TokenRequest[] requests;
+    private final ValidationResult[] results;
+    private final BiFunction<String, String, CompletableFuture<ValidationResult>> validator;
+    private final ObjIntConsumer<ValidationResult> callback;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final AtomicReference<Throwable> callbackFailure = new AtomicReference<>();
+    private final CompletableFuture<List<ValidationResult>> completion = new CompletableFuture<>();
+
+    /**
+     * Constructor for ValidationBatch.
+     *
+     * @param requests the batch, in order
+     * @param validator starts one validation from a token and remote IP
+     * @param callback receives each result with its index as it completes, or null
+     */
+    ValidationBatch(TokenRequest[] requests, BiFunction<String, String, CompletableFuture<ValidationResult>> validator,
+            ObjIntConsumer<ValidationResult> callback) {
+        this.requests = requests;
+        this.results = new ValidationResult[requests.length];
+        this.validator = validator;
+        this.callback = callback;
+        this.remaining = new AtomicInteger(requests.length);
+    }
+
+    /**
+     * Starts the batch.
+     *
+     * @param parallelism the maximum number of validations in flight
+     * @return a future completed with the results in request order once all validations have completed, or completed exceptionally with the
+     *         first exception thrown by the callback
+     */
+    CompletableFuture<List<ValidationResult>> start(int parallelism) {
+        if (requests.length == 0) {
+            completion.complete(List.of());
+            return completion;
+        }
+        int lanes = Math.max(1, Math.min(parallelism, requests.length));
+        for (int i = 0; i < lanes; i++) {
+            runLane();
+        }
+        return completion;
+    }
+
+    private void runLane() {
+        while (true) {
+            int index = next.getAndIncrement();
+            if (index >= requests.length) {
+                return;
+            }
+            CompletableFuture<ValidationResult> validation = startValidation(requests[index]);
+            if (!validation.isDone()) {
+                validation.whenComplete((result, failure) -> {
+                    complete(index, result, failure);
+                    runLane();
+                });
+                return;
+            }
+            validation.whenComplete((result, failure) -> complete(index, result, failure));
+        }
+    }
+
+    private CompletableFuture<ValidationResult> startValidation(TokenRequest request) {
+        try {
+            return request == null ? validator.apply(null, null) : validator.apply(request.token(), request.remoteIp());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void complete(int index, ValidationResult result, Throwable failure) {
+        ValidationResult outcome = failure == null ? result : toResult(failure);
+        results[index] = outcome;
+        if (callback != null) {
+            try {
+                callback.accept(outcome, index);
+            } catch (RuntimeException e) {
+                log.warn("Turnstile batch callback failed for item {}: {}", index, e.getMessage(), e);
+                callbackFailure.compareAndSet(null, e);
+            }
+        }
+        // The decrement publishes this slot of results to whichever thread completes the batch
+        if (remaining.decrementAndGet() == 0) {
+            Throwable callbackError = callbackFailure.get();
+            if (callbackError != null) {
+                completion.completeExceptionally(callbackError);
+            } else {
+                completion.complete(Collections.unmodifiableList(Arrays.asList(results)));
+            }
+        }
+    }
+
+    private static ValidationResult toResult(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof TurnstileValidationException validationException) {
+            return ValidationResult.invalidToken(validationException.getErrorCodes());
+        }
+        if (cause instanceof TurnstileConfigurationException) {
+            return ValidationResult.configurationError(cause.getMessage());
+        }
+        return ValidationResult.networkError(cause.getMessage());
+    }
+}
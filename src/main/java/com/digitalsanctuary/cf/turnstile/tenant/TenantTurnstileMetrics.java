@@ -0,0 +1,176 @@
+package com.digitalsanctuary.cf.turnstile.tenant;
+
+import java.util.function.Supplier;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
+import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
+
+/**
+ * Forwards a tenant's metrics to the application's {@link TurnstileMetrics}, so every tenant contributes to the same meters, and additionally
+ * records each outcome against the tenant.
+ * <p>
+ * Gauge registrations are dropped: a gauge is registered once per name, so the default service's gauges would otherwise be shadowed by, or shadow,
+ * those of the first tenant. A tenant's own state is reported through {@link TurnstileTenantRegistry} and the health endpoint instead.
+ * </p>
+ */
+final class TenantTurnstileMetrics implements TurnstileMetrics {
+
+    private final TurnstileMetrics delegate;
+    private final String tenant;
+
+    TenantTurnstileMetrics(TurnstileMetrics delegate, String tenant) {
+        this.delegate = delegate;
+        this.tenant = tenant;
+    }
+
+    @Override
+    public void recordValidation() {
+        delegate.recordValidation();
+    }
+
+    @Override
+    public void recordSuccess() {
+        delegate.recordSuccess();
+        delegate.recordTenantOutcome(tenant, ValidationResultType.SUCCESS);
+    }
+
+    @Override
+    public void recordError(ValidationResultType type) {
+        delegate.recordError(type);
+        delegate.recordTenantOutcome(tenant, type);
+    }
+
+    @Override
+    public void recordSettingsReload(String outcome) {
+        delegate.recordSettingsReload(outcome);
+    }
+
+    @Override
+    public void recordPreviousSecretUsed() {
+        delegate.recordPreviousSecretUsed();
+    }
+
+    @Override
+    public void recordResponseTime(long milliseconds) {
+        delegate.recordResponseTime(milliseconds);
+    }
+
+    @Override
+    public void recordCoalesced() {
+        delegate.recordCoalesced();
+    }
+
+    @Override
+    public void recordCacheHit() {
+        delegate.recordCacheHit();
+    }
+
+    @Override
+    public void recordCacheMiss() {
+        delegate.recordCacheMiss();
+    }
+
+    @Override
+    public void recordCacheEviction(String cause) {
+        delegate.recordCacheEviction(cause);
+    }
+
+    @Override
+    public void recordReplayRejected() {
+        delegate.recordReplayRejected();
+    }
+
+    @Override
+    public void recordCircuitRejected(boolean failOpen) {
+        delegate.recordCircuitRejected(failOpen);
+    }
+
+    @Override
+    public void recordCircuitStateChange(String state) {
+        delegate.recordCircuitStateChange(state);
+    }
+
+    @Override
+    public void recordRetry(String reason) {
+        delegate.recordRetry(reason);
+    }
+
+    @Override
+    public void recordRetryRecovered() {
+        delegate.recordRetryRecovered();
+    }
+
+    @Override
+    public void recordRetryExhausted() {
+        delegate.recordRetryExhausted();
+    }
+
+    @Override
+    public void recordTransportRequest(String version) {
+        delegate.recordTransportRequest(version);
+    }
+
+    @Override
+    public void recordTransportConnection() {
+        delegate.recordTransportConnection();
+    }
+
+    @Override
+    public void recordWarmup(long milliseconds, boolean completed) {
+        delegate.recordWarmup(milliseconds, completed);
+    }
+
+    @Override
+    public void recordFirstResponseTime(long milliseconds) {
+        // The first response of the application is recorded by the default service
+    }
+
+    @Override
+    public void recordInputRejected(String reason) {
+        delegate.recordInputRejected(reason);
+    }
+
+    @Override
+    public void recordRateLimited(String reason) {
+        delegate.recordRateLimited(reason);
+    }
+
+    @Override
+    public void recordPenaltyBlock() {
+        delegate.recordPenaltyBlock();
+    }
+
+    @Override
+    public void recordPenaltyRejected() {
+        delegate.recordPenaltyRejected();
+    }
+
+    @Override
+    public void recordPenaltyEviction(String cause) {
+        delegate.recordPenaltyEviction(cause);
+    }
+
+    @Override
+    public void recordBulkheadRejected(String reason) {
+        delegate.recordBulkheadRejected(reason);
+    }
+
+    @Override
+    public void recordBulkheadWait(long nanoseconds) {
+        delegate.recordBulkheadWait(nanoseconds);
+    }
+
+    @Override
+    public void recordBatch(int size, long milliseconds) {
+        delegate.recordBatch(size, milliseconds);
+    }
+
+    @Override
+    public void recordTenantOutcome(String tenant, ValidationResultType type) {
+        delegate.recordTenantOutcome(tenant, type);
+    }
+
+    @Override
+    public void registerGauge(String name, String description, Supplier<Number> value) {
+        // Dropped; see the class documentation
+    }
+}
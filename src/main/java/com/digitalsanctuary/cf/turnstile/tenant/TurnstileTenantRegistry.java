@@ -0,0 +1,158 @@
+package com.digitalsanctuary.cf.turnstile.tenant;
+
+import java.net.http.HttpClient;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.web.client.RestClient;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds one {@link TurnstileValidationService} per tenant configured under {@code ds.cf.turnstile.tenants.*} and routes requests to them.
+ * <p>
+ * Every tenant service sends on the application's shared {@code turnstileRestClient} and {@code turnstileHttpClient}, so all tenants use one
+ * connection pool. Each keeps its own counters, cache, replay set, circuit breaker and penalty box, so one tenant's traffic or failures do not
+ * affect another's. A request is routed by the tenant id chosen for it, if any, and otherwise by its host name through a lookup map built at
+ * startup. Requests matching no tenant use the default service configured at the top level. The registry does not depend on the servlet API;
+ * {@link com.digitalsanctuary.cf.turnstile.filter.TurnstileCaptchaFilter} asks the {@link TurnstileTenantResolver} bean, if there is one, for the
+ * tenant id of a request.
+ * </p>
+ */
+@Slf4j
+public class TurnstileTenantRegistry {
+
+    private final TurnstileValidationService defaultService;
+    private final Map<String, TurnstileValidationService> services;
+    private final Map<String, TurnstileValidationService> byHost;
+
+    /**
+     * Constructor for TurnstileTenantRegistry.
+     *
+     * @param properties the Turnstile configuration properties, including the tenants
+     * @param defaultService the service used for requests that match no tenant
+     * @param restClient the shared REST client tenant services send blocking requests on
+     * @param httpClient the shared HTTP client tenant services send non-blocking requests on
+     * @param metrics the metrics tenant validations are recorded to
+     */
+    public TurnstileTenantRegistry(TurnstileConfigProperties properties, TurnstileValidationService defaultService, RestClient restClient,
+            HttpClient httpClient, TurnstileMetrics metrics) {
+        this.defaultService = defaultService;
+        Map<String, TurnstileValidationService> tenantServices = new LinkedHashMap<>();
+        Map<String, TurnstileValidationService> hosts = new HashMap<>();
+        properties.getTenants().forEach((id, tenant) -> {
+            if (tenant.getSecret() == null || tenant.getSecret().isBlank()) {
+                log.error("Turnstile tenant '{}' has no secret key configured. Its validations will fail.", id);
+            }
+            TurnstileValidationService service = new TurnstileValidationService(restClient, httpClient, properties.forTenant(tenant),
+                    new TenantTurnstileMetrics(metrics, id));
+            tenantServices.put(id, service);
+            for (String host : tenant.getHosts()) {
+                TurnstileValidationService previous = hosts.put(normalizeHost(host), service);
+                if (previous != null && previous != service) {
+                    throw new IllegalStateException("Host " + host + " is configured for more than one Turnstile tenant");
+                }
+            }
+        });
+        this.services = Collections.unmodifiableMap(tenantServices);
+        this.byHost = Map.copyOf(hosts);
+        if (!services.isEmpty()) {
+            log.info("Turnstile tenants configured: {} ({} host names)", services.keySet(), byHost.size());
+        }
+    }
+
+    /**
+     * Returns the service for a request: the tenant with the given id, if any, otherwise the tenant serving the request's host, otherwise the
+     * default service.
+     *
+     * @param tenantId the tenant id chosen for the request, for example by a {@link TurnstileTenantResolver}, or null
+     * @param host the request host name, may be null
+     * @return the validation service to use
+     */
+    public TurnstileValidationService resolve(String tenantId, String host) {
+        if (services.isEmpty()) {
+            return defaultService;
+        }
+        if (tenantId != null) {
+            TurnstileValidationService service = services.get(tenantId);
+            if (service != null) {
+                return service;
+            }
+            log.warn("Turnstile tenant resolver returned unknown tenant '{}'; falling back to the host lookup", tenantId);
+        }
+        return resolveHost(host);
+    }
+
+    /**
+     * Returns the service for a host name. A port suffix and letter case are ignored. An exact host entry wins over a {@code *.} entry for a
+     * parent domain.
+     *
+     * @param host the request host name, may be null
+     * @return the service of the tenant serving the host, or the default service
+     */
+    public TurnstileValidationService resolveHost(String host) {
+        if (host == null || byHost.isEmpty()) {
+            return defaultService;
+        }
+        String normalized = normalizeHost(host);
+        TurnstileValidationService service = byHost.get(normalized);
+        if (service != null) {
+            return service;
+        }
+        int dot = normalized.indexOf('.');
+        while (dot >= 0) {
+            service = byHost.get("*" + normalized.substring(dot));
+            if (service != null) {
+                return service;
+            }
+            dot = normalized.indexOf('.', dot + 1);
+        }
+        return defaultService;
+    }
+
+    /**
+     * Returns the service of a tenant.
+     *
+     * @param tenantId the tenant id
+     * @return the tenant's service, or empty if no such tenant is configured
+     */
+    public Optional<TurnstileValidationService> getService(String tenantId) {
+        return Optional.ofNullable(services.get(tenantId));
+    }
+
+    /**
+     * Returns the service used for requests that match no tenant.
+     *
+     * @return the default service
+     */
+    public TurnstileValidationService getDefaultService() {
+        return defaultService;
+    }
+
+    /**
+     * Returns the tenant services, in configuration order.
+     *
+     * @return an unmodifiable map of tenant id to service
+     */
+    public Map<String, TurnstileValidationService> getTenants() {
+        return services;
+    }
+
+    private static String normalizeHost(String host) {
+        String normalized = host.trim().toLowerCase(Locale.ROOT);
+        if (normalized.startsWith("[")) {
+            int end = normalized.indexOf(']');
+            return end > 0 ? normalized.substring(0, end + 1) : normalized;
+        }
+        int colon = normalized.indexOf(':');
+        if (colon >= 0 && colon == normalized.lastIndexOf(':')) {
+            normalized = normalized.substring(0, colon);
+        }
+        return normalized.endsWith(".") ? normalized.substring(0, normalized.length() - 1) : normalized;
+    }
+}
@@ -0,0 +1,20 @@
+package com.digitalsanctuary.cf.turnstile.tenant;
+
+import jakarta.servlet.ServletRequest;
+
+/**
+ * Chooses the tenant for a request when the request host alone does not decide it, for example when tenants are distinguished by path or by a
+ * header. Define a bean of this type to have {@link com.digitalsanctuary.cf.turnstile.filter.TurnstileCaptchaFilter} consult it before the host
+ * lookup of {@link TurnstileTenantRegistry}.
+ */
+@FunctionalInterface
+public interface TurnstileTenantResolver {
+
+    /**
+     * Resolves the tenant for a request.
+     *
+     * @param request the request being validated
+     * @return the tenant id, or null to fall back to the host lookup
+     */
+    String resolveTenant(ServletRequest request);
+}
@@ -0,0 +1,106 @@
+package com.digitalsanctuary.cf.turnstile.transport;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Derives the siteverify read timeout from recently observed latencies.
+ * <p>
+ * The durations of the last {@code windowSize} completed calls are kept in a ring. Every {@code windowSize / 20} samples the 99th percentile is
+ * recomputed from a sorted copy of the ring, and the effective timeout becomes {@code p99 * multiplier}, clamped to {@code [floor, ceiling]}. Until
+ * {@code minSamples} calls have been observed the ceiling is used.
+ * </p>
+ * <p>
+ * Callers record calls that got a response, and also calls that timed out, with the time they waited. A timed-out call therefore contributes the
+ * current deadline as a sample, which lets the timeout climb back up when Cloudflare slows down instead of cutting off every slower response.
+ * </p>
+ */
+public class AdaptiveTimeout {
+
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+    private final int minSamples;
+    private final int recomputeInterval;
+    private final double multiplier;
+    private final long floorNanos;
+    private final long ceilingNanos;
+    private volatile long p99Nanos = -1;
+    private volatile long effectiveNanos;
+
+    /**
+     * Constructor for AdaptiveTimeout.
+     *
+     * @param windowSize the number of most recent calls the percentile is computed over
+     * @param minSamples the number of calls that must be observed before the timeout adapts
+     * @param multiplier the factor applied to the 99th percentile
+     * @param floor the smallest timeout returned
+     * @param ceiling the largest timeout returned, and the timeout used until enough calls have been observed
+     */
+    public AdaptiveTimeout(int windowSize, int minSamples, double multiplier, Duration floor, Duration ceiling) {
+        if (windowSize <= 0 || minSamples <= 0 || multiplier <= 0 || floor.isNegative() || floor.compareTo(ceiling) > 0) {
+            throw new IllegalArgumentException("windowSize, minSamples and multiplier must be positive and floor must not exceed ceiling");
+        }
+        this.samples = new AtomicLongArray(windowSize);
+        this.minSamples = Math.min(minSamples, windowSize);
+        this.recomputeInterval = Math.max(1, windowSize / 20);
+        this.multiplier = multiplier;
+        this.floorNanos = floor.toNanos();
+        this.ceilingNanos = ceiling.toNanos();
+        this.effectiveNanos = ceilingNanos;
+    }
+
+    /**
+     * Records the duration of a call that got a response or timed out.
+     *
+     * @param durationNanos how long the call took
+     */
+    public void record(long durationNanos) {
+        long n = recorded.getAndIncrement();
+        samples.set((int) (n % samples.length()), Math.max(0, durationNanos));
+        long count = n + 1;
+        if (count >= minSamples && count % recomputeInterval == 0) {
+            recompute((int) Math.min(count, samples.length()));
+        }
+    }
+
+    /**
+     * Gets the timeout to apply to the next call.
+     *
+     * @return the effective timeout
+     */
+    public Duration current() {
+        return Duration.ofNanos(effectiveNanos);
+    }
+
+    /**
+     * Gets the 99th percentile of the observed latencies as of the last recomputation.
+     *
+     * @return the 99th percentile, or null if not enough calls have been observed yet
+     */
+    public Duration p99() {
+        long p99 = p99Nanos;
+        return p99 < 0 ? null : Duration.ofNanos(p99);
+    }
+
+    /**
+     * Gets the number of calls recorded so far.
+     *
+     * @return the sample count
+     */
+    public long getSampleCount() {
+        return recorded.get();
+    }
+
+    private void recompute(int size) {
+        long[] copy = new long[size];
+        for (int i = 0; i < size; i++) {
+            copy[i] = samples.get(i);
+        }
+        Arrays.sort(copy);
+        long p99 = copy[(int) Math.ceil(size * 0.99) - 1];
+        p99Nanos = p99;
+        effectiveNanos = Math.max(floorNanos, Math.min(ceilingNanos, (long) (p99 * multiplier)));
+    }
+}
@@ -0,0 +1,363 @@
+package com.digitalsanctuary.cf.turnstile.transport;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.PushPromiseHandler;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A JDK {@link HttpClient} that counts requests, the HTTP version they were answered with, and new TLS connections.
+ * <p>
+ * Every siteverify path (the blocking {@code RestClient}, the non-blocking JDK transport and the reactive {@code WebClient}) sends on the
+ * {@code turnstileHttpClient} bean, so wrapping it shows how well connections are reused: each new TLS connection creates one {@link SSLEngine},
+ * counted through the {@link SSLContext} built by {@link #countingSslContext(SSLContext, Runnable)}, while each request that rides an existing
+ * connection adds only to the request count. Under HTTP/2 many concurrent requests share a connection as separate streams.
+ * </p>
+ * <p>
+ * Closing this client closes the delegate where the running JDK supports it (21 and later) and shuts down an executor created for it. The JDK 21
+ * lifecycle methods {@link #shutdown()}, {@link #shutdownNow()}, {@link #awaitTermination(Duration)} and {@link #isTerminated()} are declared
+ * without {@code @Override} so this class still compiles for Java 17; they reach the delegate's methods through handles looked up once, and on
+ * older JDKs, where the delegate cannot be stopped, only act on the executor.
+ * </p>
+ */
+@Slf4j
+public class InstrumentedHttpClient extends HttpClient implements AutoCloseable {
+
+    private static final MethodHandle SHUTDOWN = lookupLifecycleMethod("shutdown", MethodType.methodType(void.class));
+    private static final MethodHandle SHUTDOWN_NOW = lookupLifecycleMethod("shutdownNow", MethodType.methodType(void.class));
+    private static final MethodHandle AWAIT_TERMINATION = lookupLifecycleMethod("awaitTermination",
+            MethodType.methodType(boolean.class, Duration.class));
+    private static final MethodHandle IS_TERMINATED = lookupLifecycleMethod("isTerminated", MethodType.methodType(boolean.class));
+
+    private final HttpClient delegate;
+    private final TurnstileMetrics metrics;
+    private final ExecutorService ownedExecutor;
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder connectionCount = new LongAdder();
+    private volatile boolean shutdownRequested;
+
+    /**
+     * Constructor for InstrumentedHttpClient.
+     *
+     * @param builder the builder for the delegate client; its SSL context is set to a counting wrapper of {@link SSLContext#getDefault()}
+     * @param metrics the metrics requests and new connections are recorded to
+     * @param ownedExecutor an executor set on the builder that this client shuts down on close, or null
+     */
+    public InstrumentedHttpClient(HttpClient.Builder builder, TurnstileMetrics metrics, ExecutorService ownedExecutor) {
+        this.metrics = metrics;
+        this.ownedExecutor = ownedExecutor;
+        this.delegate = builder.sslContext(countingSslContext(defaultSslContext(), this::recordConnection)).build();
+    }
+
+    /**
+     * Gets the number of requests sent.
+     *
+     * @return the request count
+     */
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * Gets the number of TLS connections opened, each of which performed a handshake.
+     *
+     * @return the connection count
+     */
+    public long getConnectionCount() {
+        return connectionCount.sum();
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, BodyHandler<T> responseBodyHandler) throws IOException, InterruptedException {
+        HttpResponse<T> response = delegate.send(request, responseBodyHandler);
+        recordRequest(response);
+        return response;
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> responseBodyHandler) {
+        return delegate.sendAsync(request, responseBodyHandler).thenApply(this::recordRequest);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, BodyHandler<T> responseBodyHandler,
+            PushPromiseHandler<T> pushPromiseHandler) {
+        return delegate.sendAsync(request, responseBodyHandler, pushPromiseHandler).thenApply(this::recordRequest);
+    }
+
+    @Override
+    public Optional<CookieHandler> cookieHandler() {
+        return delegate.cookieHandler();
+    }
+
+    @Override
+    public Optional<Duration> connectTimeout() {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public Redirect followRedirects() {
+        return delegate.followRedirects();
+    }
+
+    @Override
+    public Optional<ProxySelector> proxy() {
+        return delegate.proxy();
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return delegate.sslContext();
+    }
+
+    @Override
+    public SSLParameters sslParameters() {
+        return delegate.sslParameters();
+    }
+
+    @Override
+    public Optional<Authenticator> authenticator() {
+        return delegate.authenticator();
+    }
+
+    @Override
+    public Version version() {
+        return delegate.version();
+    }
+
+    @Override
+    public Optional<Executor> executor() {
+        return delegate.executor();
+    }
+
+    /**
+     * Closes the delegate client on JDK 21 and later, and shuts down the executor created for it.
+     */
+    @Override
+    public void close() {
+        shutdownRequested = true;
+        try {
+            if (delegate instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to close Turnstile HTTP client: {}", e.getMessage());
+        } finally {
+            if (ownedExecutor != null) {
+                ownedExecutor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Starts an orderly shutdown: requests in progress complete, new ones are refused. Shuts down the delegate on JDK 21 and later, and the
+     * executor created for it.
+     */
+    public void shutdown() {
+        shutdownRequested = true;
+        try {
+            if (SHUTDOWN != null) {
+                SHUTDOWN.invokeExact(delegate);
+            }
+        } catch (Throwable e) {
+            log.warn("Failed to shut down Turnstile HTTP client: {}", e.getMessage());
+        } finally {
+            if (ownedExecutor != null) {
+                ownedExecutor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Shuts down immediately, aborting requests in progress on JDK 21 and later, and interrupts the tasks of the executor created for the
+     * delegate.
+     */
+    public void shutdownNow() {
+        shutdownRequested = true;
+        try {
+            if (SHUTDOWN_NOW != null) {
+                SHUTDOWN_NOW.invokeExact(delegate);
+            }
+        } catch (Throwable e) {
+            log.warn("Failed to shut down Turnstile HTTP client: {}", e.getMessage());
+        } finally {
+            if (ownedExecutor != null) {
+                ownedExecutor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Waits for the delegate and the executor created for it to terminate after a shutdown.
+     *
+     * @param duration the maximum time to wait
+     * @return true if both terminated, false if the time elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        boolean delegateTerminated;
+        if (AWAIT_TERMINATION != null) {
+            try {
+                delegateTerminated = (boolean) AWAIT_TERMINATION.invokeExact(delegate, duration);
+            } catch (InterruptedException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Unable to await termination of the Turnstile HTTP client", e);
+            }
+        } else {
+            delegateTerminated = shutdownRequested;
+        }
+        if (ownedExecutor == null) {
+            return delegateTerminated;
+        }
+        return ownedExecutor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS) && delegateTerminated;
+    }
+
+    /**
+     * Returns whether the delegate and the executor created for it have terminated. On JDKs before 21 the delegate counts as terminated once a
+     * shutdown has been requested.
+     *
+     * @return true if both have terminated
+     */
+    public boolean isTerminated() {
+        boolean delegateTerminated;
+        if (IS_TERMINATED != null) {
+            try {
+                delegateTerminated = (boolean) IS_TERMINATED.invokeExact(delegate);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Unable to query the Turnstile HTTP client", e);
+            }
+        } else {
+            delegateTerminated = shutdownRequested;
+        }
+        return delegateTerminated && (ownedExecutor == null || ownedExecutor.isTerminated());
+    }
+
+    private <T> HttpResponse<T> recordRequest(HttpResponse<T> response) {
+        requestCount.increment();
+        metrics.recordTransportRequest(response.version().name().toLowerCase(Locale.ROOT));
+        return response;
+    }
+
+    private void recordConnection() {
+        connectionCount.increment();
+        metrics.recordTransportConnection();
+    }
+
+    private static MethodHandle lookupLifecycleMethod(String name, MethodType type) {
+        try {
+            return MethodHandles.publicLookup().findVirtual(HttpClient.class, name, type);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static SSLContext defaultSslContext() {
+        try {
+            return SSLContext.getDefault();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No default SSLContext available", e);
+        }
+    }
+
+    /**
+     * Wraps an initialised SSL context so that every client {@link SSLEngine} it creates, one per new TLS connection, is reported.
+     *
+     * @param delegate the SSL context to wrap
+     * @param onNewEngine called for each engine created
+     * @return the counting SSL context
+     */
+    public static SSLContext countingSslContext(SSLContext delegate, Runnable onNewEngine) {
+        return new SSLContext(new CountingSslContextSpi(delegate, onNewEngine), delegate.getProvider(), delegate.getProtocol()) {
+        };
+    }
+
+    private static final class CountingSslContextSpi extends SSLContextSpi {
+
+        private final SSLContext delegate;
+        private final Runnable onNewEngine;
+
+        private CountingSslContextSpi(SSLContext delegate, Runnable onNewEngine) {
+            this.delegate = delegate;
+            this.onNewEngine = onNewEngine;
+        }
+
+        @Override
+        protected void engineInit(KeyManager[] km, TrustManager[] tm, SecureRandom sr) throws KeyManagementException {
+            delegate.init(km, tm, sr);
+        }
+
+        @Override
+        protected SSLSocketFactory engineGetSocketFactory() {
+            return delegate.getSocketFactory();
+        }
+
+        @Override
+        protected SSLServerSocketFactory engineGetServerSocketFactory() {
+            return delegate.getServerSocketFactory();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine() {
+            onNewEngine.run();
+            return delegate.createSSLEngine();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine(String host, int port) {
+            onNewEngine.run();
+            return delegate.createSSLEngine(host, port);
+        }
+
+        @Override
+        protected SSLSessionContext engineGetServerSessionContext() {
+            return delegate.getServerSessionContext();
+        }
+
+        @Override
+        protected SSLSessionContext engineGetClientSessionContext() {
+            return delegate.getClientSessionContext();
+        }
+
+        @Override
+        protected SSLParameters engineGetDefaultSSLParameters() {
+            return delegate.getDefaultSSLParameters();
+        }
+
+        @Override
+        protected SSLParameters engineGetSupportedSSLParameters() {
+            return delegate.getSupportedSSLParameters();
+        }
+    }
+}
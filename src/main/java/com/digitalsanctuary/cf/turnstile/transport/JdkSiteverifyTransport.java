@@ -0,0 +1,225 @@
+package com.digitalsanctuary.cf.turnstile.transport;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import com.digitalsanctuary.cf.turnstile.config.SiteverifySettings;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties.BodyEncoding;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileResponse;
+
+/**
+ * Sends siteverify requests to Cloudflare directly on a JDK {@link HttpClient}.
+ * <p>
+ * This transport backs the non-blocking validation path: {@link #sendAsync(String, String, String)} uses {@link HttpClient#sendAsync}, so no thread
+ * is held while the request is in flight. With an adaptive timeout it also backs the blocking path through
+ * {@link #send(String, String, String, String, Duration)}, since each request then carries its own deadline, and when
+ * {@code ds.cf.turnstile.transport.fast-path} is enabled. Failures are reported with the same Spring exception types that {@code RestClient} raises
+ * ({@link HttpClientErrorException}, {@link HttpServerErrorException}, {@link ResourceAccessException}), so callers can classify them exactly as they
+ * classify failures on the blocking path.
+ * </p>
+ * <p>
+ * Requests are built from a {@link SiteverifyRequestTemplate}, so the endpoint URI is parsed once and the body is written from pre-encoded bytes in
+ * the configured {@code ds.cf.turnstile.transport.body-encoding}, without a {@code Map} or an {@code ObjectMapper}.
+ * </p>
+ */
+public class JdkSiteverifyTransport {
+
+    private final HttpClient httpClient;
+    private final TurnstileConfigProperties properties;
+    private volatile SiteverifyRequestTemplate template;
+
+    /**
+     * Constructor for JdkSiteverifyTransport.
+     *
+     * @param httpClient the JDK HttpClient used to send requests
+     * @param properties the Turnstile configuration properties supplying the endpoint URL and read timeout
+     */
+    public JdkSiteverifyTransport(HttpClient httpClient, TurnstileConfigProperties properties) {
+        this.httpClient = httpClient;
+        this.properties = properties;
+    }
+
+    /**
+     * Sends a siteverify request without blocking the calling thread.
+     *
+     * @param secret the Turnstile secret key
+     * @param token the response token to verify
+     * @param remoteIp the client IP address, or null to omit it
+     * @return a future completed with the decoded response (null for an empty body), or completed exceptionally with a
+     *         {@link RestClientException} subtype describing the failure
+     */
+    public CompletableFuture<TurnstileResponse> sendAsync(String secret, String token, String remoteIp) {
+        return sendAsync(secret, token, remoteIp, null);
+    }
+
+    /**
+     * Sends a siteverify request carrying an idempotency key without blocking the calling thread.
+     *
+     * @param secret the Turnstile secret key
+     * @param token the response token to verify
+     * @param remoteIp the client IP address, or null to omit it
+     * @param idempotencyKey the {@code idempotency_key} shared by all attempts of one validation, or null to omit it
+     * @return a future completed as described in {@link #sendAsync(String, String, String)}
+     */
+    public CompletableFuture<TurnstileResponse> sendAsync(String secret, String token, String remoteIp, String idempotencyKey) {
+        return sendAsync(secret, token, remoteIp, idempotencyKey, properties.resolveReadTimeout());
+    }
+
+    /**
+     * Sends a siteverify request with an explicit read timeout without blocking the calling thread.
+     *
+     * @param secret the Turnstile secret key
+     * @param token the response token to verify
+     * @param remoteIp the client IP address, or null to omit it
+     * @param idempotencyKey the {@code idempotency_key} shared by all attempts of one validation, or null to omit it
+     * @param timeout how long to wait for the response
+     * @return a future completed as described in {@link #sendAsync(String, String, String)}
+     */
+    public CompletableFuture<TurnstileResponse> sendAsync(String secret, String token, String remoteIp, String idempotencyKey, Duration timeout) {
+        return sendAsync(buildRequest(properties.getUrl(), secret, token, remoteIp, idempotencyKey, timeout));
+    }
+
+    /**
+     * Sends a siteverify request to the endpoint of a settings snapshot without blocking the calling thread.
+     *
+     * @param settings the settings snapshot supplying the endpoint URL
+     * @param secret the Turnstile secret key, normally the snapshot's secret
+     * @param token the response token to verify
+     * @param remoteIp the client IP address, or null to omit it
+     * @param idempotencyKey the {@code idempotency_key} shared by all attempts of one validation, or null to omit it
+     * @param timeout how long to wait for the response
+     * @return a future completed as described in {@link #sendAsync(String, String, String)}
+     */
+    public CompletableFuture<TurnstileResponse> sendAsync(SiteverifySettings settings, String secret, String token, String remoteIp,
+            String idempotencyKey, Duration timeout) {
+        return sendAsync(buildRequest(settings.getUrl(), secret, token, remoteIp, idempotencyKey, timeout));
+    }
+
+    private CompletableFuture<TurnstileResponse> sendAsync(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).handle((response, failure) -> {
+            if (failure != null) {
+                throw translateFailure(failure);
+            }
+            return decode(response);
+        });
+    }
+
+    /**
+     * Sends a siteverify request with an explicit read timeout, blocking the calling thread until the response arrives.
+     *
+     * @param secret the Turnstile secret key
+     * @param token the response token to verify
+     * @param remoteIp the client IP address, or null to omit it
+     * @param idempotencyKey the {@code idempotency_key} shared by all attempts of one validation, or null to omit it
+     * @param timeout how long to wait for the response
+     * @return the decoded response, or null for an empty body
+     * @throws RestClientException a subtype describing the failure
+     */
+    public TurnstileResponse send(String secret, String token, String remoteIp, String idempotencyKey, Duration timeout) {
+        return send(buildRequest(properties.getUrl(), secret, token, remoteIp, idempotencyKey, timeout));
+    }
+
+    /**
+     * Sends a siteverify request to the endpoint of a settings snapshot, blocking the calling thread until the response arrives.
+     *
+     * @param settings the settings snapshot supplying the endpoint URL
+     * @param secret the Turnstile secret key, normally the snapshot's secret
+     * @param token the response token to verify
+     * @param remoteIp the client IP address, or null to omit it
+     * @param idempotencyKey the {@code idempotency_key} shared by all attempts of one validation, or null to omit it
+     * @param timeout how long to wait for the response
+     * @return the decoded response, or null for an empty body
+     * @throws RestClientException a subtype describing the failure
+     */
+    public TurnstileResponse send(SiteverifySettings settings, String secret, String token, String remoteIp, String idempotencyKey,
+            Duration timeout) {
+        return send(buildRequest(settings.getUrl(), secret, token, remoteIp, idempotencyKey, timeout));
+    }
+
+    private TurnstileResponse send(HttpRequest request) {
+        try {
+            return decode(httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray()));
+        } catch (IOException e) {
+            throw translateFailure(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrupted while waiting for siteverify");
+        }
+    }
+
+    private HttpRequest buildRequest(String url, String secret, String token, String remoteIp, String idempotencyKey, Duration timeout) {
+        SiteverifyRequestTemplate requestTemplate = template(url, secret);
+        return HttpRequest.newBuilder(requestTemplate.uri())
+                .timeout(timeout)
+                .header(HttpHeaders.CONTENT_TYPE, requestTemplate.contentType())
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(requestTemplate.encode(token, remoteIp, idempotencyKey)))
+                .build();
+    }
+
+    /**
+     * Returns the request template for the current endpoint, secret and body encoding, rebuilding it only when one of them has changed.
+     */
+    private SiteverifyRequestTemplate template(String url, String secret) {
+        SiteverifyRequestTemplate current = template;
+        BodyEncoding encoding = properties.getTransport().getBodyEncoding();
+        if (current == null || !current.matches(url, secret, encoding)) {
+            current = new SiteverifyRequestTemplate(url, secret, encoding);
+            template = current;
+        }
+        return current;
+    }
+
+    private static TurnstileResponse decode(HttpResponse<byte[]> response) {
+        int status = response.statusCode();
+        if (status >= 400 && status < 500) {
+            throw new HttpClientErrorException(HttpStatusCode.valueOf(status), "HTTP " + status);
+        }
+        if (status >= 500 && status < 600) {
+            throw new HttpServerErrorException(HttpStatusCode.valueOf(status), "HTTP " + status);
+        }
+        if (status < 200 || status >= 300) {
+            throw new RestClientException("Unexpected HTTP status " + status + " from siteverify");
+        }
+        return decodeBody(response.body());
+    }
+
+    /**
+     * Decodes a siteverify response body with {@link TurnstileResponseDecoder}, reporting malformed JSON as a {@link RestClientException} as the
+     * {@code RestClient} message converters would.
+     *
+     * @param body the raw response body, may be null
+     * @return the decoded response, or null for an empty body
+     * @throws RestClientException if the body is not a well-formed siteverify response
+     */
+    public static TurnstileResponse decodeBody(byte[] body) {
+        try {
+            return TurnstileResponseDecoder.decodeUtf8(body);
+        } catch (IllegalArgumentException e) {
+            throw new RestClientException("Could not decode siteverify response: " + e.getMessage(), e);
+        }
+    }
+
+    private static RuntimeException translateFailure(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof IOException ioException) {
+            return new ResourceAccessException("I/O error on POST request to siteverify: " + ioException.getMessage(), ioException);
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new RestClientException("Siteverify request failed: " + cause.getMessage(), cause);
+    }
+}
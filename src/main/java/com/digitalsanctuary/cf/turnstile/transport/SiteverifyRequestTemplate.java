@@ -0,0 +1,187 @@
+package com.digitalsanctuary.cf.turnstile.transport;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import org.springframework.http.MediaType;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties.BodyEncoding;
+
+/**
+ * Pre-encoded siteverify request for one endpoint and secret.
+ * <p>
+ * The endpoint URL is parsed once, and everything in the request body except the token, remote IP and idempotency key is encoded once into byte
+ * arrays. {@link #encode(String, String, String)} then sizes a single byte array exactly and copies the fixed parts and the per-request values into
+ * it. Turnstile tokens, IP addresses and UUIDs normally need no escaping, so they are copied character by character; only values containing
+ * characters that the encoding reserves are escaped first.
+ * </p>
+ */
+public final class SiteverifyRequestTemplate {
+
+    private final String url;
+    private final String secret;
+    private final BodyEncoding encoding;
+    private final URI uri;
+    private final byte[] prefix;
+    private final byte[] remoteIpField;
+    private final byte[] idempotencyKeyField;
+    private final byte[] valueEnd;
+    private final byte[] end;
+
+    /**
+     * Constructor for SiteverifyRequestTemplate.
+     *
+     * @param url the siteverify endpoint URL
+     * @param secret the Turnstile secret key
+     * @param encoding the request body encoding
+     * @throws IllegalArgumentException if the URL is not a valid URI
+     */
+    public SiteverifyRequestTemplate(String url, String secret, BodyEncoding encoding) {
+        this.url = url;
+        this.secret = secret;
+        this.encoding = encoding;
+        this.uri = URI.create(url);
+        if (encoding == BodyEncoding.FORM) {
+            prefix = ascii("secret=" + escape(secret) + "&response=");
+            remoteIpField = ascii("&remoteip=");
+            idempotencyKeyField = ascii("&idempotency_key=");
+            valueEnd = new byte[0];
+            end = new byte[0];
+        } else {
+            prefix = ascii("{\"secret\":\"" + escape(secret) + "\",\"response\":\"");
+            remoteIpField = ascii(",\"remoteip\":\"");
+            idempotencyKeyField = ascii(",\"idempotency_key\":\"");
+            valueEnd = ascii("\"");
+            end = ascii("}");
+        }
+    }
+
+    /**
+     * Returns whether this template was built for the given endpoint, secret and encoding.
+     *
+     * @param url the siteverify endpoint URL
+     * @param secret the Turnstile secret key
+     * @param encoding the request body encoding
+     * @return true if the template can be reused for these settings
+     */
+    public boolean matches(String url, String secret, BodyEncoding encoding) {
+        return this.encoding == encoding && this.url.equals(url) && this.secret.equals(secret);
+    }
+
+    /**
+     * Gets the parsed endpoint URI.
+     *
+     * @return the URI
+     */
+    public URI uri() {
+        return uri;
+    }
+
+    /**
+     * Gets the {@code Content-Type} of the encoded body.
+     *
+     * @return the media type value
+     */
+    public String contentType() {
+        return encoding == BodyEncoding.FORM ? MediaType.APPLICATION_FORM_URLENCODED_VALUE : MediaType.APPLICATION_JSON_VALUE;
+    }
+
+    /**
+     * Encodes a request body.
+     *
+     * @param token the response token to verify
+     * @param remoteIp the client IP address, or null to omit it
+     * @param idempotencyKey the idempotency key, or null to omit it
+     * @return the encoded body
+     */
+    public byte[] encode(String token, String remoteIp, String idempotencyKey) {
+        String encodedToken = escapeIfNeeded(token);
+        String encodedIp = remoteIp != null ? escapeIfNeeded(remoteIp) : null;
+        String encodedKey = idempotencyKey != null ? escapeIfNeeded(idempotencyKey) : null;
+
+        int length = prefix.length + encodedToken.length() + valueEnd.length + end.length;
+        if (encodedIp != null) {
+            length += remoteIpField.length + encodedIp.length() + valueEnd.length;
+        }
+        if (encodedKey != null) {
+            length += idempotencyKeyField.length + encodedKey.length() + valueEnd.length;
+        }
+
+        byte[] body = new byte[length];
+        int pos = copy(prefix, body, 0);
+        pos = copyAscii(encodedToken, body, pos);
+        pos = copy(valueEnd, body, pos);
+        if (encodedIp != null) {
+            pos = copy(remoteIpField, body, pos);
+            pos = copyAscii(encodedIp, body, pos);
+            pos = copy(valueEnd, body, pos);
+        }
+        if (encodedKey != null) {
+            pos = copy(idempotencyKeyField, body, pos);
+            pos = copyAscii(encodedKey, body, pos);
+            pos = copy(valueEnd, body, pos);
+        }
+        copy(end, body, pos);
+        return body;
+    }
+
+    private String escapeIfNeeded(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!isPlain(value.charAt(i))) {
+                return escape(value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns whether a character is written unchanged by both encodings: ASCII letters and digits, and the punctuation that appears in tokens,
+     * IP addresses and UUIDs.
+     */
+    private static boolean isPlain(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '_';
+    }
+
+    /**
+     * Escapes a value for this template's encoding. The result contains only ASCII characters.
+     */
+    private String escape(String value) {
+        if (encoding == BodyEncoding.FORM) {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8);
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int copy(byte[] source, byte[] target, int pos) {
+        System.arraycopy(source, 0, target, pos, source.length);
+        return pos + source.length;
+    }
+
+    private static int copyAscii(String value, byte[] target, int pos) {
+        for (int i = 0; i < value.length(); i++) {
+            target[pos++] = (byte) value.charAt(i);
+        }
+        return pos;
+    }
+}
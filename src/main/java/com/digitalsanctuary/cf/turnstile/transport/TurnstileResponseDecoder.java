@@ -0,0 +1,395 @@
+package com.digitalsanctuary.cf.turnstile.transport;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileResponse;
+
+/**
+ * Minimal streaming decoder for Cloudflare siteverify JSON responses.
+ * <p>
+ * Neither siteverify path goes through a Jackson {@code ObjectMapper}: this decoder reads the raw UTF-8 response bytes in a single pass and maps them
+ * onto a {@link TurnstileResponse}. Only {@code success}, {@code challenge_ts}, {@code hostname} and {@code error-codes} are read; any other member
+ * (for example {@code action}, {@code cdata} or {@code metadata}) is skipped without being materialized. Skipped values are still checked: literals
+ * and numbers must be valid JSON, and containers may nest at most {@value #MAX_DEPTH} levels deep, so a hostile body is rejected as malformed
+ * instead of being accepted or exhausting the stack.
+ * </p>
+ * <p>
+ * Member names and error codes are compared against their expected bytes in place. Known error codes are returned as the shared strings of
+ * {@link TurnstileErrorCode}, an empty code list as a shared empty list and a single known code as {@link TurnstileErrorCode#asList()}, so decoding
+ * a typical response allocates only the response object and its {@code challenge_ts} and {@code hostname} strings. Unknown codes are decoded into
+ * new strings and round-trip unchanged.
+ * </p>
+ */
+public final class TurnstileResponseDecoder {
+
+    /**
+     * The deepest nesting of objects and arrays accepted, counting the response object itself.
+     */
+    static final int MAX_DEPTH = 32;
+
+    private static final byte[] SUCCESS = ascii("success");
+    private static final byte[] CHALLENGE_TS = ascii("challenge_ts");
+    private static final byte[] HOSTNAME = ascii("hostname");
+    private static final byte[] ERROR_CODES = ascii("error-codes");
+    private static final TurnstileErrorCode[] KNOWN_CODES = TurnstileErrorCode.values();
+    private static final byte[][] KNOWN_CODE_BYTES = new byte[KNOWN_CODES.length][];
+
+    static {
+        for (TurnstileErrorCode code : KNOWN_CODES) {
+            KNOWN_CODE_BYTES[code.ordinal()] = ascii(code.getCode());
+        }
+    }
+
+    private final byte[] json;
+    private int pos;
+
+    // Bounds of the last string scanned by scanString(), excluding the quotes
+    private int stringStart;
+    private int stringEnd;
+    private boolean stringEscaped;
+
+    private TurnstileResponseDecoder(byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * Decodes a siteverify response body.
+     *
+     * @param json the response body, may be null or blank
+     * @return the decoded response, or null if the body is null or blank
+     * @throws IllegalArgumentException if the body is not a well-formed JSON object
+     */
+    public static TurnstileResponse decode(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        return decodeUtf8(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a siteverify response body from its UTF-8 bytes.
+     *
+     * @param json the response body, may be null or blank
+     * @return the decoded response, or null if the body is null or blank
+     * @throws IllegalArgumentException if the body is not a well-formed JSON object
+     */
+    public static TurnstileResponse decodeUtf8(byte[] json) {
+        if (json == null) {
+            return null;
+        }
+        TurnstileResponseDecoder decoder = new TurnstileResponseDecoder(json);
+        if (decoder.skipWhitespace() == json.length) {
+            return null;
+        }
+        return decoder.readResponse();
+    }
+
+    private TurnstileResponse readResponse() {
+        TurnstileResponse response = new TurnstileResponse();
+        expect('{');
+        if (peek() == '}') {
+            pos++;
+            return response;
+        }
+        do {
+            scanString();
+            expect(':');
+            if (stringMatches(SUCCESS)) {
+                response.setSuccess(readBoolean());
+            } else if (stringMatches(CHALLENGE_TS)) {
+                response.setChallengeTs(readNullableString());
+            } else if (stringMatches(HOSTNAME)) {
+                response.setHostname(readNullableString());
+            } else if (stringMatches(ERROR_CODES)) {
+                response.setErrorCodes(readErrorCodes());
+            } else {
+                skipValue(1);
+            }
+        } while (consumeComma());
+        expect('}');
+        if (skipWhitespace() != json.length) {
+            throw error("unexpected content after response object");
+        }
+        return response;
+    }
+
+    private boolean readBoolean() {
+        skipWhitespace();
+        if (consumeLiteral("true")) {
+            return true;
+        }
+        if (consumeLiteral("false")) {
+            return false;
+        }
+        throw error("boolean expected");
+    }
+
+    private String readNullableString() {
+        skipWhitespace();
+        if (consumeLiteral("null")) {
+            return null;
+        }
+        scanString();
+        return stringValue();
+    }
+
+    private List<String> readErrorCodes() {
+        skipWhitespace();
+        if (consumeLiteral("null")) {
+            return null;
+        }
+        expect('[');
+        if (peek() == ']') {
+            pos++;
+            return Collections.emptyList();
+        }
+        String first = readErrorCode();
+        if (!consumeComma()) {
+            expect(']');
+            TurnstileErrorCode known = TurnstileErrorCode.fromCode(first);
+            return known != null ? known.asList() : Collections.singletonList(first);
+        }
+        List<String> codes = new ArrayList<>(4);
+        codes.add(first);
+        do {
+            codes.add(readErrorCode());
+        } while (consumeComma());
+        expect(']');
+        return Collections.unmodifiableList(codes);
+    }
+
+    private String readErrorCode() {
+        scanString();
+        for (int i = 0; i < KNOWN_CODE_BYTES.length; i++) {
+            if (stringMatches(KNOWN_CODE_BYTES[i])) {
+                return KNOWN_CODES[i].getCode();
+            }
+        }
+        return stringValue();
+    }
+
+    /**
+     * Advances past a JSON string, recording its bounds and whether it contains escapes, without materializing it.
+     */
+    private void scanString() {
+        expect('"');
+        stringStart = pos;
+        stringEscaped = false;
+        while (pos < json.length) {
+            byte b = json[pos++];
+            if (b == '"') {
+                stringEnd = pos - 1;
+                return;
+            }
+            if (b == '\\') {
+                stringEscaped = true;
+                if (pos >= json.length) {
+                    throw error("unterminated escape");
+                }
+                pos++;
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    private boolean stringMatches(byte[] expected) {
+        if (stringEscaped || stringEnd - stringStart != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (json[stringStart + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String stringValue() {
+        String raw = new String(json, stringStart, stringEnd - stringStart, StandardCharsets.UTF_8);
+        return stringEscaped ? unescape(raw, stringStart) : raw;
+    }
+
+    private String unescape(String raw, int offset) {
+        StringBuilder sb = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char escape = raw.charAt(++i);
+            switch (escape) {
+                case '"', '\\', '/' -> sb.append(escape);
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (i + 5 > raw.length()) {
+                        throw error(offset, "truncated unicode escape");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(raw, i + 1, i + 5, 16));
+                    } catch (NumberFormatException e) {
+                        throw error(offset, "invalid unicode escape");
+                    }
+                    i += 4;
+                }
+                default -> throw error(offset, "invalid escape");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Skips a value of a member the response does not map.
+     *
+     * @param depth the nesting depth of the container holding the value
+     */
+    private void skipValue(int depth) {
+        byte b = peek();
+        switch (b) {
+            case '"' -> scanString();
+            case '{' -> skipContainer('{', '}', depth + 1);
+            case '[' -> skipContainer('[', ']', depth + 1);
+            case 't' -> skipLiteral("true");
+            case 'f' -> skipLiteral("false");
+            case 'n' -> skipLiteral("null");
+            default -> skipNumber();
+        }
+    }
+
+    private void skipContainer(char open, char close, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw error("nesting deeper than " + MAX_DEPTH + " levels");
+        }
+        expect(open);
+        if (peek() == close) {
+            pos++;
+            return;
+        }
+        do {
+            if (open == '{') {
+                scanString();
+                expect(':');
+            }
+            skipValue(depth);
+        } while (consumeComma());
+        expect(close);
+    }
+
+    private void skipLiteral(String literal) {
+        if (!consumeLiteral(literal) || (pos < json.length && !isValueEnd(json[pos]))) {
+            throw error("invalid literal");
+        }
+    }
+
+    /**
+     * Skips a number, following the JSON grammar: an optional minus sign, an integer part without leading zeros, and optional fraction and
+     * exponent parts.
+     */
+    private void skipNumber() {
+        int start = pos;
+        if (pos < json.length && json[pos] == '-') {
+            pos++;
+        }
+        if (pos < json.length && json[pos] == '0') {
+            pos++;
+        } else if (skipDigits() == 0) {
+            throw error(start, "value expected");
+        }
+        if (pos < json.length && json[pos] == '.') {
+            pos++;
+            if (skipDigits() == 0) {
+                throw error(start, "invalid number");
+            }
+        }
+        if (pos < json.length && (json[pos] == 'e' || json[pos] == 'E')) {
+            pos++;
+            if (pos < json.length && (json[pos] == '+' || json[pos] == '-')) {
+                pos++;
+            }
+            if (skipDigits() == 0) {
+                throw error(start, "invalid number");
+            }
+        }
+        if (pos < json.length && !isValueEnd(json[pos])) {
+            throw error(start, "invalid number");
+        }
+    }
+
+    private int skipDigits() {
+        int start = pos;
+        while (pos < json.length && json[pos] >= '0' && json[pos] <= '9') {
+            pos++;
+        }
+        return pos - start;
+    }
+
+    private boolean consumeLiteral(String literal) {
+        if (pos + literal.length() > json.length) {
+            return false;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            if (json[pos + i] != literal.charAt(i)) {
+                return false;
+            }
+        }
+        pos += literal.length();
+        return true;
+    }
+
+    private boolean consumeComma() {
+        if (peek() == ',') {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char expected) {
+        if (peek() != expected) {
+            throw error("'" + expected + "' expected");
+        }
+        pos++;
+    }
+
+    private byte peek() {
+        skipWhitespace();
+        if (pos >= json.length) {
+            throw error("unexpected end of input");
+        }
+        return json[pos];
+    }
+
+    private int skipWhitespace() {
+        while (pos < json.length && isWhitespace(json[pos])) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean isValueEnd(byte b) {
+        return b == ',' || b == '}' || b == ']' || isWhitespace(b);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private IllegalArgumentException error(String message) {
+        return error(pos, message);
+    }
+
+    private static IllegalArgumentException error(int offset, String message) {
+        return new IllegalArgumentException("Malformed siteverify response at offset " + offset + ": " + message);
+    }
+}
@@ -0,0 +1,150 @@
+package com.digitalsanctuary.cf.test.turnstile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.TokenRequest;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
+import com.digitalsanctuary.cf.turnstile.metrics.MicrometerTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.LatencyDistribution;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for {@link TurnstileValidationService#validateAll(java.util.Collection)} and its asynchronous and callback variants.
+ */
+class BatchValidationTest {
+
+    private static List<TokenRequest> tokens(int count) {
+        List<TokenRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requests.add(new TokenRequest("token-" + i + "-0123456789012345678901234567890", "10.0.0." + i));
+        }
+        return requests;
+    }
+
+    @Test
+    void returnsResultsInRequestOrder() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getBatch().setParallelism(1);
+            simulator.enqueue(200, "{\"success\":true,\"error-codes\":[]}");
+            simulator.enqueue(200, "{\"success\":false,\"error-codes\":[\"invalid-input-response\"]}");
+            simulator.enqueue(500, "{}");
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            TurnstileValidationService service = simulator.service(properties, new MicrometerTurnstileMetrics(registry));
+
+            List<TokenRequest> requests = new ArrayList<>(tokens(3));
+            requests.add(1, TokenRequest.of(null));
+            List<ValidationResult> results = service.validateAll(requests);
+
+            assertEquals(List.of(ValidationResultType.SUCCESS, ValidationResultType.INPUT_ERROR, ValidationResultType.INVALID_TOKEN,
+                    ValidationResultType.NETWORK_ERROR), results.stream().map(ValidationResult::getResultType).toList());
+            assertEquals(List.of("invalid-input-response"), results.get(2).getErrorCodes());
+            assertEquals(4, service.getValidationCount());
+            assertEquals(3, simulator.requestCount());
+            assertEquals(1, registry.get("turnstile.batch.size").summary().count());
+            assertEquals(4.0, registry.get("turnstile.batch.size").summary().totalAmount());
+            assertEquals(1, registry.get("turnstile.batch.duration").timer().count());
+        }
+    }
+
+    @Test
+    void boundsValidationsInFlight() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            simulator.hold();
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getBatch().setParallelism(3);
+            TurnstileValidationService service = simulator.service(properties);
+
+            CompletableFuture<List<ValidationResult>> batch = service.validateAllAsync(tokens(7));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (simulator.requestCount() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            assertEquals(3, simulator.requestCount());
+
+            simulator.release();
+            List<ValidationResult> results = batch.join();
+            assertEquals(7, results.size());
+            assertTrue(results.stream().allMatch(ValidationResult::isSuccess));
+            assertEquals(7, simulator.requestCount());
+        }
+    }
+
+    @Test
+    void overlapsRoundTrips() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            simulator.setLatency(LatencyDistribution.fixed(Duration.ofMillis(200)));
+            TurnstileValidationService service = simulator.service(simulator.properties());
+
+            long start = System.nanoTime();
+            List<ValidationResult> results = service.validateAll(tokens(8));
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            assertTrue(results.stream().allMatch(ValidationResult::isSuccess));
+            assertTrue(elapsedMillis < 1200, "8 validations of 200ms each took " + elapsedMillis + "ms");
+        }
+    }
+
+    @Test
+    void callbackReceivesEveryResultWithItsIndex() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileValidationService service = simulator.service(simulator.properties());
+            List<TokenRequest> requests = new ArrayList<>(tokens(4));
+            requests.add(TokenRequest.of(" "));
+            Map<Integer, ValidationResultType> received = new ConcurrentHashMap<>();
+
+            service.validateAll(requests, (result, index) -> received.put(index, result.getResultType())).join();
+
+            assertEquals(5, received.size());
+            assertEquals(ValidationResultType.INPUT_ERROR, received.get(4));
+            assertEquals(ValidationResultType.SUCCESS, received.get(0));
+        }
+    }
+
+    @Test
+    void callbackFailureCompletesBatchExceptionally() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileValidationService service = simulator.service(simulator.properties());
+            List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+
+            CompletableFuture<Void> batch = service.validateAll(tokens(3), (result, index) -> {
+                seen.add(index);
+                throw new IllegalStateException("boom");
+            });
+
+            CompletionException e = assertThrows(CompletionException.class, batch::join);
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals(3, seen.size());
+        }
+    }
+
+    @Test
+    void handlesLargeBatchOfLocallyRejectedTokens() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getBatch().setParallelism(1);
+            List<TokenRequest> requests = Collections.nCopies(50_000, TokenRequest.of(""));
+
+            List<ValidationResult> results = simulator.service(properties).validateAll(requests);
+
+            assertEquals(50_000, results.size());
+            assertTrue(results.stream().allMatch(result -> result.getResultType() == ValidationResultType.INPUT_ERROR));
+            assertEquals(List.of(), simulator.service(properties).validateAll(List.of()));
+        }
+    }
+}
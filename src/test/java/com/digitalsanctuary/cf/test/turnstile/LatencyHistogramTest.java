@@ -0,0 +1,94 @@
+package com.digitalsanctuary.cf.test.turnstile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.cf.turnstile.metrics.LatencyHistogram;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.LatencyDistribution;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+
+/**
+ * Tests for {@link LatencyHistogram} and the response time percentiles of {@link TurnstileValidationService}.
+ */
+class LatencyHistogramTest {
+
+    private static final String TOKEN = "0123456789012345678901234567890123456789";
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 50, "expected about " + expected + " but got " + actual);
+    }
+
+    @Test
+    void reportsPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(99));
+
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(100_000, histogram.count());
+        assertWithin(50_000_000, histogram.percentile(50));
+        assertWithin(90_000_000, histogram.percentile(90));
+        assertWithin(99_000_000, histogram.percentile(99));
+        assertWithin(99_900_000, histogram.percentile(99.9));
+        assertEquals(100_000_000, histogram.max());
+        assertEquals(100_000_000, histogram.percentile(100));
+    }
+
+    @Test
+    void keepsSmallAndHugeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(42);
+        histogram.record(Duration.ofHours(1).toNanos());
+
+        assertEquals(0, histogram.percentile(1));
+        assertEquals(42, histogram.percentile(50));
+        assertEquals(Duration.ofHours(1).toNanos(), histogram.percentile(100));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(101));
+    }
+
+    @Test
+    void countsConcurrentRecordsWithoutLoss() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(800_000, histogram.count());
+        assertEquals(99_999, histogram.max());
+    }
+
+    @Test
+    void serviceReportsResponseTimePercentiles() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            simulator.setLatency(LatencyDistribution.fixed(Duration.ofMillis(20)));
+            TurnstileValidationService service = simulator.service(simulator.properties());
+            assertEquals(0, service.getResponseTimePercentile(50));
+
+            for (int i = 0; i < 5; i++) {
+                assertTrue(service.validateTurnstileResponseDetailed(i + TOKEN).isSuccess());
+            }
+
+            assertTrue(service.getResponseTimePercentile(50) >= 20, "p50 " + service.getResponseTimePercentile(50));
+            assertTrue(service.getMaxResponseTime() >= service.getResponseTimePercentile(99));
+            assertEquals(service.getMaxResponseTime(), service.getResponseTimePercentile(100));
+        }
+    }
+}
@@ -76,6 +76,80 @@ class MicrometerTurnstileMetricsTest {
         assertEquals(2L, registry.timer("turnstile.validation.response.time").count());
     }
 
+    @Test
+    void recordCoalesced_incrementsCoalescedCounter() {
+        metrics.recordCoalesced();
+        assertEquals(1.0, registry.counter("turnstile.validation.coalesced").count());
+    }
+
+    @Test
+    void cacheEvents_routeToCacheMeters() {
+        metrics.recordCacheHit();
+        metrics.recordCacheMiss();
+        metrics.recordCacheMiss();
+        metrics.recordCacheEviction("expired");
+        metrics.recordCacheEviction("size");
+        metrics.recordCacheEviction("size");
+        metrics.registerGauge("turnstile.cache.size", "size", () -> 7);
+
+        assertEquals(1.0, registry.counter("turnstile.cache.hits").count());
+        assertEquals(2.0, registry.counter("turnstile.cache.misses").count());
+        assertEquals(1.0, registry.counter("turnstile.cache.evictions", "cause", "expired").count());
+        assertEquals(2.0, registry.counter("turnstile.cache.evictions", "cause", "size").count());
+        assertEquals(7.0, registry.get("turnstile.cache.size").gauge().value());
+    }
+
+    @Test
+    void circuitEvents_routeToCircuitMeters() {
+        metrics.recordCircuitRejected(true);
+        metrics.recordCircuitRejected(false);
+        metrics.recordCircuitRejected(false);
+        metrics.recordCircuitStateChange("open");
+
+        assertEquals(1.0, registry.counter("turnstile.circuit.rejected", "fallback", "fail_open").count());
+        assertEquals(2.0, registry.counter("turnstile.circuit.rejected", "fallback", "fail_closed").count());
+        assertEquals(1.0, registry.counter("turnstile.circuit.transitions", "state", "open").count());
+    }
+
+    @Test
+    void retryEvents_routeToRetryMeters() {
+        metrics.recordRetry("connect_failure");
+        metrics.recordRetry("server_error");
+        metrics.recordRetry("server_error");
+        metrics.recordRetry("internal_error");
+        metrics.recordRetryRecovered();
+        metrics.recordRetryExhausted();
+
+        assertEquals(1.0, registry.counter("turnstile.retry.attempts", "reason", "connect_failure").count());
+        assertEquals(2.0, registry.counter("turnstile.retry.attempts", "reason", "server_error").count());
+        assertEquals(1.0, registry.counter("turnstile.retry.attempts", "reason", "internal_error").count());
+        assertEquals(1.0, registry.counter("turnstile.retry.recovered").count());
+        assertEquals(1.0, registry.counter("turnstile.retry.exhausted").count());
+    }
+
+    @Test
+    void transportEvents_routeToTransportMeters() {
+        metrics.recordTransportRequest("http_2");
+        metrics.recordTransportRequest("http_2");
+        metrics.recordTransportRequest("http_1_1");
+        metrics.recordTransportConnection();
+
+        assertEquals(2.0, registry.counter("turnstile.transport.requests", "version", "http_2").count());
+        assertEquals(1.0, registry.counter("turnstile.transport.requests", "version", "http_1_1").count());
+        assertEquals(1.0, registry.counter("turnstile.transport.connections").count());
+    }
+
+    @Test
+    void warmupEvents_routeToWarmupMeters() {
+        metrics.recordWarmup(120L, true);
+        metrics.recordWarmup(30000L, false);
+        metrics.recordFirstResponseTime(80L);
+
+        assertEquals(1L, registry.timer("turnstile.warmup.duration", "outcome", "completed").count());
+        assertEquals(1L, registry.timer("turnstile.warmup.duration", "outcome", "timed_out").count());
+        assertEquals(1L, registry.timer("turnstile.validation.first.response.time").count());
+    }
+
     @Test
     void constructor_rejectsNullRegistry() {
         assertThrows(NullPointerException.class, () -> new MicrometerTurnstileMetrics(null));
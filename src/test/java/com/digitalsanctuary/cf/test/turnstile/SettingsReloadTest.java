@@ -0,0 +1,193 @@
+package com.digitalsanctuary.cf.test.turnstile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import com.digitalsanctuary.cf.turnstile.config.SiteverifySettings;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileSettingsReloader;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileConfigurationException;
+import com.digitalsanctuary.cf.turnstile.metrics.MicrometerTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for reloading the Turnstile keys and URL through {@link TurnstileValidationService#applySettings(SiteverifySettings)} and
+ * {@link TurnstileSettingsReloader}.
+ */
+class SettingsReloadTest {
+
+    private static final String TOKEN = "token-0123456789012345678901234567890";
+    private static final String OLD_SECRET = SiteverifySimulator.DEFAULT_SECRET;
+    private static final String NEW_SECRET = "0x4AAAAAAANewSecretValue";
+    private static final String INVALID_SECRET = "{\"success\":false,\"error-codes\":[\"invalid-input-secret\"]}";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rotatedSecretFallsBackToPreviousDuringOverlap() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).recordRequests().start()) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            TurnstileValidationService service = simulator.service(simulator.properties(), new MicrometerTurnstileMetrics(registry));
+
+            assertTrue(service.applySettings(SiteverifySettings.of("sitekey", NEW_SECRET, simulator.url())));
+            assertEquals(NEW_SECRET, service.getSettings().getSecret());
+            assertEquals(OLD_SECRET, service.getSettings().getPreviousSecret(System.nanoTime()));
+
+            simulator.enqueue(200, INVALID_SECRET);
+            assertTrue(service.validateTurnstileResponse(TOKEN, "10.0.0.1"));
+            simulator.enqueue(200, INVALID_SECRET);
+            assertTrue(service.validateAsync(TOKEN, "10.0.0.2").join().isSuccess());
+
+            assertEquals(4, simulator.requestCount());
+            assertTrue(simulator.requestBodies().get(0).contains(NEW_SECRET));
+            assertTrue(simulator.requestBodies().get(1).contains(OLD_SECRET));
+            assertTrue(simulator.requestBodies().get(2).contains(NEW_SECRET));
+            assertTrue(simulator.requestBodies().get(3).contains(OLD_SECRET));
+            assertEquals(2.0, registry.get("turnstile.settings.previous.secret").counter().count());
+            assertEquals(1.0, registry.get("turnstile.settings.reloads").tag("outcome", "applied").counter().count());
+            // The sitekey served to pages follows the snapshot
+            assertEquals("sitekey", service.getTurnstileSitekey());
+        }
+    }
+
+    @Test
+    void zeroOverlapSwitchesSecretAtOnce() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getReload().setSecretOverlap(Duration.ZERO);
+            TurnstileValidationService service = simulator.service(properties);
+
+            assertTrue(service.applySettings(SiteverifySettings.of(null, NEW_SECRET, simulator.url())));
+            assertNull(service.getSettings().getPreviousSecret(System.nanoTime()));
+
+            simulator.enqueue(200, INVALID_SECRET);
+            assertFalse(service.validateTurnstileResponse(TOKEN, "10.0.0.1"));
+            assertEquals(1, simulator.requestCount());
+        }
+    }
+
+    @Test
+    void incompleteSettingsAreRejected() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            TurnstileValidationService service = simulator.service(simulator.properties(), new MicrometerTurnstileMetrics(registry));
+            SiteverifySettings before = service.getSettings();
+
+            assertFalse(service.applySettings(SiteverifySettings.of(null, "  ", simulator.url())));
+            assertFalse(service.applySettings(SiteverifySettings.of(null, NEW_SECRET, "")));
+            assertFalse(service.applySettings(SiteverifySettings.of(null, NEW_SECRET, "http://bad host/siteverify")));
+            assertFalse(service.applySettings(SiteverifySettings.of(null, OLD_SECRET, simulator.url())), "unchanged settings are not reapplied");
+
+            assertEquals(before, service.getSettings());
+            assertEquals(3.0, registry.get("turnstile.settings.reloads").tag("outcome", "rejected").counter().count());
+            assertTrue(service.validateTurnstileResponse(TOKEN, "10.0.0.1"));
+        }
+    }
+
+    @Test
+    void unconfiguredServiceAcceptsFirstValidSettings() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.setSecret(null);
+            TurnstileValidationService service = simulator.service(properties);
+
+            CompletionException e = assertThrows(CompletionException.class, () -> service.validateAsync(TOKEN).join());
+            assertInstanceOf(TurnstileConfigurationException.class, e.getCause());
+
+            assertTrue(service.applySettings(SiteverifySettings.of(null, NEW_SECRET, simulator.url())));
+            assertNull(service.getSettings().getPreviousSecret(System.nanoTime()));
+            assertTrue(service.validateTurnstileResponse(TOKEN));
+        }
+    }
+
+    @Test
+    void reloaderBindsEnvironmentAndWritesBackProperties() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).recordRequests().start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            TurnstileValidationService service = simulator.service(properties);
+            MockEnvironment environment = new MockEnvironment().withProperty("ds.cf.turnstile.secret", OLD_SECRET)
+                    .withProperty("ds.cf.turnstile.url", simulator.url());
+            TurnstileSettingsReloader reloader = new TurnstileSettingsReloader(properties, environment, service);
+
+            assertFalse(reloader.reload());
+            environment.setProperty("ds.cf.turnstile.secret", NEW_SECRET);
+            environment.setProperty("ds.cf.turnstile.sitekey", "0x4AAAAAAANewSiteKey");
+            assertTrue(reloader.reload());
+
+            assertEquals(NEW_SECRET, service.getSettings().getSecret());
+            assertEquals(NEW_SECRET, properties.getSecret());
+            assertEquals("0x4AAAAAAANewSiteKey", properties.getSitekey());
+            assertTrue(service.validateTurnstileResponse(TOKEN));
+            assertTrue(simulator.requestBodies().get(0).contains(NEW_SECRET));
+        }
+    }
+
+    @Test
+    void watchedSecretsFileIsAppliedOnChange() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            Path secretFile = tempDir.resolve("turnstile-secret");
+            Files.writeString(secretFile, NEW_SECRET + "\n");
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getReload().setSecretsFile(secretFile.toString());
+            TurnstileValidationService service = simulator.service(properties);
+            MockEnvironment environment = new MockEnvironment().withProperty("ds.cf.turnstile.secret", OLD_SECRET)
+                    .withProperty("ds.cf.turnstile.url", simulator.url());
+            TurnstileSettingsReloader reloader = new TurnstileSettingsReloader(properties, environment, service);
+            try {
+                reloader.start();
+                assertEquals(NEW_SECRET, service.getSettings().getSecret(), "the file overrides the environment");
+
+                Files.writeString(secretFile, "0x4AAAAAAARotatedAgain");
+                awaitSecret(service, "0x4AAAAAAARotatedAgain");
+
+                // A blank file is rejected and the current secret kept
+                Files.writeString(secretFile, "");
+                Thread.sleep(500);
+                assertEquals("0x4AAAAAAARotatedAgain", service.getSettings().getSecret());
+            } finally {
+                reloader.stop();
+            }
+        }
+    }
+
+    @Test
+    void propertiesSecretsFileCanSetUrl() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).recordRequests().start()) {
+            Path secretFile = tempDir.resolve("turnstile.properties");
+            Files.writeString(secretFile, "ds.cf.turnstile.secret=" + NEW_SECRET + "\nurl=" + simulator.url() + "\n");
+            TurnstileConfigProperties properties = new TurnstileConfigProperties();
+            properties.getReload().setSecretsFile(secretFile.toString());
+            TurnstileValidationService service = simulator.service(properties);
+            TurnstileSettingsReloader reloader = new TurnstileSettingsReloader(properties, new MockEnvironment(), service);
+            try {
+                reloader.start();
+                assertEquals(simulator.url(), service.getSettings().getUrl());
+                assertTrue(service.validateTurnstileResponse(TOKEN));
+                assertTrue(simulator.requestBodies().get(0).contains(NEW_SECRET));
+            } finally {
+                reloader.stop();
+            }
+        }
+    }
+
+    private static void awaitSecret(TurnstileValidationService service, String secret) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!secret.equals(service.getSettings().getSecret()) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(secret, service.getSettings().getSecret());
+    }
+}
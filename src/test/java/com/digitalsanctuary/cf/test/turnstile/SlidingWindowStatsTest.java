@@ -0,0 +1,97 @@
+package com.digitalsanctuary.cf.test.turnstile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
+import com.digitalsanctuary.cf.turnstile.metrics.SlidingWindowStats;
+
+/**
+ * Tests for {@link SlidingWindowStats}.
+ */
+class SlidingWindowStatsTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private final SlidingWindowStats stats = new SlidingWindowStats(Duration.ofSeconds(60), 60, Duration.ofMillis(500), clock::get);
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    void reportsRatesPerResultType() {
+        for (int i = 0; i < 6; i++) {
+            stats.record(ValidationResultType.SUCCESS);
+        }
+        stats.record(ValidationResultType.NETWORK_ERROR);
+        stats.record(ValidationResultType.INPUT_ERROR);
+        stats.record(ValidationResultType.INPUT_ERROR);
+        stats.record(ValidationResultType.BLOCKED);
+
+        SlidingWindowStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(Duration.ofSeconds(60), snapshot.getWindow());
+        assertEquals(10, snapshot.getTotal());
+        assertEquals(2, snapshot.getCount(ValidationResultType.INPUT_ERROR));
+        assertEquals(60.0, snapshot.getRate(ValidationResultType.SUCCESS));
+        assertEquals(10.0, snapshot.getRate(ValidationResultType.NETWORK_ERROR));
+        assertEquals(0.0, snapshot.getRate(ValidationResultType.OVERLOADED));
+    }
+
+    @Test
+    void forgetsValidationsOlderThanTheWindow() {
+        stats.record(ValidationResultType.NETWORK_ERROR);
+        advance(Duration.ofSeconds(30));
+        stats.record(ValidationResultType.SUCCESS);
+        assertEquals(2, stats.snapshot().getTotal());
+
+        advance(Duration.ofSeconds(30));
+        SlidingWindowStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(1, snapshot.getTotal());
+        assertEquals(0, snapshot.getCount(ValidationResultType.NETWORK_ERROR));
+
+        // The bucket of the first error is reused and starts from zero
+        stats.record(ValidationResultType.SUCCESS);
+        assertEquals(2, stats.snapshot().getTotal());
+
+        advance(Duration.ofMinutes(10));
+        assertEquals(0, stats.snapshot().getTotal());
+        assertEquals(0.0, stats.snapshot().getRate(ValidationResultType.SUCCESS));
+    }
+
+    @Test
+    void reportsRecentResponseTimes() {
+        stats.recordResponseTime(Duration.ofMillis(100).toNanos());
+        stats.recordResponseTime(Duration.ofMillis(200).toNanos());
+        stats.recordResponseTime(Duration.ofMillis(400).toNanos());
+        stats.recordResponseTime(Duration.ofMillis(900).toNanos());
+
+        SlidingWindowStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(4, snapshot.getResponseCount());
+        assertEquals(400.0, snapshot.getAverageResponseTime());
+        assertEquals(900.0, snapshot.getMaxResponseTime());
+        assertEquals(25.0, snapshot.getSlowCallRate());
+
+        advance(Duration.ofSeconds(61));
+        stats.recordResponseTime(Duration.ofMillis(50).toNanos());
+        snapshot = stats.snapshot();
+        assertEquals(1, snapshot.getResponseCount());
+        assertEquals(50.0, snapshot.getMaxResponseTime());
+        assertEquals(0.0, snapshot.getSlowCallRate());
+    }
+
+    @Test
+    void countsNoSlowCallsWithoutDuration() {
+        SlidingWindowStats withoutSlowCalls = new SlidingWindowStats(Duration.ofSeconds(10), 10, null, clock::get);
+        withoutSlowCalls.recordResponseTime(Duration.ofMinutes(5).toNanos());
+
+        assertEquals(0.0, withoutSlowCalls.snapshot().getSlowCallRate());
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowStats(Duration.ofSeconds(60), 0, null));
+        assertThrows(IllegalArgumentException.class, () -> new SlidingWindowStats(Duration.ZERO, 10, null));
+    }
+}
@@ -0,0 +1,103 @@
+package com.digitalsanctuary.cf.test.turnstile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.InputErrorReason;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
+import com.digitalsanctuary.cf.turnstile.metrics.MicrometerTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for the {@code ds.cf.turnstile.pre-validation.*} structural token checks, which reject malformed tokens before any siteverify call.
+ */
+class TokenPreValidationTest {
+
+    private static final String TOKEN = "0.AbCdEfGh-IjKl_MnOp.0123456789+/=";
+
+    private static ValidationResult validate(SiteverifySimulator simulator, TurnstileConfigProperties properties, String token) {
+        return simulator.service(properties).validateTurnstileResponseDetailed(token, "10.0.0.1");
+    }
+
+    @Test
+    void rejectsOversizedTokenWithoutNetworkCall() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            ValidationResult result = validate(simulator, simulator.properties(), "a".repeat(2049));
+
+            assertEquals(ValidationResultType.INPUT_ERROR, result.getResultType());
+            assertEquals(InputErrorReason.TOO_LONG, result.getInputErrorReason());
+            assertEquals(0, simulator.requestCount());
+        }
+    }
+
+    @Test
+    void rejectsIllegalCharacters() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getPreValidation().setEnabled(true);
+
+            assertEquals(InputErrorReason.ILLEGAL_CHARACTER, validate(simulator, properties, TOKEN + "<script>").getInputErrorReason());
+            assertEquals(InputErrorReason.ILLEGAL_CHARACTER, validate(simulator, properties, TOKEN + " x").getInputErrorReason());
+            assertEquals(InputErrorReason.ILLEGAL_CHARACTER, validate(simulator, properties, TOKEN + "\u00e9").getInputErrorReason());
+            assertEquals(0, simulator.requestCount());
+        }
+    }
+
+    @Test
+    void checksConfiguredPrefixes() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getPreValidation().setEnabled(true);
+            properties.getPreValidation().setAllowedPrefixes(List.of("0.", "1."));
+
+            assertEquals(InputErrorReason.BAD_PREFIX, validate(simulator, properties, "2." + TOKEN).getInputErrorReason());
+            assertEquals(0, simulator.requestCount());
+            assertTrue(validate(simulator, properties, TOKEN).isSuccess());
+            assertEquals(1, simulator.requestCount());
+        }
+    }
+
+    @Test
+    void defaultsOnlyApplyLengthChecks() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+
+            assertTrue(validate(simulator, properties, TOKEN + "<>").isSuccess());
+            ValidationResult shortToken = validate(simulator, properties, "short");
+            assertEquals(InputErrorReason.TOO_SHORT, shortToken.getInputErrorReason());
+            assertEquals("Token is too short to be valid (length: 5)", shortToken.getMessage());
+            assertEquals(InputErrorReason.TOO_LONG, validate(simulator, properties, "a".repeat(2049)).getInputErrorReason());
+            assertEquals(1, simulator.requestCount());
+
+            properties.getPreValidation().setMaxLength(0);
+            assertTrue(validate(simulator, properties, "b".repeat(2049)).isSuccess());
+            assertEquals(2, simulator.requestCount());
+        }
+    }
+
+    @Test
+    void recordsReasonInMetricsAndSharesResults() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            TurnstileValidationService service = simulator.service(simulator.properties(), new MicrometerTurnstileMetrics(registry));
+
+            ValidationResult first = service.validateTurnstileResponseDetailed("x".repeat(5000), null);
+            ValidationResult second = service.validateTurnstileResponseDetailed("y".repeat(5000), null);
+            service.validateTurnstileResponseDetailed(null, null);
+
+            assertSame(first, second);
+            assertEquals(2.0, registry.counter("turnstile.validation.input.rejected", "reason", "too_long").count());
+            assertEquals(1.0, registry.counter("turnstile.validation.input.rejected", "reason", "missing").count());
+            assertEquals(3.0, registry.counter("turnstile.validation.errors.input").count());
+            assertEquals(3, service.getInputErrorCount());
+            assertNull(ValidationResult.success().getInputErrorReason());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.digitalsanctuary.cf.test.turnstile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+
+import com.digitalsanctuary.cf.turnstile.TurnstileConfiguration;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties.Execution;
+import com.digitalsanctuary.cf.turnstile.transport.VirtualThreads;
+
+/**
+ * Verifies {@code ds.cf.turnstile.execution}: the default keeps the HttpClient's own executor, and {@code virtual-threads} switches it to virtual
+ * threads on JDK 21+ while falling back to the default on older runtimes. Runs under both the testJdk17 and testJdk21 tasks.
+ */
+class TurnstileExecutionModeTest {
+
+    private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner().withConfiguration(
+            AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class, TurnstileConfiguration.class));
+
+    @Test
+    void platformModeIsDefault() {
+        contextRunner.run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context.getBean(TurnstileConfigProperties.class).getExecution()).isEqualTo(Execution.PLATFORM);
+            assertThat(context.getBean("turnstileHttpClient", HttpClient.class).executor()).isEmpty();
+        });
+    }
+
+    @Test
+    void virtualThreadModeUsesVirtualThreadsWhenSupported() {
+        contextRunner.withPropertyValues("ds.cf.turnstile.execution=virtual-threads").run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context.getBean(TurnstileConfigProperties.class).getExecution()).isEqualTo(Execution.VIRTUAL_THREADS);
+
+            HttpClient httpClient = context.getBean("turnstileHttpClient", HttpClient.class);
+            if (Runtime.version().feature() < 21) {
+                assertThat(VirtualThreads.isSupported()).isFalse();
+                assertThat(httpClient.executor()).isEmpty();
+                return;
+            }
+            assertThat(VirtualThreads.isSupported()).isTrue();
+            assertThat(httpClient.executor()).isPresent();
+            assertThat(runsOnVirtualThread(httpClient.executor().get())).isTrue();
+        });
+    }
+
+    @Test
+    void virtualThreadExecutorAvailabilityMatchesRuntime() {
+        assertThat(VirtualThreads.newVirtualThreadPerTaskExecutor().isPresent()).isEqualTo(Runtime.version().feature() >= 21);
+    }
+
+    private static boolean runsOnVirtualThread(Executor executor) throws Exception {
+        CompletableFuture<Boolean> isVirtual = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                isVirtual.complete((Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+            } catch (ReflectiveOperationException e) {
+                isVirtual.completeExceptionally(e);
+            }
+        });
+        return isVirtual.get();
+    }
+}
@@ -3,6 +3,8 @@ package com.digitalsanctuary.cf.test.turnstile;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import org.assertj.core.api.InstanceOfAssertFactories;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,8 +15,11 @@ import org.mockito.quality.Strictness;
 import org.springframework.boot.health.contributor.Health;
 import org.springframework.boot.health.contributor.Status;
 
+import com.digitalsanctuary.cf.turnstile.config.SiteverifySettings;
 import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
 import com.digitalsanctuary.cf.turnstile.config.TurnstileHealthIndicator;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
+import com.digitalsanctuary.cf.turnstile.metrics.SlidingWindowStats;
 import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
 
 /**
@@ -30,13 +35,25 @@ class TurnstileHealthIndicatorTest {
 
     private TurnstileConfigProperties properties;
     private TurnstileHealthIndicator healthIndicator;
+    private SlidingWindowStats recentStats;
+
+    private static final String URL = "https://challenges.cloudflare.com/turnstile/v0/siteverify";
 
     @BeforeEach
     void setUp() {
         properties = new TurnstileConfigProperties();
         properties.setSecret("0x4AAAAAAARealLookingSecretValue");
-        properties.setUrl("https://challenges.cloudflare.com/turnstile/v0/siteverify");
+        properties.setUrl(URL);
+        when(validationService.getSettings()).thenReturn(SiteverifySettings.from(properties));
         healthIndicator = new TurnstileHealthIndicator(validationService, properties);
+        recentStats = new SlidingWindowStats(Duration.ofSeconds(60), 60, Duration.ofSeconds(1));
+        when(validationService.getRecentStats()).thenAnswer(invocation -> recentStats.snapshot());
+    }
+
+    private void recordRecent(ValidationResultType type, int count) {
+        for (int i = 0; i < count; i++) {
+            recentStats.record(type);
+        }
     }
 
     @Test
@@ -61,7 +78,8 @@ class TurnstileHealthIndicatorTest {
 
     @Test
     void reportsDownWithReasonOnlyWhenSecretIsMissing() {
-        properties.setSecret("  ");
+        // The service's current settings are checked, not the properties, which a reload may have moved on from
+        when(validationService.getSettings()).thenReturn(SiteverifySettings.of(null, "  ", URL));
 
         Health health = healthIndicator.health();
 
@@ -74,12 +92,108 @@ class TurnstileHealthIndicatorTest {
 
     @Test
     void reportsDownWhenErrorRateExceedsThreshold() {
-        when(validationService.getErrorRate()).thenReturn(50.0);
+        recordRecent(ValidationResultType.SUCCESS, 10);
+        recordRecent(ValidationResultType.NETWORK_ERROR, 10);
         when(validationService.isUsingTestCredentials()).thenReturn(false);
 
         Health health = healthIndicator.health();
 
         assertThat(health.getStatus()).isEqualTo(Status.DOWN);
-        assertThat(health.getDetails()).containsEntry("usingTestCredentials", false);
+        assertThat(health.getDetails()).containsEntry("usingTestCredentials", false)
+                .containsEntry("reason", "Error rate exceeded threshold: 50.00% > 10% over the last 60s");
+    }
+
+    @Test
+    void evaluatesRecentErrorsRatherThanLifetimeErrorRate() {
+        // A long healthy history does not hide an outage, and an old outage does not keep the service DOWN
+        when(validationService.getErrorRate()).thenReturn(50.0);
+        recordRecent(ValidationResultType.SUCCESS, 100);
+
+        Health health = healthIndicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("errorRate", "50.00%");
+        assertThat(health.getDetails().get("window")).asInstanceOf(InstanceOfAssertFactories.MAP)
+                .containsEntry("duration", "60s").containsEntry("validationCount", 100L).containsEntry("errorRate", "0.00%");
+    }
+
+    @Test
+    void reportsUrlOfCurrentSettings() {
+        properties.setUrl("https://stale.example.com/siteverify");
+
+        Health health = healthIndicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("url", URL);
+    }
+
+    @Test
+    void ignoresErrorsBelowMinimumRequests() {
+        recordRecent(ValidationResultType.NETWORK_ERROR, 5);
+
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+
+        properties.getMetrics().setMinimumRequests(5);
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.DOWN);
+    }
+
+    @Test
+    void staysUpDuringFloodOfClientErrors() {
+        recordRecent(ValidationResultType.SUCCESS, 10);
+        recordRecent(ValidationResultType.INPUT_ERROR, 500);
+        recordRecent(ValidationResultType.INVALID_TOKEN, 500);
+
+        Health health = healthIndicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails().get("window")).asInstanceOf(InstanceOfAssertFactories.MAP).containsEntry("errorRate", "0.00%");
+
+        // A threshold of their own still lets them turn the status DOWN
+        properties.getMetrics().getErrorThresholds().put(ValidationResultType.INVALID_TOKEN, 50);
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.DOWN);
+    }
+
+    @Test
+    void evaluatesPerTypeThresholdsSeparately() {
+        properties.getMetrics().getErrorThresholds().put(ValidationResultType.INVALID_TOKEN, 60);
+        properties.getMetrics().getErrorThresholds().put(ValidationResultType.NETWORK_ERROR, 5);
+        recordRecent(ValidationResultType.SUCCESS, 50);
+        recordRecent(ValidationResultType.INVALID_TOKEN, 50);
+
+        assertThat(healthIndicator.health().getStatus()).isEqualTo(Status.UP);
+
+        recordRecent(ValidationResultType.NETWORK_ERROR, 10);
+        Health health = healthIndicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails()).containsEntry("reason", "NETWORK_ERROR rate exceeded threshold: 9.09% > 5% over the last 60s");
+    }
+
+    @Test
+    void reportsDownWhenRecentCallsAreSlow() {
+        properties.getMetrics().setSlowCallDuration(Duration.ofSeconds(1));
+        recordRecent(ValidationResultType.SUCCESS, 20);
+        for (int i = 0; i < 20; i++) {
+            recentStats.recordResponseTime(Duration.ofMillis(i < 15 ? 100 : 2000).toNanos());
+        }
+
+        Health health = healthIndicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails()).containsEntry("reason",
+                "Slow call rate exceeded threshold: 25.00% > 10% of calls took 1000ms or more over the last 60s");
+    }
+
+    @Test
+    void reportsResponseTimePercentiles() {
+        when(validationService.getResponseTimePercentile(50)).thenReturn(12.5);
+        when(validationService.getResponseTimePercentile(99)).thenReturn(180.0);
+        when(validationService.getMaxResponseTime()).thenReturn(950.25);
+
+        Health health = healthIndicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("responseTimeP50", "12.50ms").containsEntry("responseTimeP99", "180.00ms")
+                .containsEntry("responseTimeMax", "950.25ms").containsKeys("responseTimeP90", "responseTimeP999");
     }
 }
@@ -2,8 +2,12 @@ package com.digitalsanctuary.cf.test.turnstile;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -12,6 +16,7 @@ import com.digitalsanctuary.cf.test.TestApplication;
 import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
 import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
 import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileConfigurationException;
 import com.digitalsanctuary.cf.turnstile.metrics.NoOpTurnstileMetrics;
 import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
 import lombok.extern.slf4j.Slf4j;
@@ -164,6 +169,48 @@ public class TurnstileValidationServiceTest {
         assertTrue(detailedResult.isSuccess());
     }
 
+    /**
+     * Test the non-blocking validation method.
+     * <p>
+     * The future must complete with the same successful result the blocking method returns.
+     * </p>
+     */
+    @Test
+    public void testValidateAsyncSuccess() {
+        String validLengthToken = "0123456789012345678901234567890123456789";
+
+        ValidationResult result = turnstileValidationService.validateAsync(validLengthToken, LOCALHOST_IP).join();
+        assertTrue(result.isSuccess());
+        assertEquals(ValidationResultType.SUCCESS, result.getResultType());
+    }
+
+    /**
+     * Test the non-blocking validation method with invalid input.
+     * <p>
+     * Input errors are reported as an already-completed future carrying an INPUT_ERROR result, exactly as the blocking method returns them.
+     * </p>
+     */
+    @Test
+    public void testValidateAsyncInputErrorCompletesImmediately() {
+        CompletableFuture<ValidationResult> future = turnstileValidationService.validateAsync("12345", LOCALHOST_IP);
+
+        assertTrue(future.isDone());
+        assertEquals(ValidationResultType.INPUT_ERROR, future.join().getResultType());
+    }
+
+    /**
+     * Test that the non-blocking validation method reports a missing secret as a failed future.
+     */
+    @Test
+    void testValidateAsyncConfigurationErrorFailsFuture() {
+        TurnstileValidationService service = buildServiceWithCredentials("0x4AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA", null);
+
+        CompletionException thrown = assertThrows(CompletionException.class,
+                () -> service.validateAsync("0123456789012345678901234567890123456789").join());
+        assertInstanceOf(TurnstileConfigurationException.class, thrown.getCause());
+        assertEquals(1, service.getConfigErrorCount());
+    }
+
     /**
      * Builds a standalone TurnstileValidationService backed by a fresh TurnstileConfigProperties instance with the given sitekey and secret. Used
      * to test {@code isUsingTestCredentials()} without mutating the shared autowired service/properties.
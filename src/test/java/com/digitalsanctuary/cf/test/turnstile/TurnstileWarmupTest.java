@@ -0,0 +1,82 @@
+package com.digitalsanctuary.cf.test.turnstile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import com.digitalsanctuary.cf.turnstile.TurnstileConfiguration;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileWarmup;
+import com.digitalsanctuary.cf.turnstile.metrics.MicrometerTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Verifies the opt-in startup warm-up: it is only registered when enabled, opens connections to the configured endpoint, and records whether it
+ * completed within its timeout.
+ */
+class TurnstileWarmupTest {
+
+    private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner().withConfiguration(
+            AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class, TurnstileConfiguration.class));
+
+    @Test
+    void warmupIsNotRegisteredByDefault() {
+        contextRunner.run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context).doesNotHaveBean(TurnstileWarmup.class);
+        });
+    }
+
+    @Test
+    void warmupIsRegisteredWhenEnabled() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            contextRunner.withPropertyValues("ds.cf.turnstile.warmup.enabled=true", "ds.cf.turnstile.warmup.iterations=4",
+                    "ds.cf.turnstile.url=" + simulator.url()).run(context -> {
+                        assertThat(context).hasNotFailed();
+                        TurnstileWarmup warmup = context.getBean(TurnstileWarmup.class);
+                        warmup.awaitCompletion();
+                        assertThat(warmup.isComplete()).isTrue();
+                    });
+        }
+    }
+
+    @Test
+    void warmupOpensConnectionsAndRecordsCompletion() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getWarmup().setConnections(3);
+            properties.getWarmup().setIterations(10);
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            TurnstileWarmup warmup = new TurnstileWarmup(properties, HttpClient.newHttpClient(), new MicrometerTurnstileMetrics(registry));
+
+            warmup.afterSingletonsInstantiated();
+            warmup.awaitCompletion();
+
+            assertThat(warmup.isComplete()).isTrue();
+            assertThat(simulator.requestCount()).isEqualTo(3);
+            assertThat(registry.timer("turnstile.warmup.duration", "outcome", "completed").count()).isEqualTo(1L);
+        }
+    }
+
+    @Test
+    void warmupTimeoutReleasesStartup() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            simulator.hold();
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getWarmup().setIterations(0);
+            properties.getWarmup().setTimeout(Duration.ofMillis(200));
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            TurnstileWarmup warmup = new TurnstileWarmup(properties, HttpClient.newHttpClient(), new MicrometerTurnstileMetrics(registry));
+
+            warmup.awaitCompletion();
+
+            assertThat(warmup.isComplete()).isTrue();
+            assertThat(registry.timer("turnstile.warmup.duration", "outcome", "timed_out").count()).isEqualTo(1L);
+        }
+    }
+}
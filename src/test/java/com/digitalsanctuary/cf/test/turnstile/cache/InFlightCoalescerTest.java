@@ -0,0 +1,153 @@
+package com.digitalsanctuary.cf.test.turnstile.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.cf.turnstile.cache.InFlightCoalescer;
+import com.digitalsanctuary.cf.turnstile.cache.TokenFingerprint;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+
+/**
+ * Tests for {@link InFlightCoalescer} and its use by {@link TurnstileValidationService} to share one siteverify request between concurrent
+ * validations of the same token.
+ */
+class InFlightCoalescerTest {
+
+    private static final String TOKEN = "0123456789012345678901234567890123456789";
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private SiteverifySimulator simulator;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        if (simulator != null) {
+            simulator.close();
+        }
+    }
+
+    @Test
+    void concurrentCallersShareOneExecution() throws Exception {
+        AtomicInteger coalesced = new AtomicInteger();
+        InFlightCoalescer<String, String> coalescer = new InFlightCoalescer<>(coalesced::incrementAndGet);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        Future<String> first = executor.submit(() -> coalescer.execute("key", () -> {
+            executions.incrementAndGet();
+            await(release);
+            return "result";
+        }));
+        waitUntil(() -> coalescer.size() == 1);
+        Future<String> second = executor.submit(() -> coalescer.execute("key", () -> "unused"));
+        CompletableFuture<String> third = coalescer.executeAsync("key", () -> CompletableFuture.completedFuture("unused"));
+        waitUntil(() -> coalesced.get() == 2);
+        release.countDown();
+
+        assertEquals("result", first.get(5, TimeUnit.SECONDS));
+        assertEquals("result", second.get(5, TimeUnit.SECONDS));
+        assertEquals("result", third.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+        assertEquals(0, coalescer.size());
+    }
+
+    @Test
+    void failureIsSharedAndKeyIsReleased() throws Exception {
+        InFlightCoalescer<String, String> coalescer = new InFlightCoalescer<>(() -> { });
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> owner = coalescer.executeAsync("key", () -> pending);
+        CompletableFuture<String> follower = coalescer.executeAsync("key", () -> CompletableFuture.completedFuture("unused"));
+
+        IllegalStateException failure = new IllegalStateException("boom");
+        pending.completeExceptionally(failure);
+
+        assertTrue(owner.isCompletedExceptionally());
+        assertTrue(follower.isCompletedExceptionally());
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> coalescer.execute("key", () -> {
+            throw failure;
+        })));
+        assertEquals("again", coalescer.execute("key", () -> "again"));
+    }
+
+    @Test
+    void fingerprintDependsOnTokenAndRemoteIp() {
+        assertEquals(TokenFingerprint.of(TOKEN, "10.0.0.1"), TokenFingerprint.of(TOKEN, "10.0.0.1"));
+        assertNotEquals(TokenFingerprint.of(TOKEN, "10.0.0.1"), TokenFingerprint.of(TOKEN, "10.0.0.2"));
+        assertNotEquals(TokenFingerprint.of(TOKEN, null), TokenFingerprint.of(TOKEN, "10.0.0.1"));
+        assertNotEquals(TokenFingerprint.of("ab", "c"), TokenFingerprint.of("a", "bc"));
+    }
+
+    @Test
+    void concurrentValidationsOfSameTokenSendOneSiteverifyRequest() throws Exception {
+        simulator = SiteverifySimulator.builder().duplicateMemory(0).start();
+        simulator.hold();
+        TurnstileConfigProperties properties = simulator.properties();
+        properties.getCoalescing().setEnabled(true);
+        TurnstileValidationService service = simulator.service(properties);
+
+        List<Future<ValidationResult>> results = new ArrayList<>();
+        results.add(executor.submit(() -> service.validateTurnstileResponseDetailed(TOKEN, "127.0.0.1")));
+        waitUntil(() -> simulator.requestCount() == 1);
+        for (int i = 0; i < 3; i++) {
+            results.add(executor.submit(() -> service.validateTurnstileResponseDetailed(TOKEN, "127.0.0.1")));
+        }
+        CompletableFuture<ValidationResult> async = service.validateAsync(TOKEN, "127.0.0.1");
+        waitUntil(() -> service.getCoalescedCount() == 4);
+        simulator.release();
+
+        for (Future<ValidationResult> result : results) {
+            assertTrue(result.get(5, TimeUnit.SECONDS).isSuccess());
+        }
+        assertTrue(async.get(5, TimeUnit.SECONDS).isSuccess());
+        assertEquals(1, simulator.requestCount());
+        assertEquals(5, service.getValidationCount());
+        assertEquals(5, service.getSuccessCount());
+    }
+
+    @Test
+    void coalescingIsOffByDefault() throws Exception {
+        simulator = SiteverifySimulator.builder().duplicateMemory(0).start();
+        TurnstileValidationService service = simulator.service(simulator.properties());
+
+        assertTrue(service.validateTurnstileResponseDetailed(TOKEN, "127.0.0.1").isSuccess());
+        assertTrue(service.validateTurnstileResponseDetailed(TOKEN, "127.0.0.1").isSuccess());
+
+        assertEquals(2, simulator.requestCount());
+        assertEquals(0, service.getCoalescedCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met within 5 seconds");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.digitalsanctuary.cf.test.turnstile.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.cf.turnstile.cache.ReplayFingerprintSet;
+import com.digitalsanctuary.cf.turnstile.cache.TokenFingerprint;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileValidationException;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SimulatedOutcome;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+
+/**
+ * Tests for {@link ReplayFingerprintSet} and the opt-in {@code ds.cf.turnstile.replay.*} replay rejection in {@link TurnstileValidationService}.
+ */
+class ReplayFingerprintSetTest {
+
+    private static final String TOKEN = "0123456789012345678901234567890123456789";
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void fingerprintsAreRememberedForAtLeastTtl() {
+        ReplayFingerprintSet set = new ReplayFingerprintSet(100, Duration.ofSeconds(300), clock::get);
+        TokenFingerprint fingerprint = TokenFingerprint.of(TOKEN, null);
+
+        assertFalse(set.contains(fingerprint));
+        set.add(fingerprint);
+        clock.addAndGet(Duration.ofSeconds(300).toNanos());
+        assertTrue(set.contains(fingerprint));
+        clock.addAndGet(Duration.ofSeconds(61).toNanos());
+        assertFalse(set.contains(fingerprint));
+
+        assertEquals(3, set.getLookupCount());
+        assertEquals(1, set.getHitCount());
+        assertEquals(1.0 / 3, set.hitRate(), 1e-9);
+    }
+
+    @Test
+    void expiredSlicesAreReusedAndOccupancyTracksLiveEntries() {
+        ReplayFingerprintSet set = new ReplayFingerprintSet(50, Duration.ofSeconds(300), clock::get);
+        for (int i = 0; i < 10; i++) {
+            set.add(TokenFingerprint.of(TOKEN + i, null));
+        }
+        assertEquals(10, set.size());
+        assertEquals(10.0 / set.capacity(), set.occupancy(), 1e-9);
+
+        clock.addAndGet(Duration.ofSeconds(400).toNanos());
+        set.add(TokenFingerprint.of(TOKEN, null));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void memoryIsFixedAndFullSlicesDropInserts() {
+        ReplayFingerprintSet set = new ReplayFingerprintSet(50, Duration.ofSeconds(300), clock::get);
+        long memory = set.memoryBytes();
+        for (int i = 0; i < 1_000; i++) {
+            set.add(TokenFingerprint.of(TOKEN + i, null));
+        }
+
+        assertEquals(memory, set.memoryBytes());
+        assertEquals(10, set.size());
+        assertEquals(990, set.getDroppedCount());
+    }
+
+    @Test
+    void repeatedAddIsCountedOnce() {
+        ReplayFingerprintSet set = new ReplayFingerprintSet(50, Duration.ofSeconds(300), clock::get);
+        set.add(TokenFingerprint.of(TOKEN, null));
+        set.add(TokenFingerprint.of(TOKEN, null));
+
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void consumedTokenIsRejectedWithoutNetworkCallFromAnyAddress() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getReplay().setEnabled(true);
+            properties.getReplay().setMaxEntries(1_000);
+            TurnstileValidationService service = simulator.service(properties);
+
+            assertTrue(service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1").isSuccess());
+            TurnstileValidationException replay = assertThrows(TurnstileValidationException.class,
+                    () -> service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.2"));
+            ExecutionException asyncReplay = assertThrows(ExecutionException.class, () -> service.validateAsync(TOKEN, "10.0.0.3").get());
+
+            assertEquals(List.of("timeout-or-duplicate"), replay.getErrorCodes());
+            assertInstanceOf(TurnstileValidationException.class, asyncReplay.getCause());
+            assertEquals(1, simulator.requestCount());
+            assertEquals(2, service.getReplayHitCount());
+            assertEquals(2, service.getValidationErrorCount());
+        }
+    }
+
+    @Test
+    void tokenIsNotConsumedByInternalError() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            simulator.setDefaultOutcome(SimulatedOutcome.error(TurnstileErrorCode.INTERNAL_ERROR));
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getReplay().setEnabled(true);
+            properties.getReplay().setMaxEntries(1_000);
+            TurnstileValidationService service = simulator.service(properties);
+
+            TurnstileValidationException failure = assertThrows(TurnstileValidationException.class,
+                    () -> service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1"));
+            assertEquals(List.of("internal-error"), failure.getErrorCodes());
+
+            simulator.setDefaultOutcome(SimulatedOutcome.success());
+            assertTrue(service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1").isSuccess());
+            assertEquals(2, simulator.requestCount());
+            assertEquals(0, service.getReplayHitCount());
+        }
+    }
+
+    @Test
+    void successCacheIsCheckedBeforeReplaySet() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getReplay().setEnabled(true);
+            properties.getReplay().setMaxEntries(1_000);
+            properties.getCache().setEnabled(true);
+            TurnstileValidationService service = simulator.service(properties);
+
+            assertTrue(service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1").isSuccess());
+            assertTrue(service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1").isSuccess());
+            assertThrows(TurnstileValidationException.class, () -> service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.2"));
+
+            assertEquals(1, simulator.requestCount());
+            assertEquals(1, service.getCacheHitCount());
+            assertEquals(1, service.getReplayHitCount());
+        }
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new ReplayFingerprintSet(0, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> new ReplayFingerprintSet(1, Duration.ofSeconds(-1)));
+    }
+}
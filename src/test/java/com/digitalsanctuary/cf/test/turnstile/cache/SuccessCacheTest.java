@@ -0,0 +1,135 @@
+package com.digitalsanctuary.cf.test.turnstile.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.cf.turnstile.cache.SuccessCache;
+import com.digitalsanctuary.cf.turnstile.cache.SuccessCache.EvictionCause;
+import com.digitalsanctuary.cf.turnstile.cache.TokenFingerprint;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileValidationException;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SimulatedOutcome;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+
+/**
+ * Tests for {@link SuccessCache} and the opt-in {@code ds.cf.turnstile.cache.*} success cache in {@link TurnstileValidationService}.
+ */
+class SuccessCacheTest {
+
+    private static final String TOKEN = "0123456789012345678901234567890123456789";
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<EvictionCause> evictions = new ArrayList<>();
+
+    @Test
+    void entriesExpireAfterTtl() {
+        SuccessCache cache = new SuccessCache(10, Duration.ofSeconds(60), clock::get, evictions::add);
+        TokenFingerprint fingerprint = TokenFingerprint.of(TOKEN, "10.0.0.1");
+
+        assertFalse(cache.contains(fingerprint));
+        cache.put(fingerprint);
+        clock.addAndGet(Duration.ofSeconds(59).toNanos());
+        assertTrue(cache.contains(fingerprint));
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertFalse(cache.contains(fingerprint));
+
+        assertEquals(List.of(EvictionCause.EXPIRED), evictions);
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void oldestEntriesAreEvictedWhenFull() {
+        SuccessCache cache = new SuccessCache(2, Duration.ofSeconds(60), clock::get, evictions::add);
+        TokenFingerprint first = TokenFingerprint.of(TOKEN, "10.0.0.1");
+        TokenFingerprint second = TokenFingerprint.of(TOKEN, "10.0.0.2");
+        TokenFingerprint third = TokenFingerprint.of(TOKEN, "10.0.0.3");
+
+        cache.put(first);
+        clock.incrementAndGet();
+        cache.put(second);
+        clock.incrementAndGet();
+        cache.put(third);
+
+        assertEquals(2, cache.size());
+        assertFalse(cache.contains(first));
+        assertTrue(cache.contains(second));
+        assertTrue(cache.contains(third));
+        assertEquals(List.of(EvictionCause.SIZE), evictions);
+    }
+
+    @Test
+    void expiredEntriesAreEvictedBeforeLiveOnes() {
+        SuccessCache cache = new SuccessCache(2, Duration.ofSeconds(60), clock::get, evictions::add);
+        cache.put(TokenFingerprint.of(TOKEN, "10.0.0.1"));
+        clock.addAndGet(Duration.ofSeconds(61).toNanos());
+        cache.put(TokenFingerprint.of(TOKEN, "10.0.0.2"));
+
+        assertEquals(1, cache.size());
+        assertEquals(List.of(EvictionCause.EXPIRED), evictions);
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new SuccessCache(0, Duration.ofSeconds(1), cause -> { }));
+        assertThrows(IllegalArgumentException.class, () -> new SuccessCache(1, Duration.ZERO, cause -> { }));
+    }
+
+    @Test
+    void repeatValidationIsAnsweredFromCache() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getCache().setEnabled(true);
+            TurnstileValidationService service = simulator.service(properties);
+
+            assertTrue(service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1").isSuccess());
+            assertTrue(service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1").isSuccess());
+            assertTrue(service.validateAsync(TOKEN, "10.0.0.1").get().isSuccess());
+
+            assertEquals(1, simulator.requestCount());
+            assertEquals(2, service.getCacheHitCount());
+            assertEquals(3, service.getSuccessCount());
+            assertEquals(1, service.getCacheSize());
+        }
+    }
+
+    @Test
+    void cacheIsKeyedByRemoteIpAndIgnoresFailures() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getCache().setEnabled(true);
+            TurnstileValidationService service = simulator.service(properties);
+
+            assertTrue(service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1").isSuccess());
+            simulator.setDefaultOutcome(SimulatedOutcome.error(TurnstileErrorCode.TIMEOUT_OR_DUPLICATE));
+            assertThrows(TurnstileValidationException.class, () -> service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.2"));
+            assertThrows(TurnstileValidationException.class, () -> service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.2"));
+
+            assertEquals(3, simulator.requestCount());
+            assertEquals(0, service.getCacheHitCount());
+            assertEquals(1, service.getCacheSize());
+        }
+    }
+
+    @Test
+    void cacheIsDisabledByDefault() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileValidationService service = simulator.service(simulator.properties());
+
+            service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1");
+            service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1");
+
+            assertEquals(2, simulator.requestCount());
+            assertEquals(0, service.getCacheHitCount());
+        }
+    }
+}
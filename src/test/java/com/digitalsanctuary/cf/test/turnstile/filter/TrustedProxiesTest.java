@@ -0,0 +1,62 @@
+package com.digitalsanctuary.cf.test.turnstile.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.cf.turnstile.filter.TrustedProxies;
+
+/**
+ * Tests for {@link TrustedProxies}, which decides when the {@code X-Forwarded-For} header is believed.
+ */
+class TrustedProxiesTest {
+
+    private static String resolve(TrustedProxies proxies, String remoteAddr, String forwardedFor) {
+        Map<String, String> headers = forwardedFor != null ? Map.of("X-Forwarded-For", forwardedFor) : Map.of();
+        return proxies.resolveClientIp(remoteAddr, headers::get);
+    }
+
+    @Test
+    void ignoresHeaderWithoutTrustedProxies() {
+        TrustedProxies proxies = new TrustedProxies(List.of());
+        assertEquals("10.0.0.1", resolve(proxies, "10.0.0.1", "203.0.113.9"));
+        assertEquals("10.0.0.1", resolve(new TrustedProxies(null), "10.0.0.1", "203.0.113.9"));
+    }
+
+    @Test
+    void ignoresHeaderFromUntrustedPeer() {
+        TrustedProxies proxies = new TrustedProxies(List.of("192.168.1.0/24"));
+        assertEquals("10.0.0.1", resolve(proxies, "10.0.0.1", "203.0.113.9"));
+    }
+
+    @Test
+    void takesRightmostUntrustedHopFromTrustedPeer() {
+        TrustedProxies proxies = new TrustedProxies(List.of("192.168.1.0/24", "172.16.0.1"));
+        assertEquals("10.0.0.1", resolve(proxies, "192.168.1.5", "203.0.113.9, 10.0.0.1, 172.16.0.1"));
+        assertEquals("192.168.1.5", resolve(proxies, "192.168.1.5", null));
+        assertEquals("172.16.0.1", resolve(proxies, "192.168.1.5", "172.16.0.1, 192.168.1.4"));
+    }
+
+    @Test
+    void matchesCidrRangesAndIpv6() {
+        TrustedProxies proxies = new TrustedProxies(List.of("10.0.0.0/9", "2001:db8::/32", "::1"));
+        assertTrue(proxies.isTrusted("10.127.255.255"));
+        assertFalse(proxies.isTrusted("10.128.0.0"));
+        assertTrue(proxies.isTrusted("2001:db8:1::7"));
+        assertTrue(proxies.isTrusted("0:0:0:0:0:0:0:1"));
+        assertFalse(proxies.isTrusted("2001:db9::1"));
+        assertFalse(proxies.isTrusted("localhost"));
+        assertFalse(proxies.isTrusted("cafe.be"));
+        assertFalse(proxies.isTrusted(null));
+    }
+
+    @Test
+    void rejectsInvalidEntries() {
+        assertThrows(IllegalArgumentException.class, () -> new TrustedProxies(List.of("proxy.example.com")));
+        assertThrows(IllegalArgumentException.class, () -> new TrustedProxies(List.of("10.0.0.0/33")));
+        assertThrows(IllegalArgumentException.class, () -> new TrustedProxies(List.of("10.0.0.0/x")));
+    }
+}
@@ -0,0 +1,148 @@
+package com.digitalsanctuary.cf.test.turnstile.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.filter.TurnstileCaptchaFilter;
+import com.digitalsanctuary.cf.turnstile.metrics.MicrometerTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.ratelimit.ClientRateLimiter;
+import com.digitalsanctuary.cf.turnstile.ratelimit.ClientRateLimiter.Decision;
+import com.digitalsanctuary.cf.turnstile.ratelimit.ClientRateLimiter.Settings;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for {@link ClientRateLimiter} and its use in {@link TurnstileCaptchaFilter} under {@code ds.cf.turnstile.rate-limit.*}.
+ */
+class ClientRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private ClientRateLimiter limiter(int capacity, double refillPerSecond, int maxConcurrent, int maxClients) {
+        return new ClientRateLimiter(new Settings(capacity, refillPerSecond, maxConcurrent, maxClients, Duration.ofMinutes(1), 4), now::get);
+    }
+
+    @Test
+    void allowsBurstThenRefills() {
+        ClientRateLimiter limiter = limiter(3, 2.0, 0, 100);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Decision.ALLOWED, limiter.tryAcquire("10.0.0.1"));
+        }
+        assertEquals(Decision.RATE_LIMITED, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(Decision.ALLOWED, limiter.tryAcquire("10.0.0.2"));
+
+        now.addAndGet(Duration.ofMillis(500).toNanos());
+        assertEquals(Decision.ALLOWED, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(Decision.RATE_LIMITED, limiter.tryAcquire("10.0.0.1"));
+    }
+
+    @Test
+    void capsConcurrentRequestsPerClient() {
+        ClientRateLimiter limiter = limiter(10, 1.0, 2, 100);
+        assertEquals(Decision.ALLOWED, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(Decision.ALLOWED, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(Decision.CONCURRENCY_LIMITED, limiter.tryAcquire("10.0.0.1"));
+
+        limiter.release("10.0.0.1");
+        assertEquals(Decision.ALLOWED, limiter.tryAcquire("10.0.0.1"));
+    }
+
+    @Test
+    void boundsAndEvictsIdleClients() {
+        ClientRateLimiter limiter = limiter(1, 1.0, 0, 8);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("10.0.0." + i);
+        }
+        assertTrue(limiter.size() <= 8, "size " + limiter.size());
+
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+        limiter.tryAcquire("10.0.1.1");
+        limiter.tryAcquire("10.0.1.2");
+        limiter.tryAcquire("10.0.1.3");
+        limiter.tryAcquire("10.0.1.4");
+        assertTrue(limiter.size() <= 4, "size " + limiter.size());
+    }
+
+    @Test
+    void filterRejectsExcessBeforeReadingToken() throws Exception {
+        TurnstileValidationService service = mock(TurnstileValidationService.class);
+        when(service.validateTurnstileResponse(anyString(), anyString())).thenReturn(true);
+        TurnstileConfigProperties properties = new TurnstileConfigProperties();
+        properties.getRateLimit().setEnabled(true);
+        properties.getRateLimit().setCapacity(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TurnstileCaptchaFilter filter = new TurnstileCaptchaFilter(service, properties, new MicrometerTurnstileMetrics(registry));
+
+        MockHttpServletResponse first = post(filter);
+        MockHttpServletResponse second = post(filter);
+
+        assertEquals(200, first.getStatus());
+        assertEquals(429, second.getStatus());
+        assertEquals("1", second.getHeader("Retry-After"));
+        verify(service).validateTurnstileResponse(anyString(), anyString());
+        assertEquals(1.0, registry.counter("turnstile.ratelimit.rejected", "reason", "rate_limited").count());
+        assertEquals(1.0, registry.get("turnstile.ratelimit.clients").gauge().value());
+    }
+
+    @Test
+    void filterIgnoresForwardedIpFromUntrustedPeer() throws Exception {
+        TurnstileValidationService service = mock(TurnstileValidationService.class);
+        when(service.validateTurnstileResponse(anyString(), anyString())).thenReturn(true);
+        TurnstileConfigProperties properties = new TurnstileConfigProperties();
+        properties.getRateLimit().setEnabled(true);
+        properties.getRateLimit().setCapacity(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TurnstileCaptchaFilter filter = new TurnstileCaptchaFilter(service, properties, new MicrometerTurnstileMetrics(registry));
+
+        MockHttpServletResponse first = post(filter, "203.0.113.1");
+        MockHttpServletResponse second = post(filter, "203.0.113.2");
+
+        assertEquals(200, first.getStatus());
+        assertEquals(429, second.getStatus(), "a new X-Forwarded-For value does not get a new bucket");
+        assertEquals(1.0, registry.get("turnstile.ratelimit.clients").gauge().value());
+    }
+
+    @Test
+    void filterRedirectsWhenConfigured() throws Exception {
+        TurnstileValidationService service = mock(TurnstileValidationService.class);
+        TurnstileConfigProperties properties = new TurnstileConfigProperties();
+        properties.getRateLimit().setEnabled(true);
+        properties.getRateLimit().setCapacity(1);
+        properties.getRateLimit().setRefillPerSecond(0.001);
+        properties.getRateLimit().setRejectRedirectUrl("/login?error=rate");
+        TurnstileCaptchaFilter filter = new TurnstileCaptchaFilter(service, properties);
+
+        post(filter);
+        MockHttpServletResponse rejected = post(filter);
+
+        assertEquals("/login?error=rate", rejected.getRedirectedUrl());
+        verify(service, never()).validateTurnstileResponse(anyString(), anyString());
+    }
+
+    private static MockHttpServletResponse post(TurnstileCaptchaFilter filter) throws Exception {
+        return post(filter, null);
+    }
+
+    private static MockHttpServletResponse post(TurnstileCaptchaFilter filter, String forwardedFor) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        request.setParameter("cf-turnstile-response", "token-0123456789012345678901234567890");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
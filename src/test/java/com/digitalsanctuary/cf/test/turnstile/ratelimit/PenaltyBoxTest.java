@@ -0,0 +1,251 @@
+package com.digitalsanctuary.cf.test.turnstile.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileValidationException;
+import com.digitalsanctuary.cf.turnstile.filter.TurnstileCaptchaFilter;
+import com.digitalsanctuary.cf.turnstile.metrics.MicrometerTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.ratelimit.PenaltyBox;
+import com.digitalsanctuary.cf.turnstile.ratelimit.PenaltyBox.Settings;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SimulatedOutcome;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for {@link PenaltyBox} and its use by {@link TurnstileValidationService} and {@link TurnstileCaptchaFilter} under
+ * {@code ds.cf.turnstile.penalty-box.*}.
+ */
+class PenaltyBoxTest {
+
+    private static final String TOKEN = "token-0123456789012345678901234567890";
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<Duration> blocks = new ArrayList<>();
+    private final List<String> evictions = new ArrayList<>();
+
+    private PenaltyBox box(int threshold, int maxClients) {
+        Settings settings = new Settings(threshold, Duration.ofMinutes(1), Duration.ofMinutes(1), 2.0, Duration.ofMinutes(5), maxClients, 4);
+        return new PenaltyBox(settings, now::get, new PenaltyBox.Listener() {
+            @Override
+            public void blocked(Duration duration) {
+                blocks.add(duration);
+            }
+
+            @Override
+            public void evicted(String cause) {
+                evictions.add(cause);
+            }
+        });
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    void blocksAfterThresholdWithinWindow() {
+        PenaltyBox box = box(3, 100);
+        assertFalse(box.recordFailure("10.0.0.1"));
+        assertFalse(box.recordFailure("10.0.0.1"));
+        assertFalse(box.isBlocked("10.0.0.1"));
+        assertTrue(box.recordFailure("10.0.0.1"));
+
+        assertTrue(box.isBlocked("10.0.0.1"));
+        assertFalse(box.isBlocked("10.0.0.2"));
+        assertEquals(Duration.ofMinutes(1), box.remainingBlock("10.0.0.1"));
+        assertEquals(1, box.blockedCount());
+
+        advance(Duration.ofSeconds(61));
+        assertFalse(box.isBlocked("10.0.0.1"));
+        assertEquals(Duration.ZERO, box.remainingBlock("10.0.0.1"));
+    }
+
+    @Test
+    void newClientIsNotBlockedWhenClockIsNegative() {
+        now.set(-1_000_000_000_000L);
+        PenaltyBox box = box(3, 100);
+        assertFalse(box.recordFailure("10.0.0.1"));
+        assertFalse(box.isBlocked("10.0.0.1"));
+        assertEquals(Duration.ZERO, box.remainingBlock("10.0.0.1"));
+        assertEquals(0, box.blockedCount());
+
+        box.recordFailure("10.0.0.1");
+        assertTrue(box.recordFailure("10.0.0.1"));
+        assertEquals(Duration.ofMinutes(1), box.remainingBlock("10.0.0.1"));
+    }
+
+    @Test
+    void slidingWindowForgetsOldFailures() {
+        PenaltyBox box = box(3, 100);
+        box.recordFailure("10.0.0.1");
+        advance(Duration.ofSeconds(40));
+        box.recordFailure("10.0.0.1");
+        advance(Duration.ofSeconds(40));
+        assertFalse(box.recordFailure("10.0.0.1"), "first failure is outside the window");
+        advance(Duration.ofSeconds(10));
+        assertTrue(box.recordFailure("10.0.0.1"));
+    }
+
+    @Test
+    void escalatesBlockDurationUpToMaximum() {
+        PenaltyBox box = box(1, 100);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(box.recordFailure("10.0.0.1"));
+            advance(box.remainingBlock("10.0.0.1"));
+        }
+        assertEquals(List.of(Duration.ofMinutes(1), Duration.ofMinutes(2), Duration.ofMinutes(4), Duration.ofMinutes(5), Duration.ofMinutes(5)),
+                blocks);
+        assertEquals(5, box.getBlockCount());
+    }
+
+    @Test
+    void boundsAndExpiresClients() {
+        PenaltyBox box = box(5, 8);
+        for (int i = 0; i < 100; i++) {
+            box.recordFailure("10.0.0." + i);
+        }
+        assertTrue(box.size() <= 8, "size " + box.size());
+        assertTrue(evictions.stream().allMatch("size"::equals));
+
+        evictions.clear();
+        advance(Duration.ofMinutes(6));
+        for (int i = 0; i < 20; i++) {
+            box.recordFailure("10.0.1." + i);
+        }
+        assertTrue(evictions.contains("expired"), "evictions " + evictions);
+        assertTrue(box.size() <= 8, "size " + box.size());
+        assertTrue(box.getEvictionCount() >= 92 + evictions.size(), "evictions " + box.getEvictionCount());
+    }
+
+    @Test
+    void serviceRejectsBlockedClientWithoutCallingCloudflare() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            simulator.setDefaultOutcome(SimulatedOutcome.error(TurnstileErrorCode.INVALID_INPUT_RESPONSE));
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getPenaltyBox().setEnabled(true);
+            properties.getPenaltyBox().setThreshold(2);
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            TurnstileValidationService service = simulator.service(properties, new MicrometerTurnstileMetrics(registry));
+
+            assertThrows(TurnstileValidationException.class, () -> service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1"));
+            CompletionException async = assertThrows(CompletionException.class, () -> service.validateAsync(TOKEN, "10.0.0.1").join());
+            assertTrue(async.getCause() instanceof TurnstileValidationException);
+            assertEquals(2, simulator.requestCount());
+
+            ValidationResult blocked = service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1");
+            assertEquals(ValidationResultType.BLOCKED, blocked.getResultType());
+            assertFalse(blocked.isSuccess());
+            assertEquals(ValidationResultType.BLOCKED, service.validateAsync(TOKEN, "10.0.0.1").join().getResultType());
+            assertFalse(service.validateTurnstileResponse(TOKEN, "10.0.0.1"));
+            assertEquals(2, simulator.requestCount());
+            assertTrue(service.isClientBlocked("10.0.0.1"));
+            assertFalse(service.isClientBlocked("10.0.0.2"));
+
+            assertEquals(2, service.getErrorCount(), "blocked validations are not errors");
+            assertEquals(3, service.getBlockedCount());
+            assertEquals(1, service.getPenaltyBlockCount());
+            assertEquals(1, service.getPenaltyBoxBlockedClients());
+            assertEquals(1.0, registry.counter("turnstile.penalty.blocks").count());
+            assertEquals(3.0, registry.counter("turnstile.penalty.rejected").count());
+            assertEquals(1.0, registry.get("turnstile.penalty.size").gauge().value());
+        }
+    }
+
+    @Test
+    void rejectionsNotCausedByClientDoNotCount() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            simulator.setDefaultOutcome(SimulatedOutcome.error(TurnstileErrorCode.INVALID_INPUT_SECRET));
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getPenaltyBox().setEnabled(true);
+            properties.getPenaltyBox().setThreshold(1);
+            TurnstileValidationService service = simulator.service(properties);
+
+            for (int i = 0; i < 3; i++) {
+                assertThrows(TurnstileValidationException.class, () -> service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1"));
+            }
+            assertEquals(3, simulator.requestCount());
+            assertFalse(service.isClientBlocked("10.0.0.1"));
+            assertEquals(0, service.getPenaltyBoxSize());
+
+            simulator.setDefaultOutcome(SimulatedOutcome.error(TurnstileErrorCode.TIMEOUT_OR_DUPLICATE));
+            assertThrows(TurnstileValidationException.class, () -> service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1"));
+            assertTrue(service.isClientBlocked("10.0.0.1"));
+        }
+    }
+
+    @Test
+    void filterRejectsBlockedClientBeforeReadingToken() throws Exception {
+        TurnstileValidationService service = mock(TurnstileValidationService.class);
+        when(service.isClientBlocked("10.0.0.1")).thenReturn(true);
+        when(service.getClientBlockRemaining("10.0.0.1")).thenReturn(Duration.ofMillis(1500));
+        TurnstileConfigProperties properties = new TurnstileConfigProperties();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TurnstileCaptchaFilter filter = new TurnstileCaptchaFilter(service, properties, new MicrometerTurnstileMetrics(registry));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+        request.setRemoteAddr("10.0.0.1");
+        request.setParameter("cf-turnstile-response", TOKEN);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals(403, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        verify(service, never()).validateTurnstileResponse(anyString(), anyString());
+        assertEquals(1.0, registry.counter("turnstile.penalty.rejected").count());
+    }
+
+    @Test
+    void filterKeysOnForwardedIpOnlyFromTrustedProxy() throws Exception {
+        TurnstileValidationService service = mock(TurnstileValidationService.class);
+        when(service.isClientBlocked("10.0.0.1")).thenReturn(true);
+        when(service.getClientBlockRemaining("10.0.0.1")).thenReturn(Duration.ofSeconds(1));
+        TurnstileConfigProperties properties = new TurnstileConfigProperties();
+        properties.setTrustedProxies(List.of("192.168.1.0/24"));
+        TurnstileCaptchaFilter filter = new TurnstileCaptchaFilter(service, properties, new MicrometerTurnstileMetrics(new SimpleMeterRegistry()));
+
+        // A blocked client cannot escape with a forged header
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest("10.0.0.1", "203.0.113.9"), response, new MockFilterChain());
+        assertEquals(403, response.getStatus());
+
+        // Nor can another client get the blocked address charged
+        filter.doFilter(loginRequest("10.0.0.2", "10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+        verify(service).isClientBlocked("10.0.0.2");
+
+        // Behind a trusted proxy the rightmost untrusted hop is the client
+        response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest("192.168.1.5", "203.0.113.9, 10.0.0.1, 192.168.1.4"), response, new MockFilterChain());
+        assertEquals(403, response.getStatus());
+    }
+
+    private static MockHttpServletRequest loginRequest(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+        request.setRemoteAddr(remoteAddr);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        request.setParameter("cf-turnstile-response", TOKEN);
+        return request;
+    }
+}
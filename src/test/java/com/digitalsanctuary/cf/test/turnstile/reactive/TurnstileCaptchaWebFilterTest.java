@@ -0,0 +1,100 @@
+package com.digitalsanctuary.cf.test.turnstile.reactive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.filter.TurnstileCaptchaWebFilter;
+import com.digitalsanctuary.cf.turnstile.service.ReactiveTurnstileValidationService;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for the reactive {@link TurnstileCaptchaWebFilter}: valid and invalid tokens on the login path, and pass-through of other requests.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TurnstileCaptchaWebFilterTest {
+
+    @Mock
+    private ReactiveTurnstileValidationService validationService;
+
+    private TurnstileCaptchaWebFilter filter;
+    private AtomicBoolean chainCalled;
+    private WebFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        filter = new TurnstileCaptchaWebFilter(validationService, new TurnstileConfigProperties());
+        chainCalled = new AtomicBoolean();
+        chain = exchange -> {
+            chainCalled.set(true);
+            return Mono.empty();
+        };
+        when(validationService.getClientIpAddress(any(), any())).thenReturn("127.0.0.1");
+    }
+
+    @Test
+    void validTokenInFormBodyContinuesChain() {
+        when(validationService.validateTurnstileResponse(eq("valid-token"), any())).thenReturn(Mono.just(true));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/login")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED).body("username=user&cf-turnstile-response=valid-token"));
+
+        filter.filter(exchange, chain).block();
+
+        assertTrue(chainCalled.get(), "Filter chain should continue with valid token");
+        assertNull(exchange.getResponse().getHeaders().getLocation(), "Should not redirect with valid token");
+    }
+
+    @Test
+    void invalidTokenRedirectsToErrorUrl() {
+        when(validationService.validateTurnstileResponse(eq("invalid-token"), any())).thenReturn(Mono.just(false));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/login")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED).body("cf-turnstile-response=invalid-token"));
+
+        filter.filter(exchange, chain).block();
+
+        assertEquals(HttpStatus.FOUND, exchange.getResponse().getStatusCode());
+        assertEquals("/login?error=captcha", exchange.getResponse().getHeaders().getLocation().toString());
+        assertTrue(!chainCalled.get(), "Filter chain must not continue with an invalid token");
+    }
+
+    @Test
+    void missingTokenIsValidatedAsNull() {
+        when(validationService.validateTurnstileResponse(eq(null), any())).thenReturn(Mono.just(false));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/login")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED).body("username=user"));
+
+        filter.filter(exchange, chain).block();
+
+        verify(validationService).validateTurnstileResponse(eq(null), any());
+        assertEquals("/login?error=captcha", exchange.getResponse().getHeaders().getLocation().toString());
+    }
+
+    @Test
+    void nonLoginPathPassesThrough() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/other"));
+
+        filter.filter(exchange, chain).block();
+
+        assertTrue(chainCalled.get());
+        verify(validationService, never()).validateTurnstileResponse(any(), any());
+    }
+}
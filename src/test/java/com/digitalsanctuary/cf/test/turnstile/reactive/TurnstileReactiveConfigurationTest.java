@@ -0,0 +1,93 @@
+package com.digitalsanctuary.cf.test.turnstile.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.test.context.FilteredClassLoader;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.digitalsanctuary.cf.turnstile.TurnstileConfiguration;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileStartupReporter;
+import com.digitalsanctuary.cf.turnstile.config.ReactiveTurnstileHealthIndicator;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileHealthIndicator;
+import com.digitalsanctuary.cf.turnstile.filter.TurnstileCaptchaFilter;
+import com.digitalsanctuary.cf.turnstile.filter.TurnstileCaptchaWebFilter;
+import com.digitalsanctuary.cf.turnstile.service.ReactiveTurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+
+/**
+ * Verifies that the reactive Turnstile beans are auto-configured alongside the blocking ones when WebFlux is on the classpath, and that the
+ * servlet-only and reactive-only beans register in the matching application type, including when the servlet API is not on the classpath.
+ */
+class TurnstileReactiveConfigurationTest {
+
+    private final ReactiveWebApplicationContextRunner reactiveRunner = new ReactiveWebApplicationContextRunner().withConfiguration(
+            AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class, TurnstileConfiguration.class));
+
+    private final WebApplicationContextRunner servletRunner = new WebApplicationContextRunner().withConfiguration(
+            AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class, TurnstileConfiguration.class));
+
+    @Test
+    void reactiveServiceAndWebClientRegisterInReactiveApplication() {
+        reactiveRunner.run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context).hasSingleBean(ReactiveTurnstileValidationService.class);
+            assertThat(context).hasBean("turnstileWebClient");
+            assertThat(context.getBean("turnstileWebClient")).isInstanceOf(WebClient.class);
+        });
+    }
+
+    @Test
+    void reactiveHealthIndicatorReplacesBlockingIndicatorInReactiveApplication() {
+        reactiveRunner.run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context).hasSingleBean(ReactiveTurnstileHealthIndicator.class);
+            assertThat(context).doesNotHaveBean(TurnstileHealthIndicator.class);
+        });
+    }
+
+    @Test
+    void blockingHealthIndicatorRegistersInServletApplication() {
+        servletRunner.run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context).hasSingleBean(TurnstileHealthIndicator.class);
+            assertThat(context).doesNotHaveBean(ReactiveTurnstileHealthIndicator.class);
+        });
+    }
+
+    @Test
+    void webFilterRegistersOnlyWhenLoginEnabledInReactiveApplication() {
+        reactiveRunner.run(context -> assertThat(context).doesNotHaveBean(TurnstileCaptchaWebFilter.class));
+        reactiveRunner.withPropertyValues("ds.cf.turnstile.login.enabled=true").run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context).hasSingleBean(TurnstileCaptchaWebFilter.class);
+            assertThat(context).doesNotHaveBean(TurnstileCaptchaFilter.class);
+        });
+    }
+
+    @Test
+    void webFilterDoesNotRegisterInServletApplication() {
+        servletRunner.withPropertyValues("ds.cf.turnstile.login.enabled=true").run(context -> {
+            assertThat(context).hasNotFailed();
+            assertThat(context).hasSingleBean(TurnstileCaptchaFilter.class);
+            assertThat(context).doesNotHaveBean(TurnstileCaptchaWebFilter.class);
+        });
+    }
+
+    @Test
+    void startsWithoutServletApiInReactiveApplication() {
+        reactiveRunner.withClassLoader(new FilteredClassLoader("jakarta.servlet")).withPropertyValues("ds.cf.turnstile.login.enabled=true")
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context).hasSingleBean(TurnstileValidationService.class);
+                    assertThat(context).hasSingleBean(ReactiveTurnstileValidationService.class);
+                    assertThat(context).hasSingleBean(TurnstileCaptchaWebFilter.class);
+                    assertThat(context).hasSingleBean(TurnstileStartupReporter.class);
+                    assertThat(context).doesNotHaveBean(TurnstileCaptchaFilter.class);
+                });
+    }
+}
@@ -0,0 +1,169 @@
+package com.digitalsanctuary.cf.test.turnstile.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
+import com.digitalsanctuary.cf.turnstile.metrics.MicrometerTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.resilience.Bulkhead;
+import com.digitalsanctuary.cf.turnstile.resilience.Bulkhead.Rejection;
+import com.digitalsanctuary.cf.turnstile.resilience.Bulkhead.Settings;
+import com.digitalsanctuary.cf.turnstile.resilience.BulkheadFullException;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for {@link Bulkhead} and its use by {@link TurnstileValidationService} under {@code ds.cf.turnstile.bulkhead.*}.
+ */
+class BulkheadTest {
+
+    private final AtomicLong waits = new AtomicLong();
+
+    private Bulkhead bulkhead(int maxConcurrent, int maxQueue, Duration maxWait) {
+        return new Bulkhead(new Settings(maxConcurrent, maxQueue, maxWait), nanos -> waits.incrementAndGet());
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() {
+        Bulkhead bulkhead = bulkhead(1, 0, Duration.ofSeconds(1));
+        CompletableFuture<String> held = new CompletableFuture<>();
+        CompletableFuture<String> first = bulkhead.executeAsync(() -> held);
+        assertEquals(1, bulkhead.inFlight());
+
+        BulkheadFullException e = assertThrows(BulkheadFullException.class, () -> bulkhead.execute(() -> "second"));
+        assertEquals(Rejection.QUEUE_FULL, e.getRejection());
+
+        held.complete("first");
+        assertEquals("first", first.join());
+        assertEquals(0, bulkhead.inFlight());
+        assertEquals("third", bulkhead.execute(() -> "third"));
+    }
+
+    @Test
+    void handsReleasedPermitsToWaitersInOrder() {
+        Bulkhead bulkhead = bulkhead(1, 2, Duration.ofSeconds(5));
+        List<String> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> held = new CompletableFuture<>();
+        bulkhead.executeAsync(() -> held);
+        CompletableFuture<String> second = bulkhead.executeAsync(() -> {
+            order.add("second");
+            return CompletableFuture.completedFuture("second");
+        });
+        CompletableFuture<String> third = bulkhead.executeAsync(() -> {
+            order.add("third");
+            return CompletableFuture.completedFuture("third");
+        });
+        assertEquals(2, bulkhead.queueDepth());
+        assertFalse(second.isDone());
+
+        held.complete("first");
+        assertEquals("second", second.join());
+        assertEquals("third", third.join());
+        assertEquals(List.of("second", "third"), order);
+        assertEquals(0, bulkhead.inFlight());
+        assertEquals(0, bulkhead.queueDepth());
+        assertEquals(2, waits.get());
+    }
+
+    @Test
+    void queuedCallerTimesOut() {
+        Bulkhead bulkhead = bulkhead(1, 1, Duration.ofMillis(50));
+        CompletableFuture<String> held = new CompletableFuture<>();
+        bulkhead.executeAsync(() -> held);
+
+        long start = System.nanoTime();
+        BulkheadFullException e = assertThrows(BulkheadFullException.class, () -> bulkhead.execute(() -> "late"));
+        assertEquals(Rejection.WAIT_TIMEOUT, e.getRejection());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(0, bulkhead.queueDepth());
+
+        CompletableFuture<String> async = bulkhead.executeAsync(() -> CompletableFuture.completedFuture("late"));
+        CompletionException failure = assertThrows(CompletionException.class, async::join);
+        assertTrue(failure.getCause() instanceof BulkheadFullException);
+
+        held.complete("first");
+        assertEquals(0, bulkhead.inFlight());
+    }
+
+    @Test
+    void interruptedCallerLeavesQueueWithoutOverloadRejection() throws Exception {
+        Bulkhead bulkhead = bulkhead(1, 1, Duration.ofSeconds(30));
+        CompletableFuture<String> held = new CompletableFuture<>();
+        bulkhead.executeAsync(() -> held);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicReference<Boolean> interrupted = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                bulkhead.execute(() -> "queued");
+            } catch (RuntimeException e) {
+                failure.set(e);
+            }
+            interrupted.set(Thread.currentThread().isInterrupted());
+        });
+        caller.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bulkhead.queueDepth() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, bulkhead.queueDepth());
+
+        caller.interrupt();
+        caller.join(5000);
+
+        assertTrue(failure.get() instanceof ResourceAccessException, "failure " + failure.get());
+        assertTrue(interrupted.get(), "the interrupt flag is kept");
+        assertEquals(0, bulkhead.queueDepth());
+        held.complete("first");
+        assertEquals(0, bulkhead.inFlight());
+        assertEquals(0, waits.get());
+    }
+
+    @Test
+    void serviceAnswersOverflowAsOverloaded() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            simulator.hold();
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getBulkhead().setEnabled(true);
+            properties.getBulkhead().setMaxConcurrent(1);
+            properties.getBulkhead().setMaxQueue(0);
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            TurnstileValidationService service = simulator.service(properties, new MicrometerTurnstileMetrics(registry));
+
+            CompletableFuture<ValidationResult> first = service.validateAsync("token-aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa", "10.0.0.1");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (simulator.requestCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, service.getBulkheadInFlight());
+            assertEquals(1.0, registry.get("turnstile.bulkhead.in.flight").gauge().value());
+
+            ValidationResult overloaded = service.validateTurnstileResponseDetailed("token-bbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbb", "10.0.0.2");
+            assertEquals(ValidationResultType.OVERLOADED, overloaded.getResultType());
+            assertFalse(overloaded.isSuccess());
+            assertEquals(ValidationResultType.OVERLOADED,
+                    service.validateAsync("token-cccccccccccccccccccccccccccccccc", "10.0.0.3").join().getResultType());
+
+            simulator.release();
+            assertTrue(first.join().isSuccess());
+            assertEquals(1, simulator.requestCount());
+            assertEquals(2, service.getOverloadedCount());
+            assertEquals(0, service.getBulkheadInFlight());
+            assertEquals(2.0, registry.counter("turnstile.bulkhead.rejected", "reason", "queue_full").count());
+            assertEquals(2.0, registry.counter("turnstile.validation.errors.overloaded").count());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.digitalsanctuary.cf.test.turnstile.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult.ValidationResultType;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileNetworkException;
+import com.digitalsanctuary.cf.turnstile.resilience.CircuitBreaker;
+import com.digitalsanctuary.cf.turnstile.resilience.CircuitBreaker.State;
+import com.digitalsanctuary.cf.turnstile.resilience.FallbackPolicy;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+
+/**
+ * Tests for {@link CircuitBreaker} and the opt-in {@code ds.cf.turnstile.circuit-breaker.*} integration in {@link TurnstileValidationService}.
+ */
+class CircuitBreakerTest {
+
+    private static final String TOKEN = "0123456789012345678901234567890123456789";
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(5).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<State> transitions = new ArrayList<>();
+
+    private CircuitBreaker breaker() {
+        CircuitBreaker.Settings settings = new CircuitBreaker.Settings(10, 4, 50, Duration.ofSeconds(3), 80, Duration.ofSeconds(30), 2);
+        return new CircuitBreaker(settings, clock::get, (from, to) -> transitions.add(to));
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        CircuitBreaker breaker = breaker();
+        breaker.onFailure(FAST);
+        breaker.onFailure(FAST);
+        breaker.onSuccess(FAST);
+        assertEquals(State.CLOSED, breaker.getState());
+
+        breaker.onSuccess(FAST);
+        assertEquals(State.OPEN, breaker.getState());
+        assertTrue(breaker.isCallRefused());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(List.of(State.OPEN), transitions);
+    }
+
+    @Test
+    void opensWhenSlowCallRateReachesThreshold() {
+        CircuitBreaker breaker = breaker();
+        breaker.onSuccess(SLOW);
+        breaker.onSuccess(SLOW);
+        breaker.onSuccess(SLOW);
+        breaker.onSuccess(FAST);
+        assertEquals(State.CLOSED, breaker.getState());
+
+        breaker.onSuccess(SLOW);
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void successfulProbesCloseTheBreaker() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(FAST);
+        }
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(List.of(State.OPEN, State.HALF_OPEN, State.CLOSED), transitions);
+    }
+
+    @Test
+    void failedProbeReopensTheBreaker() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(FAST);
+        }
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onFailure(FAST);
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(List.of(State.OPEN, State.HALF_OPEN, State.OPEN), transitions);
+    }
+
+    @Test
+    void openBreakerAppliesCallerFallbackWithoutNetworkCall() throws Exception {
+        SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start();
+        TurnstileConfigProperties properties = simulator.properties();
+        properties.getCircuitBreaker().setEnabled(true);
+        properties.getCircuitBreaker().setWindowSize(2);
+        properties.getCircuitBreaker().setMinimumCalls(2);
+        TurnstileValidationService service = simulator.service(properties);
+        // Closing the simulator leaves nothing listening on its port, so every call fails to connect
+        simulator.close();
+
+        assertThrows(TurnstileNetworkException.class, () -> service.validateTurnstileResponseDetailed(TOKEN, null));
+        assertThrows(TurnstileNetworkException.class, () -> service.validateTurnstileResponseDetailed(TOKEN, null));
+        assertEquals(Optional.of(State.OPEN), service.getCircuitBreakerState());
+
+        ValidationResult closed = service.validateTurnstileResponseDetailed(TOKEN, null);
+        ValidationResult open = service.validateTurnstileResponseDetailed(TOKEN, null, FallbackPolicy.FAIL_OPEN);
+        ValidationResult async = service.validateAsync(TOKEN, null).get();
+
+        assertFalse(closed.isSuccess());
+        assertEquals(ValidationResultType.NETWORK_ERROR, closed.getResultType());
+        assertTrue(open.isSuccess());
+        assertTrue(open.getMessage().contains("fail-open"));
+        assertEquals(ValidationResultType.NETWORK_ERROR, async.getResultType());
+        assertFalse(service.validateTurnstileResponse(TOKEN, null));
+        assertTrue(service.validateTurnstileResponse(TOKEN, null, FallbackPolicy.FAIL_OPEN));
+    }
+
+    @Test
+    void disabledBreakerReportsNoState() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileValidationService service = simulator.service(simulator.properties());
+
+            assertTrue(service.validateTurnstileResponseDetailed(TOKEN, null, FallbackPolicy.FAIL_OPEN).isSuccess());
+            assertEquals(Optional.empty(), service.getCircuitBreakerState());
+        }
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        CircuitBreaker.Settings settings = new CircuitBreaker.Settings(0, 1, 50, Duration.ofSeconds(3), 80, Duration.ofSeconds(30), 1);
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(settings, (from, to) -> { }));
+    }
+}
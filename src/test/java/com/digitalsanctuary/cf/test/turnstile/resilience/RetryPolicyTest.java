@@ -0,0 +1,221 @@
+package com.digitalsanctuary.cf.test.turnstile.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileResponse;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileValidationException;
+import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.resilience.RetryPolicy;
+import com.digitalsanctuary.cf.turnstile.resilience.RetryPolicy.Reason;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SimulatedOutcome;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+
+/**
+ * Tests for {@link RetryPolicy} and the opt-in {@code ds.cf.turnstile.retry.*} integration in {@link TurnstileValidationService}.
+ */
+class RetryPolicyTest {
+
+    private static final String TOKEN = "0123456789012345678901234567890123456789";
+    private static final RetryPolicy.Settings FAST = new RetryPolicy.Settings(3, Duration.ofMillis(1), 2.0, Duration.ofMillis(5),
+            Duration.ofSeconds(5));
+
+    private final TurnstileMetrics metrics = mock(TurnstileMetrics.class);
+
+    private static TurnstileResponse response(boolean success, String... codes) {
+        TurnstileResponse response = new TurnstileResponse();
+        response.setSuccess(success);
+        response.setErrorCodes(List.of(codes));
+        return response;
+    }
+
+    @Test
+    void classifiesOnlyTransientOutcomesAsRetryable() {
+        assertEquals(Reason.CONNECT_FAILURE, RetryPolicy.classify(refused()));
+        assertEquals(Reason.SERVER_ERROR, RetryPolicy.classify(new HttpServerErrorException(HttpStatus.BAD_GATEWAY)));
+        assertEquals(Reason.INTERNAL_ERROR, RetryPolicy.classify(response(false, "internal-error")));
+        assertNull(RetryPolicy.classify(new HttpClientErrorException(HttpStatus.BAD_REQUEST)));
+        assertNull(RetryPolicy.classify(response(false, "timeout-or-duplicate")));
+        assertNull(RetryPolicy.classify(response(false, "invalid-input-response")));
+        assertNull(RetryPolicy.classify(response(false, "internal-error", "timeout-or-duplicate")));
+        assertNull(RetryPolicy.classify(response(true)));
+    }
+
+    @Test
+    void retriesOnlyConnectFailuresAmongIoErrors() {
+        assertEquals(Reason.CONNECT_FAILURE,
+                RetryPolicy.classify(new ResourceAccessException("timed out", new HttpConnectTimeoutException("connect timed out"))));
+        assertEquals(Reason.READ_TIMEOUT, RetryPolicy.classify(new ResourceAccessException("timed out", new HttpTimeoutException("timed out"))));
+        assertNull(RetryPolicy.classify(new ResourceAccessException("reset", new IOException("Connection reset"))));
+        assertNull(RetryPolicy.classify(new ResourceAccessException("interrupted")));
+
+        RetryPolicy policy = new RetryPolicy(FAST, metrics);
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(ResourceAccessException.class, () -> policy.execute(() -> {
+            calls.incrementAndGet();
+            throw new ResourceAccessException("timed out", new HttpTimeoutException("timed out"));
+        }));
+
+        assertEquals(1, calls.get());
+        verify(metrics, never()).recordRetry(anyString());
+        verify(metrics, never()).recordRetryExhausted();
+    }
+
+    @Test
+    void retriesUntilSuccess() {
+        RetryPolicy policy = new RetryPolicy(FAST, metrics);
+        AtomicInteger calls = new AtomicInteger();
+        TurnstileResponse success = response(true);
+
+        TurnstileResponse result = policy.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw refused();
+            }
+            return calls.get() == 2 ? response(false, "internal-error") : success;
+        });
+
+        assertSame(success, result);
+        assertEquals(3, calls.get());
+        verify(metrics).recordRetry("connect_failure");
+        verify(metrics).recordRetry("internal_error");
+        verify(metrics).recordRetryRecovered();
+        verify(metrics, never()).recordRetryExhausted();
+    }
+
+    @Test
+    void stopsAtMaxAttemptsAndRethrowsLastFailure() {
+        RetryPolicy policy = new RetryPolicy(FAST, metrics);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpServerErrorException.class, () -> policy.execute(() -> {
+            calls.incrementAndGet();
+            throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+        }));
+
+        assertEquals(3, calls.get());
+        verify(metrics, times(2)).recordRetry("server_error");
+        verify(metrics).recordRetryExhausted();
+    }
+
+    @Test
+    void finalOutcomesAreNotRetried() {
+        RetryPolicy policy = new RetryPolicy(FAST, metrics);
+        AtomicInteger calls = new AtomicInteger();
+        TurnstileResponse duplicate = response(false, "timeout-or-duplicate");
+
+        assertSame(duplicate, policy.execute(() -> {
+            calls.incrementAndGet();
+            return duplicate;
+        }));
+        assertEquals(1, calls.get());
+        verify(metrics, never()).recordRetryExhausted();
+    }
+
+    @Test
+    void noRetryStartsOutsideTheBudget() {
+        AtomicLong clock = new AtomicLong();
+        RetryPolicy policy = new RetryPolicy(new RetryPolicy.Settings(5, Duration.ZERO, 2.0, Duration.ZERO, Duration.ofSeconds(1)), metrics,
+                clock::get);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(ResourceAccessException.class, () -> policy.execute(() -> {
+            calls.incrementAndGet();
+            clock.addAndGet(Duration.ofMillis(600).toNanos());
+            throw refused();
+        }));
+
+        assertEquals(2, calls.get());
+        verify(metrics).recordRetryExhausted();
+    }
+
+    @Test
+    void asyncRetriesUntilSuccess() throws Exception {
+        RetryPolicy policy = new RetryPolicy(FAST, metrics);
+        AtomicInteger calls = new AtomicInteger();
+
+        TurnstileResponse result = policy.executeAsync(() -> calls.incrementAndGet() < 3
+                ? CompletableFuture.failedFuture(new HttpServerErrorException(HttpStatus.BAD_GATEWAY))
+                : CompletableFuture.completedFuture(response(true))).get();
+
+        assertTrue(result.isSuccess());
+        assertEquals(3, calls.get());
+        verify(metrics).recordRetryRecovered();
+    }
+
+    @Test
+    void serviceRetriesWithOneIdempotencyKey() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).recordRequests().start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getRetry().setEnabled(true);
+            properties.getRetry().setInitialBackoff(Duration.ofMillis(1));
+            TurnstileValidationService service = simulator.service(properties);
+
+            simulator.enqueue(503, "{}");
+            simulator.enqueue(200, "{\"success\":false,\"error-codes\":[\"internal-error\"]}");
+            assertTrue(service.validateTurnstileResponseDetailed(TOKEN, null).isSuccess());
+
+            simulator.enqueue(502, "{}");
+            assertTrue(service.validateAsync(TOKEN + "a", null).get().isSuccess());
+
+            List<String> bodies = simulator.requestBodies();
+            assertEquals(5, bodies.size());
+            String key = idempotencyKey(bodies.get(0));
+            assertEquals(36, key.length());
+            assertEquals(key, idempotencyKey(bodies.get(1)));
+            assertEquals(key, idempotencyKey(bodies.get(2)));
+            assertEquals(idempotencyKey(bodies.get(3)), idempotencyKey(bodies.get(4)));
+            assertTrue(!key.equals(idempotencyKey(bodies.get(3))));
+        }
+    }
+
+    @Test
+    void serviceDoesNotRetryRejectedTokens() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getRetry().setEnabled(true);
+            TurnstileValidationService service = simulator.service(properties);
+            simulator.setDefaultOutcome(SimulatedOutcome.error(TurnstileErrorCode.TIMEOUT_OR_DUPLICATE));
+
+            assertThrows(TurnstileValidationException.class, () -> service.validateTurnstileResponseDetailed(TOKEN, null));
+            ExecutionException async = assertThrows(ExecutionException.class, () -> service.validateAsync(TOKEN, null).get());
+
+            assertInstanceOf(TurnstileValidationException.class, async.getCause());
+            assertEquals(2, simulator.requestCount());
+        }
+    }
+
+    private static ResourceAccessException refused() {
+        return new ResourceAccessException("refused", new ConnectException("Connection refused"));
+    }
+
+    private static String idempotencyKey(String body) {
+        int start = body.indexOf("\"idempotency_key\":\"") + "\"idempotency_key\":\"".length();
+        return body.substring(start, body.indexOf('"', start));
+    }
+}
@@ -0,0 +1,144 @@
+package com.digitalsanctuary.cf.test.turnstile.simulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileNetworkException;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileValidationException;
+import com.digitalsanctuary.cf.turnstile.metrics.NoOpTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.FaultProfile;
+import com.digitalsanctuary.cf.turnstile.simulator.LatencyDistribution;
+import com.digitalsanctuary.cf.turnstile.simulator.SimulatedOutcome;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+
+/**
+ * Tests for {@link SiteverifySimulator}, driven through {@link TurnstileValidationService} over real HTTP.
+ */
+class SiteverifySimulatorTest {
+
+    private static final String SECRET = "0x4AAAAAAASimulatorSecret";
+    private static final String TOKEN = "0123456789012345678901234567890123456789";
+
+    private static TurnstileValidationService service(SiteverifySimulator simulator, boolean fastPath) {
+        TurnstileConfigProperties properties = new TurnstileConfigProperties();
+        properties.setSecret(SECRET);
+        properties.setUrl(simulator.url());
+        properties.getTransport().setFastPath(fastPath);
+        HttpClient httpClient = HttpClient.newHttpClient();
+        RestClient restClient = RestClient.builder().requestFactory(new JdkClientHttpRequestFactory(httpClient)).build();
+        return new TurnstileValidationService(restClient, httpClient, properties, new NoOpTurnstileMetrics());
+    }
+
+    private static TurnstileValidationException rejection(TurnstileValidationService service, String token) {
+        return assertThrows(TurnstileValidationException.class, () -> service.validateTurnstileResponseDetailed(token));
+    }
+
+    @Test
+    void mapsTokenPatternsToOutcomes() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder()
+                .rule("expired-.*", SimulatedOutcome.error(TurnstileErrorCode.TIMEOUT_OR_DUPLICATE))
+                .rule("bad-.*", SimulatedOutcome.error(TurnstileErrorCode.INVALID_INPUT_RESPONSE)).start()) {
+            for (boolean fastPath : new boolean[] {false, true}) {
+                TurnstileValidationService service = service(simulator, fastPath);
+
+                assertTrue(service.validateTurnstileResponseDetailed(fastPath + TOKEN).isSuccess());
+                assertEquals(List.of("invalid-input-response"), rejection(service, "bad-" + fastPath + TOKEN).getErrorCodes());
+                assertEquals(List.of("timeout-or-duplicate"), rejection(service, "expired-" + fastPath + TOKEN).getErrorCodes());
+            }
+        }
+    }
+
+    @Test
+    void rejectsUnexpectedSecret() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().expectedSecret("0x4AAAAAAAOtherSecret").start()) {
+            assertEquals(List.of("invalid-input-secret"), rejection(service(simulator, false), TOKEN).getErrorCodes());
+        }
+    }
+
+    @Test
+    void answersReusedTokenAsDuplicate() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().start()) {
+            TurnstileValidationService service = service(simulator, false);
+
+            assertTrue(service.validateTurnstileResponseDetailed(TOKEN).isSuccess());
+            assertEquals(List.of("timeout-or-duplicate"), rejection(service, TOKEN).getErrorCodes());
+            assertEquals(1, simulator.duplicateCount());
+
+            simulator.reset();
+            assertTrue(service.validateTurnstileResponseDetailed(TOKEN).isSuccess());
+        }
+    }
+
+    @Test
+    void injectsTransportFaults() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().seed(42).start()) {
+            TurnstileValidationService service = service(simulator, true);
+
+            simulator.setFaults(new FaultProfile(1.0, 0, 0, Duration.ZERO));
+            assertThrows(TurnstileNetworkException.class, () -> service.validateTurnstileResponseDetailed("a" + TOKEN));
+
+            simulator.setFaults(new FaultProfile(0, 0, 1.0, Duration.ZERO));
+            assertThrows(TurnstileNetworkException.class, () -> service.validateTurnstileResponseDetailed("b" + TOKEN));
+
+            simulator.setFaults(FaultProfile.none());
+            assertTrue(service.validateTurnstileResponseDetailed("c" + TOKEN).isSuccess());
+            assertEquals(3, simulator.requestCount());
+            assertEquals(2, simulator.injectedFaultCount());
+        }
+    }
+
+    @Test
+    void delaysResponsesByLatencyDistribution() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().latency(LatencyDistribution.fixed(Duration.ofMillis(150))).start()) {
+            long start = System.nanoTime();
+            assertTrue(service(simulator, false).validateTurnstileResponseDetailed(TOKEN).isSuccess());
+
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 150);
+        }
+    }
+
+    @Test
+    void answersBlockingCallsInMemory() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).recordRequests()
+                .rule("bad-.*", SimulatedOutcome.error(TurnstileErrorCode.INVALID_INPUT_RESPONSE)).start()) {
+            TurnstileValidationService service = simulator.inMemoryService(simulator.properties(), new NoOpTurnstileMetrics());
+
+            assertTrue(service.validateTurnstileResponseDetailed(TOKEN).isSuccess());
+            assertEquals(List.of("invalid-input-response"), rejection(service, "bad-" + TOKEN).getErrorCodes());
+            simulator.setFaults(new FaultProfile(0, 0, 1.0, Duration.ZERO));
+            assertThrows(TurnstileNetworkException.class, () -> service.validateTurnstileResponseDetailed(TOKEN));
+
+            assertEquals(3, simulator.requestCount());
+            assertTrue(simulator.requestBodies().get(0).contains(SiteverifySimulator.DEFAULT_SECRET));
+        }
+    }
+
+    @Test
+    void servesQueuedResponsesBeforeVerdicts() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().start()) {
+            TurnstileValidationService service = service(simulator, false);
+            simulator.enqueue(200, "{\"success\":false,\"error-codes\":[\"internal-error\"]}");
+
+            assertEquals(List.of("internal-error"), rejection(service, TOKEN).getErrorCodes());
+            assertTrue(service.validateTurnstileResponseDetailed("a" + TOKEN).isSuccess());
+            assertThrows(IllegalStateException.class, simulator::requestBodies);
+        }
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new FaultProfile(0.6, 0.3, 0.2, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new FaultProfile(-0.1, 0, 0, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.logNormal(Duration.ofMillis(100), Duration.ofMillis(50)));
+        assertThrows(IllegalArgumentException.class, () -> LatencyDistribution.uniform(Duration.ofMillis(100), Duration.ofMillis(50)));
+    }
+}
@@ -0,0 +1,193 @@
+package com.digitalsanctuary.cf.test.turnstile.tenant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.client.RestClient;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileHealthIndicator;
+import com.digitalsanctuary.cf.turnstile.filter.TurnstileCaptchaFilter;
+import com.digitalsanctuary.cf.turnstile.metrics.MicrometerTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.metrics.NoOpTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+import com.digitalsanctuary.cf.turnstile.tenant.TurnstileTenantRegistry;
+import com.digitalsanctuary.cf.turnstile.tenant.TurnstileTenantResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for {@link TurnstileTenantRegistry} and per-tenant validation under {@code ds.cf.turnstile.tenants.*}.
+ */
+class TurnstileTenantRegistryTest {
+
+    private static final String TOKEN = "token-0123456789012345678901234567890";
+    private static final String SHOP_SECRET = "0x4AAAAAAAShopSecretValue";
+    private static final String BLOG_SECRET = "0x4AAAAAAABlogSecretValue";
+
+    private static TurnstileConfigProperties.Tenant tenant(String secret, String... hosts) {
+        TurnstileConfigProperties.Tenant tenant = new TurnstileConfigProperties.Tenant();
+        tenant.setSecret(secret);
+        tenant.setHosts(List.of(hosts));
+        return tenant;
+    }
+
+    private static TurnstileConfigProperties withTenants(TurnstileConfigProperties properties) {
+        properties.getTenants().put("shop", tenant(SHOP_SECRET, "shop.example.com"));
+        properties.getTenants().put("blog", tenant(BLOG_SECRET, "*.blog.example.com", "Blog.Example.COM."));
+        return properties;
+    }
+
+    private static TurnstileTenantRegistry registry(TurnstileConfigProperties properties, TurnstileMetrics metrics) {
+        HttpClient httpClient = HttpClient.newHttpClient();
+        RestClient restClient = RestClient.builder().requestFactory(new JdkClientHttpRequestFactory(httpClient)).build();
+        TurnstileValidationService defaultService = new TurnstileValidationService(restClient, httpClient, properties, metrics);
+        return new TurnstileTenantRegistry(properties, defaultService, restClient, httpClient, metrics);
+    }
+
+    private static TurnstileConfigProperties properties() {
+        TurnstileConfigProperties properties = new TurnstileConfigProperties();
+        properties.setSecret("0x4AAAAAAADefaultSecret");
+        properties.setUrl("http://127.0.0.1:1/siteverify");
+        return properties;
+    }
+
+    @Test
+    void routesByExactHostWildcardAndPort() {
+        TurnstileTenantRegistry registry = registry(withTenants(properties()), new NoOpTurnstileMetrics());
+        TurnstileValidationService shop = registry.getService("shop").orElseThrow();
+        TurnstileValidationService blog = registry.getService("blog").orElseThrow();
+
+        assertSame(shop, registry.resolveHost("shop.example.com"));
+        assertSame(shop, registry.resolveHost("SHOP.example.com:8443"));
+        assertSame(blog, registry.resolveHost("blog.example.com"));
+        assertSame(blog, registry.resolveHost("news.blog.example.com"));
+        assertSame(blog, registry.resolveHost("a.b.blog.example.com"));
+        assertSame(registry.getDefaultService(), registry.resolveHost("other.example.com"));
+        assertSame(registry.getDefaultService(), registry.resolveHost(null));
+        assertEquals(List.of("shop", "blog"), List.copyOf(registry.getTenants().keySet()));
+    }
+
+    @Test
+    void tenantIdTakesPrecedenceOverHost() {
+        TurnstileTenantRegistry registry = registry(withTenants(properties()), new NoOpTurnstileMetrics());
+
+        assertSame(registry.getService("blog").orElseThrow(), registry.resolve("blog", "shop.example.com"));
+
+        // An unknown or absent id falls back to the host lookup
+        assertSame(registry.getService("shop").orElseThrow(), registry.resolve("missing", "shop.example.com"));
+        assertSame(registry.getService("shop").orElseThrow(), registry.resolve(null, "shop.example.com"));
+    }
+
+    @Test
+    void filterConsultsResolverBeforeHost() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).recordRequests().start()) {
+            TurnstileConfigProperties properties = withTenants(simulator.properties());
+            TurnstileTenantRegistry registry = registry(properties, new NoOpTurnstileMetrics());
+            TurnstileTenantResolver resolver = request -> request.getParameter("site");
+            TurnstileCaptchaFilter filter =
+                    new TurnstileCaptchaFilter(registry.getDefaultService(), properties, new NoOpTurnstileMetrics(), registry, resolver);
+
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+            request.setServletPath("/login");
+            request.setServerName("shop.example.com");
+            request.setParameter("site", "blog");
+            request.setParameter("cf-turnstile-response", TOKEN);
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+            assertTrue(simulator.requestBodies().get(0).contains(BLOG_SECRET));
+            assertEquals(1, registry.getService("blog").orElseThrow().getValidationCount());
+            assertEquals(0, registry.getService("shop").orElseThrow().getValidationCount());
+        }
+    }
+
+    @Test
+    void rejectsHostConfiguredForTwoTenants() {
+        TurnstileConfigProperties properties = withTenants(properties());
+        properties.getTenants().put("other", tenant("0x4AAAAAAAOtherSecret", "shop.example.com"));
+        assertThrows(IllegalStateException.class, () -> registry(properties, new NoOpTurnstileMetrics()));
+    }
+
+    @Test
+    void noTenantsRoutesEverythingToDefault() {
+        TurnstileTenantRegistry registry = registry(properties(), new NoOpTurnstileMetrics());
+        assertSame(registry.getDefaultService(), registry.resolve("shop", "shop.example.com"));
+        assertTrue(registry.getTenants().isEmpty());
+    }
+
+    @Test
+    void sendsTenantSecretAndCountsPerTenant() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).recordRequests().start()) {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            TurnstileTenantRegistry registry = registry(withTenants(simulator.properties()), new MicrometerTurnstileMetrics(meterRegistry));
+
+            assertTrue(registry.getService("shop").orElseThrow().validateTurnstileResponse(TOKEN, "10.0.0.1"));
+            assertTrue(registry.getService("blog").orElseThrow().validateTurnstileResponse(TOKEN, "10.0.0.2"));
+            assertTrue(registry.getService("blog").orElseThrow().validateTurnstileResponse(TOKEN, "10.0.0.3"));
+
+            assertTrue(simulator.requestBodies().get(0).contains(SHOP_SECRET));
+            assertTrue(simulator.requestBodies().get(1).contains(BLOG_SECRET));
+            assertEquals(1, registry.getService("shop").orElseThrow().getValidationCount());
+            assertEquals(2, registry.getService("blog").orElseThrow().getValidationCount());
+            assertEquals(0, registry.getDefaultService().getValidationCount());
+            assertEquals(1.0, meterRegistry.get("turnstile.tenant.validations").tags("tenant", "shop", "outcome", "success").counter().count());
+            assertEquals(2.0, meterRegistry.get("turnstile.tenant.validations").tags("tenant", "blog", "outcome", "success").counter().count());
+            // Tenant validations also count towards the library-wide meters
+            assertEquals(3.0, meterRegistry.get("turnstile.validation.success").counter().count());
+        }
+    }
+
+    @Test
+    void filterValidatesWithTenantOfRequestHost() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).recordRequests().start()) {
+            TurnstileConfigProperties properties = withTenants(simulator.properties());
+            TurnstileTenantRegistry registry = registry(properties, new NoOpTurnstileMetrics());
+            TurnstileCaptchaFilter filter =
+                    new TurnstileCaptchaFilter(registry.getDefaultService(), properties, new NoOpTurnstileMetrics(), registry);
+
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+            request.setServletPath("/login");
+            request.setServerName("www.blog.example.com");
+            request.setParameter("cf-turnstile-response", TOKEN);
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+            assertEquals(request, chain.getRequest());
+            assertEquals(1, simulator.requestCount());
+            assertTrue(simulator.requestBodies().get(0).contains(BLOG_SECRET));
+            assertEquals(1, registry.getService("blog").orElseThrow().getValidationCount());
+            assertEquals(0, registry.getDefaultService().getValidationCount());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void healthReportsEachTenant() {
+        TurnstileConfigProperties properties = withTenants(properties());
+        properties.getTenants().get("blog").setSecret(null);
+        TurnstileTenantRegistry registry = registry(properties, new NoOpTurnstileMetrics());
+
+        Health health = new TurnstileHealthIndicator(registry.getDefaultService(), properties, registry).health();
+
+        assertEquals(Status.UP, health.getStatus());
+        Map<String, Map<String, Object>> tenants = (Map<String, Map<String, Object>>) health.getDetails().get("tenants");
+        assertEquals("UP", tenants.get("shop").get("status"));
+        assertNull(tenants.get("shop").get("reason"));
+        assertEquals("DOWN", tenants.get("blog").get("status"));
+        assertEquals(0L, tenants.get("blog").get("validationCount"));
+        assertFalse(new TurnstileHealthIndicator(registry.getDefaultService(), properties).health().getDetails().containsKey("tenants"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.digitalsanctuary.cf.test.turnstile.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileNetworkException;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.LatencyDistribution;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+import com.digitalsanctuary.cf.turnstile.transport.AdaptiveTimeout;
+
+/**
+ * Tests for {@link AdaptiveTimeout} and the opt-in {@code ds.cf.turnstile.adaptive-timeout.*} integration in {@link TurnstileValidationService}.
+ */
+class AdaptiveTimeoutTest {
+
+    private static final String TOKEN = "0123456789012345678901234567890123456789";
+
+    private static long millis(long ms) {
+        return Duration.ofMillis(ms).toNanos();
+    }
+
+    @Test
+    void usesCeilingUntilEnoughSamples() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(100, 50, 3.0, Duration.ofMillis(100), Duration.ofSeconds(10));
+        for (int i = 0; i < 49; i++) {
+            timeout.record(millis(20));
+        }
+
+        assertEquals(Duration.ofSeconds(10), timeout.current());
+        assertNull(timeout.p99());
+    }
+
+    @Test
+    void tracksMultipleOfP99WithinBounds() {
+        AdaptiveTimeout timeout = new AdaptiveTimeout(100, 50, 3.0, Duration.ofMillis(100), Duration.ofSeconds(10));
+        for (int i = 0; i < 99; i++) {
+            timeout.record(millis(50));
+        }
+        timeout.record(millis(150));
+
+        assertEquals(Duration.ofMillis(50), timeout.p99());
+        assertEquals(Duration.ofMillis(150), timeout.current());
+
+        for (int i = 0; i < 100; i++) {
+            timeout.record(millis(10));
+        }
+        assertEquals(Duration.ofMillis(100), timeout.current());
+
+        for (int i = 0; i < 100; i++) {
+            timeout.record(millis(20_000));
+        }
+        assertEquals(Duration.ofSeconds(10), timeout.current());
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveTimeout(0, 1, 3.0, Duration.ZERO, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveTimeout(10, 1, 3.0, Duration.ofSeconds(2), Duration.ofSeconds(1)));
+    }
+
+    @Test
+    void millisecondTimeoutsOverrideWholeSeconds() {
+        TurnstileConfigProperties properties = new TurnstileConfigProperties();
+        assertEquals(Duration.ofSeconds(10), properties.resolveReadTimeout());
+
+        properties.getTimeout().setRead(Duration.ofMillis(250));
+        properties.getTimeout().setConnect(Duration.ofMillis(75));
+
+        assertEquals(Duration.ofMillis(250), properties.resolveReadTimeout());
+        assertEquals(Duration.ofMillis(75), properties.resolveConnectTimeout());
+    }
+
+    @Test
+    void serviceCutsOffRequestsAtAdaptedDeadline() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getAdaptiveTimeout().setEnabled(true);
+            properties.getAdaptiveTimeout().setWindowSize(20);
+            properties.getAdaptiveTimeout().setMinSamples(20);
+            properties.getAdaptiveTimeout().setFloor(Duration.ofMillis(300));
+            TurnstileValidationService service = simulator.service(properties);
+
+            assertEquals(Duration.ofSeconds(10), service.getEffectiveReadTimeout());
+            for (int i = 0; i < 20; i++) {
+                assertTrue(service.validateTurnstileResponseDetailed(TOKEN + i, null).isSuccess());
+            }
+            assertEquals(Duration.ofMillis(300), service.getEffectiveReadTimeout());
+
+            simulator.setLatency(LatencyDistribution.fixed(Duration.ofSeconds(2)));
+            long start = System.nanoTime();
+            assertThrows(TurnstileNetworkException.class, () -> service.validateTurnstileResponseDetailed(TOKEN + "slow", null));
+            ExecutionException async = assertThrows(ExecutionException.class, () -> service.validateAsync(TOKEN + "slower", null).get());
+
+            assertTrue(async.getCause() instanceof TurnstileNetworkException);
+            assertTrue(System.nanoTime() - start < Duration.ofMillis(1900).toNanos());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.digitalsanctuary.cf.test.turnstile.transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.SSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.ConfigurationPropertiesAutoConfiguration;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import com.digitalsanctuary.cf.turnstile.TurnstileConfiguration;
+import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+import com.digitalsanctuary.cf.turnstile.transport.InstrumentedHttpClient;
+
+/**
+ * Tests for {@link InstrumentedHttpClient} and the {@code ds.cf.turnstile.transport.*} settings of the {@code turnstileHttpClient} bean.
+ */
+class InstrumentedHttpClientTest {
+
+    private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner().withConfiguration(
+            AutoConfigurations.of(ConfigurationPropertiesAutoConfiguration.class, TurnstileConfiguration.class));
+
+    @Test
+    void countsEveryNewSslEngineAsAConnection() throws Exception {
+        AtomicInteger engines = new AtomicInteger();
+        SSLContext context = InstrumentedHttpClient.countingSslContext(SSLContext.getDefault(), engines::incrementAndGet);
+
+        context.createSSLEngine("challenges.cloudflare.com", 443);
+        context.createSSLEngine("challenges.cloudflare.com", 443);
+
+        assertThat(engines).hasValue(2);
+        assertThat(context.getDefaultSSLParameters().getProtocols()).isNotEmpty();
+    }
+
+    @Test
+    void countsRequestsByResponseVersion() throws Exception {
+        TurnstileMetrics metrics = mock(TurnstileMetrics.class);
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start();
+                InstrumentedHttpClient client = new InstrumentedHttpClient(HttpClient.newBuilder(), metrics, null)) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(simulator.url())).POST(HttpRequest.BodyPublishers.ofString("{}")).build();
+
+            client.send(request, HttpResponse.BodyHandlers.ofString());
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).get();
+
+            assertThat(client.getRequestCount()).isEqualTo(2);
+            assertThat(client.getConnectionCount()).isZero();
+            verify(metrics, times(2)).recordTransportRequest("http_1_1");
+        }
+    }
+
+    @Test
+    void defaultClientPrefersHttp2() {
+        contextRunner.run(context -> {
+            HttpClient httpClient = context.getBean("turnstileHttpClient", HttpClient.class);
+            assertThat(httpClient).isInstanceOf(InstrumentedHttpClient.class);
+            assertThat(httpClient.version()).isEqualTo(HttpClient.Version.HTTP_2);
+        });
+    }
+
+    @Test
+    void dedicatedExecutorAndVersionAreApplied() {
+        contextRunner.withPropertyValues("ds.cf.turnstile.transport.executor-threads=2", "ds.cf.turnstile.transport.http-version=HTTP_1_1")
+                .run(context -> {
+                    HttpClient httpClient = context.getBean("turnstileHttpClient", HttpClient.class);
+                    assertThat(httpClient.version()).isEqualTo(HttpClient.Version.HTTP_1_1);
+                    assertThat(httpClient.executor()).isPresent();
+
+                    CompletableFuture<String> threadName = new CompletableFuture<>();
+                    httpClient.executor().get().execute(() -> threadName.complete(Thread.currentThread().getName()));
+                    assertThat(threadName.get()).startsWith("turnstile-http-");
+                });
+    }
+
+    @Test
+    void shutdownStopsOwnedExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        HttpClient.Builder builder = HttpClient.newBuilder().executor(executor);
+        InstrumentedHttpClient client = new InstrumentedHttpClient(builder, mock(TurnstileMetrics.class), executor);
+        assertThat(client.isTerminated()).isFalse();
+
+        client.shutdown();
+
+        assertThat(executor.isShutdown()).isTrue();
+        assertThat(client.awaitTermination(Duration.ofSeconds(5))).isTrue();
+        assertThat(client.isTerminated()).isTrue();
+    }
+
+    @Test
+    void shutdownNowStopsOwnedExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        HttpClient.Builder builder = HttpClient.newBuilder().executor(executor);
+        InstrumentedHttpClient client = new InstrumentedHttpClient(builder, mock(TurnstileMetrics.class), executor);
+
+        client.shutdownNow();
+
+        assertThat(executor.isShutdown()).isTrue();
+        assertThat(client.awaitTermination(Duration.ofSeconds(5))).isTrue();
+    }
+}
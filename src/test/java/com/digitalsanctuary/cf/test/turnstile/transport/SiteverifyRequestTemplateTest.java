@@ -0,0 +1,85 @@
+package com.digitalsanctuary.cf.test.turnstile.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties.BodyEncoding;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileValidationException;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SimulatedOutcome;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+import com.digitalsanctuary.cf.turnstile.transport.SiteverifyRequestTemplate;
+
+/**
+ * Tests for {@link SiteverifyRequestTemplate} and the opt-in {@code ds.cf.turnstile.transport.fast-path} blocking path.
+ */
+class SiteverifyRequestTemplateTest {
+
+    private static final String URL = "https://challenges.cloudflare.com/turnstile/v0/siteverify";
+    private static final String TOKEN = "0.abcDEF-123_xyz.0123456789012345678901234567890123456789";
+
+    private static String encode(SiteverifyRequestTemplate template, String token, String ip, String key) {
+        return new String(template.encode(token, ip, key), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void encodesJsonBody() {
+        SiteverifyRequestTemplate template = new SiteverifyRequestTemplate(URL, "secret", BodyEncoding.JSON);
+
+        assertEquals("{\"secret\":\"secret\",\"response\":\"" + TOKEN + "\"}", encode(template, TOKEN, null, null));
+        assertEquals("{\"secret\":\"secret\",\"response\":\"" + TOKEN + "\",\"remoteip\":\"2001:db8::1\",\"idempotency_key\":\"k-1\"}",
+                encode(template, TOKEN, "2001:db8::1", "k-1"));
+        assertEquals("application/json", template.contentType());
+    }
+
+    @Test
+    void escapesReservedCharactersInJson() {
+        SiteverifyRequestTemplate template = new SiteverifyRequestTemplate(URL, "se\"cret", BodyEncoding.JSON);
+
+        assertEquals("{\"secret\":\"se\\\"cret\",\"response\":\"a\\\\b\\nc\\u00e9\"}", encode(template, "a\\b\nc\u00e9", null, null));
+    }
+
+    @Test
+    void encodesFormBody() {
+        SiteverifyRequestTemplate template = new SiteverifyRequestTemplate(URL, "s&cret", BodyEncoding.FORM);
+
+        assertEquals("secret=s%26cret&response=" + TOKEN, encode(template, TOKEN, null, null));
+        assertEquals("secret=s%26cret&response=a+b%3D&remoteip=10.0.0.1&idempotency_key=k-1", encode(template, "a b=", "10.0.0.1", "k-1"));
+        assertEquals("application/x-www-form-urlencoded", template.contentType());
+    }
+
+    @Test
+    void matchesOnlyTheSettingsItWasBuiltFor() {
+        SiteverifyRequestTemplate template = new SiteverifyRequestTemplate(URL, "secret", BodyEncoding.JSON);
+
+        assertTrue(template.matches(URL, "secret", BodyEncoding.JSON));
+        assertFalse(template.matches(URL, "other", BodyEncoding.JSON));
+        assertFalse(template.matches(URL, "secret", BodyEncoding.FORM));
+        assertFalse(template.matches("http://localhost/siteverify", "secret", BodyEncoding.JSON));
+        assertEquals(URL, template.uri().toString());
+    }
+
+    @Test
+    void fastPathSendsPreEncodedBodyWithSameResults() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).recordRequests().start()) {
+            TurnstileConfigProperties properties = simulator.properties();
+            properties.getTransport().setFastPath(true);
+            properties.getTransport().setBodyEncoding(BodyEncoding.FORM);
+            TurnstileValidationService service = simulator.service(properties);
+
+            ValidationResult result = service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1");
+
+            assertTrue(result.isSuccess());
+            assertEquals("secret=" + properties.getSecret() + "&response=" + TOKEN + "&remoteip=10.0.0.1", simulator.requestBodies().get(0));
+
+            simulator.setDefaultOutcome(SimulatedOutcome.error(TurnstileErrorCode.INVALID_INPUT_RESPONSE));
+            assertThrows(TurnstileValidationException.class, () -> service.validateTurnstileResponseDetailed(TOKEN + "x", "10.0.0.1"));
+        }
+    }
+}
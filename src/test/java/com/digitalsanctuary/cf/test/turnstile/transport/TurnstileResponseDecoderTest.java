@@ -0,0 +1,147 @@
+package com.digitalsanctuary.cf.test.turnstile.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClientException;
+import com.digitalsanctuary.cf.turnstile.dto.TokenRequest;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileResponse;
+import com.digitalsanctuary.cf.turnstile.dto.ValidationResult;
+import com.digitalsanctuary.cf.turnstile.exception.TurnstileValidationException;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.digitalsanctuary.cf.turnstile.simulator.SimulatedOutcome;
+import com.digitalsanctuary.cf.turnstile.simulator.SiteverifySimulator;
+import com.digitalsanctuary.cf.turnstile.transport.JdkSiteverifyTransport;
+import com.digitalsanctuary.cf.turnstile.transport.TurnstileResponseDecoder;
+
+/**
+ * Unit tests for {@link TurnstileResponseDecoder}, which maps siteverify JSON onto {@link TurnstileResponse}, and for the shared
+ * {@link ValidationResult} instances built from its error codes.
+ */
+class TurnstileResponseDecoderTest {
+
+    private static final String TOKEN = "0123456789012345678901234567890123456789";
+
+    @Test
+    void decodesSuccessfulResponse() {
+        TurnstileResponse response = TurnstileResponseDecoder.decode(
+                "{\"success\":true,\"challenge_ts\":\"2023-01-01T12:00:00Z\",\"hostname\":\"example.com\",\"error-codes\":[]}");
+
+        assertTrue(response.isSuccess());
+        assertEquals("2023-01-01T12:00:00Z", response.getChallengeTs());
+        assertEquals("example.com", response.getHostname());
+        assertEquals(List.of(), response.getErrorCodes());
+    }
+
+    @Test
+    void decodesErrorCodes() {
+        TurnstileResponse response = TurnstileResponseDecoder.decode(
+                "{ \"success\": false, \"error-codes\": [\"invalid-input-response\", \"timeout-or-duplicate\"] }");
+
+        assertFalse(response.isSuccess());
+        assertEquals(List.of("invalid-input-response", "timeout-or-duplicate"), response.getErrorCodes());
+    }
+
+    @Test
+    void skipsUnknownMembers() {
+        TurnstileResponse response = TurnstileResponseDecoder.decode("{\"action\":\"login\",\"cdata\":null,\"metadata\":{\"ephemeral_id\":\"x\","
+                + "\"nested\":[1,2,{\"a\":true}]},\"success\":true,\"hostname\":\"ex\\u0061mple.com\"}");
+
+        assertTrue(response.isSuccess());
+        assertEquals("example.com", response.getHostname());
+    }
+
+    @Test
+    void returnsNullForEmptyBody() {
+        assertNull(TurnstileResponseDecoder.decode(""));
+        assertNull(TurnstileResponseDecoder.decode(null));
+    }
+
+    @Test
+    void rejectsMalformedBody() {
+        assertThrows(IllegalArgumentException.class, () -> TurnstileResponseDecoder.decode("{\"success\":tru"));
+        assertThrows(IllegalArgumentException.class, () -> TurnstileResponseDecoder.decode("<html>"));
+    }
+
+    @Test
+    void rejectsInvalidSkippedValues() {
+        assertThrows(IllegalArgumentException.class, () -> TurnstileResponseDecoder.decode("{\"action\":garbage,\"success\":true}"));
+        assertThrows(IllegalArgumentException.class, () -> TurnstileResponseDecoder.decode("{\"cdata\":nullx,\"success\":true}"));
+        assertThrows(IllegalArgumentException.class, () -> TurnstileResponseDecoder.decode("{\"n\":012,\"success\":true}"));
+        assertThrows(IllegalArgumentException.class, () -> TurnstileResponseDecoder.decode("{\"n\":1.e5,\"success\":true}"));
+        assertThrows(IllegalArgumentException.class, () -> TurnstileResponseDecoder.decode("{\"success\":true} trailing"));
+        assertTrue(TurnstileResponseDecoder.decode("{\"n\":[-0.5e+10,0,12,false,null],\"success\":true}").isSuccess());
+    }
+
+    @Test
+    void rejectsDeeplyNestedValuesWithoutOverflowingStack() {
+        String deep = "{\"metadata\":" + "[".repeat(100_000) + "]".repeat(100_000) + ",\"success\":true}";
+        String allowed = "{\"metadata\":" + "[".repeat(31) + "]".repeat(31) + ",\"success\":true}";
+
+        assertThrows(IllegalArgumentException.class, () -> TurnstileResponseDecoder.decode(deep));
+        assertThrows(RestClientException.class, () -> JdkSiteverifyTransport.decodeBody(deep.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(TurnstileResponseDecoder.decode(allowed).isSuccess());
+    }
+
+    @Test
+    void returnsSharedListsForKnownCodes() {
+        TurnstileResponse single = TurnstileResponseDecoder.decode("{\"success\":false,\"error-codes\":[\"timeout-or-duplicate\"]}");
+        TurnstileResponse none = TurnstileResponseDecoder.decodeUtf8("{\"success\":true,\"error-codes\":[]}".getBytes(StandardCharsets.UTF_8));
+
+        assertSame(TurnstileErrorCode.TIMEOUT_OR_DUPLICATE.asList(), single.getErrorCodes());
+        assertSame(Collections.emptyList(), none.getErrorCodes());
+    }
+
+    @Test
+    void roundTripsUnknownCodes() {
+        TurnstileResponse response = TurnstileResponseDecoder.decode(
+                "{\"success\":false,\"error-codes\":[\"internal-error\",\"some-new-code\",\"caf\u00e9\",\"esc\\\"aped\"]}");
+
+        assertEquals(List.of("internal-error", "some-new-code", "caf\u00e9", "esc\"aped"), response.getErrorCodes());
+        assertEquals(Set.of(TurnstileErrorCode.INTERNAL_ERROR), TurnstileErrorCode.setOf(response.getErrorCodes()));
+    }
+
+    @Test
+    void returnsNullForBlankBytes() {
+        assertNull(TurnstileResponseDecoder.decodeUtf8(" \n".getBytes(StandardCharsets.UTF_8)));
+        assertNull(TurnstileResponseDecoder.decodeUtf8(null));
+    }
+
+    @Test
+    void rejectionsAllocateNoStackTraceOrResult() throws Exception {
+        try (SiteverifySimulator simulator = SiteverifySimulator.builder().duplicateMemory(0).start()) {
+            simulator.setDefaultOutcome(SimulatedOutcome.error(TurnstileErrorCode.INVALID_INPUT_RESPONSE));
+            TurnstileValidationService service = simulator.service(simulator.properties());
+
+            TurnstileValidationException rejected = assertThrows(TurnstileValidationException.class,
+                    () -> service.validateTurnstileResponseDetailed(TOKEN, "10.0.0.1"));
+            List<ValidationResult> results = service.validateAll(List.of(new TokenRequest(TOKEN, "10.0.0.1")));
+
+            assertEquals(0, rejected.getStackTrace().length);
+            assertEquals(List.of("invalid-input-response"), rejected.getErrorCodes());
+            assertSame(ValidationResult.invalidToken(TurnstileErrorCode.INVALID_INPUT_RESPONSE.asList()), results.get(0));
+        }
+    }
+
+    @Test
+    void sharesImmutableValidationResults() {
+        assertSame(ValidationResult.success(), ValidationResult.success());
+        assertSame(ValidationResult.invalidToken(List.of("invalid-input-response")), ValidationResult.invalidToken(List.of("invalid-input-response")));
+        assertEquals(Set.of(TurnstileErrorCode.INVALID_INPUT_RESPONSE),
+                ValidationResult.invalidToken(List.of("invalid-input-response")).getErrorCodeSet());
+
+        ValidationResult unknown = ValidationResult.invalidToken(List.of("bad-request", "future-code"));
+        assertEquals(List.of("bad-request", "future-code"), unknown.getErrorCodes());
+        assertEquals(Set.of(TurnstileErrorCode.BAD_REQUEST), unknown.getErrorCodeSet());
+        assertTrue(ValidationResult.success().getErrorCodeSet().isEmpty());
+    }
+}
@@ -0,0 +1,52 @@
+package com.digitalsanctuary.cf.turnstile.simulator;
+
+import java.time.Duration;
+
+/**
+ * The share of requests a {@link SiteverifySimulator} fails at the transport level instead of answering.
+ * <p>
+ * Each request draws at most one fault. A server error answers with a random 500, 502 or 503 status and a non-JSON body. A timeout holds the
+ * request for {@code hang} and then closes the connection without a response. A reset closes the connection at once without a response. The
+ * rates are fractions of all requests and may add up to at most 1.
+ * </p>
+ *
+ * @param serverErrorRate the share of requests answered with a 5xx status
+ * @param timeoutRate the share of requests held for {@code hang} and then dropped
+ * @param resetRate the share of requests dropped at once
+ * @param hang how long a timed-out request is held; set it above the client's read timeout
+ */
+public record FaultProfile(double serverErrorRate, double timeoutRate, double resetRate, Duration hang) {
+
+    private static final FaultProfile NONE = new FaultProfile(0, 0, 0, Duration.ZERO);
+
+    /**
+     * Creates a fault profile.
+     *
+     * @param serverErrorRate the share of requests answered with a 5xx status
+     * @param timeoutRate the share of requests held for {@code hang} and then dropped
+     * @param resetRate the share of requests dropped at once
+     * @param hang how long a timed-out request is held
+     * @throws IllegalArgumentException if a rate is outside 0 to 1, the rates add up to more than 1, or {@code hang} is negative
+     */
+    public FaultProfile {
+        if (!isRate(serverErrorRate) || !isRate(timeoutRate) || !isRate(resetRate) || serverErrorRate + timeoutRate + resetRate > 1.0) {
+            throw new IllegalArgumentException("Fault rates must be between 0 and 1 and add up to at most 1");
+        }
+        if (hang == null || hang.isNegative()) {
+            throw new IllegalArgumentException("hang must not be negative");
+        }
+    }
+
+    /**
+     * Gets the profile that injects no faults.
+     *
+     * @return the profile
+     */
+    public static FaultProfile none() {
+        return NONE;
+    }
+
+    private static boolean isRate(double rate) {
+        return rate >= 0.0 && rate <= 1.0;
+    }
+}
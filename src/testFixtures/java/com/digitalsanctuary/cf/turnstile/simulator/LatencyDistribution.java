@@ -0,0 +1,74 @@
+package com.digitalsanctuary.cf.turnstile.simulator;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * The response delay a {@link SiteverifySimulator} adds before answering a request.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * Draws the delay for one request.
+     *
+     * @param random the simulator's random source
+     * @return the delay in milliseconds, zero or more
+     */
+    long sampleMillis(Random random);
+
+    /**
+     * Gets a distribution that never delays.
+     *
+     * @return the distribution
+     */
+    static LatencyDistribution none() {
+        return random -> 0;
+    }
+
+    /**
+     * Gets a distribution that always delays by the same time.
+     *
+     * @param delay the delay
+     * @return the distribution
+     */
+    static LatencyDistribution fixed(Duration delay) {
+        long millis = delay.toMillis();
+        return random -> millis;
+    }
+
+    /**
+     * Gets a distribution that delays uniformly between two bounds.
+     *
+     * @param min the shortest delay
+     * @param max the longest delay
+     * @return the distribution
+     * @throws IllegalArgumentException if {@code max} is shorter than {@code min}
+     */
+    static LatencyDistribution uniform(Duration min, Duration max) {
+        long low = min.toMillis();
+        long high = max.toMillis();
+        if (high < low) {
+            throw new IllegalArgumentException("max must not be shorter than min");
+        }
+        return random -> low + (long) (random.nextDouble() * (high - low + 1));
+    }
+
+    /**
+     * Gets a log-normal distribution fitted to a median and a 99th percentile, which has the long right tail of real network latency.
+     *
+     * @param median the median delay, positive
+     * @param p99 the 99th percentile delay, not shorter than the median
+     * @return the distribution
+     * @throws IllegalArgumentException if the median is not positive or the 99th percentile is shorter than it
+     */
+    static LatencyDistribution logNormal(Duration median, Duration p99) {
+        if (median.toMillis() <= 0 || p99.compareTo(median) < 0) {
+            throw new IllegalArgumentException("median must be positive and p99 must not be shorter than median");
+        }
+        double mu = Math.log(median.toMillis());
+        // 2.326 is the z-score of the 99th percentile of the standard normal distribution
+        double sigma = (Math.log(p99.toMillis()) - mu) / 2.326;
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+}
@@ -0,0 +1,59 @@
+package com.digitalsanctuary.cf.turnstile.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+
+/**
+ * The siteverify verdict a {@link SiteverifySimulator} returns for a token.
+ *
+ * @param successful the value of the {@code success} member
+ * @param errorCodes the values of the {@code error-codes} member
+ */
+public record SimulatedOutcome(boolean successful, List<String> errorCodes) {
+
+    private static final SimulatedOutcome SUCCESS = new SimulatedOutcome(true, List.of());
+
+    /**
+     * Creates an outcome, copying the error codes.
+     *
+     * @param successful the value of the {@code success} member
+     * @param errorCodes the values of the {@code error-codes} member
+     */
+    public SimulatedOutcome {
+        errorCodes = List.copyOf(errorCodes);
+    }
+
+    /**
+     * Gets the successful outcome.
+     *
+     * @return an outcome with {@code success} true and no error codes
+     */
+    public static SimulatedOutcome success() {
+        return SUCCESS;
+    }
+
+    /**
+     * Creates a failed outcome with known error codes.
+     *
+     * @param codes the error codes to return
+     * @return an outcome with {@code success} false
+     */
+    public static SimulatedOutcome error(TurnstileErrorCode... codes) {
+        List<String> errorCodes = new ArrayList<>(codes.length);
+        for (TurnstileErrorCode code : codes) {
+            errorCodes.add(code.getCode());
+        }
+        return new SimulatedOutcome(false, errorCodes);
+    }
+
+    /**
+     * Creates a failed outcome with arbitrary error code strings, for example codes Cloudflare may add later.
+     *
+     * @param codes the error codes to return
+     * @return an outcome with {@code success} false
+     */
+    public static SimulatedOutcome error(String... codes) {
+        return new SimulatedOutcome(false, List.of(codes));
+    }
+}
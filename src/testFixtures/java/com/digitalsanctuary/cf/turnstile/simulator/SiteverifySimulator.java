@@ -0,0 +1,800 @@
+package com.digitalsanctuary.cf.turnstile.simulator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+import com.digitalsanctuary.cf.turnstile.config.TurnstileConfigProperties;
+import com.digitalsanctuary.cf.turnstile.dto.TurnstileErrorCode;
+import com.digitalsanctuary.cf.turnstile.metrics.NoOpTurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.metrics.TurnstileMetrics;
+import com.digitalsanctuary.cf.turnstile.service.TurnstileValidationService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embeddable HTTP server implementing Cloudflare's siteverify contract, for load and resilience testing without reaching Cloudflare.
+ * <p>
+ * Point {@code ds.cf.turnstile.url} at {@link #url()} and the library talks to the simulator exactly as it would to Cloudflare. Requests are
+ * accepted as form or JSON bodies. The verdict for a token comes from the first rule whose pattern matches the whole token, or from the default
+ * outcome when none does. A missing secret or token, or a secret other than the expected one when one is set, is answered with the matching
+ * Cloudflare error code before the rules are consulted.
+ * </p>
+ * <p>
+ * Every request is delayed by a draw from the {@link LatencyDistribution} and may then be failed at the transport level according to the
+ * {@link FaultProfile}. Both can be changed while the simulator runs, to inject faults partway through a load test.
+ * </p>
+ * <p>
+ * Like Cloudflare, the simulator remembers the tokens it has verified and answers a second verification of the same token with
+ * {@code timeout-or-duplicate}, unless it carries the same {@code idempotency_key} as the first, in which case the first verdict is repeated.
+ * The memory holds the most recent {@code duplicateMemory} tokens; a size of 0 turns duplicate detection off.
+ * </p>
+ * <p>
+ * For tests that need more control than the contract gives, responses can be held back until {@link #release()}, raw responses can be queued
+ * with {@link #enqueue(int, String)}, and request bodies can be recorded. {@link #service(TurnstileConfigProperties)} builds a validation service
+ * that talks to the simulator, and {@link #inMemoryService(TurnstileConfigProperties, TurnstileMetrics)} one whose blocking calls are answered
+ * without a connection, for benchmarks that should measure the library rather than the network.
+ * </p>
+ *
+ * <pre>{@code
+ * try (SiteverifySimulator simulator = SiteverifySimulator.builder()
+ *         .rule("fail-.*", SimulatedOutcome.error(TurnstileErrorCode.INVALID_INPUT_RESPONSE))
+ *         .latency(LatencyDistribution.logNormal(Duration.ofMillis(40), Duration.ofMillis(250)))
+ *         .start()) {
+ *     properties.setUrl(simulator.url());
+ *     ...
+ * }
+ * }</pre>
+ *
+ * @see <a href="https://developers.cloudflare.com/turnstile/get-started/server-side-validation/">Cloudflare Turnstile Server-Side Validation</a>
+ */
+public final class SiteverifySimulator implements AutoCloseable {
+
+    /**
+     * The non-test secret {@link #properties()} sets when no expected secret is configured.
+     */
+    public static final String DEFAULT_SECRET = "0x4AAAAAAASimulatorSecretValue";
+
+    private static final int[] SERVER_ERROR_STATUSES = {500, 502, 503};
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String path;
+    private final List<Rule> rules;
+    private final String expectedSecret;
+    private final String hostname;
+    private final Random random;
+    private final Map<String, Verified> verified;
+    private final Queue<Response> scripted = new ConcurrentLinkedQueue<>();
+    private final Queue<String> requestBodies;
+    private volatile SimulatedOutcome defaultOutcome;
+    private volatile LatencyDistribution latency;
+    private volatile FaultProfile faults;
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedFaults = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+
+    private SiteverifySimulator(Builder builder) throws IOException {
+        this.path = builder.path;
+        this.rules = List.copyOf(builder.rules);
+        this.defaultOutcome = builder.defaultOutcome;
+        this.expectedSecret = builder.expectedSecret;
+        this.hostname = builder.hostname;
+        this.random = builder.seed != null ? new Random(builder.seed) : new Random();
+        this.latency = builder.latency;
+        this.faults = builder.faults;
+        this.requestBodies = builder.recordRequests ? new ConcurrentLinkedQueue<>() : null;
+        int memory = builder.duplicateMemory;
+        this.verified = memory > 0 ? new LinkedHashMap<String, Verified>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+                return size() > memory;
+            }
+        } : null;
+
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "siteverify-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(builder.host, builder.port), builder.backlog);
+        server.setExecutor(executor);
+        server.createContext(path, this::handle);
+        server.start();
+    }
+
+    /**
+     * Creates a builder for a simulator that, by default, answers every token with success, without delay or faults, on an ephemeral loopback
+     * port.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Runs a simulator with default settings until the process is stopped.
+     *
+     * @param args an optional port to listen on, 8787 by default
+     * @throws IOException if the server cannot be started
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8787;
+        SiteverifySimulator simulator = builder().port(port).start();
+        System.out.println("Siteverify simulator listening on " + simulator.url());
+    }
+
+    /**
+     * Gets the siteverify URL to set as {@code ds.cf.turnstile.url}.
+     *
+     * @return the URL
+     */
+    public String url() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort() + path;
+    }
+
+    /**
+     * Creates properties pointing at this simulator, with the expected secret if one is set and a non-test secret otherwise.
+     *
+     * @return the configuration properties
+     */
+    public TurnstileConfigProperties properties() {
+        TurnstileConfigProperties properties = new TurnstileConfigProperties();
+        properties.setSecret(expectedSecret != null ? expectedSecret : DEFAULT_SECRET);
+        properties.setUrl(url());
+        return properties;
+    }
+
+    /**
+     * Creates a validation service that sends to this simulator over HTTP.
+     *
+     * @param properties the configuration properties, typically from {@link #properties()}
+     * @return the validation service
+     */
+    public TurnstileValidationService service(TurnstileConfigProperties properties) {
+        return service(properties, new NoOpTurnstileMetrics());
+    }
+
+    /**
+     * Creates a validation service that sends to this simulator over HTTP and records to the given metrics.
+     *
+     * @param properties the configuration properties, typically from {@link #properties()}
+     * @param metrics the metrics implementation
+     * @return the validation service
+     */
+    public TurnstileValidationService service(TurnstileConfigProperties properties, TurnstileMetrics metrics) {
+        HttpClient httpClient = HttpClient.newHttpClient();
+        RestClient restClient = RestClient.builder().requestFactory(new JdkClientHttpRequestFactory(httpClient)).build();
+        return new TurnstileValidationService(restClient, httpClient, properties, metrics);
+    }
+
+    /**
+     * Creates a validation service whose blocking {@code RestClient} calls are answered in memory, without opening a connection.
+     * <p>
+     * The answers go through the same latency, fault, hold and verdict logic as HTTP requests, so the simulator's own parsing is part of any
+     * measured allocation. A simulated timeout hangs for the fault profile's full hang time, since no read timeout applies in memory. The
+     * asynchronous and fast-path calls still use HTTP.
+     * </p>
+     *
+     * @param properties the configuration properties, typically from {@link #properties()}
+     * @param metrics the metrics implementation
+     * @return the validation service
+     */
+    public TurnstileValidationService inMemoryService(TurnstileConfigProperties properties, TurnstileMetrics metrics) {
+        ClientHttpRequestFactory factory = InMemoryRequest::new;
+        RestClient restClient = RestClient.builder().requestFactory(factory).build();
+        return new TurnstileValidationService(restClient, HttpClient.newHttpClient(), properties, metrics);
+    }
+
+    /**
+     * Replaces the outcome for tokens that match no rule, for subsequent requests.
+     *
+     * @param outcome the outcome
+     */
+    public void setDefaultOutcome(SimulatedOutcome outcome) {
+        this.defaultOutcome = outcome;
+    }
+
+    /**
+     * Queues a raw response, served to the next request after its latency draw in place of fault injection and the verdict. Queued responses
+     * are served in order, which lets a test script bodies and statuses the contract never produces.
+     *
+     * @param status the HTTP status
+     * @param body the response body, sent as JSON
+     */
+    public void enqueue(int status, String body) {
+        scripted.add(new Response(status, "application/json", body.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Holds back the responses to subsequent requests until {@link #release()} is called. Held requests are counted and recorded on arrival.
+     */
+    public synchronized void hold() {
+        if (gate.getCount() == 0) {
+            gate = new CountDownLatch(1);
+        }
+    }
+
+    /**
+     * Lets held-back requests complete and stops holding new ones.
+     */
+    public synchronized void release() {
+        gate.countDown();
+    }
+
+    /**
+     * Gets the bodies of the requests received so far, in arrival order.
+     *
+     * @return the request bodies
+     * @throws IllegalStateException if the simulator was not built with {@link Builder#recordRequests()}
+     */
+    public List<String> requestBodies() {
+        if (requestBodies == null) {
+            throw new IllegalStateException("Request bodies are only kept when the simulator is built with recordRequests()");
+        }
+        return List.copyOf(requestBodies);
+    }
+
+    /**
+     * Replaces the latency distribution for subsequent requests.
+     *
+     * @param latency the latency distribution
+     */
+    public void setLatency(LatencyDistribution latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Replaces the fault profile for subsequent requests.
+     *
+     * @param faults the fault profile
+     */
+    public void setFaults(FaultProfile faults) {
+        this.faults = faults;
+    }
+
+    /**
+     * Gets the number of requests received so far, including those that were failed by fault injection.
+     *
+     * @return the request count
+     */
+    public long requestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Gets the number of requests failed by fault injection so far.
+     *
+     * @return the injected fault count
+     */
+    public long injectedFaultCount() {
+        return injectedFaults.get();
+    }
+
+    /**
+     * Gets the number of requests answered with {@code timeout-or-duplicate} because the token had been verified before.
+     *
+     * @return the duplicate count
+     */
+    public long duplicateCount() {
+        return duplicates.get();
+    }
+
+    /**
+     * Forgets every verified token, queued response and recorded request, and resets the counters.
+     */
+    public void reset() {
+        if (verified != null) {
+            synchronized (verified) {
+                verified.clear();
+            }
+        }
+        scripted.clear();
+        if (requestBodies != null) {
+            requestBodies.clear();
+        }
+        requests.set(0);
+        injectedFaults.set(0);
+        duplicates.set(0);
+    }
+
+    @Override
+    public void close() {
+        release();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Response response = respond(exchange.getRequestBody().readAllBytes(), exchange.getRequestHeaders().getFirst("Content-Type"));
+            if (response == null) {
+                // Closing an exchange before its response headers are sent closes the connection with no response
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", response.contentType());
+            exchange.sendResponseHeaders(response.status(), response.body().length);
+            exchange.getResponseBody().write(response.body());
+        }
+    }
+
+    /**
+     * Answers one request, over HTTP or in memory.
+     *
+     * @return the response, or null if the connection is to be dropped without one
+     */
+    private Response respond(byte[] requestBody, String contentType) {
+        requests.incrementAndGet();
+        if (requestBodies != null) {
+            requestBodies.add(new String(requestBody, StandardCharsets.UTF_8));
+        }
+        try {
+            gate.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sleep(latency.sampleMillis(random));
+
+        Response next = scripted.poll();
+        if (next != null) {
+            return next;
+        }
+
+        FaultProfile profile = faults;
+        double roll = random.nextDouble();
+        if (roll < profile.serverErrorRate()) {
+            injectedFaults.incrementAndGet();
+            return new Response(SERVER_ERROR_STATUSES[random.nextInt(SERVER_ERROR_STATUSES.length)], "text/html",
+                    "<html><body>Service unavailable</body></html>".getBytes(StandardCharsets.UTF_8));
+        }
+        roll -= profile.serverErrorRate();
+        if (roll < profile.timeoutRate() + profile.resetRate()) {
+            injectedFaults.incrementAndGet();
+            if (roll < profile.timeoutRate()) {
+                sleep(profile.hang().toMillis());
+            }
+            return null;
+        }
+
+        Map<String, String> params = contentType != null && contentType.startsWith("application/json") ? parseJson(requestBody)
+                : parseForm(requestBody);
+        return new Response(200, "application/json", toJson(verdict(params)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private SimulatedOutcome verdict(Map<String, String> params) {
+        String secret = params.get("secret");
+        if (secret == null || secret.isEmpty()) {
+            return SimulatedOutcome.error(TurnstileErrorCode.MISSING_INPUT_SECRET);
+        }
+        if (expectedSecret != null && !expectedSecret.equals(secret)) {
+            return SimulatedOutcome.error(TurnstileErrorCode.INVALID_INPUT_SECRET);
+        }
+        String token = params.get("response");
+        if (token == null || token.isEmpty()) {
+            return SimulatedOutcome.error(TurnstileErrorCode.MISSING_INPUT_RESPONSE);
+        }
+        SimulatedOutcome outcome = match(token);
+        if (verified == null) {
+            return outcome;
+        }
+        String idempotencyKey = params.get("idempotency_key");
+        synchronized (verified) {
+            Verified previous = verified.get(token);
+            if (previous == null) {
+                verified.put(token, new Verified(idempotencyKey, outcome));
+                return outcome;
+            }
+            if (idempotencyKey != null && idempotencyKey.equals(previous.idempotencyKey())) {
+                return previous.outcome();
+            }
+        }
+        duplicates.incrementAndGet();
+        return SimulatedOutcome.error(TurnstileErrorCode.TIMEOUT_OR_DUPLICATE);
+    }
+
+    private SimulatedOutcome match(String token) {
+        for (Rule rule : rules) {
+            if (rule.pattern().matcher(token).matches()) {
+                return rule.outcome();
+            }
+        }
+        return defaultOutcome;
+    }
+
+    private String toJson(SimulatedOutcome outcome) {
+        StringBuilder json = new StringBuilder(128).append("{\"success\":").append(outcome.successful());
+        if (outcome.successful()) {
+            json.append(",\"challenge_ts\":\"").append(Instant.now().truncatedTo(ChronoUnit.MILLIS)).append("\",\"hostname\":\"").append(hostname)
+                    .append("\",\"action\":\"\",\"cdata\":\"\"");
+        }
+        json.append(",\"error-codes\":[");
+        for (int i = 0; i < outcome.errorCodes().size(); i++) {
+            json.append(i > 0 ? ",\"" : "\"").append(outcome.errorCodes().get(i)).append('"');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static Map<String, String> parseForm(byte[] body) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : new String(body, StandardCharsets.US_ASCII).split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Reads the string members of a flat JSON object, which is all a siteverify request contains. Other members are ignored.
+     */
+    private static Map<String, String> parseJson(byte[] body) {
+        String json = new String(body, StandardCharsets.UTF_8);
+        Map<String, String> params = new HashMap<>();
+        int pos = 0;
+        while (true) {
+            int nameStart = json.indexOf('"', pos);
+            if (nameStart < 0) {
+                return params;
+            }
+            StringBuilder name = new StringBuilder();
+            pos = readString(json, nameStart + 1, name);
+            while (pos < json.length() && (Character.isWhitespace(json.charAt(pos)) || json.charAt(pos) == ':')) {
+                pos++;
+            }
+            if (pos < json.length() && json.charAt(pos) == '"') {
+                StringBuilder value = new StringBuilder();
+                pos = readString(json, pos + 1, value);
+                params.put(name.toString(), value.toString());
+            } else {
+                // Skip a non-string value up to the next member
+                int next = json.indexOf(',', pos);
+                if (next < 0) {
+                    return params;
+                }
+                pos = next + 1;
+            }
+        }
+    }
+
+    /**
+     * Reads a JSON string starting after its opening quote into {@code out}.
+     *
+     * @return the position after the closing quote
+     */
+    private static int readString(String json, int pos, StringBuilder out) {
+        while (pos < json.length()) {
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                return pos;
+            }
+            if (c == '\\' && pos < json.length()) {
+                char escaped = json.charAt(pos++);
+                switch (escaped) {
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 't' -> out.append('\t');
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'u' -> {
+                        out.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> out.append(escaped);
+                }
+            } else {
+                out.append(c);
+            }
+        }
+        return pos;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Rule(Pattern pattern, SimulatedOutcome outcome) {
+    }
+
+    private record Verified(String idempotencyKey, SimulatedOutcome outcome) {
+    }
+
+    private record Response(int status, String contentType, byte[] body) {
+    }
+
+    /**
+     * A {@code RestClient} request answered by {@link #respond(byte[], String)} when it is executed.
+     */
+    private final class InMemoryRequest extends AbstractClientHttpRequest {
+
+        private final URI uri;
+        private final HttpMethod method;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        private InMemoryRequest(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        protected OutputStream getBodyInternal(HttpHeaders headers) {
+            return body;
+        }
+
+        @Override
+        protected ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+            Response response = respond(body.toByteArray(), headers.getFirst(HttpHeaders.CONTENT_TYPE));
+            if (response == null) {
+                throw new IOException("Connection reset by siteverify simulator");
+            }
+            return new InMemoryResponse(response);
+        }
+    }
+
+    private static final class InMemoryResponse implements ClientHttpResponse {
+
+        private final Response response;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private InMemoryResponse(Response response) {
+            this.response = response;
+            headers.add(HttpHeaders.CONTENT_TYPE, response.contentType());
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatusCode.valueOf(response.status());
+        }
+
+        @Override
+        public String getStatusText() {
+            HttpStatus status = HttpStatus.resolve(response.status());
+            return status != null ? status.getReasonPhrase() : "";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(response.body());
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Builder for {@link SiteverifySimulator}.
+     */
+    public static final class Builder {
+
+        private String host = "127.0.0.1";
+        private int port;
+        private int backlog = 1024;
+        private String path = "/siteverify";
+        private final List<Rule> rules = new ArrayList<>();
+        private SimulatedOutcome defaultOutcome = SimulatedOutcome.success();
+        private String expectedSecret;
+        private String hostname = "localhost";
+        private LatencyDistribution latency = LatencyDistribution.none();
+        private FaultProfile faults = FaultProfile.none();
+        private int duplicateMemory = 100_000;
+        private boolean recordRequests;
+        private Long seed;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the address to bind to. Defaults to {@code 127.0.0.1}.
+         *
+         * @param host the host name or address
+         * @return this builder
+         */
+        public Builder host(String host) {
+            this.host = host;
+            return this;
+        }
+
+        /**
+         * Sets the port to listen on. Defaults to 0, an ephemeral port.
+         *
+         * @param port the port
+         * @return this builder
+         */
+        public Builder port(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Sets the accept backlog, which bounds the connections waiting to be accepted under load. Defaults to 1024.
+         *
+         * @param backlog the backlog
+         * @return this builder
+         */
+        public Builder backlog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        /**
+         * Sets the request path. Defaults to {@code /siteverify}.
+         *
+         * @param path the path
+         * @return this builder
+         */
+        public Builder path(String path) {
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * Adds a rule answering tokens that match a regular expression with an outcome. Rules are tried in the order they were added and the
+         * pattern must match the whole token.
+         *
+         * @param tokenPattern the regular expression
+         * @param outcome the outcome for matching tokens
+         * @return this builder
+         */
+        public Builder rule(String tokenPattern, SimulatedOutcome outcome) {
+            rules.add(new Rule(Pattern.compile(tokenPattern), outcome));
+            return this;
+        }
+
+        /**
+         * Sets the outcome for tokens that match no rule. Defaults to success.
+         *
+         * @param outcome the outcome
+         * @return this builder
+         */
+        public Builder defaultOutcome(SimulatedOutcome outcome) {
+            this.defaultOutcome = outcome;
+            return this;
+        }
+
+        /**
+         * Sets the only secret the simulator accepts; any other is answered with {@code invalid-input-secret}. By default any non-empty secret is
+         * accepted.
+         *
+         * @param secret the secret
+         * @return this builder
+         */
+        public Builder expectedSecret(String secret) {
+            this.expectedSecret = secret;
+            return this;
+        }
+
+        /**
+         * Sets the {@code hostname} returned with successful verdicts. Defaults to {@code localhost}.
+         *
+         * @param hostname the hostname
+         * @return this builder
+         */
+        public Builder hostname(String hostname) {
+            this.hostname = hostname;
+            return this;
+        }
+
+        /**
+         * Sets the latency distribution. Defaults to {@link LatencyDistribution#none()}.
+         *
+         * @param latency the latency distribution
+         * @return this builder
+         */
+        public Builder latency(LatencyDistribution latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Sets the fault profile. Defaults to {@link FaultProfile#none()}.
+         *
+         * @param faults the fault profile
+         * @return this builder
+         */
+        public Builder faults(FaultProfile faults) {
+            this.faults = faults;
+            return this;
+        }
+
+        /**
+         * Sets how many verified tokens are remembered for duplicate detection, or 0 to turn it off. Defaults to 100000.
+         *
+         * @param tokens the number of tokens to remember
+         * @return this builder
+         */
+        public Builder duplicateMemory(int tokens) {
+            this.duplicateMemory = tokens;
+            return this;
+        }
+
+        /**
+         * Keeps the body of every request for {@link SiteverifySimulator#requestBodies()}. Off by default, since the bodies of a long load test
+         * would fill the heap.
+         *
+         * @return this builder
+         */
+        public Builder recordRequests() {
+            this.recordRequests = true;
+            return this;
+        }
+
+        /**
+         * Seeds the random source behind latency and fault draws, so that a single-threaded run is reproducible.
+         *
+         * @param seed the seed
+         * @return this builder
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Starts the simulator.
+         *
+         * @return the running simulator
+         * @throws IOException if the server cannot be started
+         */
+        public SiteverifySimulator start() throws IOException {
+            return new SiteverifySimulator(this);
+        }
+    }
+}